@@ -0,0 +1,128 @@
+package dji.sampleV5.aircraft.data
+
+import dji.v5.utils.common.FileUtils
+import dji.v5.utils.common.LogUtils
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.CharBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.CodingErrorAction
+
+/**
+ * 崩溃日志目录的索引
+ *
+ * [refresh] 只读取文件的名称、修改时间和大小，修改时间和大小没变的文件沿用上次的条目，不读取内容。
+ * 文件内容通过 [readPage] 按页内存映射读取，只有打开的那一页进入内存。
+ */
+class CrashLogIndex(private val dir: File) {
+
+    companion object {
+        private const val TAG = "CrashLogIndex"
+        const val DEFAULT_PAGE_BYTES = 32 * 1024
+
+        /**
+         * 页尾往回找换行符的最大距离，找不到时直接在页尾截断
+         */
+        private const val MAX_LINE_BACKTRACK = 1024
+    }
+
+    data class Entry(
+        val file: File,
+        val name: String,
+        val lastModified: Long,
+        val size: Long
+    )
+
+    /**
+     * @param offset     本页在文件中的起始位置
+     * @param nextOffset 下一页的起始位置
+     * @param fileSize   读取时的文件大小，日志还在写入时可能大于 [Entry.size]
+     */
+    data class Page(
+        val entry: Entry,
+        val text: String,
+        val offset: Long,
+        val nextOffset: Long,
+        val fileSize: Long
+    ) {
+        val hasMore: Boolean
+            get() = nextOffset < fileSize
+    }
+
+    private val lock = Any()
+    private var entries: List<Entry> = emptyList()
+    private val entryByPath = HashMap<String, Entry>()
+
+    /**
+     * 重新扫描目录，返回按修改时间从新到旧排序的条目
+     *
+     * @return 有文件新增、修改或删除时为 true
+     */
+    fun refresh(): Boolean {
+        val files = if (dir.exists()) FileUtils.getAllFile(dir) else emptyList<File>()
+        synchronized(lock) {
+            var changed = files.size != entryByPath.size
+            val scanned = HashMap<String, Entry>(files.size)
+            for (file in files) {
+                val lastModified = file.lastModified()
+                val size = file.length()
+                val old = entryByPath[file.path]
+                scanned[file.path] = if (old != null && old.lastModified == lastModified && old.size == size) {
+                    old
+                } else {
+                    changed = true
+                    Entry(file, file.name, lastModified, size)
+                }
+            }
+            if (changed) {
+                entryByPath.clear()
+                entryByPath.putAll(scanned)
+                entries = scanned.values.sortedWith(compareByDescending<Entry> { it.lastModified }.thenBy { it.name })
+            }
+            return changed
+        }
+    }
+
+    fun getEntries(): List<Entry> = synchronized(lock) { entries }
+
+    /**
+     * 从 offset 开始读取一页，页尾尽量停在换行处，多字节字符被截断时留到下一页
+     */
+    fun readPage(entry: Entry, offset: Long = 0, pageBytes: Int = DEFAULT_PAGE_BYTES): Page {
+        val size = entry.file.length()
+        if (offset >= size) {
+            return Page(entry, "", offset, size, size)
+        }
+        try {
+            RandomAccessFile(entry.file, "r").use { raf ->
+                val length = minOf(pageBytes.toLong(), size - offset).toInt()
+                val buffer = raf.channel.map(FileChannel.MapMode.READ_ONLY, offset, length.toLong())
+                val isLast = offset + length >= size
+                if (!isLast) {
+                    for (i in length - 1 downTo maxOf(0, length - MAX_LINE_BACKTRACK)) {
+                        if (buffer.get(i) == '\n'.code.toByte()) {
+                            buffer.limit(i + 1)
+                            break
+                        }
+                    }
+                }
+                val decoder = Charsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                val chars = CharBuffer.allocate(buffer.remaining())
+                // endOfInput 为 false 时末尾不完整的字符留在 buffer 中，从下一页开头重新解码
+                decoder.decode(buffer, chars, isLast)
+                if (isLast) {
+                    decoder.flush(chars)
+                }
+                chars.flip()
+                val consumed = buffer.position().takeIf { it > 0 } ?: buffer.limit()
+                return Page(entry, chars.toString(), offset, offset + consumed, size)
+            }
+        } catch (e: IOException) {
+            LogUtils.e(TAG, "read ${entry.name} error ${e.message}")
+            return Page(entry, "", offset, size, size)
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package dji.sampleV5.aircraft.data
+
+import android.graphics.Bitmap
+import android.graphics.ImageFormat
+import android.graphics.Rect
+import android.graphics.YuvImage
+import dji.v5.manager.interfaces.ICameraStreamManager
+import dji.v5.manager.interfaces.ICameraStreamManager.FrameFormat
+import dji.v5.utils.common.LogUtils
+import java.io.BufferedOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.util.ArrayDeque
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 连续抓取相机码流帧并写入文件
+ *
+ * onFrame 中只把数据拷贝到缓存池里的帧，编码和写文件在写线程池中完成，不阻塞码流回调。
+ * 缓存池用完时丢弃最早一个还没开始写的帧（drop-oldest），写线程都忙时丢弃当前帧。
+ * 可以按帧数间隔和最大帧率抽帧。
+ */
+class FrameCapturePipeline(
+    private val dir: File,
+    private val config: Config,
+    private val listener: Listener? = null
+) : ICameraStreamManager.CameraFrameListener {
+
+    companion object {
+        private const val TAG = "FrameCapturePipeline"
+
+        /**
+         * 可以编码成 JPEG 的格式
+         */
+        private val JPEG_FORMATS = setOf(FrameFormat.NV21, FrameFormat.YUY2, FrameFormat.RGBA_8888)
+    }
+
+    enum class Output {
+        RAW,
+
+        /**
+         * 只支持 NV21、YUY2 和 RGBA，其他格式按 RAW 写入
+         */
+        JPEG
+    }
+
+    /**
+     * @param namePrefix   文件名前缀，文件名为 前缀_序号.后缀
+     * @param keepEvery    每 keepEvery 帧保留一帧
+     * @param maxFps       保留帧的最大帧率，0 表示不限
+     * @param maxFrames    抓够后自动停止，0 表示不限
+     * @param poolSize     缓存帧数量
+     * @param writerThreads 写线程数量
+     */
+    data class Config(
+        val namePrefix: String,
+        val output: Output = Output.RAW,
+        val keepEvery: Int = 1,
+        val maxFps: Float = 0f,
+        val maxFrames: Int = 0,
+        val poolSize: Int = 4,
+        val writerThreads: Int = 2,
+        val jpegQuality: Int = 90
+    )
+
+    interface Listener {
+        /**
+         * maxFrames 个序号的帧都已写完（或在写之前被丢弃）时在写线程回调
+         */
+        fun onComplete(pipeline: FrameCapturePipeline)
+    }
+
+    data class Stats(
+        val received: Long,
+        val decimated: Long,
+        val captured: Long,
+        val dropped: Long,
+        val written: Long,
+        val writeErrors: Long,
+        val averageWriteMs: Double,
+        val maxWriteMs: Double
+    )
+
+    private class Frame {
+        var data = ByteArray(0)
+        var length = 0
+        var width = 0
+        var height = 0
+        var format = FrameFormat.NV21
+        var seq = 0L
+    }
+
+    private val lock = Any()
+    private val freeFrames = ArrayDeque<Frame>()
+    private val pendingFrames = ArrayDeque<Frame>()
+    private val writers: ExecutorService
+    private val minIntervalNs = if (config.maxFps > 0) (1_000_000_000L / config.maxFps).toLong() else 0L
+    private var lastKeptNs = 0L
+
+    @Volatile
+    private var running = true
+    private val completed = AtomicBoolean(false)
+
+    private val received = AtomicLong()
+    private val decimated = AtomicLong()
+    private val captured = AtomicLong()
+    private val dropped = AtomicLong()
+
+    /**
+     * 已经分配了序号、还没写就被复用或丢弃的帧，达到 maxFrames 的判断要把它们算进去
+     */
+    private val discarded = AtomicLong()
+    private val written = AtomicLong()
+    private val writeErrors = AtomicLong()
+    private val writeNsSum = AtomicLong()
+    private val writeNsMax = AtomicLong()
+
+    init {
+        if (!dir.exists()) {
+            dir.mkdirs()
+        }
+        repeat(config.poolSize) { freeFrames.add(Frame()) }
+        val threadIndex = AtomicInteger()
+        writers = Executors.newFixedThreadPool(config.writerThreads) {
+            Thread(it, "frame-writer-${threadIndex.incrementAndGet()}")
+        }
+    }
+
+    override fun onFrame(frameData: ByteArray, offset: Int, length: Int, width: Int, height: Int, format: FrameFormat) {
+        if (!running) {
+            return
+        }
+        val count = received.incrementAndGet()
+        val now = System.nanoTime()
+        val frame: Frame
+        synchronized(lock) {
+            if (config.keepEvery > 1 && (count - 1) % config.keepEvery != 0L
+                || minIntervalNs > 0 && lastKeptNs != 0L && now - lastKeptNs < minIntervalNs
+            ) {
+                decimated.incrementAndGet()
+                return
+            }
+            if (config.maxFrames > 0 && captured.get() >= config.maxFrames) {
+                return
+            }
+            // 没有空闲的帧时复用最早一个还没开始写的帧
+            frame = freeFrames.poll() ?: pendingFrames.poll()?.also {
+                dropped.incrementAndGet()
+                discarded.incrementAndGet()
+            } ?: run {
+                dropped.incrementAndGet()
+                return
+            }
+            lastKeptNs = now
+            if (frame.data.size < length) {
+                frame.data = ByteArray(length)
+            }
+            System.arraycopy(frameData, offset, frame.data, 0, length)
+            frame.length = length
+            frame.width = width
+            frame.height = height
+            frame.format = format
+            frame.seq = captured.getAndIncrement()
+            pendingFrames.add(frame)
+        }
+        try {
+            writers.execute { writeNext() }
+        } catch (e: RejectedExecutionException) {
+            // 已经 stop，这一帧不再写入
+            synchronized(lock) {
+                if (pendingFrames.remove(frame)) {
+                    freeFrames.add(frame)
+                    dropped.incrementAndGet()
+                    discarded.incrementAndGet()
+                }
+            }
+        }
+    }
+
+    private fun writeNext() {
+        val frame = synchronized(lock) { pendingFrames.poll() } ?: return
+        val start = System.nanoTime()
+        try {
+            write(frame)
+            written.incrementAndGet()
+        } catch (e: IOException) {
+            writeErrors.incrementAndGet()
+            LogUtils.e(TAG, "write frame ${frame.seq} error ${e.message}")
+        }
+        val cost = System.nanoTime() - start
+        writeNsSum.addAndGet(cost)
+        writeNsMax.accumulateAndGet(cost) { a, b -> maxOf(a, b) }
+        synchronized(lock) {
+            freeFrames.add(frame)
+        }
+        // 复用最早的帧时总会放入一个新帧，所以被丢弃的序号之后一定还有一次写入来做这个判断
+        val done = written.get() + writeErrors.get() + discarded.get()
+        if (config.maxFrames > 0 && done >= config.maxFrames && completed.compareAndSet(false, true)) {
+            running = false
+            listener?.onComplete(this)
+        }
+    }
+
+    private fun write(frame: Frame) {
+        val jpeg = config.output == Output.JPEG && frame.format in JPEG_FORMATS
+        val file = File(dir, "${config.namePrefix}_${frame.seq}.${if (jpeg) "jpg" else "image"}")
+        BufferedOutputStream(FileOutputStream(file)).use { stream ->
+            if (!jpeg) {
+                stream.write(frame.data, 0, frame.length)
+            } else if (frame.format == FrameFormat.RGBA_8888) {
+                val bitmap = Bitmap.createBitmap(frame.width, frame.height, Bitmap.Config.ARGB_8888)
+                bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(frame.data, 0, frame.length))
+                bitmap.compress(Bitmap.CompressFormat.JPEG, config.jpegQuality, stream)
+                bitmap.recycle()
+            } else {
+                val imageFormat = if (frame.format == FrameFormat.NV21) ImageFormat.NV21 else ImageFormat.YUY2
+                YuvImage(frame.data, imageFormat, frame.width, frame.height, null)
+                    .compressToJpeg(Rect(0, 0, frame.width, frame.height), config.jpegQuality, stream)
+            }
+        }
+    }
+
+    fun isRunning(): Boolean = running
+
+    /**
+     * 停止接收新帧，已经拷贝的帧写完后释放写线程
+     */
+    fun stop() {
+        running = false
+        writers.shutdown()
+    }
+
+    /**
+     * 等待已接收的帧写完
+     */
+    fun awaitWritten(timeoutMs: Long): Boolean = writers.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)
+
+    fun getStats(): Stats {
+        val done = written.get() + writeErrors.get()
+        return Stats(
+            received.get(), decimated.get(), captured.get(), dropped.get(), written.get(), writeErrors.get(),
+            if (done == 0L) 0.0 else writeNsSum.get() / 1e6 / done, writeNsMax.get() / 1e6
+        )
+    }
+
+    fun getDir(): File = dir
+}
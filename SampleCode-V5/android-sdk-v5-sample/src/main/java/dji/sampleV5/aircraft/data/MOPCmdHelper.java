@@ -1,36 +1,63 @@
 package dji.sampleV5.aircraft.data;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 
-import dji.v5.manager.mop.DataResult;
-import dji.v5.manager.mop.Pipeline;
-import dji.v5.utils.common.LogUtils;
+import androidx.annotation.NonNull;
+import dji.v5.ux.core.util.ObjectPool;
 
 
 /**
  * 利用MOP通道，实现自定的文件上传下载协议
  */
 public class MOPCmdHelper {
-    private static final byte CMD_REQ = 0x50;
-    private static final byte CMD_ACK = 0x51;
-    private static final byte CMD_TRANS_ACK = 0x52;
-    private static final byte CMD_FILE_INFO = 0x60;
+    static final byte CMD_REQ = 0x50;
+    static final byte CMD_ACK = 0x51;
+    static final byte CMD_TRANS_ACK = 0x52;
+    static final byte CMD_FILE_INFO = 0x60;
     private static final byte CMD_DOWNLOAD = 0x61;
     private static final byte CMD_FILE_DATA = 0x62;
     private static final byte CMD_FILE_TRANS_FAIL = 0x63;
     private static final byte CMD_FILE_TRANS_FAIL_ACK = 0x64;
-    private static final byte CMD_0 = 0x00;
-    private static final byte CMD_1 = 0x01;
+    static final byte CMD_0 = 0x00;
+    static final byte CMD_1 = 0x01;
     public static final int PACK_HEADER_SIZE = 8;
     public static final int PACK_FILE_INFO_SIZE = 53;
     public static final String UPLOAD_FILE = "uploadFile: ";
 
     private static final int FILE_NAME_LENGTH = 32;
+    /**
+     * 每个数据包携带的文件字节数
+     */
+    private static final int PACK_DATA_SIZE = 3072;
+    /**
+     * 文件每次映射的窗口大小，必须是 PACK_DATA_SIZE 的整数倍
+     */
+    private static final int MAP_WINDOW_SIZE = PACK_DATA_SIZE * 1024;
+    private static final long PROGRESS_INTERVAL_MS = 200;
+    private static final long FILE_INFO_TIMEOUT_MS = 10_000;
+    /**
+     * readData 立即返回错误时的重试间隔，超时的情况 readData 已经等待过
+     */
+    private static final long RETRY_INTERVAL_MS = 20;
+
+    /**
+     * 数据包缓存，每个上传中的通道占用一个
+     */
+    private static final ObjectPool<byte[]> PACKET_POOL = new ObjectPool<byte[]>(4) {
+        @NonNull
+        @Override
+        protected byte[] create() {
+            return new byte[PACK_HEADER_SIZE + PACK_DATA_SIZE];
+        }
+    };
 
     private static final String TAG = MOPCmdHelper.class.getSimpleName();
 
@@ -41,6 +68,17 @@ public class MOPCmdHelper {
         return cmd;
     }
 
+    /**
+     * 带窗口模式参数的请求头，不支持的对端会忽略 byte[2..3]
+     */
+    public static byte[] getUploadFileHeader(MOPWindowTransfer.Config config) {
+        byte[] cmd = getUploadFileHeader();
+        if (config != null) {
+            config.writeTo(cmd);
+        }
+        return cmd;
+    }
+
     public static byte[] getDownloadFileHeader() {
         byte[] cmd = new byte[PACK_HEADER_SIZE];
         cmd[0] = CMD_REQ;
@@ -58,28 +96,51 @@ public class MOPCmdHelper {
 
     public static byte[] getFileDataHeader(int size, int flag) {
         byte[] cmd = new byte[PACK_HEADER_SIZE];
+        fillFileDataHeader(cmd, size, flag);
+        return cmd;
+    }
+
+    private static void fillFileDataHeader(byte[] cmd, int size, int flag) {
         cmd[0] = CMD_FILE_DATA;
         cmd[1] = (byte) flag;
+        cmd[2] = 0;
+        cmd[3] = 0;
         cmd[4] = (byte) (size & 0xff);
         cmd[5] = (byte) (size >> 8 & 0xff);
         cmd[6] = (byte) (size >> 16 & 0xff);
         cmd[7] = (byte) (size >> 24 & 0xff);
-        return cmd;
     }
 
-    public static boolean sendDownloadCmd(Pipeline p) {
+    public static boolean sendDownloadCmd(MOPLink p) {
         byte[] cmd = getDownloadFileHeader();
-        DataResult result = p.writeData(cmd);
-        if (result.getLength() > 0) {
+        int result = p.writeData(cmd);
+        if (result > 0) {
             return parseCommonAck(p);
         }
         return false;
     }
 
-    public static FileInfo sendDownloadFileReq(Pipeline p, String filename, PipelineAdapter.OnEventListener listener) {
-        if (!sendDownloadCmd(p)) {
+    public static FileInfo sendDownloadFileReq(MOPLink p, String filename, PipelineAdapter.OnEventListener listener) {
+        return sendDownloadFileReq(p, filename, MOPWindowTransfer.Config.DEFAULT, listener);
+    }
+
+    /**
+     * @param config 期望的窗口模式参数，为 null 时只使用原有流程。协商结果见 {@link FileInfo#getTransferConfig()}
+     */
+    public static FileInfo sendDownloadFileReq(MOPLink p, String filename, MOPWindowTransfer.Config config,
+                                               PipelineAdapter.OnEventListener listener) {
+        byte[] cmd = getDownloadFileHeader();
+        if (config != null) {
+            config.writeTo(cmd);
+        }
+        if (p.writeData(cmd) <= 0) {
+            return null;
+        }
+        byte[] ack = readAck(p);
+        if (!isCommonAck(ack)) {
             return null;
         }
+        MOPWindowTransfer.Config negotiated = config == null ? null : config.negotiate(ack);
         byte[] header = getDownloadFile();
         byte[] chars = filename.getBytes();
 
@@ -91,32 +152,24 @@ public class MOPCmdHelper {
             req[header.length + chars.length] = '\0';
         }
         // 发送请求,要下载的文件
-        DataResult result = p.writeData(req);
-        if (result.getLength() > 0) {
+        int result = p.writeData(req);
+        if (result > 0) {
 
-            LogUtils.i(TAG, "sendDownloadFileReq ack: Success", "/MOP");
-            // 读取文件信息
+            MOPLog.i(TAG, "sendDownloadFileReq ack: Success");
+            // 读取文件信息，能获取MD5等信息。readData 自身会等待到超时，不需要再 sleep
             byte[] fileInfoBuff = new byte[MOPCmdHelper.PACK_HEADER_SIZE + MOPCmdHelper.PACK_FILE_INFO_SIZE];
-            int sum = 0;
-            while (sum < fileInfoBuff.length) {
-                // 能获取MD5等信息
-                int len = p.readData(fileInfoBuff).getLength();
-
-                if (len > 0) {
-                    // 由于read不支持offset，这里处理fileInfoBuff的拼接，应该使用临时的byte[]来copyArray
-                    sum += len;
-                    LogUtils.e(TAG, "sendDownloadFileReq download:" + sum, "/MOP");
-                } else {
-                    try {
-                        Thread.sleep(20);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        LogUtils.e(TAG, e.getMessage());
-                    }
-                }
+            int sum = MOPWindowTransfer.readFully(p, fileInfoBuff, fileInfoBuff.length, FILE_INFO_TIMEOUT_MS);
+            if (sum < fileInfoBuff.length) {
+                MOPLog.e(TAG, "sendDownloadFileReq file info: " + sum);
+                postResultTipEvent(TipEvent.DOWNLOAD, "file info timeout", null, listener);
+                return null;
             }
 
-            return FileInfo.parse(fileInfoBuff);
+            FileInfo fileInfo = FileInfo.parse(fileInfoBuff);
+            if (fileInfo != null) {
+                fileInfo.transferConfig = negotiated;
+            }
+            return fileInfo;
 
         } else {
             postResultTipEvent(TipEvent.DOWNLOAD, "request failure", null, listener);
@@ -125,7 +178,7 @@ public class MOPCmdHelper {
         return null;
     }
 
-    public static int sendTransFileFailReq(Pipeline pipeline, long length) {
+    public static int sendTransFileFailReq(MOPLink pipeline, long length) {
         byte[] buff = new byte[12];
         buff[0] = CMD_FILE_TRANS_FAIL;
         buff[1] = (byte) 0xFF;
@@ -136,13 +189,13 @@ public class MOPCmdHelper {
         buff[11] = (byte) (length >> 24 & 0xff);
 
         int len = getInt(buff, PACK_HEADER_SIZE, 4);
-        int result = pipeline.writeData(buff).getLength();
-        LogUtils.i(TAG, "sendTransFileFailReq:" + result, "/MOP");
-        LogUtils.i(TAG, "len:" + len, "/MOP");
+        int result = pipeline.writeData(buff);
+        MOPLog.i(TAG, "sendTransFileFailReq:" + result);
+        MOPLog.i(TAG, "len:" + len);
         return result;
     }
 
-    public static int sendTransFileFailAck(Pipeline pipeline, long length) {
+    public static int sendTransFileFailAck(MOPLink pipeline, long length) {
         byte[] buff = new byte[12];
         buff[0] = CMD_FILE_TRANS_FAIL_ACK;
         buff[1] = (byte) 0xFF;
@@ -151,59 +204,73 @@ public class MOPCmdHelper {
         buff[9] = (byte) (length >> 8 & 0xff);
         buff[10] = (byte) (length >> 16 & 0xff);
         buff[11] = (byte) (length >> 24 & 0xff);
-        int result = pipeline.writeData(buff).getLength();
-        LogUtils.i(TAG, "sendTransFileFailAck:" + result, "/MOP");
+        int result = pipeline.writeData(buff);
+        MOPLog.i(TAG, "sendTransFileFailAck:" + result);
         return result;
     }
 
-    public static int parseTransFileFailAck(Pipeline p) {
+    /**
+     * @return 对端已收到的长度，通道关闭时返回 -1
+     */
+    public static int parseTransFileFailAck(MOPLink p) {
         byte[] buff = new byte[12];
-        int size;
         // 读取回包
-        while (((size = p.readData(buff).getLength()) < 0)) {
-            try {
-                Thread.sleep(20);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                LogUtils.e(TAG, e.getMessage());
-            }
-            LogUtils.i(TAG, "parseTransFileFailAck wait ack: " + size, "/MOP");
+        if (waitPacket(p, buff, "parseTransFileFailAck wait ack: ") == MOPLink.RESULT_CLOSING) {
+            return -1;
         }
         return getInt(buff, PACK_HEADER_SIZE, 4);
     }
 
-
-    public static boolean parseCommonAck(Pipeline p) {
-        // 读取文件下载的信息
-        byte[] buff = new byte[PACK_HEADER_SIZE];
+    /**
+     * 等待一个回包，通道关闭时不再等待
+     *
+     * @return 读到的长度或 {@link MOPLink#RESULT_CLOSING}
+     */
+    private static int waitPacket(MOPLink p, byte[] buff, String log) {
         int size;
-        // 读取回包
-        while ((size = p.readData(buff).getLength()) < 0) {
-            try {
-                Thread.sleep(20);
-            } catch (InterruptedException e) {
-                LogUtils.e(TAG, e.getMessage());
-                Thread.currentThread().interrupt();
+        while ((size = p.readData(buff)) < 0) {
+            if (size == MOPLink.RESULT_CLOSING) {
+                MOPLog.e(TAG, log + "pipeline closing");
+                return size;
+            }
+            if (size != MOPLink.RESULT_TIMEOUT) {
+                try {
+                    Thread.sleep(RETRY_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    MOPLog.e(TAG, e.getMessage());
+                    Thread.currentThread().interrupt();
+                }
             }
-            LogUtils.e(TAG, "sendDownloadFileReq wait ack: " + size, "/MOP");
+            MOPLog.i(TAG, log + size);
         }
+        return size;
+    }
+
+
+    public static boolean parseCommonAck(MOPLink p) {
+        return isCommonAck(readAck(p));
+    }
+
+    private static boolean isCommonAck(byte[] buff) {
         return (buff[0] == CMD_ACK) && (buff[1] == CMD_0);
     }
 
-    public static boolean parseUploadAck(Pipeline p) {
+    /**
+     * 读取一个 ACK 包，窗口模式的协商参数也在其中
+     */
+    private static byte[] readAck(MOPLink p) {
+        // 读取文件下载的信息
+        byte[] buff = new byte[PACK_HEADER_SIZE];
+        // 读取回包，通道关闭时 buff 保持全0，不会被当作 ACK
+        waitPacket(p, buff, "wait ack: ");
+        return buff;
+    }
+
+    public static boolean parseUploadAck(MOPLink p) {
         // 读取文件下载的信息
         byte[] buff = new byte[PACK_HEADER_SIZE];
-        int size;
         // 读取回包
-        while ((size = p.readData(buff).getLength()) < 0) {
-            try {
-                Thread.sleep(20);
-            } catch (InterruptedException e) {
-                LogUtils.e(TAG, e.getMessage());
-                Thread.currentThread().interrupt();
-            }
-            LogUtils.i(TAG, "upload ack: " + size, "/MOP");
-        }
+        waitPacket(p, buff, "upload ack: ");
         return (buff[0] == CMD_TRANS_ACK) && (buff[1] == CMD_0);
     }
 
@@ -216,56 +283,104 @@ public class MOPCmdHelper {
             int length = getInt(buff, 4, 4);
             return new FileTransResult(false, length);
         }
-        LogUtils.e(TAG, "parseFileDataCmd error", "/MOP");
+        MOPLog.e(TAG, "parseFileDataCmd error");
         return null;
     }
 
-    public static int sendTransAck(Pipeline p, boolean result) {
+    public static int sendTransAck(MOPLink p, boolean result) {
         byte[] buff = new byte[PACK_HEADER_SIZE];
         buff[0] = CMD_TRANS_ACK;
         buff[1] = result ? CMD_0 : CMD_1;
-        return p.writeData(buff).getLength();
+        return p.writeData(buff);
     }
 
-    public static int sendAck(Pipeline p, byte cmd) {
+    public static int sendAck(MOPLink p, byte cmd) {
         byte[] buff = new byte[PACK_HEADER_SIZE];
         buff[0] = CMD_ACK;
         buff[1] = cmd;
-        return p.writeData(buff).getLength();
+        return p.writeData(buff);
     }
 
     public static boolean isFileEnd(byte[] buff) {
         return buff[0] == CMD_FILE_DATA && buff[1] == CMD_1;
     }
 
-    public static int sendUploadFileReq(Pipeline data, String filename, byte[] buff, long time, byte[] md5,
+    /**
+     * 上传文件，文件内容按窗口映射到内存后逐包发送，不会整体读入堆内存
+     *
+     * @param data     通道
+     * @param filename 对端保存的文件名
+     * @param file     要上传的文件，长度不能超过 int 范围
+     * @param time     开始时间，用于计算耗时
+     * @param listener 进度回调
+     * @return 文件信息的发送结果，小于0表示失败
+     */
+    public static int sendUploadFileReq(MOPLink data, String filename, File file, long time,
                                         PipelineAdapter.OnEventListener listener) {
-        FileInfo fileInfo = new FileInfo();
-        fileInfo.filename = filename;
-        fileInfo.fileLength = buff.length;
-        fileInfo.md5 = md5;
-        LogUtils.i(TAG, "sendUploadFileReq fileInfo:" + fileInfo, "/MOP");
-        listener.onFileInfoEvent(fileInfo);
-
-        DataResult dataResult = data.writeData(getUploadFileHeader());
-        int result = dataResult.getLength();
+        return sendUploadFileReq(data, filename, file, time, MOPWindowTransfer.Config.DEFAULT, listener);
+    }
+
+    /**
+     * 上传文件，对端支持时使用窗口模式
+     *
+     * @param config 期望的窗口模式参数，为 null 时只使用原有的一问一答流程
+     */
+    public static int sendUploadFileReq(MOPLink data, String filename, File file, long time, MOPWindowTransfer.Config config,
+                                        PipelineAdapter.OnEventListener listener) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long fileLength = channel.size();
+            if (fileLength > Integer.MAX_VALUE) {
+                postResultTipEvent(TipEvent.UPLOAD, "Upload Failure: file too large " + fileLength, null, listener);
+                return -1;
+            }
+            FileInfo fileInfo = new FileInfo();
+            fileInfo.filename = filename;
+            fileInfo.fileLength = (int) fileLength;
+            // 协议要求先发送md5，这里先流式计算一遍，不占用堆内存
+            fileInfo.md5 = getMD5(channel);
+            MOPLog.i(TAG, "sendUploadFileReq fileInfo:" + fileInfo);
+            listener.onFileInfoEvent(fileInfo);
+            return sendUploadFileReq(data, fileInfo, channel, time, config, listener);
+        } catch (IOException e) {
+            MOPLog.e(TAG, e.getMessage());
+            postResultTipEvent(TipEvent.UPLOAD, "Upload Failure: " + e.getMessage(), null, listener);
+            return -1;
+        }
+    }
+
+    private static int sendUploadFileReq(MOPLink data, FileInfo fileInfo, FileChannel channel, long time,
+                                         MOPWindowTransfer.Config config, PipelineAdapter.OnEventListener listener) throws IOException {
+        int result = data.writeData(getUploadFileHeader(config));
         if (result < 0) {
-            postResultTipEvent(TipEvent.UPLOAD, "Upload Failure: " + dataResult.toString(), null, listener);
+            postResultTipEvent(TipEvent.UPLOAD, "Upload Failure: " + result, null, listener);
             return result;
         }
-        if (parseCommonAck(data)) {
+        byte[] ack = readAck(data);
+        if (isCommonAck(ack)) {
+            MOPWindowTransfer.Config negotiated = config == null ? null : config.negotiate(ack);
+            MOPLog.i(TAG, "sendUploadFileReq transfer config:" + negotiated);
             // 发送md5等
             byte[] fileHeader = fileInfo.getHeader();
-            DataResult writeData = data.writeData(fileHeader);
-            result = writeData.getLength();
-            LogUtils.i(TAG, "sendUploadFileReq send md5:" + writeData.toString(), "/MOP");
+            result = data.writeData(fileHeader);
+            MOPLog.i(TAG, "sendUploadFileReq send md5:" + result);
             if (result > 0) {
                 if (parseCommonAck(data)) {
                     // 上传文件
-                    uploadFile(data, buff, time, listener);
-                    // 上传完的ack
-                    if (parseUploadAck(data)) {
-                        postResultTipEvent(TipEvent.UPLOAD, "Upload Success", null, listener);
+                    MOPWindowTransfer.Report report = negotiated == null
+                            ? sendFile(data, channel, time, listener)
+                            : MOPWindowTransfer.send(data, channel, negotiated, time, listener);
+                    if (report == null) {
+                        postResultTipEvent(TipEvent.UPLOAD, "Upload Failure", null, listener);
+                        return -1;
+                    }
+                    // 上传完的ack，窗口模式下可能已经在等待 ACK 时收到
+                    Boolean transAck = report.getTransAck();
+                    if (transAck != null ? transAck : parseUploadAck(data)) {
+                        TipEvent event = new TipEvent(TipEvent.UPLOAD);
+                        event.result = "Upload Success";
+                        event.report = report;
+                        listener.onTipEvent(event);
                     }
                 } else {
                     postResultTipEvent(TipEvent.UPLOAD, "Upload Failure", null, listener);
@@ -275,90 +390,210 @@ public class MOPCmdHelper {
         return result;
     }
 
-    private static void postResultTipEvent(int type, String result, String progress, PipelineAdapter.OnEventListener listener) {
+    static void postResultTipEvent(int type, String result, String progress, PipelineAdapter.OnEventListener listener) {
         TipEvent event = new TipEvent(type);
         event.result = result;
         event.progress = progress;
         listener.onTipEvent(event);
     }
 
-    private static int uploadFile(Pipeline data, byte[] buff, long time, PipelineAdapter.OnEventListener listener) {
-        int size = 3072;
-        byte[] header;
-        int hadWrote = 0;
-        if (buff.length <= size) {
-            header = getFileDataHeader(buff.length, CMD_1);
-            int result = writeData(data, buff, time, header, hadWrote, buff.length, listener);
-            LogUtils.i(TAG, UPLOAD_FILE + result, "/MOP");
-            return result;
-        } else {
-            while (buff.length - hadWrote > size) {
-                header = getFileDataHeader(size, CMD_0);
-                int result = writeData(data, buff, time, header, hadWrote, size, listener);
+    /**
+     * 按 PACK_DATA_SIZE 分包发送，数据直接从映射窗口拷贝到复用的包缓存中
+     *
+     * @return 统计信息，失败时返回 null
+     */
+    static MOPWindowTransfer.Report sendFile(MOPLink data, FileChannel channel, long time,
+                                                       PipelineAdapter.OnEventListener listener) throws IOException {
+        long fileLength = channel.size();
+        MOPWindowTransfer.Report report = new MOPWindowTransfer.Report(false, 1, PACK_DATA_SIZE);
+        byte[] packet = PACKET_POOL.acquire();
+        long hadWrote = 0;
+        long lastProgressTime = 0;
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+        try {
+            do {
+                int length = (int) Math.min(PACK_DATA_SIZE, fileLength - hadWrote);
+                boolean isLast = hadWrote + length >= fileLength;
+                // 最后一个不满的包也用复用的缓存，只发送前面有效的部分
+                fillFileDataHeader(packet, length, isLast ? CMD_1 : CMD_0);
+                if (length > 0) {
+                    // 窗口大小是包大小的整数倍，一个包不会跨窗口
+                    if (window == null || hadWrote >= windowStart + window.limit()) {
+                        windowStart = hadWrote;
+                        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                                Math.min(MAP_WINDOW_SIZE, fileLength - windowStart));
+                    }
+                    window.position((int) (hadWrote - windowStart));
+                    window.get(packet, PACK_HEADER_SIZE, length);
+                }
+                int result = writeData(data, packet, PACK_HEADER_SIZE + length, hadWrote, report);
+                if (result < 0) {
+                    MOPLog.e(TAG, UPLOAD_FILE + hadWrote + " result:" + result);
+                    return null;
+                }
+                hadWrote += length;
 
-                hadWrote += size;
-                LogUtils.i(TAG, UPLOAD_FILE + hadWrote + " result:" + result);
-            }
-            int length = buff.length - hadWrote;
-            header = getFileDataHeader(length, CMD_1);
-            int result = writeData(data, buff, time, header, hadWrote, length, listener);
-            hadWrote += result;
-            LogUtils.i(TAG, UPLOAD_FILE + length, "/MOP");
+                long now = System.currentTimeMillis();
+                if (now - lastProgressTime >= PROGRESS_INTERVAL_MS || isLast) {
+                    lastProgressTime = now;
+                    String progress = String.format("uploadSize:%d, useTime:%d(ms)", hadWrote, now - time);
+                    postResultTipEvent(TipEvent.UPLOAD, null, progress, listener);
+                }
+            } while (hadWrote < fileLength);
+        } finally {
+            PACKET_POOL.recycle(packet);
         }
-
-        String progress = String.format("uploadSize:%d, useTime:%d(ms)", hadWrote, System.currentTimeMillis() - time);
-        postResultTipEvent(TipEvent.UPLOAD, null, progress, listener);
-        return 0;
+        report.finish(hadWrote);
+        MOPLog.i(TAG, UPLOAD_FILE + report);
+        return report;
     }
 
-    private static int writeData(Pipeline pipeline, byte[] buff, long time, byte[] header, int hadWrote, int length,
-                                 PipelineAdapter.OnEventListener listener) {
-        byte[] d = new byte[length + header.length];
-        System.arraycopy(header, 0, d, 0, header.length);
-        System.arraycopy(buff, hadWrote, d, header.length, length);
-        DataResult dataResult = pipeline.writeData(d);
-        int result = dataResult.getLength();
-
-        String progress = String.format("uploadSize:%d, useTime:%d(ms)", hadWrote, System.currentTimeMillis() - time);
-        postResultTipEvent(TipEvent.UPLOAD, null, progress, listener);
-
-        if (result < 0) {
-            LogUtils.e(TAG, "writeData miss: " + dataResult.toString());
+    /**
+     * 发送一个数据包，失败时和对端确认已收长度后重发
+     */
+    private static int writeData(MOPLink pipeline, byte[] packet, int length, long hadWrote, MOPWindowTransfer.Report report) {
+        boolean retransmission = false;
+        while (true) {
+            long start = System.nanoTime();
+            int result = pipeline.writeData(packet, length);
+            report.onPacket(retransmission);
+            report.onLatency(System.nanoTime() - start);
+            if (result >= 0) {
+                return result;
+            }
+            MOPLog.e(TAG, "writeData miss: " + result);
             // 发送上传出错的req
             sendTransFileFailReq(pipeline, hadWrote);
             // 读取对端返回的已读长度
             int len = parseTransFileFailAck(pipeline);
-            if (len == hadWrote) {
-                sendAck(pipeline, CMD_0);
-                return writeData(pipeline, buff, time, header, hadWrote, length, listener);
-            } else {
-                LogUtils.e(TAG, "writeData error: " + len);
+            report.onResume();
+            if (len != hadWrote) {
+                MOPLog.e(TAG, "writeData error: " + len);
                 sendAck(pipeline, CMD_1);
+                return result;
             }
+            sendAck(pipeline, CMD_0);
+            retransmission = true;
         }
-        return result;
     }
 
-    public static int parseFileFailIndex(Pipeline pipeline) {
+    /**
+     * 接收文件数据写入 stream，协商了窗口模式时使用窗口模式。调用方负责校验md5并回复 sendTransAck
+     *
+     * @param fileInfo {@link #sendDownloadFileReq} 返回的文件信息
+     * @return 统计信息，失败时返回 null
+     */
+    public static MOPWindowTransfer.Report receiveFile(MOPLink link, RandomAccessFile stream, FileInfo fileInfo, long time,
+                                                      PipelineAdapter.OnEventListener listener) throws IOException {
+        if (fileInfo.getTransferConfig() != null) {
+            return MOPWindowTransfer.receive(link, stream, fileInfo.getTransferConfig(), fileInfo.getFileLength());
+        }
+        MOPWindowTransfer.Report report = new MOPWindowTransfer.Report(false, 1, PACK_DATA_SIZE);
+        long downloadSize = 0;
+        long lastProgressTime = 0;
+        byte[] headBuff = new byte[PACK_HEADER_SIZE];
+        // readData 不支持指定长度，整包读取时复用 dataBuff，最后一包或分段读取时才用长度正好的 partBuff
+        byte[] dataBuff = new byte[PACK_DATA_SIZE];
+        byte[] partBuff = dataBuff;
+        while (true) {
+            // 开始读取文件数据
+            int readLength = link.readData(headBuff);
+            if (readLength == MOPLink.RESULT_CLOSING) {
+                MOPLog.e(TAG, "Pipeline is closing,finish down");
+                return null;
+            }
+            if (readLength < PACK_HEADER_SIZE) {
+                MOPLog.e(TAG, "readData.getLength()=" + readLength + " <8,jump over!");
+                continue;
+            }
+            // 这个包带有的文件字节
+            FileTransResult result = parseFileDataCmd(headBuff);
+            if (result == null) {
+                MOPLog.e(TAG, "FileTransResult=null ,finish down");
+                return null;
+            }
+            if (result.isSuccess()) {
+                int length = result.getLength();
+                int sum = 0;
+                while (sum < length) {
+                    int remaining = length - sum;
+                    byte[] buff = remaining == dataBuff.length ? dataBuff : partBuff;
+                    if (buff.length != remaining) {
+                        partBuff = new byte[remaining];
+                        buff = partBuff;
+                    }
+                    int len = link.readData(buff);
+                    if (len > 0) {
+                        sum += len;
+                        downloadSize += len;
+                        report.onPacket(false);
+                        stream.write(buff, 0, len);
+                    } else if (len == MOPLink.RESULT_CLOSING) {
+                        MOPLog.e(TAG, "Pipeline is closing,finish down");
+                        return null;
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastProgressTime >= PROGRESS_INTERVAL_MS) {
+                    lastProgressTime = now;
+                    String progress = String.format("have downloadPack = %d, downloadSize:%d/%d, useTime:%d(ms)", report.getPackets(),
+                            downloadSize, fileInfo.getFileLength(), now - time);
+                    postResultTipEvent(TipEvent.DOWNLOAD, null, progress, listener);
+                }
+            } else {
+                // 解析出错位置
+                int position = parseFileFailIndex(link);
+                // ack
+                sendTransFileFailAck(link, position);
+                // 确认是否能接着传
+                if (!parseCommonAck(link)) {
+                    return null;
+                }
+                report.onResume();
+                stream.seek(position);
+            }
+            if (isFileEnd(headBuff)) {
+                MOPLog.i(TAG, "Download success");
+                break;
+            }
+        }
+        report.finish(stream.length());
+        return report;
+    }
+
+    public static int parseFileFailIndex(MOPLink pipeline) {
         byte[] buff = new byte[4];
-        pipeline.readData(buff);
+        waitPacket(pipeline, buff, "parseFileFailIndex: ");
         return getInt(buff, 0, 4);
     }
 
 
     public static byte[] getMD5(File file) {
-        byte[] buffer = new byte[8192];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return getMD5(channel);
+        } catch (IOException e) {
+            MOPLog.e(TAG, e.getMessage());
+        }
+        return new byte[16];
+    }
+
+    /**
+     * 按窗口映射文件计算md5，不把文件读入堆内存
+     */
+    public static byte[] getMD5(FileChannel channel) throws IOException {
         byte[] desc = new byte[16];
-        try (InputStream ins = new FileInputStream(file)) {
+        try {
             MessageDigest md5 = MessageDigest.getInstance("MD5");
-            int len;
-            while ((len = ins.read(buffer)) != -1) {
-                md5.update(buffer, 0, len);
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                md5.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_SIZE, size - position)));
             }
             byte[] source = md5.digest();
             System.arraycopy(source, 0, desc, 0, desc.length);
-        } catch (Exception e) {
-            LogUtils.e(TAG, e.getMessage());
+        } catch (NoSuchAlgorithmException e) {
+            MOPLog.e(TAG, e.getMessage());
         }
         return desc;
     }
@@ -387,6 +622,16 @@ public class MOPCmdHelper {
         private int fileLength;
         private String filename;
         private byte[] md5;
+        private MOPWindowTransfer.Config transferConfig;
+
+        static FileInfo create(String filename, int fileLength, byte[] md5, boolean exist) {
+            FileInfo info = new FileInfo();
+            info.filename = filename;
+            info.fileLength = fileLength;
+            info.md5 = md5;
+            info.isExist = exist;
+            return info;
+        }
 
         public static FileInfo parse(byte[] data) {
             if (data[0] != CMD_FILE_INFO) {
@@ -415,7 +660,7 @@ public class MOPCmdHelper {
             buff[0] = CMD_FILE_INFO;
             buff[1] = (byte) 0xFF;
             buff[4] = 0x35;
-            buff[8] = 0;
+            buff[8] = (byte) (isExist ? 1 : 0);
             buff[9] = (byte) (fileLength & 0xff);
             buff[10] = (byte) (fileLength >> 8 & 0xff);
             buff[11] = (byte) (fileLength >> 16 & 0xff);
@@ -482,6 +727,13 @@ public class MOPCmdHelper {
         public byte[] getMd5() {
             return md5;
         }
+
+        /**
+         * @return 下载时协商出的窗口模式参数，对端不支持时为 null
+         */
+        public MOPWindowTransfer.Config getTransferConfig() {
+            return transferConfig;
+        }
     }
 
     public interface ProcessCallback {
@@ -519,6 +771,7 @@ public class MOPCmdHelper {
         private String state;
         private String result;
         private String progress;
+        private MOPWindowTransfer.Report report;
 
 
         public int getType() {
@@ -536,5 +789,12 @@ public class MOPCmdHelper {
         public String getProgress() {
             return progress;
         }
+
+        /**
+         * @return 传输完成时的统计，其他事件为 null
+         */
+        public MOPWindowTransfer.Report getReport() {
+            return report;
+        }
     }
 }
@@ -0,0 +1,39 @@
+package dji.sampleV5.aircraft.data;
+
+/**
+ * MOP文件协议使用的收发通道
+ * <p>
+ * 真实设备上由 {@link PipelineLink} 包装 Pipeline，单测中可以换成内存里的模拟通道。
+ * 返回值大于等于0表示读写的字节数，小于0为下面的错误码。
+ */
+public interface MOPLink {
+    /**
+     * 超时，暂时没有数据
+     */
+    int RESULT_TIMEOUT = -1;
+    /**
+     * 通道正在关闭，不会再有数据
+     */
+    int RESULT_CLOSING = -2;
+    /**
+     * 其他错误
+     */
+    int RESULT_ERROR = -3;
+
+    /**
+     * 发送整个数组
+     */
+    default int writeData(byte[] data) {
+        return writeData(data, data.length);
+    }
+
+    /**
+     * 发送 data 开头的 length 字节，作为一个消息。data 可以是比消息大的复用缓存
+     */
+    int writeData(byte[] data, int length);
+
+    /**
+     * 读取最多 buff.length 字节到 buff 开头
+     */
+    int readData(byte[] buff);
+}
@@ -0,0 +1,53 @@
+package dji.sampleV5.aircraft.data;
+
+import androidx.annotation.Nullable;
+import dji.v5.utils.common.LogUtils;
+
+/**
+ * MOP文件协议的日志入口
+ * <p>
+ * 协议相关的类只通过这里打日志，默认输出到 LogUtils 的 /MOP 目录。
+ * JVM 单测中没有 Android 日志，可以用 {@link #setLogger} 换成其他实现。
+ */
+public final class MOPLog {
+
+    public interface Logger {
+        void i(String tag, String msg);
+
+        void e(String tag, String msg);
+    }
+
+    private static final Logger DEFAULT_LOGGER = new Logger() {
+        private static final String LOG_PATH = "/MOP";
+
+        @Override
+        public void i(String tag, String msg) {
+            LogUtils.i(tag, msg, LOG_PATH);
+        }
+
+        @Override
+        public void e(String tag, String msg) {
+            LogUtils.e(tag, msg, LOG_PATH);
+        }
+    };
+
+    private static volatile Logger logger = DEFAULT_LOGGER;
+
+    private MOPLog() {
+    }
+
+    /**
+     * 替换日志实现，传 null 恢复默认的 LogUtils
+     */
+    public static void setLogger(@Nullable Logger newLogger) {
+        logger = newLogger == null ? DEFAULT_LOGGER : newLogger;
+    }
+
+    static void i(String tag, String msg) {
+        logger.i(tag, msg);
+    }
+
+    static void e(String tag, String msg) {
+        logger.e(tag, msg);
+    }
+}
@@ -0,0 +1,314 @@
+package dji.sampleV5.aircraft.data;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MOP通道的接收引擎
+ * <p>
+ * 每个通道一个读线程循环读取，数据读入固定数量的缓存帧（环），由分发线程按顺序交给监听者，处理完后缓存帧回到环中。
+ * 监听者处理不过来时环会被占满，读线程停止读取直到有空闲的帧，数据留在通道里而不是在内存中无限堆积。
+ * <p>
+ * 通道返回 {@link MOPLink#RESULT_TIMEOUT} 或0时退避后继续读取，其他错误时停止并通知监听者。
+ * <p>
+ * 引擎只能 start 一次，stop 后需要重新创建。
+ */
+public class MOPReceiveEngine {
+    private static final String TAG = MOPReceiveEngine.class.getSimpleName();
+    public static final int DEFAULT_FRAME_SIZE = 19004;
+    public static final int DEFAULT_RING_SIZE = 8;
+    /**
+     * readData 连续立即返回0时的退避时间，从最小值开始每次翻倍，避免空转。
+     * 超时说明 readData 已经阻塞等待过，和 waitPacket、readFully 一样不再额外等待
+     */
+    private static final long IDLE_BACKOFF_MIN_MS = 1;
+    private static final long IDLE_BACKOFF_MAX_MS = 20;
+    private static final long STOP_POLL_MS = 100;
+
+    public interface FrameListener {
+        /**
+         * 在分发线程回调，data 只在回调期间有效，需要保留时自行拷贝
+         *
+         * @param length 本帧有效长度
+         */
+        void onFrame(@NonNull byte[] data, int length);
+
+        /**
+         * 通道出错或关闭，引擎已停止
+         *
+         * @param result {@link MOPLink} 的错误码
+         */
+        void onStopped(int result);
+    }
+
+    /**
+     * 缓存帧
+     */
+    private static class Frame {
+        final byte[] data;
+        int length;
+
+        Frame(int size) {
+            data = new byte[size];
+        }
+    }
+
+    private final MOPLink link;
+    private final String name;
+    private final BlockingQueue<Frame> freeFrames;
+    private final BlockingQueue<Frame> readyFrames;
+    private final int ringSize;
+    private final List<FrameListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private boolean started;
+    private Thread readThread;
+    private Thread dispatchThread;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong framesRead = new AtomicLong();
+    private final AtomicLong idlePolls = new AtomicLong();
+    private final AtomicLong backpressureWaits = new AtomicLong();
+    private volatile int maxQueueDepth;
+    private volatile long startTime;
+    private volatile long stopTime;
+
+    public MOPReceiveEngine(@NonNull MOPLink link, @NonNull String name) {
+        this(link, name, DEFAULT_FRAME_SIZE, DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * @param frameSize 每次 readData 的缓存长度
+     * @param ringSize  缓存帧数量，也是等待分发的最大帧数
+     */
+    public MOPReceiveEngine(@NonNull MOPLink link, @NonNull String name, int frameSize, int ringSize) {
+        this.link = link;
+        this.name = name;
+        this.ringSize = ringSize;
+        freeFrames = new ArrayBlockingQueue<>(ringSize);
+        readyFrames = new ArrayBlockingQueue<>(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            freeFrames.add(new Frame(frameSize));
+        }
+    }
+
+    public void addListener(@NonNull FrameListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull FrameListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 启动读线程和分发线程
+     *
+     * @throws IllegalStateException 已经启动过
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException(name + " already started");
+        }
+        started = true;
+        running = true;
+        startTime = System.nanoTime();
+        readThread = new Thread(this::readLoop, "mop-read-" + name);
+        dispatchThread = new Thread(this::dispatchLoop, "mop-dispatch-" + name);
+        dispatchThread.start();
+        readThread.start();
+    }
+
+    /**
+     * 停止读取，已经读到但还没分发的帧会被丢弃。线程在当前的 readData 或回调返回后退出
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        stopTime = System.nanoTime();
+        if (readThread != null) {
+            readThread.interrupt();
+        }
+        if (dispatchThread != null) {
+            dispatchThread.interrupt();
+        }
+        MOPLog.i(TAG, name + " stopped: " + getStats());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void readLoop() {
+        Frame frame = null;
+        int stopResult = 0;
+        long backoff = 0;
+        while (running) {
+            if (frame == null) {
+                frame = freeFrames.poll();
+                if (frame == null) {
+                    backpressureWaits.incrementAndGet();
+                    try {
+                        frame = freeFrames.poll(STOP_POLL_MS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    continue;
+                }
+            }
+            int len = link.readData(frame.data);
+            if (len > 0) {
+                backoff = 0;
+                frame.length = len;
+                bytesRead.addAndGet(len);
+                framesRead.incrementAndGet();
+                readyFrames.add(frame);
+                frame = null;
+                maxQueueDepth = Math.max(maxQueueDepth, readyFrames.size());
+            } else if (len == 0) {
+                idlePolls.incrementAndGet();
+                backoff = backoff == 0 ? IDLE_BACKOFF_MIN_MS : Math.min(backoff * 2, IDLE_BACKOFF_MAX_MS);
+                if (!sleep(backoff)) {
+                    break;
+                }
+            } else if (len == MOPLink.RESULT_TIMEOUT) {
+                idlePolls.incrementAndGet();
+                backoff = 0;
+            } else {
+                MOPLog.e(TAG, name + " read error: " + len);
+                stopResult = len;
+                break;
+            }
+        }
+        if (frame != null) {
+            freeFrames.add(frame);
+        }
+        if (stopResult != 0 && running) {
+            stop();
+            for (FrameListener listener : listeners) {
+                listener.onStopped(stopResult);
+            }
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            Frame frame;
+            try {
+                frame = readyFrames.poll(STOP_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (frame == null) {
+                continue;
+            }
+            try {
+                for (FrameListener listener : listeners) {
+                    listener.onFrame(frame.data, frame.length);
+                }
+            } finally {
+                freeFrames.add(frame);
+            }
+        }
+    }
+
+    private static boolean sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @NonNull
+    public Stats getStats() {
+        long end = stopTime != 0 ? stopTime : System.nanoTime();
+        long durationNs = startTime == 0 ? 0 : end - startTime;
+        return new Stats(bytesRead.get(), framesRead.get(), durationNs, readyFrames.size(), maxQueueDepth, ringSize,
+                idlePolls.get(), backpressureWaits.get());
+    }
+
+    /**
+     * 接收统计的快照
+     */
+    public static class Stats {
+        private final long bytes;
+        private final long frames;
+        private final long durationNs;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final int ringSize;
+        private final long idlePolls;
+        private final long backpressureWaits;
+
+        Stats(long bytes, long frames, long durationNs, int queueDepth, int maxQueueDepth, int ringSize, long idlePolls,
+              long backpressureWaits) {
+            this.bytes = bytes;
+            this.frames = frames;
+            this.durationNs = durationNs;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.ringSize = ringSize;
+            this.idlePolls = idlePolls;
+            this.backpressureWaits = backpressureWaits;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getFrames() {
+            return frames;
+        }
+
+        /**
+         * @return 从 start 开始的平均接收速度，字节/秒
+         */
+        public double getThroughput() {
+            return durationNs <= 0 ? 0 : bytes * 1e9 / durationNs;
+        }
+
+        /**
+         * @return 当前等待分发的帧数
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        /**
+         * @return 没有读到数据的次数
+         */
+        public long getIdlePolls() {
+            return idlePolls;
+        }
+
+        /**
+         * @return 缓存帧用完、读线程等待分发的次数
+         */
+        public long getBackpressureWaits() {
+            return backpressureWaits;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d bytes in %d frames, %.1f KB/s, queue=%d/%d (max %d), idlePolls=%d, backpressureWaits=%d",
+                    bytes, frames, getThroughput() / 1024, queueDepth, ringSize, maxQueueDepth, idlePolls, backpressureWaits);
+        }
+    }
+}
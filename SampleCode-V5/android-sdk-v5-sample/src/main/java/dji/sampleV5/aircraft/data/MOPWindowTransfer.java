@@ -0,0 +1,604 @@
+package dji.sampleV5.aircraft.data;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MOP文件协议的滑动窗口传输模式（协议版本2）
+ * <p>
+ * 请求包的 byte[2] 高2位为协议版本、低6位为每包数据长度（以256字节为单位减1），byte[3] 为窗口大小；
+ * 对端在 ACK 的相同位置回复实际采用的参数。byte[4..7] 仍是包体长度，请求包没有包体，保持为0，
+ * 不支持的对端读到的仍是合法的请求。对端回复的版本低于2时，回退到原有的一问一答流程。
+ * <p>
+ * 数据包：[0]=CMD_FILE_DATA_SEQ，[1]=是否最后一包，[4..7]=数据长度，[8..11]=序号，之后为数据。
+ * 确认包：[0]=CMD_FILE_DATA_ACK，[4..7]=期望收到的下一个序号（累计确认），[8..11]=其后32个包的接收位图（选择确认）。
+ * 发送方超时或发现位图中有空洞时重传，重传在循环中完成。
+ */
+public class MOPWindowTransfer {
+    static final byte CMD_FILE_DATA_SEQ = 0x65;
+    static final byte CMD_FILE_DATA_ACK = 0x66;
+    private static final byte CMD_TRANS_ACK = 0x52;
+    public static final int PROTOCOL_VERSION = 2;
+    public static final int PACK_SEQ_HEADER_SIZE = 12;
+    static final int PACK_ACK_SIZE = 12;
+
+    private static final long MIN_RTO_MS = 100;
+    private static final long MAX_RTO_MS = 3000;
+    private static final long INITIAL_RTO_MS = 500;
+    private static final int MAX_TIMEOUT_RETRIES = 10;
+    private static final long POLL_INTERVAL_MS = 2;
+    private static final long PROGRESS_INTERVAL_MS = 200;
+
+    private static final String TAG = MOPWindowTransfer.class.getSimpleName();
+
+    private MOPWindowTransfer() {
+    }
+
+    /**
+     * 传输参数
+     */
+    public static class Config {
+        public static final int DEFAULT_WINDOW_SIZE = 64;
+        /**
+         * 请求头中窗口大小只占一个字节。选择确认位图只覆盖累计确认之后的32个包，更后面的包靠超时重传
+         */
+        public static final int MAX_WINDOW_SIZE = 255;
+        public static final int DEFAULT_PACKET_SIZE = 3072;
+        /**
+         * 包长在请求头中以 PACKET_SIZE_UNIT 为单位，只占6位
+         */
+        public static final int PACKET_SIZE_UNIT = 256;
+        public static final int MIN_PACKET_SIZE = PACKET_SIZE_UNIT;
+        public static final int MAX_PACKET_SIZE = PACKET_SIZE_UNIT * 64;
+
+        public static final Config DEFAULT = new Config(DEFAULT_WINDOW_SIZE, DEFAULT_PACKET_SIZE);
+
+        private final int windowSize;
+        private final int packetSize;
+
+        public Config(int windowSize, int packetSize) {
+            if (windowSize < 1 || windowSize > MAX_WINDOW_SIZE) {
+                throw new IllegalArgumentException("windowSize out of range: " + windowSize);
+            }
+            if (packetSize < MIN_PACKET_SIZE || packetSize > MAX_PACKET_SIZE || packetSize % PACKET_SIZE_UNIT != 0) {
+                throw new IllegalArgumentException("packetSize out of range: " + packetSize);
+            }
+            this.windowSize = windowSize;
+            this.packetSize = packetSize;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public int getPacketSize() {
+            return packetSize;
+        }
+
+        /**
+         * 写入请求头的 byte[2..3]，byte[4..7] 是包体长度，不能占用
+         */
+        void writeTo(byte[] header) {
+            header[2] = (byte) (PROTOCOL_VERSION << 6 | (packetSize / PACKET_SIZE_UNIT - 1));
+            header[3] = (byte) windowSize;
+        }
+
+        /**
+         * 根据对端的 ACK 确定最终参数
+         *
+         * @return 对端不支持窗口模式时返回 null
+         */
+        Config negotiate(byte[] ack) {
+            if ((ack[2] & 0xff) >>> 6 < PROTOCOL_VERSION) {
+                return null;
+            }
+            int peerWindow = ack[3] & 0xff;
+            int peerPacket = ((ack[2] & 0x3f) + 1) * PACKET_SIZE_UNIT;
+            int window = peerWindow > 0 ? Math.min(windowSize, peerWindow) : windowSize;
+            return new Config(window, Math.min(packetSize, peerPacket));
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Config{" +
+                    "windowSize=" + windowSize +
+                    ", packetSize=" + packetSize +
+                    '}';
+        }
+    }
+
+    /**
+     * 单次传输的统计
+     */
+    public static class Report {
+        private final boolean windowed;
+        private final int windowSize;
+        private final int packetSize;
+        private long bytes;
+        private int packets;
+        private int retransmissions;
+        private int timeouts;
+        private int resumes;
+        private long startTime;
+        private long endTime;
+        private int latencySamples;
+        private long latencySumNs;
+        private long latencyMinNs = Long.MAX_VALUE;
+        private long latencyMaxNs;
+        /**
+         * 发送方在等待 ACK 时已经收到的传输结果，null 表示还需要继续读取
+         */
+        private Boolean transAck;
+
+        Report(boolean windowed, int windowSize, int packetSize) {
+            this.windowed = windowed;
+            this.windowSize = windowSize;
+            this.packetSize = packetSize;
+            startTime = System.nanoTime();
+            endTime = startTime;
+        }
+
+        /**
+         * @param retransmission 发送方为重传，接收方为重复包
+         */
+        void onPacket(boolean retransmission) {
+            packets++;
+            if (retransmission) {
+                retransmissions++;
+            }
+        }
+
+        void onTimeout() {
+            timeouts++;
+        }
+
+        void onResume() {
+            resumes++;
+        }
+
+        void onLatency(long ns) {
+            latencySamples++;
+            latencySumNs += ns;
+            latencyMinNs = Math.min(latencyMinNs, ns);
+            latencyMaxNs = Math.max(latencyMaxNs, ns);
+        }
+
+        void onTransAck(boolean success) {
+            transAck = success;
+        }
+
+        Boolean getTransAck() {
+            return transAck;
+        }
+
+        void finish(long bytes) {
+            this.bytes = bytes;
+            endTime = System.nanoTime();
+        }
+
+        public boolean isWindowed() {
+            return windowed;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public int getPackets() {
+            return packets;
+        }
+
+        public int getRetransmissions() {
+            return retransmissions;
+        }
+
+        public int getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * @return 兼容模式下通过 CMD_FILE_TRANS_FAIL 续传的次数
+         */
+        public int getResumes() {
+            return resumes;
+        }
+
+        public long getDurationMs() {
+            return (endTime - startTime) / 1_000_000;
+        }
+
+        /**
+         * @return 字节/秒
+         */
+        public double getThroughput() {
+            long ns = endTime - startTime;
+            return ns <= 0 ? 0 : bytes * 1e9 / ns;
+        }
+
+        /**
+         * 窗口模式下为包的往返时延，兼容模式下为单次写入耗时
+         */
+        public double getAverageLatencyMs() {
+            return latencySamples == 0 ? 0 : latencySumNs / 1e6 / latencySamples;
+        }
+
+        public double getMinLatencyMs() {
+            return latencySamples == 0 ? 0 : latencyMinNs / 1e6;
+        }
+
+        public double getMaxLatencyMs() {
+            return latencyMaxNs / 1e6;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s window=%d packet=%d: %d bytes in %d ms, %.1f KB/s, packets=%d, retrans=%d, timeouts=%d, "
+                            + "resumes=%d, %s(ms) avg=%.1f min=%.1f max=%.1f",
+                    windowed ? "windowed" : "legacy", windowSize, packetSize, bytes, getDurationMs(), getThroughput() / 1024,
+                    packets, retransmissions, timeouts, resumes, windowed ? "rtt" : "write", getAverageLatencyMs(), getMinLatencyMs(),
+                    getMaxLatencyMs());
+        }
+    }
+
+    /**
+     * 以窗口模式发送文件，返回前会读到对端的传输结果
+     *
+     * @return 统计信息，{@link Report#getTransAck()} 为对端的传输结果，失败时返回 null
+     */
+    static Report send(MOPLink pipeline, FileChannel channel, Config config, long time,
+                       PipelineAdapter.OnEventListener listener) throws IOException {
+        long fileLength = channel.size();
+        int packetSize = config.getPacketSize();
+        int window = config.getWindowSize();
+        // 空文件也发送一个长度为0的结束包
+        int total = (int) Math.max(1, (fileLength + packetSize - 1) / packetSize);
+
+        Report report = new Report(true, window, packetSize);
+        byte[] packet = new byte[PACK_SEQ_HEADER_SIZE + packetSize];
+        ByteBuffer packetBuffer = ByteBuffer.wrap(packet);
+        // 最后一个包也用同一个缓存，只发送前面有效的部分
+        int lastLength = (int) (fileLength - (long) (total - 1) * packetSize);
+        byte[] ack = new byte[PACK_ACK_SIZE];
+        AckReader ackReader = new AckReader(ack);
+
+        // 按 seq % window 存放窗口内各包的状态
+        long[] sendTimes = new long[window];
+        int[] sendCounts = new int[window];
+        boolean[] acked = new boolean[window];
+
+        int base = 0;
+        int next = 0;
+        long srtt = 0;
+        long rttvar = 0;
+        long rto = INITIAL_RTO_MS * 1_000_000;
+        int timeoutRetries = 0;
+        long lastProgressTime = 0;
+
+        while (base < total) {
+            // 填满窗口
+            while (next < total && next - base < window) {
+                int slot = next % window;
+                sendCounts[slot] = 0;
+                acked[slot] = false;
+                if (!sendPacket(pipeline, channel, next, total, packetSize, lastLength, packet, packetBuffer,
+                        sendTimes, sendCounts, report)) {
+                    return null;
+                }
+                next++;
+            }
+
+            int ackResult = ackReader.poll(pipeline);
+            long now = System.nanoTime();
+            if (ackResult < 0) {
+                MOPLog.e(TAG, "send: pipeline closed");
+                return null;
+            }
+            if (ackResult == AckReader.TRANS_ACK) {
+                // 最后的 ACK 丢了，但对端已经收完并校验，直接结束
+                report.onTransAck(ack[1] == 0x00);
+                break;
+            }
+            if (ackResult > 0 && ack[0] == CMD_FILE_DATA_ACK) {
+                int ackBase = MOPCmdHelper.getInt(ack, 4, 4);
+                int cumulative = Math.min(ackBase, next);
+                int bitmap = MOPCmdHelper.getInt(ack, 8, 4);
+                for (int seq = base; seq < cumulative; seq++) {
+                    int slot = seq % window;
+                    // Karn：重传过的包不参与时延估计
+                    if (!acked[slot] && sendCounts[slot] == 1) {
+                        long rtt = now - sendTimes[slot];
+                        report.onLatency(rtt);
+                        if (srtt == 0) {
+                            srtt = rtt;
+                            rttvar = rtt / 2;
+                        } else {
+                            rttvar = (3 * rttvar + Math.abs(srtt - rtt)) / 4;
+                            srtt = (7 * srtt + rtt) / 8;
+                        }
+                        rto = clampRto(srtt + 4 * rttvar);
+                    }
+                    acked[slot] = false;
+                }
+                if (cumulative > base) {
+                    base = cumulative;
+                    timeoutRetries = 0;
+                }
+                int highestSacked = -1;
+                // ACK 也可能乱序到达，位图以 ACK 自己的累计序号为起点
+                for (int i = 0; i < 32; i++) {
+                    int seq = ackBase + 1 + i;
+                    if (seq >= next) {
+                        break;
+                    }
+                    if (seq > base && (bitmap >>> i & 1) != 0) {
+                        acked[seq % window] = true;
+                        highestSacked = seq;
+                    }
+                }
+                // 位图中的空洞说明之前的包丢了，距离上次发送超过一个 srtt 的立即重传
+                long holeAge = srtt == 0 ? rto : srtt;
+                for (int seq = base; seq < highestSacked; seq++) {
+                    int slot = seq % window;
+                    if (!acked[slot] && now - sendTimes[slot] > holeAge
+                            && !sendPacket(pipeline, channel, seq, total, packetSize, lastLength, packet,
+                            packetBuffer, sendTimes, sendCounts, report)) {
+                        return null;
+                    }
+                }
+            } else if (ackResult == 0) {
+                if (base < next && now - sendTimes[base % window] > rto) {
+                    report.onTimeout();
+                    if (++timeoutRetries > MAX_TIMEOUT_RETRIES) {
+                        MOPLog.e(TAG, "send: too many timeouts at seq " + base);
+                        return null;
+                    }
+                    rto = clampRto(rto * 2);
+                    for (int seq = base; seq < next; seq++) {
+                        if (!acked[seq % window] && !sendPacket(pipeline, channel, seq, total, packetSize, lastLength, packet,
+                                packetBuffer, sendTimes, sendCounts, report)) {
+                            return null;
+                        }
+                    }
+                } else {
+                    sleep(POLL_INTERVAL_MS);
+                }
+            }
+
+            long nowMs = System.currentTimeMillis();
+            if (nowMs - lastProgressTime >= PROGRESS_INTERVAL_MS || base == total) {
+                lastProgressTime = nowMs;
+                long acknowledged = Math.min(fileLength, (long) base * packetSize);
+                String progress = String.format(Locale.US, "uploadSize:%d, useTime:%d(ms), window:%d/%d",
+                        acknowledged, nowMs - time, next - base, window);
+                MOPCmdHelper.postResultTipEvent(MOPCmdHelper.TipEvent.UPLOAD, null, progress, listener);
+            }
+        }
+        report.finish(report.getTransAck() == null || report.getTransAck() ? fileLength : (long) base * packetSize);
+        MOPLog.i(TAG, "send: " + report);
+        // 全部确认后还可能收到重传或乱序产生的数据 ACK，跳过这些 ACK，直到收到传输结果
+        while (report.getTransAck() == null) {
+            int ackResult = ackReader.poll(pipeline);
+            if (ackResult < 0) {
+                MOPLog.e(TAG, "send: pipeline closed before trans ack");
+                return null;
+            }
+            if (ackResult == AckReader.TRANS_ACK) {
+                report.onTransAck(ack[1] == 0x00);
+            } else if (ackResult == 0) {
+                sleep(POLL_INTERVAL_MS);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * 以窗口模式接收文件，数据按序号写入文件对应位置
+     *
+     * @return 统计信息，失败时返回 null
+     */
+    static Report receive(MOPLink pipeline, RandomAccessFile file, Config config, long fileLength) throws IOException {
+        int packetSize = config.getPacketSize();
+        int window = config.getWindowSize();
+        Report report = new Report(true, window, packetSize);
+        byte[] header = new byte[PACK_SEQ_HEADER_SIZE];
+        byte[] data = new byte[packetSize];
+        byte[] ack = new byte[PACK_ACK_SIZE];
+        ack[0] = CMD_FILE_DATA_ACK;
+        ack[1] = (byte) 0xFF;
+        boolean[] received = new boolean[window];
+        int expected = 0;
+        int total = Integer.MAX_VALUE;
+        int idleRetries = 0;
+
+        while (expected < total) {
+            int len = readFully(pipeline, header, header.length, MAX_RTO_MS);
+            if (len < 0) {
+                MOPLog.e(TAG, "receive: pipeline closed");
+                return null;
+            }
+            if (len < header.length) {
+                if (++idleRetries > MAX_TIMEOUT_RETRIES) {
+                    MOPLog.e(TAG, "receive: no data, expected seq " + expected);
+                    return null;
+                }
+                // 对端可能丢了 ACK，重发一次当前状态
+                report.onTimeout();
+                sendAck(pipeline, ack, expected, received, window);
+                continue;
+            }
+            idleRetries = 0;
+            if (header[0] != CMD_FILE_DATA_SEQ) {
+                MOPLog.e(TAG, "receive: unexpected cmd " + header[0]);
+                continue;
+            }
+            int length = MOPCmdHelper.getInt(header, 4, 4);
+            int seq = MOPCmdHelper.getInt(header, 8, 4);
+            if (length < 0 || length > packetSize) {
+                MOPLog.e(TAG, "receive: bad length " + length);
+                return null;
+            }
+            if (length > 0 && readFully(pipeline, data, length, MAX_RTO_MS) < length) {
+                // 数据不完整，等待发送方重传
+                continue;
+            }
+            report.onPacket(seq < expected || seq < expected + window && received[seq % window]);
+            if (seq >= expected && seq < expected + window && !received[seq % window]) {
+                file.seek((long) seq * packetSize);
+                file.write(data, 0, length);
+                received[seq % window] = true;
+                if (header[1] == 0x01) {
+                    total = seq + 1;
+                }
+                while (expected < total && received[expected % window]) {
+                    received[expected % window] = false;
+                    expected++;
+                }
+            }
+            sendAck(pipeline, ack, expected, received, window);
+        }
+        report.finish(fileLength);
+        MOPLog.i(TAG, "receive: " + report);
+        return report;
+    }
+
+    private static boolean sendPacket(MOPLink pipeline, FileChannel channel, int seq, int total, int packetSize, int lastLength,
+                                      byte[] packet, ByteBuffer buffer, long[] sendTimes, int[] sendCounts,
+                                      Report report) throws IOException {
+        boolean isLast = seq == total - 1;
+        int length = isLast ? lastLength : packetSize;
+        packet[0] = CMD_FILE_DATA_SEQ;
+        packet[1] = isLast ? (byte) 0x01 : 0x00;
+        putInt(packet, 4, length);
+        putInt(packet, 8, seq);
+        buffer.clear();
+        buffer.position(PACK_SEQ_HEADER_SIZE);
+        buffer.limit(PACK_SEQ_HEADER_SIZE + length);
+        long position = (long) seq * packetSize;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - PACK_SEQ_HEADER_SIZE) < 0) {
+                throw new IOException("unexpected end of file at " + position);
+            }
+        }
+        int slot = seq % sendTimes.length;
+        boolean retransmission = sendCounts[slot] > 0;
+        sendTimes[slot] = System.nanoTime();
+        sendCounts[slot]++;
+        report.onPacket(retransmission);
+        int result = pipeline.writeData(packet, PACK_SEQ_HEADER_SIZE + length);
+        if (result < 0) {
+            if (result == MOPLink.RESULT_CLOSING) {
+                MOPLog.e(TAG, "sendPacket: pipeline closing");
+                return false;
+            }
+            // 写失败按丢包处理，等超时重传
+            MOPLog.e(TAG, "sendPacket miss: seq=" + seq + " " + result);
+        }
+        return true;
+    }
+
+    private static void sendAck(MOPLink pipeline, byte[] ack, int expected, boolean[] received, int window) {
+        int bitmap = 0;
+        for (int i = 0; i < 32 && i < window - 1; i++) {
+            if (received[(expected + 1 + i) % window]) {
+                bitmap |= 1 << i;
+            }
+        }
+        putInt(ack, 4, expected);
+        putInt(ack, 8, bitmap);
+        pipeline.writeData(ack);
+    }
+
+    /**
+     * 读满 length 字节，readData 不支持 offset，不足时读入临时数组再拼接
+     *
+     * @param timeoutMs 连续读不到数据的最长等待时间
+     * @return 实际读到的字节数，通道关闭时返回 -1
+     */
+    static int readFully(MOPLink pipeline, byte[] buff, int length, long timeoutMs) {
+        int sum = 0;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (sum < length) {
+            byte[] target = sum == 0 && length == buff.length ? buff : new byte[length - sum];
+            int len = pipeline.readData(target);
+            if (len > 0) {
+                if (target != buff) {
+                    System.arraycopy(target, 0, buff, sum, len);
+                }
+                sum += len;
+                deadline = System.currentTimeMillis() + timeoutMs;
+            } else if (len == MOPLink.RESULT_CLOSING) {
+                return -1;
+            } else if (System.currentTimeMillis() > deadline) {
+                break;
+            } else if (len != MOPLink.RESULT_TIMEOUT) {
+                // 超时的情况 readData 已经等待过，立即返回时才退避
+                sleep(POLL_INTERVAL_MS);
+            }
+        }
+        return sum;
+    }
+
+    private static long clampRto(long ns) {
+        return Math.max(MIN_RTO_MS * 1_000_000, Math.min(MAX_RTO_MS * 1_000_000, ns));
+    }
+
+    private static void putInt(byte[] buff, int offset, int value) {
+        buff[offset] = (byte) (value & 0xff);
+        buff[offset + 1] = (byte) (value >> 8 & 0xff);
+        buff[offset + 2] = (byte) (value >> 16 & 0xff);
+        buff[offset + 3] = (byte) (value >> 24 & 0xff);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 非阻塞地拼接 ACK 包，一次 poll 最多读一次
+     */
+    private static class AckReader {
+        static final int TRANS_ACK = 2;
+
+        private final byte[] ack;
+        private int filled;
+
+        AckReader(byte[] ack) {
+            this.ack = ack;
+        }
+
+        /**
+         * @return 1 读到完整 ACK，TRANS_ACK 读到传输结果，0 暂无数据，-1 通道关闭
+         */
+        int poll(MOPLink pipeline) {
+            byte[] target = filled == 0 ? ack : new byte[ack.length - filled];
+            int len = pipeline.readData(target);
+            if (len <= 0) {
+                return len == MOPLink.RESULT_CLOSING ? -1 : 0;
+            }
+            if (target != ack) {
+                System.arraycopy(target, 0, ack, filled, len);
+            }
+            filled += len;
+            if (ack[0] == CMD_TRANS_ACK && filled >= MOPCmdHelper.PACK_HEADER_SIZE) {
+                filled = 0;
+                return TRANS_ACK;
+            }
+            if (filled < ack.length) {
+                return 0;
+            }
+            filled = 0;
+            return 1;
+        }
+    }
+}
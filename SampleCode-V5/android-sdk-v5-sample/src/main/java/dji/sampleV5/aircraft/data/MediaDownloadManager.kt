@@ -0,0 +1,454 @@
+package dji.sampleV5.aircraft.data
+
+import dji.v5.common.callback.CommonCallbacks
+import dji.v5.common.error.IDJIError
+import dji.v5.manager.datacenter.media.MediaFile
+import dji.v5.manager.datacenter.media.MediaFileDownloadListener
+import dji.v5.utils.common.LogUtils
+import org.json.JSONArray
+import org.json.JSONException
+import org.json.JSONObject
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.ArrayDeque
+
+/**
+ * 媒体文件批量下载
+ *
+ * 同时下载的文件数有上限，其余排队。每个文件从本地已有的长度续传，数据先攒到缓存里再批量写入 FileChannel，
+ * 不在每个数据块后 flush。缓存和文件只在任务自己的锁内读写，落盘时不占用全局锁，不会阻塞其他文件的回调。
+ * 未完成的文件记录在 dir 下的清单中，App 重启后拿到媒体列表时调用 [restore] 继续下载；重试次数用完的文件不再记录。
+ *
+ * MSDK 只支持从某个偏移开始拉取到文件末尾，不支持指定长度，因此并发是文件之间的并发，单个文件不再分块。
+ */
+class MediaDownloadManager(
+    private val dir: File,
+    private val maxConcurrent: Int = DEFAULT_MAX_CONCURRENT,
+    private val listener: Listener? = null
+) {
+    companion object {
+        private const val TAG = "MediaDownloadManager"
+        private const val MANIFEST_NAME = ".download_manifest.json"
+        const val DEFAULT_MAX_CONCURRENT = 2
+        private const val WRITE_BUFFER_SIZE = 512 * 1024
+        private const val MAX_RETRIES = 3
+        private const val PROGRESS_INTERVAL_MS = 500L
+    }
+
+    interface Listener {
+        /**
+         * 在 MSDK 回调线程调用，按 [PROGRESS_INTERVAL_MS] 节流，状态变化时立即回调
+         */
+        fun onProgress(progress: Progress)
+    }
+
+    /**
+     * 整批下载的进度
+     *
+     * @param throughput 本次会话的平均下载速度，字节/秒
+     */
+    data class Progress(
+        val totalFiles: Int,
+        val finishedFiles: Int,
+        val failedFiles: Int,
+        val activeFiles: Int,
+        val totalBytes: Long,
+        val downloadedBytes: Long,
+        val throughput: Double
+    ) {
+        val isComplete: Boolean
+            get() = finishedFiles + failedFiles == totalFiles
+
+        val percent: Int
+            get() = if (totalBytes <= 0) 100 else (downloadedBytes * 100 / totalBytes).toInt()
+    }
+
+    private enum class State { PENDING, RUNNING, FINISHED, FAILED }
+
+    private inner class Task(var mediaFile: MediaFile?, val fileIndex: Int, val fileName: String, val fileSize: Long) {
+        val file = File(dir, fileName)
+        var state = State.PENDING
+        var downloaded = 0L
+        var retries = 0
+
+        /**
+         * 重试次数用完，不再写入清单
+         */
+        var abandoned = false
+
+        /**
+         * 已经请求停止，结束时不再重试
+         */
+        var stopping = false
+
+        // 以下字段在 synchronized(task) 内访问
+        var writeFailed = false
+        var channel: FileChannel? = null
+        var buffer: ByteBuffer? = null
+
+        fun toJson(): JSONObject = JSONObject()
+            .put("index", fileIndex)
+            .put("name", fileName)
+            .put("size", fileSize)
+    }
+
+    private val lock = Any()
+    private val tasks = LinkedHashMap<String, Task>()
+    private val queue = ArrayDeque<Task>()
+    private val freeBuffers = ArrayDeque<ByteBuffer>()
+    private var activeCount = 0
+    private var sessionBytes = 0L
+    private var sessionStart = 0L
+    private var lastProgressTime = 0L
+
+    /**
+     * 调用 [stop] 后为 true，此时失败的任务不再重试，也不再启动新任务；[enqueue] 时清除
+     */
+    private var stopped = false
+
+    /**
+     * 加入下载队列，已在队列中或已下载完整的文件会被跳过
+     */
+    fun enqueue(mediaFiles: List<MediaFile>) {
+        synchronized(lock) {
+            if (!dir.exists()) {
+                dir.mkdirs()
+            }
+            stopped = false
+            if (activeCount == 0 && queue.isEmpty()) {
+                // 上一批已经结束，开始新的一批。失败和被停止的文件还要续传，只去掉已完成和放弃的
+                tasks.values.removeAll { it.state == State.FINISHED || it.abandoned }
+                sessionBytes = 0
+                sessionStart = 0
+            }
+            for (mediaFile in mediaFiles) {
+                val task = tasks[mediaFile.fileName]
+                if (task == null) {
+                    addTask(Task(mediaFile, mediaFile.fileIndex, mediaFile.fileName, mediaFile.fileSize))
+                } else if (task.state == State.FAILED) {
+                    // 失败的文件重新排队
+                    task.mediaFile = mediaFile
+                    task.retries = 0
+                    task.abandoned = false
+                    task.state = State.PENDING
+                    queue.add(task)
+                }
+            }
+            saveManifest()
+            schedule()
+        }
+        notifyProgress(true)
+    }
+
+    /**
+     * 按清单恢复上次未完成的下载，mediaFiles 为当前相机上的媒体列表
+     *
+     * @return 恢复的文件数
+     */
+    fun restore(mediaFiles: List<MediaFile>): Int {
+        val pending = loadManifest()
+        if (pending.isEmpty()) {
+            return 0
+        }
+        val byName = mediaFiles.associateBy { it.fileName }
+        val restored = ArrayList<MediaFile>()
+        for (entry in pending) {
+            val mediaFile = byName[entry.optString("name")]
+            if (mediaFile != null && mediaFile.fileIndex == entry.optInt("index") && mediaFile.fileSize == entry.optLong("size")) {
+                restored.add(mediaFile)
+            }
+        }
+        LogUtils.i(TAG, "restore ${restored.size}/${pending.size}")
+        if (restored.isNotEmpty()) {
+            enqueue(restored)
+        }
+        return restored.size
+    }
+
+    /**
+     * 停止正在进行的下载，已写入的数据和清单保留，之后可以续传
+     */
+    fun stop() {
+        val running: List<Task>
+        synchronized(lock) {
+            stopped = true
+            queue.clear()
+            running = tasks.values.filter { it.state == State.RUNNING }
+            running.forEach { it.stopping = true }
+            tasks.values.filter { it.state == State.PENDING }.forEach { it.state = State.FAILED }
+        }
+        for (task in running) {
+            task.mediaFile?.stopPullOriginalMediaFileFromCamera(object : CommonCallbacks.CompletionCallback {
+                override fun onSuccess() {
+                    finishTask(task, State.FAILED, "stopped")
+                }
+
+                override fun onFailure(error: IDJIError) {
+                    finishTask(task, State.FAILED, "stop error $error")
+                }
+            })
+        }
+    }
+
+    fun getProgress(): Progress {
+        synchronized(lock) {
+            var finished = 0
+            var failed = 0
+            var totalBytes = 0L
+            var downloadedBytes = 0L
+            for (task in tasks.values) {
+                when (task.state) {
+                    State.FINISHED -> finished++
+                    State.FAILED -> failed++
+                    else -> {}
+                }
+                totalBytes += task.fileSize
+                downloadedBytes += minOf(task.downloaded, task.fileSize)
+            }
+            val elapsed = System.currentTimeMillis() - sessionStart
+            val throughput = if (sessionStart == 0L || elapsed <= 0) 0.0 else sessionBytes * 1000.0 / elapsed
+            return Progress(tasks.size, finished, failed, activeCount, totalBytes, downloadedBytes, throughput)
+        }
+    }
+
+    private fun addTask(task: Task) {
+        tasks[task.fileName] = task
+        task.downloaded = if (task.file.exists()) task.file.length() else 0L
+        if (task.downloaded >= task.fileSize && task.fileSize > 0) {
+            task.state = State.FINISHED
+        } else {
+            queue.add(task)
+        }
+    }
+
+    /**
+     * 在 lock 内调用，补满并发数。调用方在释放 lock 后通知进度
+     */
+    private fun schedule() {
+        while (!stopped && activeCount < maxConcurrent) {
+            val task = queue.poll() ?: return
+            if (sessionStart == 0L) {
+                sessionStart = System.currentTimeMillis()
+            }
+            start(task)
+        }
+    }
+
+    private fun start(task: Task) {
+        val mediaFile = task.mediaFile ?: return
+        val offset: Long
+        var file: RandomAccessFile? = null
+        try {
+            file = RandomAccessFile(task.file, "rw")
+            val channel = file.channel
+            // 从已有长度续传，本地文件比媒体文件还大时截断
+            offset = minOf(channel.size(), task.fileSize)
+            channel.truncate(offset)
+            channel.position(offset)
+            task.channel = channel
+        } catch (e: IOException) {
+            LogUtils.e(TAG, "open ${task.fileName} error ${e.message}")
+            try {
+                file?.close()
+            } catch (closeError: IOException) {
+                LogUtils.e(TAG, "close error ${closeError.message}")
+            }
+            task.state = State.FAILED
+            saveManifest()
+            return
+        }
+        val buffer = freeBuffers.poll() ?: ByteBuffer.allocate(WRITE_BUFFER_SIZE)
+        synchronized(task) {
+            task.buffer = buffer
+            task.writeFailed = false
+        }
+        task.downloaded = offset
+        task.state = State.RUNNING
+        task.stopping = false
+        activeCount++
+        LogUtils.i(TAG, "${task.fileIndex} start from $offset/${task.fileSize}")
+        mediaFile.pullOriginalMediaFileFromCamera(offset, object : MediaFileDownloadListener {
+            override fun onStart() {
+                LogUtils.i(TAG, "${task.fileIndex} start download")
+            }
+
+            override fun onProgress(total: Long, current: Long) {
+                // 进度按实际写入的字节统计
+            }
+
+            override fun onRealtimeDataUpdate(data: ByteArray, position: Long) {
+                write(task, data)
+            }
+
+            override fun onFinish() {
+                finishTask(task, State.FINISHED, null)
+            }
+
+            override fun onFailure(error: IDJIError?) {
+                finishTask(task, State.FAILED, "download error $error")
+            }
+        })
+    }
+
+    private fun write(task: Task, data: ByteArray) {
+        synchronized(task) {
+            val buffer = task.buffer ?: return
+            if (task.writeFailed) {
+                return
+            }
+            try {
+                var offset = 0
+                while (offset < data.size) {
+                    if (!buffer.hasRemaining()) {
+                        flush(task)
+                    }
+                    val length = minOf(buffer.remaining(), data.size - offset)
+                    buffer.put(data, offset, length)
+                    offset += length
+                }
+            } catch (e: IOException) {
+                // 后面的数据不再写入，结束后从文件实际长度重试
+                LogUtils.e(TAG, "write error ${e.message}")
+                task.writeFailed = true
+                buffer.clear()
+                return
+            }
+        }
+        synchronized(lock) {
+            task.downloaded += data.size
+            sessionBytes += data.size
+        }
+        notifyProgress(false)
+    }
+
+    /**
+     * 把缓存中的数据写入文件，在 synchronized(task) 内调用
+     */
+    private fun flush(task: Task) {
+        val buffer = task.buffer ?: return
+        val channel = task.channel ?: return
+        buffer.flip()
+        while (buffer.hasRemaining()) {
+            channel.write(buffer)
+        }
+        buffer.clear()
+    }
+
+    private fun finishTask(task: Task, finishState: State, finishError: String?) {
+        // 先在任务自己的锁内落盘并关闭文件，buffer 置空后迟到的数据和重复的结束回调都会被忽略
+        val buffer: ByteBuffer
+        var writeFailed: Boolean
+        synchronized(task) {
+            buffer = task.buffer ?: return
+            writeFailed = task.writeFailed
+            task.writeFailed = false
+            if (!writeFailed) {
+                try {
+                    flush(task)
+                } catch (e: IOException) {
+                    LogUtils.e(TAG, "flush error ${e.message}")
+                    writeFailed = true
+                }
+            }
+            task.buffer = null
+            try {
+                task.channel?.close()
+            } catch (e: IOException) {
+                LogUtils.e(TAG, "close error ${e.message}")
+            }
+            task.channel = null
+        }
+        val length = task.file.length()
+        synchronized(lock) {
+            buffer.clear()
+            freeBuffers.add(buffer)
+            var state = finishState
+            var error = finishError
+            if (writeFailed) {
+                state = State.FAILED
+                error = "write failed"
+            } else if (state == State.FINISHED && length != task.fileSize) {
+                state = State.FAILED
+                error = "size mismatch $length/${task.fileSize}"
+            }
+            task.downloaded = length
+            activeCount--
+            if (state == State.FAILED && error != null) {
+                LogUtils.e(TAG, "${task.fileIndex} $error")
+            }
+            if (state == State.FAILED && !stopped && !task.stopping && task.retries < MAX_RETRIES) {
+                // 链路断开等失败从已写入的位置重试
+                task.retries++
+                task.state = State.PENDING
+                queue.add(task)
+            } else {
+                task.state = state
+                task.abandoned = state == State.FAILED && task.retries >= MAX_RETRIES
+                LogUtils.i(TAG, "${task.fileIndex} $state ${task.downloaded}/${task.fileSize}")
+                saveManifest()
+            }
+            schedule()
+        }
+        notifyProgress(true)
+    }
+
+    private fun notifyProgress(force: Boolean) {
+        val listener = listener ?: return
+        val now = System.currentTimeMillis()
+        synchronized(lock) {
+            if (!force && now - lastProgressTime < PROGRESS_INTERVAL_MS) {
+                return
+            }
+            lastProgressTime = now
+        }
+        listener.onProgress(getProgress())
+    }
+
+    /**
+     * 清单只记录还没下载完成、可以续传的文件，在 lock 内调用
+     */
+    private fun saveManifest() {
+        val array = JSONArray()
+        for (task in tasks.values) {
+            if (task.state != State.FINISHED && !task.abandoned) {
+                array.put(task.toJson())
+            }
+        }
+        val manifest = File(dir, MANIFEST_NAME)
+        if (array.length() == 0) {
+            manifest.delete()
+            return
+        }
+        try {
+            val tmp = File(dir, "$MANIFEST_NAME.tmp")
+            tmp.writeText(array.toString())
+            if (!tmp.renameTo(manifest)) {
+                LogUtils.e(TAG, "save manifest failed")
+            }
+        } catch (e: IOException) {
+            LogUtils.e(TAG, "save manifest error ${e.message}")
+        } catch (e: JSONException) {
+            LogUtils.e(TAG, "save manifest error ${e.message}")
+        }
+    }
+
+    private fun loadManifest(): List<JSONObject> {
+        val manifest = File(dir, MANIFEST_NAME)
+        if (!manifest.isFile) {
+            return emptyList()
+        }
+        return try {
+            val array = JSONArray(manifest.readText())
+            (0 until array.length()).map { array.getJSONObject(it) }
+        } catch (e: IOException) {
+            LogUtils.e(TAG, "load manifest error ${e.message}")
+            emptyList()
+        } catch (e: JSONException) {
+            LogUtils.e(TAG, "load manifest error ${e.message}")
+            emptyList()
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package dji.sampleV5.aircraft.data
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.util.LruCache
+import dji.v5.common.callback.CommonCallbacks
+import dji.v5.common.error.IDJIError
+import dji.v5.manager.datacenter.media.MediaFile
+import dji.v5.utils.common.ContextUtil
+import dji.v5.utils.common.DJIExecutor
+import dji.v5.utils.common.LogUtils
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.ArrayDeque
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 媒体缩略图和预览图的两级缓存
+ *
+ * 缩略图在内存中放在按字节数限制的 LRU 里，预览图单独放在只保留几张的 LRU 里，不会挤掉缩略图；
+ * 磁盘上保存压缩后的 JPEG。key 由相机位置、存储位置、文件序号、文件名、大小和拍摄时间组成，
+ * 相机格式化后序号重复也不会取到旧图。同一张图同时只向相机请求一次，后来的请求合并等待。
+ * 没有前台请求时按 [prefetch] 的顺序逐个预取，不和前台请求抢下行链路。
+ */
+object MediaThumbnailCache {
+    private const val TAG = "MediaThumbnailCache"
+    private const val DISK_DIR = "media_thumb"
+    private const val MAX_DISK_BYTES = 64L * 1024 * 1024
+    private const val JPEG_QUALITY = 85
+    private const val TRIM_EVERY_WRITES = 20
+    private const val PREVIEW_CACHE_SIZE = 3
+
+    enum class Type(val suffix: String) {
+        THUMBNAIL("t"),
+        PREVIEW("p")
+    }
+
+    /**
+     * 命中统计
+     */
+    data class Stats(
+        val memoryHits: Long,
+        val diskHits: Long,
+        val misses: Long,
+        val mergedRequests: Long,
+        val prefetched: Long,
+        val failures: Long,
+        val memoryBytes: Int,
+        val memoryMaxBytes: Int,
+        val previewCount: Int
+    ) {
+        val hitRate: Double
+            get() {
+                val total = memoryHits + diskHits + misses
+                return if (total == 0L) 0.0 else (memoryHits + diskHits).toDouble() / total
+            }
+    }
+
+    private class Request(val mediaFile: MediaFile, val type: Type, val key: String, var prefetch: Boolean) {
+        val callbacks = ArrayList<(Bitmap?) -> Unit>()
+    }
+
+    private val thumbnailCache = object : LruCache<String, Bitmap>(
+        (Runtime.getRuntime().maxMemory() / 16).coerceAtMost(Int.MAX_VALUE.toLong()).toInt()
+    ) {
+        override fun sizeOf(key: String, value: Bitmap): Int = value.allocationByteCount
+    }
+
+    /**
+     * 预览图比缩略图大得多且一次只看一张，按张数限制
+     */
+    private val previewCache = LruCache<String, Bitmap>(PREVIEW_CACHE_SIZE)
+
+    private val diskDir: File by lazy { File(ContextUtil.getContext().cacheDir, DISK_DIR).apply { mkdirs() } }
+    private val ioExecutor = DJIExecutor.getExecutorFor(DJIExecutor.Purpose.IO)
+
+    private val lock = Any()
+    private val inFlight = HashMap<String, Request>()
+    private val prefetchQueue = ArrayDeque<Pair<MediaFile, Type>>()
+    private var cameraSource = "default"
+    private var storageSource = "default"
+    private var diskWrites = 0
+
+    private val memoryHits = AtomicLong()
+    private val diskHits = AtomicLong()
+    private val misses = AtomicLong()
+    private val mergedRequests = AtomicLong()
+    private val prefetched = AtomicLong()
+    private val failures = AtomicLong()
+
+    /**
+     * 切换相机或存储位置时调用，作为 key 的一部分
+     */
+    fun setSource(camera: String? = null, storage: String? = null) {
+        synchronized(lock) {
+            camera?.let { cameraSource = it }
+            storage?.let { storageSource = it }
+            prefetchQueue.clear()
+        }
+    }
+
+    /**
+     * 内存命中时直接在当前线程回调，否则在主线程回调，失败时回调 null
+     */
+    fun load(mediaFile: MediaFile, type: Type, callback: (Bitmap?) -> Unit) {
+        val key = keyOf(mediaFile, type)
+        val bitmap = memoryCacheOf(type).get(key)
+        if (bitmap != null) {
+            memoryHits.incrementAndGet()
+            callback(bitmap)
+            return
+        }
+        request(mediaFile, type, key, callback)
+    }
+
+    /**
+     * 链路空闲时按顺序预取，已经缓存的会被跳过
+     */
+    fun prefetch(mediaFiles: List<MediaFile>, type: Type = Type.THUMBNAIL) {
+        synchronized(lock) {
+            prefetchQueue.clear()
+            mediaFiles.forEach { prefetchQueue.add(it to type) }
+        }
+        pumpPrefetch()
+    }
+
+    fun getStats(): Stats = Stats(
+        memoryHits.get(), diskHits.get(), misses.get(), mergedRequests.get(), prefetched.get(), failures.get(),
+        thumbnailCache.size(), thumbnailCache.maxSize(), previewCache.size()
+    )
+
+    fun clearMemory() {
+        thumbnailCache.evictAll()
+        previewCache.evictAll()
+    }
+
+    private fun memoryCacheOf(type: Type): LruCache<String, Bitmap> = when (type) {
+        Type.THUMBNAIL -> thumbnailCache
+        Type.PREVIEW -> previewCache
+    }
+
+    private fun keyOf(mediaFile: MediaFile, type: Type): String {
+        val source = synchronized(lock) { "${cameraSource}_$storageSource" }
+        // 文件名中可能有路径分隔符以外的特殊字符，统一替换后作为磁盘文件名
+        val name = mediaFile.fileName.replace(Regex("[^A-Za-z0-9._-]"), "_")
+        return "${source}_${mediaFile.fileIndex}_${name}_${mediaFile.fileSize}_${timestampOf(mediaFile)}_${type.suffix}"
+    }
+
+    /**
+     * 拍摄时间，精确到秒
+     */
+    private fun timestampOf(mediaFile: MediaFile): String {
+        val date = mediaFile.date ?: return "0"
+        return String.format(Locale.US, "%04d%02d%02d%02d%02d%02d",
+            date.year, date.month, date.day, date.hour, date.minute, date.second)
+    }
+
+    private fun request(mediaFile: MediaFile, type: Type, key: String, callback: ((Bitmap?) -> Unit)?) {
+        synchronized(lock) {
+            val running = inFlight[key]
+            if (running != null) {
+                mergedRequests.incrementAndGet()
+                callback?.let {
+                    running.callbacks.add(it)
+                    // 前台请求等待中的预取，预取升级为前台请求
+                    running.prefetch = false
+                }
+                return
+            }
+            val request = Request(mediaFile, type, key, callback == null)
+            callback?.let { request.callbacks.add(it) }
+            inFlight[key] = request
+        }
+        ioExecutor.execute { loadFromDisk(key) }
+    }
+
+    private fun loadFromDisk(key: String) {
+        val request = synchronized(lock) { inFlight[key] } ?: return
+        val memoryCache = memoryCacheOf(request.type)
+        val file = File(diskDir, "$key.jpg")
+        val bitmap = if (file.isFile) BitmapFactory.decodeFile(file.path) else null
+        if (bitmap != null) {
+            diskHits.incrementAndGet()
+            file.setLastModified(System.currentTimeMillis())
+            memoryCache.put(key, bitmap)
+            complete(key, bitmap)
+            return
+        }
+        misses.incrementAndGet()
+        if (request.prefetch) {
+            prefetched.incrementAndGet()
+        }
+        val pullCallback = object : CommonCallbacks.CompletionCallbackWithParam<Bitmap> {
+            override fun onSuccess(t: Bitmap?) {
+                if (t != null) {
+                    memoryCache.put(key, t)
+                    ioExecutor.execute { saveToDisk(key, t) }
+                }
+                complete(key, t)
+            }
+
+            override fun onFailure(error: IDJIError) {
+                failures.incrementAndGet()
+                LogUtils.e(TAG, "pull ${request.type} failed $error")
+                complete(key, null)
+            }
+        }
+        when (request.type) {
+            Type.THUMBNAIL -> request.mediaFile.pullThumbnailFromCamera(pullCallback)
+            Type.PREVIEW -> request.mediaFile.pullPreviewFromCamera(pullCallback)
+        }
+    }
+
+    private fun complete(key: String, bitmap: Bitmap?) {
+        val request = synchronized(lock) { inFlight.remove(key) } ?: return
+        if (request.callbacks.isNotEmpty()) {
+            AndroidSchedulers.mainThread().scheduleDirect {
+                request.callbacks.forEach { it(bitmap) }
+            }
+        }
+        pumpPrefetch()
+    }
+
+    /**
+     * 没有前台请求且没有预取在进行时，取下一个未缓存的文件预取
+     */
+    private fun pumpPrefetch() {
+        var next: Pair<MediaFile, Type>? = null
+        var key = ""
+        synchronized(lock) {
+            if (inFlight.isNotEmpty()) {
+                return
+            }
+            while (prefetchQueue.isNotEmpty()) {
+                val candidate = prefetchQueue.poll() ?: break
+                val candidateKey = keyOf(candidate.first, candidate.second)
+                if (memoryCacheOf(candidate.second).get(candidateKey) == null) {
+                    next = candidate
+                    key = candidateKey
+                    break
+                }
+            }
+        }
+        next?.let { request(it.first, it.second, key, null) }
+    }
+
+    private fun saveToDisk(key: String, bitmap: Bitmap) {
+        val file = File(diskDir, "$key.jpg")
+        val tmp = File(diskDir, "$key.tmp")
+        try {
+            FileOutputStream(tmp).use { bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, it) }
+            if (!tmp.renameTo(file)) {
+                tmp.delete()
+            }
+        } catch (e: IOException) {
+            LogUtils.e(TAG, "save thumbnail error ${e.message}")
+            tmp.delete()
+        }
+        val shouldTrim = synchronized(lock) { ++diskWrites % TRIM_EVERY_WRITES == 0 }
+        if (shouldTrim) {
+            trimDisk()
+        }
+    }
+
+    /**
+     * 磁盘缓存超过上限时按最近使用时间删除
+     */
+    private fun trimDisk() {
+        val files = diskDir.listFiles() ?: return
+        var total = files.sumOf { it.length() }
+        if (total <= MAX_DISK_BYTES) {
+            return
+        }
+        files.sortBy { it.lastModified() }
+        for (file in files) {
+            if (total <= MAX_DISK_BYTES * 3 / 4) {
+                break
+            }
+            total -= file.length()
+            file.delete()
+        }
+    }
+}
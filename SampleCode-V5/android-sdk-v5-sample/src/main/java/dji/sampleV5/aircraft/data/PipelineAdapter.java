@@ -12,7 +12,6 @@ import android.widget.Switch;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -28,8 +27,6 @@ import androidx.annotation.RequiresApi;
 import androidx.appcompat.app.AlertDialog;
 import androidx.recyclerview.widget.RecyclerView;
 import dji.sampleV5.aircraft.R;
-import dji.v5.common.error.DJIPipeLineError;
-import dji.v5.manager.mop.DataResult;
 import dji.v5.manager.mop.Pipeline;
 import dji.v5.manager.mop.PipelineManager;
 import dji.v5.utils.common.BytesUtil;
@@ -193,14 +190,15 @@ public class PipelineAdapter extends RecyclerView.Adapter<PipelineAdapter.ViewHo
             downloadThread.start();
             uploadHandler = new Handler(uploadThread.getLooper());
             downloadHandler = new Handler(downloadThread.getLooper());
+            MOPLink link = new PipelineLink(pipeline);
             View.OnClickListener localListener = v -> {
                 int id = v.getId();
                 if (id == R.id.tv_upload) {
-                    showDialog(itemView.getContext(), pipeline);
+                    showDialog(itemView.getContext(), link);
                 } else if (id == R.id.tv_download) {
                     downloadHandler.post(() -> {
                         resetDownInfo();
-                        downloadFile(pipeline, filenameTv.getText().toString());
+                        downloadFile(link, filenameTv.getText().toString());
                     });
                 } else if (id == R.id.tv_disconnect) {
                     destroy();
@@ -259,7 +257,7 @@ public class PipelineAdapter extends RecyclerView.Adapter<PipelineAdapter.ViewHo
             uploading = false;
         }
 
-        private void uploadFile(Pipeline data) {
+        private void uploadFile(MOPLink data) {
             if (data == null) {
                 return;
             }
@@ -270,47 +268,29 @@ public class PipelineAdapter extends RecyclerView.Adapter<PipelineAdapter.ViewHo
             uploading = true;
             long time = System.currentTimeMillis();
 
-            InputStream inputStream = null;
-            FileOutputStream out = null;
-            ByteArrayOutputStream outputStream = null;
-            try {
-                byte[] buff = new byte[3072];
-                inputStream = itemView.getContext().getAssets().open("mop/" + uploadFileName);
-                File tmp = new File(itemView.getContext().getCacheDir(), "mop.tmp");
-                out = new FileOutputStream(tmp);
-                outputStream = new ByteArrayOutputStream();
+            File tmp = new File(itemView.getContext().getCacheDir(), "mop.tmp");
+            try (InputStream inputStream = itemView.getContext().getAssets().open("mop/" + uploadFileName);
+                 FileOutputStream out = new FileOutputStream(tmp)) {
+                byte[] buff = new byte[8192];
                 int len;
-                while ((len = inputStream.read(buff, 0, 3072)) > 0) {
-                    outputStream.write(buff, 0, len);
+                while ((len = inputStream.read(buff)) > 0) {
                     out.write(buff, 0, len);
                 }
-                MOPCmdHelper.sendUploadFileReq(data, uploadFileName, outputStream.toByteArray(), time, MOPCmdHelper.getMD5(tmp), listener);
-
             } catch (IOException e) {
-                LogUtils.e(tag,e.getMessage());
-            } finally {
-                try {
-                    if (inputStream != null){
-                        inputStream.close();
-                    }
-                    if (out != null){
-                        out.close();
-                    }
-                    if (outputStream != null){
-                        outputStream.close();
-                    }
-                } catch (IOException e) {
-                    LogUtils.e(tag,e.getMessage());
-                }
+                LogUtils.e(tag, e.getMessage());
+                uploading = false;
+                return;
             }
+            // 上传时按窗口映射临时文件，不需要整个读入内存
+            MOPCmdHelper.sendUploadFileReq(data, uploadFileName, tmp, time, listener);
 
             uploadCount++;
             updateUploadUI();
             uploading = false;
         }
 
-        private void downloadFile(Pipeline pipeline, String filename) {
-            if (pipeline == null) {
+        private void downloadFile(MOPLink link, String filename) {
+            if (link == null) {
                 return;
             }
 
@@ -322,7 +302,7 @@ public class PipelineAdapter extends RecyclerView.Adapter<PipelineAdapter.ViewHo
             long time = System.currentTimeMillis();
 
             // 获取文件信息
-            MOPCmdHelper.FileInfo fileInfo = MOPCmdHelper.sendDownloadFileReq(pipeline, filename, listener);
+            MOPCmdHelper.FileInfo fileInfo = MOPCmdHelper.sendDownloadFileReq(link, filename, listener);
             if (fileInfo == null || !fileInfo.isExist()) {
                 LogUtils.e(tag, "downloadFile fail", "/MOP");
                 downloading = false;
@@ -331,124 +311,37 @@ public class PipelineAdapter extends RecyclerView.Adapter<PipelineAdapter.ViewHo
             downloadFileInfoLog = fileInfo.toString();
             updateDownloadUI();
 
-            RandomAccessFile stream = null;
-            try {
-                LogUtils.i(tag, " fileInfo=" + fileInfo);
-                File file = DiskUtil.getDiskCacheDir(itemView.getContext(), fileInfo.getFilename());
-                if (file.exists()) {
-                    file.delete();
-                }
-                file.createNewFile();
-                stream = new RandomAccessFile(file, "rw");
-            } catch (IOException e) {
-                LogUtils.e(tag,e.getMessage());
-            }
-
-            while (true) {
-                // 开始读取文件数据
-                byte[] headBuff = new byte[MOPCmdHelper.PACK_HEADER_SIZE];
-                DataResult readData = pipeline.readData(headBuff);
-                if (readData.getError() != null && readData.getError().errorCode().equals(DJIPipeLineError.CLOSING)) {
-                    LogUtils.e(tag, "Pipeline is closing,finish down");
-                    return;
-                }
-                if (readData.getLength() < MOPCmdHelper.PACK_HEADER_SIZE) {
-                    LogUtils.e(tag, "readData.getLength()=" + readData.getLength() + " <8,jump over!result=" + readData);
-                    continue;
-                }
-                // 这个包带有的文件字节
-                MOPCmdHelper.FileTransResult result = MOPCmdHelper.parseFileDataCmd(headBuff);
-                if (result == null) {
-                    LogUtils.e(tag, "FileTransResult=null ,finish down");
-                    downloading = false;
-                    return;
-                }
-                if (result.isSuccess()) {
-                    int length = result.getLength();
-                    int sum = 0;
-                    int readLength = length;
-                    while (sum < length) {
-                        byte[] dataBuff = new byte[readLength];
-                        DataResult dataResult = pipeline.readData(dataBuff);
-                        int len = dataResult.getLength();
-                        if (len > 0) {
-                            downloadPackCount++;
-                            downloadSize += len;
-                            byte[] subArray = BytesUtil.subArray(dataBuff, 0, 3);
-                            sum += len;
-                            readLength -= len;
-                            String tmp = BytesUtil.toHexStringLowercase(subArray);
-                            LogUtils.i(tag, "pack seq:" + downloadPackCount + ", data:" + tmp + ", length:" + len);
-                            LogUtils.i(tag, filename + " download : " + sum);
-                            downloadLogTv.post(() -> {
-                                downloadProgress = String.format("have downloadPack = %d, downloadSize:%d/%d, useTime:%d(ms)", downloadPackCount,
-                                        downloadSize, fileInfo.getFileLength(), System.currentTimeMillis() - time);
-                                updateDownloadUI();
-                            });
-                            try {
-                                if (stream != null){
-                                    stream.write(dataBuff, 0, len);
-                                }
-                            } catch (IOException e) {
-                                LogUtils.e(tag,e.getMessage());
-                            }
-                        } else if (dataResult.getError() != null && dataResult.getError().errorCode().equals(DJIPipeLineError.CLOSING)) {
-                            LogUtils.e(tag, "Pipeline is closing,finish down");
-                            return;
-                        }
-                    }
-                } else {
-                    // 解析出错位置
-                    int position = MOPCmdHelper.parseFileFailIndex(pipeline);
-                    // ack
-                    MOPCmdHelper.sendTransFileFailAck(pipeline, position);
-                    // 确认是否能接着传
-                    if (MOPCmdHelper.parseCommonAck(pipeline)) {
-                        try {
-                            if (stream != null){
-                                stream.seek(position);
-                            }
-                        } catch (IOException e) {
-                            LogUtils.e(tag,e.getMessage());
-                        }
-                    } else {
-                        try {
-                            if(stream != null){
-                                stream.close();
-                            }
-                        } catch (IOException e) {
-                            LogUtils.e(tag,e.getMessage());
-                        }
-                        downloadLogTv.post(() -> downloadLogTv.setText("transfer failure"));
-                        downloading = false;
-                        return;
-                    }
-
-                }
-                if (MOPCmdHelper.isFileEnd(headBuff)) {
-                    LogUtils.i(tag, "Download success ,updateDownloadUI");
-                    downloadResult = "Download success";
-                    updateDownloadUI();
-                    break;
-                }
+            LogUtils.i(tag, " fileInfo=" + fileInfo);
+            File file = DiskUtil.getDiskCacheDir(itemView.getContext(), fileInfo.getFilename());
+            if (file.exists()) {
+                file.delete();
             }
-            try {
-                if (stream != null){
-                    stream.close();
-                }
+            MOPWindowTransfer.Report report = null;
+            try (RandomAccessFile stream = new RandomAccessFile(file, "rw")) {
+                report = MOPCmdHelper.receiveFile(link, stream, fileInfo, time, listener);
             } catch (IOException e) {
-                LogUtils.e(tag,e.getMessage());
+                LogUtils.e(tag, e.getMessage());
             }
             downloading = false;
+            if (report == null) {
+                downloadResult = "transfer failure";
+                downloadCount++;
+                MOPCmdHelper.sendTransAck(link, false);
+                updateDownloadUI();
+                return;
+            }
+            downloadPackCount = report.getPackets();
+            downloadSize = (int) report.getBytes();
+            downloadProgress = report.toString();
 
-            boolean result = verifyMd5(fileInfo, DiskUtil.getDiskCacheDir(itemView.getContext(), fileInfo.getFilename()));
+            boolean result = verifyMd5(fileInfo, file);
             downloadResult = "verify md5 :" + result;
             downloadCount++;
             if (downloadSize == fileInfo.getFileLength() && result) {
                 downloadSuccessCount++;
-                MOPCmdHelper.sendTransAck(pipeline, true);
+                MOPCmdHelper.sendTransAck(link, true);
             } else {
-                MOPCmdHelper.sendTransAck(pipeline, false);
+                MOPCmdHelper.sendTransAck(link, false);
             }
             updateDownloadUI();
             if (autoDownloadSwitch.isChecked()) {
@@ -481,16 +374,21 @@ public class PipelineAdapter extends RecyclerView.Adapter<PipelineAdapter.ViewHo
                     if (event.getProgress() != null) {
                         uploadProgress = event.getProgress();
                     }
+                    if (event.getReport() != null) {
+                        uploadProgress = event.getReport().toString();
+                    }
                     updateUploadUI();
                     break;
                 case MOPCmdHelper.TipEvent.DOWNLOAD:
-                    if (event.getResult() != null) {
-                        downloadResult = event.getResult();
-                    }
                     if (event.getProgress() != null) {
                         downloadProgress = event.getProgress();
                     }
-                    downloadLogTv.post(() -> downloadLogTv.setText(downloadLogTv.getText().toString() + "\n" + event.getResult()));
+                    if (event.getResult() != null) {
+                        downloadResult = event.getResult();
+                        downloadLogTv.post(() -> downloadLogTv.setText(downloadLogTv.getText().toString() + "\n" + event.getResult()));
+                    } else {
+                        updateDownloadUI();
+                    }
                     break;
                 default:
                     break;
@@ -523,7 +421,7 @@ public class PipelineAdapter extends RecyclerView.Adapter<PipelineAdapter.ViewHo
         }
 
 
-        private void showDialog(Context context, Pipeline pipeline) {
+        private void showDialog(Context context, MOPLink link) {
             View root = LayoutInflater.from(context).inflate(R.layout.dialog_mop_upload, null, false);
             new AlertDialog.Builder(context)
                     .setTitle("Select File Size")
@@ -541,7 +439,7 @@ public class PipelineAdapter extends RecyclerView.Adapter<PipelineAdapter.ViewHo
                         }
                         uploadHandler.post(() -> {
                             resetUploadInfo();
-                            uploadFile(pipeline);
+                            uploadFile(link);
                         });
                     })
                     .show();
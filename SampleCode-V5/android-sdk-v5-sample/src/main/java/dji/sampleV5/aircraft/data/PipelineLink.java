@@ -0,0 +1,65 @@
+package dji.sampleV5.aircraft.data;
+
+import androidx.annotation.NonNull;
+import dji.v5.common.error.DJIPipeLineError;
+import dji.v5.common.error.IDJIError;
+import dji.v5.manager.mop.DataResult;
+import dji.v5.manager.mop.Pipeline;
+
+/**
+ * 基于 MSDK Pipeline 的 {@link MOPLink}
+ */
+public class PipelineLink implements MOPLink {
+    private static final String TAG = PipelineLink.class.getSimpleName();
+
+    private final Pipeline pipeline;
+
+    /**
+     * 发送部分数组时使用的缓存，长度和上一次相同时复用
+     */
+    private byte[] sizedBuffer;
+
+    public PipelineLink(@NonNull Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    @NonNull
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    @Override
+    public int writeData(byte[] data, int length) {
+        if (length == data.length) {
+            return toResult(pipeline.writeData(data));
+        }
+        // Pipeline 只能发送整个数组，复制到按长度复用的缓存；同一个文件里只有最后一个包长度不同
+        synchronized (this) {
+            if (sizedBuffer == null || sizedBuffer.length != length) {
+                sizedBuffer = new byte[length];
+            }
+            System.arraycopy(data, 0, sizedBuffer, 0, length);
+            return toResult(pipeline.writeData(sizedBuffer));
+        }
+    }
+
+    @Override
+    public int readData(byte[] buff) {
+        return toResult(pipeline.readData(buff));
+    }
+
+    private static int toResult(DataResult result) {
+        if (result.getLength() >= 0) {
+            return result.getLength();
+        }
+        IDJIError error = result.getError();
+        if (error == null || DJIPipeLineError.TIMEOUT.equals(error.errorCode())) {
+            return RESULT_TIMEOUT;
+        }
+        if (DJIPipeLineError.CLOSING.equals(error.errorCode())) {
+            return RESULT_CLOSING;
+        }
+        MOPLog.e(TAG, "pipeline error: " + result);
+        return RESULT_ERROR;
+    }
+}
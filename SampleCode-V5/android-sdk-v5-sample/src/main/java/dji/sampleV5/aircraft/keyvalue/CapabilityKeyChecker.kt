@@ -61,6 +61,7 @@ object CapabilityKeyChecker {
         var tagBegin = "{\"valueParamList\": ["
         var tagEnd = "]}"
         try {
+            item.ensureGenericInstance()
             val pFields = item.param?.javaClass?.declaredFields
             if (pFields != null) {
                 for (field in pFields) {
@@ -1,6 +1,7 @@
 package dji.sampleV5.aircraft.keyvalue;
 
 
+import java.text.SimpleDateFormat;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +19,11 @@ public class KeyBaseStructure<P, R>   {
 
     private static final String TAG = KeyBaseStructure.class.getSimpleName();
 
+    /**
+     * 每个key最多保留的推送记录条数
+     */
+    private static final int LISTEN_RECORD_CAPACITY = 64;
+
     /**
      * 设置参数
      */
@@ -31,7 +37,12 @@ public class KeyBaseStructure<P, R>   {
     /**
      * 推送数据记录
      */
-    protected String listenRecord = "";
+    protected final ListenRecordBuffer listenRecord = new ListenRecordBuffer(LISTEN_RECORD_CAPACITY);
+
+    /**
+     * 推送记录的时间格式，首次显示推送记录时创建，只在 listenRecord 的锁内使用
+     */
+    private SimpleDateFormat listenRecordDateFormat;
 
     /**
      * 推送Listener宿主
@@ -124,6 +135,24 @@ public class KeyBaseStructure<P, R>   {
      * @return
      */
     public String getListenRecord() {
+        if (listenRecord.isEmpty()) {
+            return "";
+        }
+        synchronized (listenRecord) {
+            if (listenRecordDateFormat == null) {
+                listenRecordDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            }
+            return listenRecord.render(KeyItemHelper.INSTANCE.getLISTEN_RECORD_MAX_LENGTH(),
+                    listenRecordDateFormat, "push info:");
+        }
+    }
+
+    /**
+     * 获取推送记录缓冲区，可读取推送次数、频率和丢弃数
+     *
+     * @return
+     */
+    public ListenRecordBuffer getListenRecordBuffer() {
         return listenRecord;
     }
 
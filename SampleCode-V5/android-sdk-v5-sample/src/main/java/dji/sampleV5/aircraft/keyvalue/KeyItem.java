@@ -3,6 +3,9 @@ package dji.sampleV5.aircraft.keyvalue;
 
 import org.json.JSONObject;
 
+import java.util.List;
+import java.util.Map;
+
 import androidx.annotation.NonNull;
 import dji.sampleV5.aircraft.util.ToastUtils;
 import dji.sampleV5.aircraft.util.Util;
@@ -50,6 +53,16 @@ public class KeyItem<P, R> extends KeyBaseStructure<P , R> implements  Comparabl
     private long count;
     public boolean isSingleDJIValue;
 
+    /**
+     * 所属通道
+     */
+    private ChannelType channelType;
+
+    /**
+     * 参数和结果实例是否已创建
+     */
+    private boolean isGenericInitialized;
+
     /**
      * 参数key的能力携带实体
      */
@@ -89,6 +102,37 @@ public class KeyItem<P, R> extends KeyBaseStructure<P , R> implements  Comparabl
         return keyInfoSet;
     }
 
+    public ChannelType getChannelType() {
+        return channelType;
+    }
+
+    public void setChannelType(ChannelType channelType) {
+        this.channelType = channelType;
+    }
+
+    /**
+     * 创建参数和结果实例，只在第一次使用时执行
+     */
+    public synchronized void ensureGenericInstance() {
+        if (isGenericInitialized) {
+            return;
+        }
+        isGenericInitialized = true;
+        KeyItemDataUtil.genericItem(this, keyInfo);
+    }
+
+    @Override
+    public P getParam() {
+        ensureGenericInstance();
+        return super.getParam();
+    }
+
+    @Override
+    public Map<String, List<EnumItem>> getSubItemMap() {
+        ensureGenericInstance();
+        return super.getSubItemMap();
+    }
+
 
     /**
      * 获取listen宿主
@@ -199,6 +243,7 @@ public class KeyItem<P, R> extends KeyBaseStructure<P , R> implements  Comparabl
      */
     public void doSet(String jsonStr) {
         try {
+            ensureGenericInstance();
             final P p = validPrams(jsonStr);
             if (p == null) {
                 return;
@@ -277,14 +322,16 @@ public class KeyItem<P, R> extends KeyBaseStructure<P , R> implements  Comparabl
      */
     private CommonCallbacks.KeyListener<R> listenSDKCallback =
         ( oldValue ,newValue) -> {
-            StringBuffer sb = new StringBuffer("【LISTEN】");
+            StringBuilder sb = new StringBuilder("【LISTEN】");
             sb.append(getName());
             sb.append(" result:");
             sb.append("oldValue:").append(oldValue);
             sb.append(" newValue:").append(newValue);
 
+            String record = sb.toString();
+            listenRecord.add(record);
             if (pushCallBack != null) {
-                pushCallBack.actionChange(sb.toString());
+                pushCallBack.actionChange(record);
             }
         };
 
@@ -308,7 +355,7 @@ public class KeyItem<P, R> extends KeyBaseStructure<P , R> implements  Comparabl
             this.listenHolder = null;
             cancelListen(keyInfo, listenHolder);
             pushCallBack = null;
-            listenRecord = "";
+            listenRecord.clear();
         }
         //listenSDKCallback = null;
     }
@@ -339,6 +386,8 @@ public class KeyItem<P, R> extends KeyBaseStructure<P , R> implements  Comparabl
      * @return
      */
     public P buildParamFromJsonStr(String jsonStr) {
+        // isSingleDJIValue 在 genericItem 中才会被设置
+        ensureGenericInstance();
         P p;
         if (keyInfo.getTypeConverter() instanceof SingleValueConverter && !isSingleDJIValue) {
             p = (P) keyInfo.getTypeConverter().fromStr(getSingleJsonValue(jsonStr));
@@ -372,6 +421,7 @@ public class KeyItem<P, R> extends KeyBaseStructure<P , R> implements  Comparabl
     public String getParamJsonStr() {
         String jsonStr = null;
         try {
+            ensureGenericInstance();
             jsonStr = param.toString();
         } catch (Exception e) {
             LogUtils.e(TAG ,e.getMessage());
@@ -400,6 +450,7 @@ public class KeyItem<P, R> extends KeyBaseStructure<P , R> implements  Comparabl
 
 
     public boolean isSingleDJIValue() {
+        ensureGenericInstance();
         return isSingleDJIValue;
     }
 
@@ -16,7 +16,6 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 import dji.sampleV5.aircraft.R;
 
@@ -28,6 +27,7 @@ public class KeyItemAdapter extends RecyclerView.Adapter<KeyItemAdapter.ComViewH
     protected List<KeyItem<?, ?>> dataList;
     protected List<KeyItem<?, ?>> mFilterList;
     protected Context context;
+    private KeyItemSearchIndex searchIndex;
 
 
     public KeyItemAdapter(Context context, List<KeyItem<?, ?>> dataList, KeyItemActionListener<KeyItem<?, ?>> callback) {
@@ -73,6 +73,16 @@ public class KeyItemAdapter extends RecyclerView.Adapter<KeyItemAdapter.ComViewH
     }
 
 
+    /**
+     * 获取搜索索引，数据列表变化后重新构建
+     */
+    private synchronized KeyItemSearchIndex getSearchIndex() {
+        if (searchIndex == null || !searchIndex.isBuiltFrom(dataList)) {
+            searchIndex = new KeyItemSearchIndex(dataList);
+        }
+        return searchIndex;
+    }
+
     @Override
     public Filter getFilter() {
         return new Filter() {
@@ -82,22 +92,7 @@ public class KeyItemAdapter extends RecyclerView.Adapter<KeyItemAdapter.ComViewH
                 if (charString.isEmpty()) {
                     mFilterList = dataList;
                 } else {
-                    List<KeyItem<?, ?>> filteredList = new ArrayList<>();
-                    StringBuilder stringBuilder = new StringBuilder();
-                    for (int i = 0, length = charSequence.length(); i < length; i++) {
-                        if (stringBuilder.length() > 0) {
-                            stringBuilder.append("+.*");
-                        }
-                        stringBuilder.append(charSequence.charAt(i));
-                    }
-                    Pattern pattern = Pattern.compile(stringBuilder.toString(), Pattern.CASE_INSENSITIVE);
-                    for (KeyItem<?, ?> item : dataList) {
-                        if (pattern.matcher(item.keyInfo.getIdentifier()).find()) {
-                            filteredList.add(item);
-                        }
-
-                    }
-                    mFilterList = filteredList;
+                    mFilterList = getSearchIndex().search(charString);
                 }
 
                 FilterResults filterResults = new FilterResults();
@@ -3,7 +3,10 @@ package dji.sampleV5.aircraft.keyvalue;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import dji.sdk.keyvalue.converter.DJIValueConverter;
 import dji.sdk.keyvalue.converter.IDJIValueConverter;
@@ -38,25 +41,26 @@ import dji.v5.utils.common.LogUtils;
 public class KeyItemDataUtil {
     private static final String TAG = KeyItemDataUtil.class.getSimpleName();
     private static final List<KeyItem<?, ?>> allKeyList = new ArrayList<>();
+    private static final Map<Class<?>, ConverterFields> converterFieldsCache = new ConcurrentHashMap<>();
 
     private KeyItemDataUtil() {
         //do something
     }
 
     public static void initBatteryKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, BatteryKey.getKeyList());
+        initList(keyList, BatteryKey.getKeyList(), ChannelType.CHANNEL_TYPE_BATTERY);
     }
 
     public static void initAirlinkKeyList(List<KeyItem<?, ?>> keylist) {
-        initList(keylist, AirLinkKey.getKeyList());
+        initList(keylist, AirLinkKey.getKeyList(), ChannelType.CHANNEL_TYPE_AIRLINK);
     }
 
     public static void initGimbalKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, GimbalKey.getKeyList());
+        initList(keyList, GimbalKey.getKeyList(), ChannelType.CHANNEL_TYPE_GIMBAL);
     }
 
     public static void initCameraKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, CameraKey.getKeyList());
+        initList(keyList, CameraKey.getKeyList(), ChannelType.CHANNEL_TYPE_CAMERA);
     }
 
     public static void initWiFiKeyList(List<KeyItem<?, ?>> keyList) {
@@ -64,39 +68,39 @@ public class KeyItemDataUtil {
     }
 
     public static void initFlightAssistantKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, FlightAssistantKey.getKeyList());
+        initList(keyList, FlightAssistantKey.getKeyList(), ChannelType.CHANNEL_TYPE_FLIGHT_ASSISTANT);
     }
 
     public static void initFlightControllerKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, FlightControllerKey.getKeyList());
+        initList(keyList, FlightControllerKey.getKeyList(), ChannelType.CHANNEL_TYPE_FLIGHT_CONTROL);
     }
 
     public static void initRemoteControllerKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, RemoteControllerKey.getKeyList());
+        initList(keyList, RemoteControllerKey.getKeyList(), ChannelType.CHANNEL_TYPE_REMOTE_CONTROLLER);
     }
 
     public static void initBleKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, BleKey.getKeyList());
+        initList(keyList, BleKey.getKeyList(), ChannelType.CHANNEL_TYPE_BLE);
     }
 
     public static void initProductKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, ProductKey.getKeyList());
+        initList(keyList, ProductKey.getKeyList(), ChannelType.CHANNEL_TYPE_PRODUCT);
     }
 
     public static void initRtkBaseStationKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, RtkBaseStationKey.getKeyList());
+        initList(keyList, RtkBaseStationKey.getKeyList(), ChannelType.CHANNEL_TYPE_RTK_BASE_STATION);
     }
 
     public static void initRtkMobileStationKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, RtkMobileStationKey.getKeyList());
+        initList(keyList, RtkMobileStationKey.getKeyList(), ChannelType.CHANNEL_TYPE_RTK_MOBILE_STATION);
     }
 
     public static void initOcuSyncKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, OcuSyncKey.getKeyList());
+        initList(keyList, OcuSyncKey.getKeyList(), ChannelType.CHANNEL_TYPE_OCU_SYNC);
     }
 
     public static void initRadarKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, RadarKey.getKeyList());
+        initList(keyList, RadarKey.getKeyList(), ChannelType.CHANNEL_TYPE_RADAR);
     }
 
     public static void initAppKeyList(List<KeyItem<?, ?>> keyList) {
@@ -104,58 +108,48 @@ public class KeyItemDataUtil {
     }
 
     public static void initMobileNetworkKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, MobileNetworkKey.getKeyList());
+        initList(keyList, MobileNetworkKey.getKeyList(), ChannelType.CHANNEL_TYPE_MOBILE_NETWORK);
     }
 
     public static void initMobileNetworkLinkRCKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, MobileNetworkLinkRCKey.getKeyList());
+        initList(keyList, MobileNetworkLinkRCKey.getKeyList(), ChannelType.CHANNEL_TYPE_MOBILE_NETWORK);
     }
 
     public static void initOnboardKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, OnboardKey.getKeyList());
+        initList(keyList, OnboardKey.getKeyList(), ChannelType.CHANNEL_TYPE_ON_BOARD);
     }
 
     public static void initPayloadKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, PayloadKey.getKeyList());
+        initList(keyList, PayloadKey.getKeyList(), ChannelType.CHANNEL_TYPE_ON_PAYLOAD);
     }
 
     public static void initLidarKeyList(List<KeyItem<?, ?>> keyList) {
-        initList(keyList, LidarKey.getKeyList());
+        initList(keyList, LidarKey.getKeyList(), ChannelType.CHANNEL_TYPE_LIDAR);
     }
 
-    private static void initList(List<KeyItem<?, ?>> keyList, List<DJIKeyInfo<?>> keyInfoList) {
+    private static void initList(List<KeyItem<?, ?>> keyList, List<DJIKeyInfo<?>> keyInfoList, ChannelType channelType) {
         if (keyList == null || !keyList.isEmpty()){
             return;
         }
         for (DJIKeyInfo<?> info : keyInfoList) {
+            // 参数实例在第一次使用时才通过 genericItem 创建
             KeyItem<DJIValue, DJIValue> item = new KeyItem<>(info);
-            genericItem(item, info);
+            item.setChannelType(channelType);
             keyList.add(item);
         }
     }
 
+    /**
+     * 通过转换器获取参数类型并实例化参数和结果，反射用到的字段按转换器类缓存
+     */
     public static <P extends DJIValue, R extends DJIValue> void genericItem(KeyItem<P, R> item, DJIKeyInfo<?> keyInfo) {
-
-        Class<?> tdClazz;
-        Field field = null;
-        boolean isDjiValue = false;
         try {
             IDJIValueConverter<P, R> clazzConvert = keyInfo.getTypeConverter();
-            if (clazzConvert instanceof SingleValueConverter) {
-                field = clazzConvert.getClass().getDeclaredField("dClass");
-                Field tmp = clazzConvert.getClass().getDeclaredField("isDJIValue");
-                tmp.setAccessible(true);
-                isDjiValue = tmp.getBoolean(clazzConvert);
-            } else if (clazzConvert instanceof DJIValueConverter) {
-                field = clazzConvert.getClass().getDeclaredField("tClass");
-            }
-
-            if (field != null) {
-                field.setAccessible(true);
-                tdClazz = (Class<?>) field.get(clazzConvert);
-                item.param = (P) tdClazz.newInstance();
-                item.result = (R) tdClazz.newInstance();
-                item.setSingleDJIValue(isDjiValue);
+            ValueType valueType = getValueType(clazzConvert);
+            if (valueType.valueClass != null) {
+                item.param = (P) valueType.valueClass.newInstance();
+                item.result = (R) valueType.valueClass.newInstance();
+                item.setSingleDJIValue(valueType.isDJIValue);
                 item.initGenericInstance();
             }
         } catch (Exception e) {
@@ -163,88 +157,182 @@ public class KeyItemDataUtil {
         }
     }
 
+    private static ValueType getValueType(IDJIValueConverter<?, ?> converter) throws ReflectiveOperationException {
+        if (converter == null) {
+            return ValueType.NONE;
+        }
+        ConverterFields fields = getConverterFields(converter);
+        if (fields.valueField == null) {
+            return ValueType.NONE;
+        }
+        // 同一个转换器类的不同实例参数类型不同，字段按类缓存，值每次从实例读取
+        boolean isDjiValue = fields.djiValueField != null && fields.djiValueField.getBoolean(converter);
+        return new ValueType((Class<?>) fields.valueField.get(converter), isDjiValue);
+    }
+
+    private static ConverterFields getConverterFields(IDJIValueConverter<?, ?> converter) throws NoSuchFieldException {
+        Class<?> converterClass = converter.getClass();
+        ConverterFields fields = converterFieldsCache.get(converterClass);
+        if (fields != null) {
+            return fields;
+        }
+        if (converter instanceof SingleValueConverter) {
+            fields = new ConverterFields(getDeclaredField(converterClass, "dClass"), getDeclaredField(converterClass, "isDJIValue"));
+        } else if (converter instanceof DJIValueConverter) {
+            fields = new ConverterFields(getDeclaredField(converterClass, "tClass"), null);
+        } else {
+            fields = ConverterFields.NONE;
+        }
+        converterFieldsCache.put(converterClass, fields);
+        return fields;
+    }
+
+    private static Field getDeclaredField(Class<?> converterClass, String name) throws NoSuchFieldException {
+        Field field = converterClass.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+
+    /**
+     * 转换器类中保存参数类型的字段
+     */
+    private static class ConverterFields {
+        static final ConverterFields NONE = new ConverterFields(null, null);
+
+        final Field valueField;
+        final Field djiValueField;
+
+        ConverterFields(Field valueField, Field djiValueField) {
+            this.valueField = valueField;
+            this.djiValueField = djiValueField;
+        }
+    }
+
+    /**
+     * 转换器对应的参数类型
+     */
+    private static class ValueType {
+        static final ValueType NONE = new ValueType(null, false);
+
+        final Class<?> valueClass;
+        final boolean isDJIValue;
+
+        ValueType(Class<?> valueClass, boolean isDJIValue) {
+            this.valueClass = valueClass;
+            this.isDJIValue = isDJIValue;
+        }
+    }
+
+    /**
+     * 所有key的数量，不创建 KeyItem
+     */
     public static int getAllKeyListCount() {
-        List<KeyItem<?, ?>> allKeyList = new ArrayList<>();
-        getAllKeyList(allKeyList);
-        return allKeyList.size();
+        int count = 0;
+        for (List<DJIKeyInfo<?>> keyInfoList : getAllKeyInfoLists()) {
+            count += keyInfoList.size();
+        }
+        return count;
     }
 
     public static void getAllKeyList(List<KeyItem<?, ?>> keylist) {
-        if (!allKeyList.isEmpty()) {
+        synchronized (allKeyList) {
+            if (allKeyList.isEmpty()) {
+                List<KeyItem<?, ?>> keyList = new ArrayList<>();
+                initBatteryKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initAirlinkKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initGimbalKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initCameraKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initFlightAssistantKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initFlightControllerKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initRemoteControllerKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initBleKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initProductKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initRtkBaseStationKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initRtkMobileStationKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initOcuSyncKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initRadarKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initMobileNetworkKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initMobileNetworkLinkRCKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initOnboardKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initPayloadKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+
+                initLidarKeyList(keyList);
+                allKeyList.addAll(keyList);
+                keyList.clear();
+            }
             keylist.addAll(allKeyList);
-            return;
         }
-        List<KeyItem<?, ?>> keyList = new ArrayList<>();
-        initBatteryKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initAirlinkKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initGimbalKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initCameraKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initFlightAssistantKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initFlightControllerKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initRemoteControllerKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initBleKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initProductKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initRtkBaseStationKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initRtkMobileStationKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initOcuSyncKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initRadarKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initMobileNetworkKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initMobileNetworkLinkRCKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initOnboardKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initPayloadKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
-
-        initLidarKeyList(keyList);
-        allKeyList.addAll(keyList);
-        keyList.clear();
+    }
+
+    private static List<List<DJIKeyInfo<?>>> getAllKeyInfoLists() {
+        return Arrays.asList(
+                BatteryKey.getKeyList(),
+                AirLinkKey.getKeyList(),
+                GimbalKey.getKeyList(),
+                CameraKey.getKeyList(),
+                FlightAssistantKey.getKeyList(),
+                FlightControllerKey.getKeyList(),
+                RemoteControllerKey.getKeyList(),
+                BleKey.getKeyList(),
+                ProductKey.getKeyList(),
+                RtkBaseStationKey.getKeyList(),
+                RtkMobileStationKey.getKeyList(),
+                OcuSyncKey.getKeyList(),
+                RadarKey.getKeyList(),
+                MobileNetworkKey.getKeyList(),
+                MobileNetworkLinkRCKey.getKeyList(),
+                OnboardKey.getKeyList(),
+                PayloadKey.getKeyList(),
+                LidarKey.getKeyList());
     }
 }
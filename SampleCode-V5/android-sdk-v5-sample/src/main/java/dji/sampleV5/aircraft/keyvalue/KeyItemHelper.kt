@@ -7,7 +7,6 @@ import android.view.View
 import dji.sampleV5.aircraft.util.Util
 import dji.v5.utils.common.LogUtils
 import java.lang.Exception
-import java.lang.StringBuilder
 import java.lang.reflect.Field
 import java.lang.reflect.ParameterizedType
 import java.util.*
@@ -396,37 +395,6 @@ object KeyItemHelper {
         return values
     }
 
-    /**
-     * 追加携带日期的推送字符串
-     *
-     * @param targetStr
-     * @param appendStr
-     * @return
-     */
-    fun appendListenRecord(targetStr: String, appendStr: String?): String {
-        if (Util.isBlank(appendStr)) {
-            return targetStr
-        }
-        val sb = StringBuilder(targetStr)
-        sb.append("\n")
-        sb.append(Util.getDateStr(Date()) + ":")
-        sb.append("\n")
-        sb.append(appendStr)
-        //长度限制
-        var result = sb.toString()
-        if (result.length > LISTEN_RECORD_MAX_LENGTH) {
-            result = result.substring(result.length - LISTEN_RECORD_MAX_LENGTH)
-        }
-        val title = "push info:"
-        if (!result.startsWith(title)) {
-            result = """
-                $title
-                $result
-                """.trimIndent()
-        }
-        return result
-    }
-
     /**
      * 通过字节码和值来获取实例
      *
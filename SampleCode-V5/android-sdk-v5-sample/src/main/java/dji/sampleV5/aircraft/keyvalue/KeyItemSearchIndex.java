@@ -0,0 +1,291 @@
+package dji.sampleV5.aircraft.keyvalue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+import androidx.annotation.NonNull;
+import dji.sdk.keyvalue.key.ComponentType;
+
+/**
+ * key列表搜索索引
+ *
+ * 查询按空白拆分成多个词，每个词都需要命中：key名按字符顺序模糊匹配（与原先的正则规则一致），
+ * 或者是组件类型、通道类型的前缀。
+ *
+ * 建索引时：
+ * 1. 字符倒排表：每个字符对应名字中包含它的key下标（升序）。模糊匹配要求词中每个字符都出现在名字中，
+ * 所以求词中所有字符倒排表的交集（从最短的开始），只对交集里的key再校验字符顺序。
+ * 2. 前缀表：组件类型名和通道类型名排序保存，每个名字对应它的key下标。按前缀二分查找到名字区间，合并对应的列表。
+ *
+ * 查询只访问倒排表和命中的key，不再遍历整个列表。新的查询如果是上一次查询的延伸，只在上一次的结果里继续查。
+ */
+public class KeyItemSearchIndex {
+
+    private static final int CHAR_COUNT = 128;
+    private static final int[] EMPTY = new int[0];
+
+    private final List<KeyItem<?, ?>> items;
+    private final char[][] names;
+    /**
+     * 字符 -> 名字中包含该字符的key下标，升序
+     */
+    private final int[][] postings = new int[CHAR_COUNT][];
+    /**
+     * 组件类型名和通道类型名，升序
+     */
+    private final String[] prefixNames;
+    /**
+     * prefixNames[i] -> 组件类型或通道类型为该名字的key下标，升序
+     */
+    private final int[][] prefixPostings;
+
+    private String lastQuery;
+    private int[] lastResult;
+
+    public KeyItemSearchIndex(@NonNull List<KeyItem<?, ?>> source) {
+        items = new ArrayList<>(source);
+        int size = items.size();
+        names = new char[size][];
+        TreeMap<String, IntList> prefixMap = new TreeMap<>();
+        int[] postingSizes = new int[CHAR_COUNT];
+        boolean[] seen = new boolean[CHAR_COUNT];
+        for (int i = 0; i < size; i++) {
+            KeyItem<?, ?> item = items.get(i);
+            names[i] = item.keyInfo.getIdentifier().toLowerCase(Locale.ROOT).toCharArray();
+            addPrefixName(prefixMap, ComponentType.find(item.keyInfo.getComponentType()).name().toLowerCase(Locale.ROOT), i);
+            ChannelType channelType = item.getChannelType();
+            if (channelType != null) {
+                addPrefixName(prefixMap, channelType.name().replace("CHANNEL_TYPE_", "").toLowerCase(Locale.ROOT), i);
+            }
+            for (char c : names[i]) {
+                if (c < CHAR_COUNT && !seen[c]) {
+                    seen[c] = true;
+                    postingSizes[c]++;
+                }
+            }
+            clearSeen(seen, names[i]);
+        }
+        for (int c = 0; c < CHAR_COUNT; c++) {
+            postings[c] = new int[postingSizes[c]];
+            postingSizes[c] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            for (char c : names[i]) {
+                if (c < CHAR_COUNT && !seen[c]) {
+                    seen[c] = true;
+                    postings[c][postingSizes[c]++] = i;
+                }
+            }
+            clearSeen(seen, names[i]);
+        }
+        prefixNames = prefixMap.keySet().toArray(new String[0]);
+        prefixPostings = new int[prefixNames.length][];
+        for (int i = 0; i < prefixNames.length; i++) {
+            prefixPostings[i] = prefixMap.get(prefixNames[i]).toArray();
+        }
+    }
+
+    /**
+     * 索引是否由该列表构建，列表内容变化后需要重新构建
+     */
+    public boolean isBuiltFrom(@NonNull List<KeyItem<?, ?>> source) {
+        if (source.size() != items.size()) {
+            return false;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (source.get(i) != items.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查询，结果保持原列表顺序
+     */
+    @NonNull
+    public synchronized List<KeyItem<?, ?>> search(@NonNull String query) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            lastQuery = null;
+            lastResult = null;
+            return new ArrayList<>(items);
+        }
+        // 词变长或者增加词都只会缩小结果，所以可以在上一次的结果里继续查
+        int[] matched = lastQuery != null && normalized.startsWith(lastQuery) ? lastResult : null;
+        for (String term : normalized.split("\\s+")) {
+            matched = matchTerm(term, matched);
+            if (matched.length == 0) {
+                break;
+            }
+        }
+        lastQuery = normalized;
+        lastResult = matched;
+        List<KeyItem<?, ?>> result = new ArrayList<>(matched.length);
+        for (int index : matched) {
+            result.add(items.get(index));
+        }
+        return result;
+    }
+
+    /**
+     * 查找命中一个词的key
+     *
+     * @param term       查询词
+     * @param candidates 候选key下标，升序；为null时表示所有key
+     * @return 命中的key下标，升序
+     */
+    private int[] matchTerm(String term, int[] candidates) {
+        return union(matchName(term, candidates), matchPrefix(term, candidates));
+    }
+
+    private int[] matchName(String term, int[] candidates) {
+        // 按长度从短到长求交集，交集越早变小越好
+        int[][] lists = new int[term.length() + 1][];
+        int listCount = 0;
+        if (candidates != null) {
+            lists[listCount++] = candidates;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c >= CHAR_COUNT) {
+                // 索引只收录ASCII字符，名字中也不会出现其他字符
+                return EMPTY;
+            }
+            if (term.indexOf(c) == i) {
+                lists[listCount++] = postings[c];
+            }
+        }
+        Arrays.sort(lists, 0, listCount, (a, b) -> Integer.compare(a.length, b.length));
+        int[] result = lists[0];
+        for (int i = 1; i < listCount && result.length > 0; i++) {
+            result = intersect(result, lists[i]);
+        }
+        // 交集只保证字符都出现过，还要校验顺序
+        int[] ordered = new int[result.length];
+        int count = 0;
+        for (int index : result) {
+            if (matchesName(names[index], term)) {
+                ordered[count++] = index;
+            }
+        }
+        return count == ordered.length ? ordered : Arrays.copyOf(ordered, count);
+    }
+
+    private int[] matchPrefix(String term, int[] candidates) {
+        int from = Arrays.binarySearch(prefixNames, term);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int[] result = EMPTY;
+        for (int i = from; i < prefixNames.length && prefixNames[i].startsWith(term); i++) {
+            result = union(result, prefixPostings[i]);
+        }
+        return candidates == null || result.length == 0 ? result : intersect(result, candidates);
+    }
+
+    /**
+     * 查询词的字符按顺序出现在名字中即命中
+     */
+    private static boolean matchesName(char[] name, String term) {
+        int j = 0;
+        for (int i = 0; i < name.length && j < term.length(); i++) {
+            if (name[i] == term.charAt(j)) {
+                j++;
+            }
+        }
+        return j == term.length();
+    }
+
+    /**
+     * 两个升序列表的交集
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 两个升序列表的并集
+     */
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || a[i] > b[j]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static void addPrefixName(TreeMap<String, IntList> prefixMap, String name, int index) {
+        IntList list = prefixMap.get(name);
+        if (list == null) {
+            list = new IntList();
+            prefixMap.put(name, list);
+        }
+        list.add(index);
+    }
+
+    private static void clearSeen(boolean[] seen, char[] name) {
+        for (char c : name) {
+            if (c < CHAR_COUNT) {
+                seen[c] = false;
+            }
+        }
+    }
+
+    /**
+     * 建索引时使用的升序int列表，同一个key只会按顺序加入一次
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
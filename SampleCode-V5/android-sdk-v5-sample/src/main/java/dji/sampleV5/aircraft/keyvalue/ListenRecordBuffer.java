@@ -0,0 +1,169 @@
+package dji.sampleV5.aircraft.keyvalue;
+
+import java.text.DateFormat;
+import java.util.Date;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 定长环形缓冲区，保存带时间戳的推送记录
+ *
+ * 推送时只保存时间戳和文本，不做任何拼接；只有界面需要显示时才把末尾能显示下的记录格式化成文本。
+ * 缓冲区满后覆盖最旧的记录，并计入丢弃数。
+ */
+public class ListenRecordBuffer {
+
+    private final long[] times;
+    private final String[] records;
+    private final Date date = new Date();
+
+    /**
+     * 最旧记录的下标
+     */
+    private int head;
+    private int size;
+
+    private long pushCount;
+    private long droppedCount;
+
+    public ListenRecordBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        times = new long[capacity];
+        records = new String[capacity];
+    }
+
+    /**
+     * 追加一条记录，空记录忽略
+     *
+     * @param record
+     */
+    public synchronized void add(@Nullable String record) {
+        if (record == null || record.isEmpty()) {
+            return;
+        }
+        pushCount++;
+        int tail = (head + size) % records.length;
+        if (size == records.length) {
+            head = (head + 1) % records.length;
+            droppedCount++;
+        } else {
+            size++;
+        }
+        times[tail] = System.currentTimeMillis();
+        records[tail] = record;
+    }
+
+    /**
+     * 清空记录，推送次数和丢弃数一并归零
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < records.length; i++) {
+            records[i] = null;
+        }
+        head = 0;
+        size = 0;
+        pushCount = 0;
+        droppedCount = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 获取累计推送次数
+     *
+     * @return
+     */
+    public synchronized long getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * 获取因缓冲区已满被覆盖的记录数
+     *
+     * @return
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * 根据缓冲区内记录的时间跨度估算推送频率
+     *
+     * @return 每秒推送次数，记录不足两条时返回0
+     */
+    public synchronized float getPushRate() {
+        if (size < 2) {
+            return 0;
+        }
+        long span = times[(head + size - 1) % times.length] - times[head];
+        return span <= 0 ? 0 : (size - 1) * 1000f / span;
+    }
+
+    /**
+     * 把最新的记录渲染成文本，只渲染 maxLength 以内能显示下的部分
+     *
+     * @param maxLength  文本最大长度
+     * @param dateFormat 时间格式，只在调用线程使用
+     * @param title      标题，可为空
+     * @return
+     */
+    @NonNull
+    public synchronized String render(int maxLength, @NonNull DateFormat dateFormat, @Nullable String title) {
+        StringBuilder sb = new StringBuilder(Math.min(maxLength, 256));
+        if (title != null) {
+            sb.append(title).append("\n");
+        }
+        // 从最新记录往前估算能放下多少条，时间戳按格式化后的长度计算
+        int timeLength = size == 0 ? 0 : formatTime(dateFormat, times[head]).length() + 1;
+        int budget = maxLength;
+        int first = size;
+        while (first > 0) {
+            int length = timeLength + records[index(first - 1)].length() + 1;
+            if (length > budget) {
+                break;
+            }
+            budget -= length;
+            first--;
+        }
+        if (first == size && size > 0) {
+            // 最新一条都放不下，只保留其末尾
+            String last = records[index(size - 1)];
+            sb.append(last.substring(Math.max(0, last.length() - maxLength)));
+            return sb.toString();
+        }
+        for (int i = first; i < size; i++) {
+            int index = index(i);
+            sb.append(formatTime(dateFormat, times[index])).append(":");
+            sb.append(records[index]).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private int index(int offset) {
+        return (head + offset) % records.length;
+    }
+
+    private String formatTime(DateFormat dateFormat, long time) {
+        date.setTime(time);
+        return dateFormat.format(date);
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "ListenRecordBuffer{" +
+                "size=" + size +
+                ", pushCount=" + pushCount +
+                ", droppedCount=" + droppedCount +
+                '}';
+    }
+}
@@ -3,6 +3,7 @@ package dji.sampleV5.aircraft.models
 import android.view.Surface
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
+import dji.sampleV5.aircraft.data.FrameCapturePipeline
 import dji.sampleV5.aircraft.util.ToastUtils
 import dji.sdk.keyvalue.key.CameraKey
 import dji.sdk.keyvalue.value.camera.CameraType
@@ -13,24 +14,29 @@ import dji.v5.et.listen
 import dji.v5.et.set
 import dji.v5.manager.KeyManager
 import dji.v5.manager.datacenter.MediaDataCenter
-import dji.v5.manager.interfaces.ICameraStreamManager
 import dji.v5.manager.interfaces.ICameraStreamManager.FrameFormat
 import dji.v5.manager.interfaces.ICameraStreamManager.ScaleType
 import dji.v5.utils.common.ContextUtil
 import dji.v5.utils.common.DiskUtil
 import dji.v5.utils.common.LogUtils
 import java.io.File
-import java.io.FileOutputStream
 
 const val TAG = "CameraStreamDetailFragmentVM"
+private const val CONTINUOUS_CAPTURE_FPS = 2f
+
 class CameraStreamDetailVM : DJIViewModel() {
 
     private val _availableLensListData = MutableLiveData<List<CameraVideoStreamSourceType>>(ArrayList())
     private val _currentLensData = MutableLiveData(CameraVideoStreamSourceType.DEFAULT_CAMERA)
     private val _cameraName = MutableLiveData("Unknown")
+    private val _isCapturing = MutableLiveData(false)
     private var cameraIndex = ComponentIndexType.UNKNOWN
+
+    @Volatile
+    private var framePipeline: FrameCapturePipeline? = null
     override fun onCleared() {
         super.onCleared()
+        stopFrameCapture()
         setCameraIndex(ComponentIndexType.UNKNOWN)
     }
 
@@ -104,34 +110,57 @@ class CameraStreamDetailVM : DJIViewModel() {
     }
 
 
+    /**
+     * 保存一帧到本地，拷贝后在写线程中写文件
+     */
     fun downloadYUVImageToLocal(format: FrameFormat, formatName: String) {
-        MediaDataCenter.getInstance().cameraStreamManager.addFrameListener(
-            cameraIndex,
-            format,
-            object : ICameraStreamManager.CameraFrameListener {
-                override fun onFrame(frameData: ByteArray, offset: Int, length: Int, width: Int, height: Int, format: FrameFormat) {
-                    try {
-                        val dirs = File(DiskUtil.getExternalCacheDirPath(ContextUtil.getContext(), "CameraStreamImageDir"))
-                        if (!dirs.exists()) {
-                            dirs.mkdirs()
-                        }
-                        val file = File(dirs.absolutePath, "$formatName.image")
-                        FileOutputStream(file).use { stream ->
-                            stream.write(frameData, offset, length)
-                            stream.flush()
-                            stream.close()
-                            ToastUtils.showToast("Save to : ${file.path}")
-                        }
-                        LogUtils.i(TAG, "Save to : ${file.path}")
-                    } catch (e: Exception) {
-                        ToastUtils.showToast("save fail$e")
-                    }
-                    // Because only one frame needs to be saved, you need to call removeOnFrameListener here
-                    // If you need to read frame data for a long time, you can choose to actually call remove OnFrameListener according to your needs
-                    MediaDataCenter.getInstance().cameraStreamManager.removeFrameListener(this)
-                }
-
-            })
+        startFrameCapture(format, FrameCapturePipeline.Config(namePrefix = formatName, maxFrames = 1))
+    }
+
+    /**
+     * 连续抓帧，RGBA/NV21/YUY2 编码为 JPEG，其他格式保存原始数据
+     */
+    fun startContinuousCapture(format: FrameFormat, formatName: String, fps: Float = CONTINUOUS_CAPTURE_FPS) {
+        startFrameCapture(
+            format, FrameCapturePipeline.Config(
+                namePrefix = "${formatName}_${System.currentTimeMillis()}",
+                output = FrameCapturePipeline.Output.JPEG,
+                maxFps = fps
+            )
+        )
+    }
+
+    private fun startFrameCapture(format: FrameFormat, config: FrameCapturePipeline.Config) {
+        stopFrameCapture()
+        val dirs = File(DiskUtil.getExternalCacheDirPath(ContextUtil.getContext(), "CameraStreamImageDir"))
+        val pipeline = FrameCapturePipeline(dirs, config, object : FrameCapturePipeline.Listener {
+            override fun onComplete(pipeline: FrameCapturePipeline) {
+                MediaDataCenter.getInstance().cameraStreamManager.removeFrameListener(pipeline)
+                pipeline.stop()
+                onCaptureStopped(pipeline)
+            }
+        })
+        framePipeline = pipeline
+        _isCapturing.postValue(true)
+        MediaDataCenter.getInstance().cameraStreamManager.addFrameListener(cameraIndex, format, pipeline)
+    }
+
+    fun stopFrameCapture() {
+        val pipeline = framePipeline ?: return
+        MediaDataCenter.getInstance().cameraStreamManager.removeFrameListener(pipeline)
+        pipeline.stop()
+        onCaptureStopped(pipeline)
+    }
+
+    private fun onCaptureStopped(pipeline: FrameCapturePipeline) {
+        if (framePipeline !== pipeline) {
+            return
+        }
+        framePipeline = null
+        _isCapturing.postValue(false)
+        val stats = pipeline.getStats()
+        LogUtils.i(TAG, "frame capture: $stats")
+        ToastUtils.showToast("Save ${stats.written} frames to : ${pipeline.getDir().path}, dropped ${stats.dropped}")
     }
 
     val availableLensListData: LiveData<List<CameraVideoStreamSourceType>>
@@ -143,4 +172,7 @@ class CameraStreamDetailVM : DJIViewModel() {
     val cameraName: LiveData<String>
         get() = _cameraName
 
+    val isCapturing: LiveData<Boolean>
+        get() = _isCapturing
+
 }
\ No newline at end of file
@@ -1,12 +1,13 @@
 package dji.sampleV5.aircraft.models
 
+import android.os.FileObserver
 import androidx.lifecycle.MutableLiveData
+import dji.sampleV5.aircraft.data.CrashLogIndex
 import dji.v5.utils.common.ContextUtil
+import dji.v5.utils.common.DJIExecutor
 import dji.v5.utils.common.DiskUtil
-import dji.v5.utils.common.FileUtils
 import java.io.File
 import java.lang.StringBuilder
-import java.util.*
 
 /**
  * ClassName : MSDKLogVM
@@ -19,40 +20,138 @@ class MSDKLogVM: DJIViewModel(){
     val logInfo = MutableLiveData<String>()
     val logCount = MutableLiveData<Int>()
 
+    /**
+     * FileObserver 不会监听之后才创建的目录，所以先把目录建好
+     */
+    private val logDir = File(DiskUtil.getExternalCacheDirPath(ContextUtil.getContext(), "/LOG/CRASH/")).apply { mkdirs() }
+    private val logIndex = CrashLogIndex(logDir)
+    private val ioExecutor = DJIExecutor.getExecutorFor(DJIExecutor.Purpose.IO)
+    private val lock = Any()
+
+    /**
+     * 当前展示的文件在索引中的位置和已经读到的位置
+     */
+    private var currentEntry: CrashLogIndex.Entry? = null
+    private var currentPosition = 0
+    private var lastPage: CrashLogIndex.Page? = null
+    private val shownText = StringBuilder()
+
+    /**
+     * 点击时在主线程读取，不能去拿 [lock]，后台线程读文件时会一直持有它
+     */
+    @Volatile
+    private var hasMore = false
+
+    /**
+     * 目录中有新的崩溃文件写完时增量刷新索引
+     */
+    @Suppress("DEPRECATION")
+    private val logObserver = object : FileObserver(logDir.path, CLOSE_WRITE or MOVED_TO or DELETE) {
+        override fun onEvent(event: Int, path: String?) {
+            ioExecutor.execute { refreshIndex(false) }
+        }
+    }
+
     init {
-        logInfo.value = loadLatestLog()
+        logInfo.value = "N/A"
         logCount.value = 0
+        logObserver.startWatching()
+        ioExecutor.execute { refreshIndex(true) }
     }
 
+    /**
+     * 刷新索引并展示最新的一个文件的第一页
+     */
     fun updateLogInfo(){
-        logInfo.value = loadLatestLog()
-    }
-
-    private fun loadLatestLog(): String {
-        val logDir = DiskUtil.getExternalCacheDirPath(ContextUtil.getContext(), "/LOG/CRASH/")
-        val file = File(logDir)
-        val list = FileUtils.getAllFile(file)
-        if (list.size >= 1) {
-            Collections.sort(list, object : Comparator<File> {
-                override fun compare(o1: File, o2: File): Int {
-                    val diff = o1.lastModified() - o2.lastModified()
-                    return -diff.toInt()
+        ioExecutor.execute { refreshIndex(true) }
+    }
+
+    /**
+     * 切换到下一个（更早的）文件，到最后一个后回到最新的文件
+     */
+    fun showNextLog() {
+        ioExecutor.execute {
+            synchronized(lock) {
+                val entries = logIndex.getEntries()
+                if (entries.isNotEmpty()) {
+                    val position = entries.indexOf(currentEntry)
+                    showEntry(entries, if (position < 0) 0 else (position + 1) % entries.size)
+                }
+            }
+        }
+    }
+
+    /**
+     * 在当前文件后面追加读取下一页
+     */
+    fun loadMoreLog() {
+        ioExecutor.execute {
+            synchronized(lock) {
+                val page = lastPage ?: return@execute
+                if (!page.hasMore) {
+                    return@execute
+                }
+                appendPage(logIndex.readPage(page.entry, page.nextOffset))
+            }
+        }
+    }
+
+    fun hasMoreLog(): Boolean = hasMore
+
+    private fun refreshIndex(showLatest: Boolean) {
+        synchronized(lock) {
+            val changed = logIndex.refresh()
+            val entries = logIndex.getEntries()
+            logCount.postValue(entries.size)
+            if (entries.isEmpty()) {
+                currentEntry = null
+                lastPage = null
+                hasMore = false
+                shownText.setLength(0)
+                logInfo.postValue("N/A")
+                return
+            }
+            if (showLatest || currentEntry == null) {
+                showEntry(entries, 0)
+            } else if (changed) {
+                // 只更新序号，已经读到的内容保持不变
+                val position = entries.indexOf(currentEntry)
+                if (position < 0) {
+                    showEntry(entries, 0)
+                } else {
+                    currentPosition = position
+                    postShownText(entries.size)
                 }
-            })
-            var index = 0
-            val stringBuilder = StringBuilder()
-            for (file in list) {
-                stringBuilder.append("-----------------Crash Info: ${index++}----------------------")
-                stringBuilder.append("\n")
-                stringBuilder.append(file.absolutePath)
-                stringBuilder.append("\n")
-                stringBuilder.append(FileUtils.readFile(file.absolutePath,"\n"))
-                stringBuilder.append("\n")
-                stringBuilder.append("\n")
             }
-            logCount.value = index
-            return stringBuilder.toString()
         }
-        return "N/A"
     }
-}
\ No newline at end of file
+
+    private fun showEntry(entries: List<CrashLogIndex.Entry>, position: Int) {
+        val entry = entries[position]
+        currentEntry = entry
+        currentPosition = position
+        shownText.setLength(0)
+        appendPage(logIndex.readPage(entry), entries.size)
+    }
+
+    private fun appendPage(page: CrashLogIndex.Page, count: Int = logIndex.getEntries().size) {
+        lastPage = page
+        hasMore = page.hasMore
+        shownText.append(page.text)
+        postShownText(count)
+    }
+
+    private fun postShownText(count: Int) {
+        val entry = currentEntry ?: return
+        val page = lastPage ?: return
+        val header = "-----------------Crash Info: $currentPosition/$count----------------------\n" +
+                "${entry.file.absolutePath}\n" +
+                "${page.nextOffset}/${page.fileSize} bytes\n"
+        logInfo.postValue(header + shownText)
+    }
+
+    override fun onCleared() {
+        super.onCleared()
+        logObserver.stopWatching()
+    }
+}
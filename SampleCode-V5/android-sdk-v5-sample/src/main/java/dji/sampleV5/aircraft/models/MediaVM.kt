@@ -3,6 +3,8 @@ package dji.sampleV5.aircraft.models
 import androidx.lifecycle.MutableLiveData
 import dji.sampleV5.aircraft.R
 import dji.sampleV5.aircraft.data.DJIToastResult
+import dji.sampleV5.aircraft.data.MediaDownloadManager
+import dji.sampleV5.aircraft.data.MediaThumbnailCache
 import dji.sdk.keyvalue.key.CameraKey
 import dji.sdk.keyvalue.key.KeyTools
 import dji.sdk.keyvalue.key.KeyTools.createKey
@@ -22,14 +24,7 @@ import dji.sampleV5.aircraft.util.ToastUtils
 import dji.sdk.keyvalue.value.camera.CameraStorageLocation
 import dji.v5.utils.common.ContextUtil
 import dji.v5.utils.common.DiskUtil
-import dji.v5.utils.common.StringUtils
-import io.reactivex.rxjava3.annotations.Nullable
-import kotlinx.android.synthetic.main.layout_media_play_download_progress.progressBar
-import kotlinx.android.synthetic.main.layout_media_play_download_progress.progressInfo
-import java.io.BufferedOutputStream
 import java.io.File
-import java.io.FileOutputStream
-import java.io.IOException
 import java.util.ArrayList
 
 /**
@@ -41,6 +36,14 @@ class MediaVM : DJIViewModel() {
     var mediaFileListData = MutableLiveData<MediaFileListData>()
     var fileListState = MutableLiveData<MediaFileListState>()
     var isPlayBack = MutableLiveData<Boolean?>()
+    val downloadProgress = MutableLiveData<MediaDownloadManager.Progress>()
+    private val downloadManager = MediaDownloadManager(
+        File(DiskUtil.getExternalCacheDirPath(ContextUtil.getContext(), "/mediafile")),
+        listener = object : MediaDownloadManager.Listener {
+            override fun onProgress(progress: MediaDownloadManager.Progress) {
+                downloadProgress.postValue(progress)
+            }
+        })
     fun init() {
         addMediaFileListStateListener()
         mediaFileListData.value = MediaDataCenter.getInstance().mediaManager.mediaFileListData
@@ -48,12 +51,16 @@ class MediaVM : DJIViewModel() {
             if (mediaFileListState == MediaFileListState.UP_TO_DATE) {
                 val data = MediaDataCenter.getInstance().mediaManager.mediaFileListData;
                 mediaFileListData.postValue(data)
+                // 继续上次没下载完的文件
+                downloadManager.restore(data.data)
             }
         }
 
     }
 
     fun destroy() {
+        downloadManager.stop()
+        LogUtils.i(logTag, "thumbnail cache: ${MediaThumbnailCache.getStats()}")
         KeyManager.getInstance().cancelListen(this);
         removeAllFileListStateListener()
 
@@ -131,11 +138,13 @@ class MediaVM : DJIViewModel() {
         ) { _, newValue ->
             isPlayBack.postValue(newValue)
         }
+        MediaThumbnailCache.setSource(camera = index.name)
         val mediaSource = MediaFileListDataSource.Builder().setIndexType(index).build()
         MediaDataCenter.getInstance().mediaManager.setMediaFileDataSource(mediaSource)
     }
 
     fun setStorage(location: CameraStorageLocation) {
+        MediaThumbnailCache.setSource(storage = location.name)
         val mediaSource = MediaFileListDataSource.Builder().setLocation(location).build()
         MediaDataCenter.getInstance().mediaManager.setMediaFileDataSource(mediaSource)
     }
@@ -179,58 +188,10 @@ class MediaVM : DJIViewModel() {
             }
     }
 
-    fun  downloadMediaFile(mediaList : ArrayList<MediaFile>){
-        mediaList.forEach {
-            downloadFile(it)
-        }
-    }
-
-    private fun downloadFile(mediaFile :MediaFile ) {
-        val dirs = File(DiskUtil.getExternalCacheDirPath(ContextUtil.getContext(),  "/mediafile"))
-        if (!dirs.exists()) {
-            dirs.mkdirs()
-        }
-        val filepath = DiskUtil.getExternalCacheDirPath(ContextUtil.getContext(),  "/mediafile/"  + mediaFile?.fileName)
-        val file = File(filepath)
-        var offset = 0L
-        val outputStream = FileOutputStream(file, true)
-        val bos = BufferedOutputStream(outputStream)
-        mediaFile?.pullOriginalMediaFileFromCamera(offset, object : MediaFileDownloadListener {
-            override fun onStart() {
-                LogUtils.i("MediaFile" , "${mediaFile.fileIndex } start download"  )
-            }
-
-            override fun onProgress(total: Long, current: Long) {
-                val fullSize = offset + total;
-                val downloadedSize = offset + current
-                val data: Double = StringUtils.formatDouble((downloadedSize.toDouble() / fullSize.toDouble()))
-                val result: String = StringUtils.formatDouble(data * 100, "#0").toString() + "%"
-                LogUtils.i("MediaFile"  , "${mediaFile.fileIndex}  progress $result")
-            }
-
-            override fun onRealtimeDataUpdate(data: ByteArray, position: Long) {
-                try {
-                    bos.write(data)
-                    bos.flush()
-                } catch (e: IOException) {
-                    LogUtils.e("MediaFile", "write error" + e.message)
-                }
-            }
-
-            override fun onFinish() {
-                try {
-                    outputStream.close()
-                    bos.close()
-                } catch (error: IOException) {
-                    LogUtils.e("MediaFile", "close error$error")
-                }
-                LogUtils.i("MediaFile" , "${mediaFile.fileIndex }  download finish"  )
-            }
-
-            override fun onFailure(error: IDJIError?) {
-                LogUtils.e("MediaFile", "download error$error")
-            }
-
-        })
+    /**
+     * 批量下载，排队、续传和进度由 [MediaDownloadManager] 处理
+     */
+    fun downloadMediaFile(mediaList: ArrayList<MediaFile>) {
+        downloadManager.enqueue(mediaList)
     }
-}
\ No newline at end of file
+}
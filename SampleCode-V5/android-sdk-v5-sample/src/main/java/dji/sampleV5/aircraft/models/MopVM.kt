@@ -1,12 +1,11 @@
 package dji.sampleV5.aircraft.models
 
 import androidx.lifecycle.MutableLiveData
+import dji.sampleV5.aircraft.data.MOPReceiveEngine
+import dji.sampleV5.aircraft.data.PipelineLink
 import dji.sampleV5.aircraft.util.ToastUtils
 import dji.sdk.keyvalue.value.mop.PipelineDeviceType
 import dji.sdk.keyvalue.value.mop.TransmissionControlType
-import dji.v5.common.error.DJIPipeLineError
-import dji.v5.manager.mop.DataResult
-
 import dji.v5.manager.mop.Pipeline
 import dji.v5.manager.mop.PipelineManager
 import dji.v5.utils.common.DJIExecutor
@@ -29,10 +28,11 @@ class MopVM : DJIViewModel() {
     private var isStop = false
     val receiveMessageLiveData = MutableLiveData<String>()
     val pipelineMapLivData = MutableLiveData<Map<Int, Pipeline>>()
-    private val data = ByteArray(19004)
     private val executorService: ExecutorService = DJIExecutor.getExecutorFor(DJIExecutor.Purpose.URGENT)
     private var mReadDataDisposable: Disposable? = null
     private var pipeline: Pipeline? = null
+    @Volatile
+    private var receiveEngine: MOPReceiveEngine? = null
     private var currentConnectParam: Param? = null
 
 
@@ -53,7 +53,7 @@ class MopVM : DJIViewModel() {
                 pipeline = PipelineManager.getInstance().pipelines[id]
                 ToastUtils.showToast("Connect Success")
                 if (!isUseForDown) {
-                    readData()
+                    pipeline?.let { startReceive(it, id) }
                 }
             } else {
                 ToastUtils.showToast("Connect Fail:$error")
@@ -61,34 +61,33 @@ class MopVM : DJIViewModel() {
         }
     }
 
-    fun readData() {
-        val result = pipeline?.readData(data) ?: DataResult()
-        val len = result.length
-        if (len > 0) {
-            var time = "Receive time：${getTimeNow()}"
-            if (data.isNotEmpty()) {
-                val newValueString = String(data)
-                time += "，Receive content：$newValueString"
-                receiveMessageLiveData.postValue(time)
-            } else {
-                time += ",Receive content is empty"
-                receiveMessageLiveData.postValue(time)
-            }
-        } else if (len == 0) {
-            LogUtils.e(logTag, "can not read anything")
-        } else {
-            LogUtils.e(logTag, "mop error，result=$result")
-            // len < 0 && result.error != MOP_ERROR_CODE_TIMEOUT 的一般情况错误都走断开逻辑。
-            if (!isStop && !result.error.errorCode().equals(DJIPipeLineError.TIMEOUT)) {
-                stopMop()
+    private fun startReceive(pipeline: Pipeline, id: Int) {
+        receiveEngine?.stop()
+        val engine = MOPReceiveEngine(PipelineLink(pipeline), id.toString())
+        engine.addListener(object : MOPReceiveEngine.FrameListener {
+            override fun onFrame(data: ByteArray, length: Int) {
+                // 只解码本次读到的长度
+                val content = String(data, 0, length)
+                receiveMessageLiveData.postValue("Receive time：${getTimeNow()}，Receive content：$content")
             }
-        }
-        if (!isStop) {
-            readData()
-        }
 
+            override fun onStopped(result: Int) {
+                LogUtils.e(logTag, "mop error，result=$result")
+                // 引擎只在超时以外的错误时停止，一般情况都走断开逻辑
+                if (!isStop) {
+                    stopMop()
+                }
+            }
+        })
+        receiveEngine = engine
+        engine.start()
     }
 
+    /**
+     * @return 接收速度、队列深度和空轮询次数，没有在接收时返回 null
+     */
+    fun getReceiveStats(): MOPReceiveEngine.Stats? = receiveEngine?.stats
+
     fun sendData(byteArray: ByteArray) {
         executorService.submit {
             if (pipeline == null) {
@@ -132,6 +131,8 @@ class MopVM : DJIViewModel() {
 
     private fun stopReadDataTimer() {
         LogUtils.d("Stopping read data timer start")
+        receiveEngine?.stop()
+        receiveEngine = null
 
         mReadDataDisposable?.let {
             mReadDataDisposable?.dispose()
@@ -90,7 +90,11 @@ class CameraStreamDetailFragment : Fragment() {
         cameraSurfaceView.holder.addCallback(cameraSurfaceCallback)
 
         btnDownloadYUV.setOnClickListener {
-            downloadYUVImage()
+            if (viewModel.isCapturing.value == true) {
+                viewModel.stopFrameCapture()
+            } else {
+                downloadYUVImage()
+            }
         }
 
         initViewModel()
@@ -135,6 +139,10 @@ class CameraStreamDetailFragment : Fragment() {
         viewModel.cameraName.observe(viewLifecycleOwner) { name ->
             tvCameraName.text = name
         }
+
+        viewModel.isCapturing.observe(viewLifecycleOwner) { capturing ->
+            btnDownloadYUV.text = if (capturing) "stop" else "capture"
+        }
     }
 
     private fun updateCameraStream() {
@@ -177,6 +185,13 @@ class CameraStreamDetailFragment : Fragment() {
                 }
                 dialog.dismiss()
             }
+            .setNeutralButton(R.string.title_select_yuv_format_continuous) { dialog, _ ->
+                if (selectedIndex[0] >= 0) {
+                    val format = SUPPORT_YUV_FORMAT[formatList[selectedIndex[0]]]
+                    viewModel.startContinuousCapture(format!!, formatList[selectedIndex[0]])
+                }
+                dialog.dismiss()
+            }
             .setNegativeButton(R.string.title_select_yuv_format_cancel) { dialog, _ ->
                 dialog.dismiss()
             }
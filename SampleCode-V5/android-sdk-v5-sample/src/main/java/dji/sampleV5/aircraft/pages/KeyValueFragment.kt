@@ -60,7 +60,6 @@ import kotlinx.android.synthetic.main.layout_key_operate.tv_tip
 import java.text.SimpleDateFormat
 import java.util.Arrays
 import java.util.Collections
-import java.util.Date
 
 
 /**
@@ -77,13 +76,23 @@ class KeyValueFragment : DJIFragment(), View.OnClickListener {
     val CAPABILITY_ENABLE = "capabilityenable"
     var currentChannelType: dji.sampleV5.aircraft.keyvalue.ChannelType? = dji.sampleV5.aircraft.keyvalue.ChannelType.CHANNEL_TYPE_CAMERA
     val LISTEN_RECORD_MAX_LENGTH = 6000
+    val LOG_RECORD_CAPACITY = 200
     val HIGH_FREQUENCY_KEY_SP_NAME = "highfrequencykey"
     val LENS_TAG = "CAMERA_LENS_"
 
     var contentView: View? = null
     var recyclerView: RecyclerView? = null
     var btAction: Button? = null
-    val logMessage = StringBuilder()
+    val logRecord = dji.sampleV5.aircraft.keyvalue.ListenRecordBuffer(LOG_RECORD_CAPACITY)
+    private val logTimeFormat = SimpleDateFormat("HH:mm:ss")
+    private var logRenderPending = false
+    private val logRenderRunnable = Runnable {
+        logRenderPending = false
+        tv_result?.let {
+            it.text = logRecord.render(LISTEN_RECORD_MAX_LENGTH, logTimeFormat, null)
+            scrollToBottom()
+        }
+    }
 
 
     var currentKeyItem: dji.sampleV5.aircraft.keyvalue.KeyItem<*, *>? = null
@@ -252,8 +261,7 @@ class KeyValueFragment : DJIFragment(), View.OnClickListener {
     private val keyItemOperateCallBack: dji.sampleV5.aircraft.keyvalue.KeyItemActionListener<Any> =
         dji.sampleV5.aircraft.keyvalue.KeyItemActionListener<Any> { t -> //  processListenLogic();
             t?.let {
-                tv_result.text = appendLogMessageRecord(t.toString())
-                scrollToBottom()
+                appendLogMessageRecord(t.toString())
             }
 
         }
@@ -268,19 +276,17 @@ class KeyValueFragment : DJIFragment(), View.OnClickListener {
         }
     }
 
-    private fun appendLogMessageRecord(appendStr: String?): String {
-        val curTime = SimpleDateFormat("HH:mm:ss").format(Date())
-        logMessage.append(curTime)
-            .append(":")
-            .append(appendStr)
-            .append("\n")
-
-        //长度限制
-        var result = logMessage.toString()
-        if (result.length > LISTEN_RECORD_MAX_LENGTH) {
-            result = result.substring(result.length - LISTEN_RECORD_MAX_LENGTH)
+    /**
+     * 记录日志，同一帧内的多次推送只刷新一次界面
+     */
+    private fun appendLogMessageRecord(appendStr: String?) {
+        logRecord.add(appendStr)
+        if (!logRenderPending) {
+            tv_result?.let {
+                logRenderPending = true
+                it.postOnAnimation(logRenderRunnable)
+            }
         }
-        return result
     }
 
     /**
@@ -288,9 +294,7 @@ class KeyValueFragment : DJIFragment(), View.OnClickListener {
      */
     val pushCallback: dji.sampleV5.aircraft.keyvalue.KeyItemActionListener<String> =
         dji.sampleV5.aircraft.keyvalue.KeyItemActionListener<String> { t -> //  processListenLogic();
-            tv_result?.text = appendLogMessageRecord(t)
-            scrollToBottom()
-
+            appendLogMessageRecord(t)
         }
 
     /**
@@ -649,8 +653,10 @@ class KeyValueFragment : DJIFragment(), View.OnClickListener {
             }
 
             R.id.btn_clearlog -> {
+                tv_result?.removeCallbacks(logRenderRunnable)
+                logRenderPending = false
                 tv_result?.text = ""
-                logMessage.delete(0, logMessage.length)
+                logRecord.clear()
             }
 
             R.id.iv_question_mark -> {
@@ -21,6 +21,11 @@ import kotlinx.android.synthetic.main.frag_log_info_page.*
 class LogInfoFragment: DJIFragment() {
     private val logVm: MSDKLogVM by activityViewModels()
 
+    /**
+     * 点击获取后等刷新结果回来再提示数量，否则读到的是刷新前的值
+     */
+    private var logCountRequested = false
+
     override fun onCreateView(
         inflater: LayoutInflater,
         container: ViewGroup?,
@@ -35,16 +40,32 @@ class LogInfoFragment: DJIFragment() {
         logVm.logInfo.observe(viewLifecycleOwner) {
             updateLogInfo()
         }
+        logVm.logCount.observe(viewLifecycleOwner) {
+            if (logCountRequested) {
+                logCountRequested = false
+                ToastUtils.showToast("Get Log Count: $it")
+            }
+        }
         initBtn()
     }
 
     private fun initBtn() {
         btn_get_log_info.setOnClickListener(object : View.OnClickListener {
             override fun onClick(v: View?) {
+                logCountRequested = true
                 logVm.updateLogInfo()
-                ToastUtils.showToast("Get Log Count: " + logVm.logCount.value)
             }
         })
+        btn_next_log_file.setOnClickListener {
+            logVm.showNextLog()
+        }
+        btn_load_more_log.setOnClickListener {
+            if (logVm.hasMoreLog()) {
+                logVm.loadMoreLog()
+            } else {
+                ToastUtils.showToast("No more log")
+            }
+        }
     }
 
     private fun updateLogInfo() {
@@ -1,6 +1,5 @@
 package dji.sampleV5.aircraft.pages
 
-import android.graphics.Bitmap
 import android.os.Bundle
 import android.transition.Fade
 import android.view.LayoutInflater
@@ -14,6 +13,7 @@ import androidx.navigation.Navigation
 import com.bumptech.glide.Glide
 import dji.sampleV5.aircraft.R
 import dji.sampleV5.aircraft.data.MEDIA_FILE_DETAILS_STR
+import dji.sampleV5.aircraft.data.MediaThumbnailCache
 import dji.sampleV5.aircraft.models.MediaDetailsVM
 import dji.sdk.keyvalue.value.camera.MediaFileType
 import dji.v5.common.callback.CommonCallbacks
@@ -21,7 +21,6 @@ import dji.v5.common.error.IDJIError
 import dji.v5.manager.datacenter.media.MediaFile
 import dji.v5.manager.datacenter.media.MediaFileDownloadListener
 import dji.v5.utils.common.*
-import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers
 import kotlinx.android.synthetic.main.frag_mediafile_details.*
 import kotlinx.android.synthetic.main.layout_media_play_download_progress.*
 import java.io.BufferedOutputStream
@@ -61,7 +60,9 @@ class MediaFileDetailsFragment : DJIFragment(), View.OnClickListener {
     private fun initView(view: View) {
         image = view.findViewById(R.id.image) as ImageView
         mediaFile = arguments?.getSerializable(MEDIA_FILE_DETAILS_STR) as MediaFile
-        image.setImageBitmap(mediaFile?.thumbNail)
+        mediaFile?.let { file ->
+            MediaThumbnailCache.load(file, MediaThumbnailCache.Type.THUMBNAIL) { image.setImageBitmap(it) }
+        }
 
         image.setOnClickListener(this)
         preview_file.setOnClickListener(this)
@@ -123,21 +124,14 @@ class MediaFileDetailsFragment : DJIFragment(), View.OnClickListener {
     }
 
     private fun fetchPreview() {
-        mediaFile?.pullPreviewFromCamera(object :
-            CommonCallbacks.CompletionCallbackWithParam<Bitmap> {
-            override fun onSuccess(t: Bitmap?) {
-
-                AndroidSchedulers.mainThread().scheduleDirect {
-                    //  image.setImageBitmap(t)
-                    Glide.with(ContextUtil.getContext()).load(t).into(image)
-                }
+        val file = mediaFile ?: return
+        MediaThumbnailCache.load(file, MediaThumbnailCache.Type.PREVIEW) {
+            if (it != null) {
+                Glide.with(ContextUtil.getContext()).load(it).into(image)
+            } else {
+                LogUtils.e("MediaFile", "fetch preview failed")
             }
-
-            override fun onFailure(error: IDJIError) {
-                LogUtils.e("MediaFile", "fetch preview failed$error")
-            }
-
-        })
+        }
     }
 
     private fun downloadFile() {
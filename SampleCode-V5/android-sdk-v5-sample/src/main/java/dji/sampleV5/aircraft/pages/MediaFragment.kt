@@ -12,6 +12,7 @@ import androidx.fragment.app.activityViewModels
 import androidx.navigation.Navigation
 import androidx.navigation.fragment.FragmentNavigatorExtras
 import androidx.recyclerview.widget.GridLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import dji.sampleV5.aircraft.R
 import dji.sampleV5.aircraft.data.MEDIA_FILE_DETAILS_STR
 import dji.sampleV5.aircraft.models.MediaVM
@@ -25,6 +26,7 @@ import dji.v5.manager.datacenter.media.MediaFile
 import dji.v5.manager.datacenter.media.MediaFileListState
 import kotlinx.android.synthetic.main.frag_media_page.*
 import java.util.ArrayList
+import java.util.Locale
 
 /**
  * @author feel.feng
@@ -36,6 +38,7 @@ class MediaFragment : DJIFragment() {
     var adapter: MediaListAdapter? = null
 
     private var isload = false
+    private var isDownloadComplete = true
     override fun onCreateView(
         inflater: LayoutInflater,
         container: ViewGroup?,
@@ -61,6 +64,10 @@ class MediaFragment : DJIFragment() {
         mediaVM.mediaFileListData.observe(viewLifecycleOwner) {
             adapter!!.notifyDataSetChanged()
             tv_list_count.text = "Count:${it.data.size}"
+            media_recycle_list.post {
+                val layoutManager = media_recycle_list?.layoutManager as? GridLayoutManager ?: return@post
+                adapter?.prefetchAfter(layoutManager.findLastVisibleItemPosition())
+            }
         }
 
 
@@ -78,10 +85,33 @@ class MediaFragment : DJIFragment() {
             tv_playback.text = "isPlayingBack : ${it}"
         }
 
+        mediaVM.downloadProgress.observe(viewLifecycleOwner) {
+            btn_download.text = if (it.isComplete) {
+                getString(R.string.download_files)
+            } else {
+                "${getString(R.string.download_files)} ${it.finishedFiles}/${it.totalFiles} ${it.percent}% " +
+                        String.format(Locale.US, "%.1fMB/s", it.throughput / 1024 / 1024)
+            }
+            // LiveData 重新订阅时会收到上一次的结果，只在由未完成变为完成时提示
+            if (it.isComplete && !isDownloadComplete) {
+                ToastUtils.showToast("download finish:${it.finishedFiles}, failed:${it.failedFiles}")
+            }
+            isDownloadComplete = it.isComplete
+        }
+
     }
 
     private fun initView() {
-        media_recycle_list.layoutManager = GridLayoutManager(context, 3)
+        val layoutManager = GridLayoutManager(context, 3)
+        media_recycle_list.layoutManager = layoutManager
+        media_recycle_list.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            override fun onScrollStateChanged(recyclerView: RecyclerView, newState: Int) {
+                // 停止滑动后预取下一页缩略图
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    adapter?.prefetchAfter(layoutManager.findLastVisibleItemPosition())
+                }
+            }
+        })
         btn_delete.setOnClickListener {
             val mediafiles = ArrayList<MediaFile>()
             if (adapter?.getSelectedItems()?.size != 0) {
@@ -1,6 +1,5 @@
 package dji.sampleV5.aircraft.pages
 
-import android.graphics.Bitmap
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
@@ -9,14 +8,12 @@ import androidx.dynamicanimation.animation.DynamicAnimation
 import androidx.recyclerview.widget.RecyclerView
 
 import dji.sampleV5.aircraft.R
+import dji.sampleV5.aircraft.data.MediaThumbnailCache
 import dji.sampleV5.aircraft.util.AnimationUtils
-import dji.v5.common.callback.CommonCallbacks
-import dji.v5.common.error.IDJIError
 
 import dji.v5.manager.datacenter.media.MediaFile
 import dji.v5.utils.common.ContextUtil
 import kotlinx.android.synthetic.main.item_mediafile_list.view.*
-import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers
 import java.util.ArrayList
 
 /**
@@ -51,32 +48,20 @@ class MediaListAdapter(
                 R.drawable.ic_media_play
             )
         )
-        if (mediaFile.thumbNail != null) {
-            holder.imageView.setImageBitmap(mediaFile.thumbNail)
-        } else {
-            mediaFile.pullThumbnailFromCamera(object : CommonCallbacks.CompletionCallbackWithParam<Bitmap> {
-                override fun onSuccess(t: Bitmap?) {
-                    AndroidSchedulers.mainThread().scheduleDirect {
-                        if (holder.imageView.tag == position) {
-                            holder.imageView.setImageBitmap(t)
-                        }
-                    }
-
-                }
-
-                override fun onFailure(error: IDJIError) {
-                    AndroidSchedulers.mainThread().scheduleDirect {
-                        holder.imageView.setImageDrawable(
-                            ContextCompat.getDrawable(
-                                ContextUtil.getContext(),
-                                R.drawable.aircraft
-                            )
-                        )
-                    }
-
-                }
-
-            })
+        MediaThumbnailCache.load(mediaFile, MediaThumbnailCache.Type.THUMBNAIL) {
+            if (holder.imageView.tag != position) {
+                return@load
+            }
+            if (it != null) {
+                holder.imageView.setImageBitmap(it)
+            } else {
+                holder.imageView.setImageDrawable(
+                    ContextCompat.getDrawable(
+                        ContextUtil.getContext(),
+                        R.drawable.aircraft
+                    )
+                )
+            }
         }
 
 
@@ -88,6 +73,20 @@ class MediaListAdapter(
         return data.size
     }
 
+    /**
+     * 预取 position 之后一页的缩略图
+     */
+    fun prefetchAfter(position: Int, count: Int = PREFETCH_COUNT) {
+        if (position < 0 || position + 1 >= data.size) {
+            return
+        }
+        MediaThumbnailCache.prefetch(data.subList(position + 1, minOf(data.size, position + 1 + count)))
+    }
+
+    companion object {
+        const val PREFETCH_COUNT = 24
+    }
+
     inner class ViewHolder(view: View, private val onItemClick: (MediaFile, View) -> Unit) :
         RecyclerView.ViewHolder(view) {
         var imageView = view.iv_thumbnail
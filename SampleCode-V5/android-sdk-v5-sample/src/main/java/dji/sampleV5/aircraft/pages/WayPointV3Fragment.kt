@@ -86,7 +86,7 @@ import dji.v5.manager.aircraft.simulator.SimulatorManager
 import dji.v5.manager.aircraft.waypoint3.WaypointMissionManager
 import dji.v5.manager.aircraft.waypoint3.model.BreakPointInfo
 import dji.v5.ux.accessory.DescSpinnerCell
-import dji.v5.ux.mapkit.core.models.annotations.DJIMarker
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerCollection
 import kotlinx.android.synthetic.main.dialog_add_waypoint.view.*
 import dji.sampleV5.aircraft.util.ToastUtils
 
@@ -113,7 +113,9 @@ class WayPointV3Fragment : DJIFragment() {
 
 
     private val showWaypoints : ArrayList<WaypointInfoModel> = ArrayList()
-    private val pointMarkers : ArrayList<DJIMarker?> = ArrayList()
+    private val pointMarkers : ArrayList<DJIMarkerCollection.Item?> = ArrayList()
+    // 航点 marker 都放在同一个 collection 中，批量添加时地图只刷新一次
+    private var waypointMarkers: DJIMarkerCollection? = null
     var curMissionPath: String = DiskUtil.getExternalCacheDirPath(
         ContextUtil.getContext(),
         WAYPOINT_SAMPLE_FILE_DIR + WAYPOINT_SAMPLE_FILE_NAME
@@ -746,18 +748,30 @@ class WayPointV3Fragment : DJIFragment() {
             waypoints.addAll(it.waypoints)
             markLine(it.waypoints)
         }
-        waypoints.forEach() {
-            markWaypoint(DJILatLng(it.location.latitude, it.location.longitude), it.waypointIndex)
+        val markOptionsList = waypoints.map {
+            createWaypointMarkOptions(DJILatLng(it.location.latitude, it.location.longitude), it.waypointIndex)
         }
+        getWaypointMarkers()?.addAll(markOptionsList)
     }
 
-    fun markWaypoint(latlong: DJILatLng, waypointIndex: Int) : DJIMarker?{
+    fun markWaypoint(latlong: DJILatLng, waypointIndex: Int) : DJIMarkerCollection.Item?{
+       return getWaypointMarkers()?.add(createWaypointMarkOptions(latlong, waypointIndex))
+    }
+
+    private fun createWaypointMarkOptions(latlong: DJILatLng, waypointIndex: Int): DJIMarkerOptions {
         var markOptions = DJIMarkerOptions()
         markOptions.position(latlong)
         markOptions.icon(getMarkerRes(waypointIndex, 0f))
         markOptions.title(waypointIndex.toString())
         markOptions.isInfoWindowEnable = true
-       return map_widget.map?.addMarker(markOptions)
+        return markOptions
+    }
+
+    private fun getWaypointMarkers(): DJIMarkerCollection? {
+        if (waypointMarkers == null || waypointMarkers?.isRemoved == true) {
+            waypointMarkers = map_widget.map?.addMarkerCollection(0)
+        }
+        return waypointMarkers
     }
 
     fun markLine(waypoints: List<WaylineExecuteWaypoint>) {
@@ -889,10 +903,7 @@ class WayPointV3Fragment : DJIFragment() {
         }
     }
     private  fun removeAllPoint(){
-        pointMarkers.forEach{
-            it?.let {
-                it.remove()
-            }
-        }
+        getWaypointMarkers()?.removeAll(pointMarkers.filterNotNull())
+        pointMarkers.clear()
     }
 }
\ No newline at end of file
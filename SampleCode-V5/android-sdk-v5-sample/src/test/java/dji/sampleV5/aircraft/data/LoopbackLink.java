@@ -0,0 +1,441 @@
+package dji.sampleV5.aircraft.data;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 进程内的 {@link MOPLink} 模拟器，不依赖设备和 MSDK，可以在普通 JVM 单测中使用
+ * <p>
+ * {@link #createPair(Config)} 创建一对互相连接的端点，每个方向按配置模拟带宽、单向时延、丢包、乱序，
+ * 并可以注入读超时、写失败和通道关闭。每次 writeData 是一个消息，readData 按消息顺序读取，
+ * 一个消息可以分多次读完，和 Pipeline 的行为一致。
+ * <p>
+ * 丢包和写失败只作用于不小于 {@link Config#setFaultMinSize(int)} 的数据包，握手和 ACK 这类控制包不受影响，
+ * 否则原有协议在等待控制包时会一直等下去。按比例注入的故障由 seed 决定，需要确定出现故障时用
+ * {@link Config#setWriteFailEvery(int)} 和 {@link Config#setLossEvery(int)} 按包序号注入。
+ * <p>
+ * 每个端点只能在一个线程中读写，两个端点可以分别在不同线程中使用。
+ */
+public class LoopbackLink implements MOPLink {
+    private static final int MAX_FREE_ARRAYS = 256;
+
+    /**
+     * 模拟参数，所有比例取值 0~1
+     */
+    public static class Config {
+        private long bandwidth;
+        private long latencyMs;
+        private double lossRate;
+        private double reorderRate;
+        private double timeoutRate;
+        private double writeFailRate;
+        private int writeFailEvery;
+        private int lossEvery;
+        private long closeAfterBytes;
+        private int faultMinSize = 256;
+        private long readTimeoutMs = 20;
+        private long seed = 1;
+
+        /**
+         * @param bytesPerSecond 单向带宽，0 表示不限
+         */
+        public Config setBandwidth(long bytesPerSecond) {
+            this.bandwidth = bytesPerSecond;
+            return this;
+        }
+
+        /**
+         * @param latencyMs 单向时延
+         */
+        public Config setLatencyMs(long latencyMs) {
+            this.latencyMs = latencyMs;
+            return this;
+        }
+
+        /**
+         * 数据包在链路上丢失的比例，发送方不会感知
+         */
+        public Config setLossRate(double lossRate) {
+            this.lossRate = lossRate;
+            return this;
+        }
+
+        /**
+         * 数据包额外延迟最多一个时延、从而被后面的包超过的比例
+         */
+        public Config setReorderRate(double reorderRate) {
+            this.reorderRate = reorderRate;
+            return this;
+        }
+
+        /**
+         * readData 在有数据时仍返回 {@link MOPLink#RESULT_TIMEOUT} 的比例
+         */
+        public Config setTimeoutRate(double timeoutRate) {
+            this.timeoutRate = timeoutRate;
+            return this;
+        }
+
+        /**
+         * writeData 返回 {@link MOPLink#RESULT_ERROR} 且不发送的比例
+         */
+        public Config setWriteFailRate(double writeFailRate) {
+            this.writeFailRate = writeFailRate;
+            return this;
+        }
+
+        /**
+         * 每个端点每写 n 个数据包，第 n 个返回 {@link MOPLink#RESULT_ERROR} 且不发送，0 表示不注入。重发的包也计数
+         */
+        public Config setWriteFailEvery(int n) {
+            this.writeFailEvery = n;
+            return this;
+        }
+
+        /**
+         * 每个端点每写 n 个数据包，第 n 个在链路上丢失，0 表示不注入
+         */
+        public Config setLossEvery(int n) {
+            this.lossEvery = n;
+            return this;
+        }
+
+        /**
+         * 两端累计写入超过该字节数后通道关闭，0 表示不关闭
+         */
+        public Config setCloseAfterBytes(long closeAfterBytes) {
+            this.closeAfterBytes = closeAfterBytes;
+            return this;
+        }
+
+        /**
+         * 丢包和写失败只作用于不小于该长度的包
+         */
+        public Config setFaultMinSize(int faultMinSize) {
+            this.faultMinSize = faultMinSize;
+            return this;
+        }
+
+        /**
+         * readData 没有数据时最多等待的时间
+         */
+        public Config setReadTimeoutMs(long readTimeoutMs) {
+            this.readTimeoutMs = readTimeoutMs;
+            return this;
+        }
+
+        public Config setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+    }
+
+    /**
+     * 链路上的一个消息
+     */
+    private static class Message implements Comparable<Message> {
+        final byte[] data;
+        final long deliverAt;
+        final long order;
+
+        Message(byte[] data, long deliverAt, long order) {
+            this.data = data;
+            this.deliverAt = deliverAt;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Message o) {
+            if (deliverAt != o.deliverAt) {
+                return deliverAt < o.deliverAt ? -1 : 1;
+            }
+            return Long.compare(order, o.order);
+        }
+    }
+
+    /**
+     * 单向链路
+     */
+    private static class Direction {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition changed = lock.newCondition();
+        final PriorityQueue<Message> queue = new PriorityQueue<>();
+        /**
+         * 读完的消息数组按长度回收，避免模拟器自身的分配影响压测的分配统计
+         */
+        final Map<Integer, ArrayDeque<byte[]>> freeArrays = new HashMap<>();
+        long busyUntil;
+        long order;
+
+        byte[] obtain(int length) {
+            ArrayDeque<byte[]> free = freeArrays.get(length);
+            byte[] array = free == null ? null : free.poll();
+            return array != null ? array : new byte[length];
+        }
+
+        void recycle(byte[] array) {
+            ArrayDeque<byte[]> free = freeArrays.get(array.length);
+            if (free == null) {
+                free = new ArrayDeque<>();
+                freeArrays.put(array.length, free);
+            }
+            if (free.size() < MAX_FREE_ARRAYS) {
+                free.add(array);
+            }
+        }
+    }
+
+    /**
+     * 两端共享的状态
+     */
+    private static class Shared {
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        final AtomicLong writtenBytes = new AtomicLong(0);
+    }
+
+    private final Config config;
+    private final Shared shared;
+    private final Direction in;
+    private final Direction out;
+    private final Random random;
+
+    private byte[] pending;
+    private int pendingOffset;
+
+    private long faultablePackets;
+    private long messagesWritten;
+    private long bytesWritten;
+    private long messagesRead;
+    private long bytesRead;
+    private long dropped;
+    private long reordered;
+    private long injectedTimeouts;
+    private long injectedWriteFailures;
+
+    private LoopbackLink(Config config, Shared shared, Direction in, Direction out, long seed) {
+        this.config = config;
+        this.shared = shared;
+        this.in = in;
+        this.out = out;
+        random = new Random(seed);
+    }
+
+    /**
+     * 创建一对互相连接的端点
+     */
+    @NonNull
+    public static LoopbackLink[] createPair(@NonNull Config config) {
+        Shared shared = new Shared();
+        Direction ab = new Direction();
+        Direction ba = new Direction();
+        return new LoopbackLink[]{
+                new LoopbackLink(config, shared, ba, ab, config.seed),
+                new LoopbackLink(config, shared, ab, ba, config.seed * 31 + 17)
+        };
+    }
+
+    /**
+     * 关闭通道，之后两端的读写都返回 {@link MOPLink#RESULT_CLOSING}
+     */
+    public void close() {
+        shared.closed.set(true);
+        signal(in);
+        signal(out);
+    }
+
+    public boolean isClosed() {
+        return shared.closed.get();
+    }
+
+    @Override
+    public int writeData(byte[] data, int length) {
+        if (shared.closed.get()) {
+            return RESULT_CLOSING;
+        }
+        boolean faultable = length >= config.faultMinSize;
+        long index = faultable ? ++faultablePackets : 0;
+        if (faultable && (isNth(index, config.writeFailEvery)
+                || config.writeFailRate > 0 && random.nextDouble() < config.writeFailRate)) {
+            injectedWriteFailures++;
+            return RESULT_ERROR;
+        }
+        long now = System.nanoTime();
+        long sendEnd;
+        out.lock.lock();
+        try {
+            // 按带宽排队发送
+            long start = Math.max(now, out.busyUntil);
+            long transfer = config.bandwidth > 0 ? length * 1_000_000_000L / config.bandwidth : 0;
+            sendEnd = start + transfer;
+            out.busyUntil = sendEnd;
+            long deliverAt = sendEnd + TimeUnit.MILLISECONDS.toNanos(config.latencyMs);
+            if (faultable && (isNth(index, config.lossEvery)
+                    || config.lossRate > 0 && random.nextDouble() < config.lossRate)) {
+                dropped++;
+            } else {
+                if (config.reorderRate > 0 && random.nextDouble() < config.reorderRate) {
+                    reordered++;
+                    deliverAt += (long) (random.nextDouble() * TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.latencyMs)));
+                }
+                byte[] copy = out.obtain(length);
+                System.arraycopy(data, 0, copy, 0, length);
+                out.queue.add(new Message(copy, deliverAt, out.order++));
+                out.changed.signalAll();
+            }
+        } finally {
+            out.lock.unlock();
+        }
+        messagesWritten++;
+        bytesWritten += length;
+        // 写入会阻塞到数据发送完
+        sleepUntil(sendEnd);
+        if (config.closeAfterBytes > 0 && shared.writtenBytes.addAndGet(length) >= config.closeAfterBytes) {
+            close();
+        }
+        return length;
+    }
+
+    @Override
+    public int readData(byte[] buff) {
+        if (shared.closed.get()) {
+            return RESULT_CLOSING;
+        }
+        if (config.timeoutRate > 0 && random.nextDouble() < config.timeoutRate) {
+            injectedTimeouts++;
+            return RESULT_TIMEOUT;
+        }
+        if (pending == null && !takeMessage()) {
+            return shared.closed.get() ? RESULT_CLOSING : RESULT_TIMEOUT;
+        }
+        int length = Math.min(buff.length, pending.length - pendingOffset);
+        System.arraycopy(pending, pendingOffset, buff, 0, length);
+        pendingOffset += length;
+        if (pendingOffset == pending.length) {
+            in.lock.lock();
+            try {
+                in.recycle(pending);
+            } finally {
+                in.lock.unlock();
+            }
+            pending = null;
+            pendingOffset = 0;
+            messagesRead++;
+        }
+        bytesRead += length;
+        return length;
+    }
+
+    /**
+     * 等待下一个到达的消息，最多等待 readTimeoutMs
+     */
+    private boolean takeMessage() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.readTimeoutMs);
+        in.lock.lock();
+        try {
+            while (!shared.closed.get()) {
+                long now = System.nanoTime();
+                Message head = in.queue.peek();
+                if (head != null && head.deliverAt <= now) {
+                    in.queue.poll();
+                    pending = head.data;
+                    pendingOffset = 0;
+                    return true;
+                }
+                long wait = deadline - now;
+                if (wait <= 0) {
+                    return false;
+                }
+                if (head != null) {
+                    wait = Math.min(wait, head.deliverAt - now);
+                }
+                in.changed.awaitNanos(wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            in.lock.unlock();
+        }
+        return false;
+    }
+
+    private static boolean isNth(long index, int n) {
+        return n > 0 && index % n == 0;
+    }
+
+    private static void signal(Direction direction) {
+        direction.lock.lock();
+        try {
+            direction.changed.signalAll();
+        } finally {
+            direction.lock.unlock();
+        }
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long wait = nanoTime - System.nanoTime();
+        if (wait <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getMessagesWritten() {
+        return messagesWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getMessagesRead() {
+        return messagesRead;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getReordered() {
+        return reordered;
+    }
+
+    public long getInjectedTimeouts() {
+        return injectedTimeouts;
+    }
+
+    public long getInjectedWriteFailures() {
+        return injectedWriteFailures;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "LoopbackLink{" +
+                "written=" + messagesWritten + "/" + bytesWritten +
+                ", read=" + messagesRead + "/" + bytesRead +
+                ", dropped=" + dropped +
+                ", reordered=" + reordered +
+                ", timeouts=" + injectedTimeouts +
+                ", writeFailures=" + injectedWriteFailures +
+                ", closed=" + shared.closed.get() +
+                '}';
+    }
+}
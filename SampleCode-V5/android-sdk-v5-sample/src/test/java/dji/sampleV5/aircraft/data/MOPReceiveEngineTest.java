@@ -0,0 +1,96 @@
+package dji.sampleV5.aircraft.data;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MOPReceiveEngineTest {
+    private static final int FRAME_SIZE = 1000;
+    private static final int FRAME_COUNT = 500;
+
+    private LoopbackLink[] pair;
+    private MOPReceiveEngine engine;
+
+    @Before
+    public void setUp() {
+        MOPLog.setLogger(new RecordingLogger());
+        pair = LoopbackLink.createPair(new LoopbackLink.Config().setLatencyMs(1));
+        engine = new MOPReceiveEngine(pair[1], "test", 4096, 4);
+    }
+
+    @After
+    public void tearDown() {
+        engine.stop();
+        pair[0].close();
+        MOPLog.setLogger(null);
+    }
+
+    @Test
+    public void everyFrameIsDispatchedThroughTheRing() throws InterruptedException {
+        AtomicLong received = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(1);
+        engine.addListener(new EmptyListener() {
+            @Override
+            public void onFrame(@NonNull byte[] data, int length) {
+                if (received.addAndGet(length) == (long) FRAME_SIZE * FRAME_COUNT) {
+                    done.countDown();
+                }
+            }
+        });
+        engine.start();
+        byte[] frame = new byte[FRAME_SIZE];
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            pair[0].writeData(frame);
+        }
+        assertTrue(engine.getStats().toString(), done.await(10, TimeUnit.SECONDS));
+        assertEquals(FRAME_COUNT, engine.getStats().getFrames());
+    }
+
+    @Test
+    public void closedLinkStopsEngineAndNotifiesListener() throws InterruptedException {
+        AtomicInteger result = new AtomicInteger();
+        CountDownLatch stopped = new CountDownLatch(1);
+        engine.addListener(new EmptyListener() {
+            @Override
+            public void onStopped(int stopResult) {
+                result.set(stopResult);
+                stopped.countDown();
+            }
+        });
+        engine.start();
+        pair[0].close();
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        assertEquals(MOPLink.RESULT_CLOSING, result.get());
+        assertFalse(engine.isRunning());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void engineCanOnlyStartOnce() {
+        engine.start();
+        engine.stop();
+        engine.start();
+    }
+
+    private static class EmptyListener implements MOPReceiveEngine.FrameListener {
+        @Override
+        public void onFrame(@NonNull byte[] data, int length) {
+            // 由子类处理
+        }
+
+        @Override
+        public void onStopped(int result) {
+            // 由子类处理
+        }
+    }
+}
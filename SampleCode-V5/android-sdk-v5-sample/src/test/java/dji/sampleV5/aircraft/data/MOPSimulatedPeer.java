@@ -0,0 +1,216 @@
+package dji.sampleV5.aircraft.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 模拟 PSDK/OSDK 负载一侧的 MOP 文件服务，配合 {@link LoopbackLink} 在没有设备时验证和压测传输协议
+ * <p>
+ * 上传的文件保存到 storageDir，下载时从 storageDir 读取。windowSupported 为 false 时按老版本负载处理，
+ * 不回复协议版本，用来验证回退流程。
+ */
+public class MOPSimulatedPeer implements Runnable {
+    private static final String TAG = MOPSimulatedPeer.class.getSimpleName();
+    private static final int DOWNLOAD_REQ_SIZE = MOPCmdHelper.PACK_HEADER_SIZE + 32;
+    private static final int FILE_INFO_SIZE = MOPCmdHelper.PACK_HEADER_SIZE + MOPCmdHelper.PACK_FILE_INFO_SIZE;
+    private static final long READ_TIMEOUT_MS = 5000;
+
+    private static final PipelineAdapter.OnEventListener EMPTY_LISTENER = new PipelineAdapter.OnEventListener() {
+        @Override
+        public void onTipEvent(MOPCmdHelper.TipEvent event) {
+            // 模拟端不需要进度
+        }
+
+        @Override
+        public void onFileInfoEvent(MOPCmdHelper.FileInfo event) {
+            // 模拟端不需要进度
+        }
+    };
+
+    private final MOPLink link;
+    private final File storageDir;
+    private final boolean windowSupported;
+    private final MOPWindowTransfer.Config config;
+
+    private volatile boolean running = true;
+    private volatile int uploadCount;
+    private volatile int downloadCount;
+    private volatile int failureCount;
+    private volatile MOPWindowTransfer.Report lastReport;
+    private final Object handledLock = new Object();
+    private int handledCount;
+
+    public MOPSimulatedPeer(@NonNull MOPLink link, @NonNull File storageDir, boolean windowSupported,
+                            @NonNull MOPWindowTransfer.Config config) {
+        this.link = link;
+        this.storageDir = storageDir;
+        this.windowSupported = windowSupported;
+        this.config = config;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        byte[] header = new byte[MOPCmdHelper.PACK_HEADER_SIZE];
+        while (running) {
+            int len = link.readData(header);
+            if (len == MOPLink.RESULT_CLOSING) {
+                break;
+            }
+            if (len < header.length || header[0] != MOPCmdHelper.CMD_REQ) {
+                continue;
+            }
+            try {
+                boolean success = header[1] == MOPCmdHelper.CMD_0 ? handleUpload(header) : handleDownload(header);
+                if (!success) {
+                    failureCount++;
+                }
+            } catch (IOException e) {
+                failureCount++;
+                MOPLog.e(TAG, e.getMessage());
+            }
+            discardStalePackets();
+            synchronized (handledLock) {
+                handledCount++;
+                handledLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 传输结束后链路上可能还有重传的数据包或 ACK，按请求头解析会把数据误认为新的请求，这里读到通道空闲为止
+     */
+    private void discardStalePackets() {
+        byte[] buff = new byte[MOPWindowTransfer.PACK_SEQ_HEADER_SIZE + MOPWindowTransfer.Config.MAX_PACKET_SIZE];
+        while (running && link.readData(buff) > 0) {
+            // 丢弃
+        }
+    }
+
+    /**
+     * 等待处理完 count 个请求，包括失败的请求
+     *
+     * @return 超时返回 false
+     */
+    public boolean awaitHandled(int count, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (handledLock) {
+            while (handledCount < count) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+                handledLock.wait(wait);
+            }
+            return true;
+        }
+    }
+
+    private boolean handleUpload(byte[] req) throws IOException {
+        MOPWindowTransfer.Config negotiated = replyReq(req);
+        byte[] infoBuff = new byte[FILE_INFO_SIZE];
+        if (MOPWindowTransfer.readFully(link, infoBuff, infoBuff.length, READ_TIMEOUT_MS) < infoBuff.length) {
+            return false;
+        }
+        MOPCmdHelper.FileInfo fileInfo = MOPCmdHelper.FileInfo.parse(infoBuff);
+        if (fileInfo == null) {
+            return false;
+        }
+        MOPCmdHelper.sendAck(link, MOPCmdHelper.CMD_0);
+
+        File file = new File(storageDir, fileInfo.getFilename());
+        MOPWindowTransfer.Report report;
+        try (RandomAccessFile stream = new RandomAccessFile(file, "rw")) {
+            stream.setLength(0);
+            report = negotiated != null
+                    ? MOPWindowTransfer.receive(link, stream, negotiated, fileInfo.getFileLength())
+                    : MOPCmdHelper.receiveFile(link, stream, fileInfo, System.currentTimeMillis(), EMPTY_LISTENER);
+        }
+        lastReport = report;
+        boolean success = report != null && Arrays.equals(fileInfo.getMd5(), MOPCmdHelper.getMD5(file));
+        MOPCmdHelper.sendTransAck(link, success);
+        if (success) {
+            uploadCount++;
+        }
+        return success;
+    }
+
+    private boolean handleDownload(byte[] req) throws IOException {
+        MOPWindowTransfer.Config negotiated = replyReq(req);
+        byte[] nameBuff = new byte[DOWNLOAD_REQ_SIZE];
+        if (MOPWindowTransfer.readFully(link, nameBuff, nameBuff.length, READ_TIMEOUT_MS) < nameBuff.length) {
+            return false;
+        }
+        String filename = MOPCmdHelper.FileInfo.getString(Arrays.copyOfRange(nameBuff, MOPCmdHelper.PACK_HEADER_SIZE,
+                nameBuff.length));
+        File file = new File(storageDir, filename);
+        if (!file.isFile()) {
+            link.writeData(MOPCmdHelper.FileInfo.create(filename, 0, new byte[16], false).getHeader());
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MOPCmdHelper.FileInfo fileInfo = MOPCmdHelper.FileInfo.create(filename, (int) channel.size(),
+                    MOPCmdHelper.getMD5(channel), true);
+            link.writeData(fileInfo.getHeader());
+            long time = System.currentTimeMillis();
+            MOPWindowTransfer.Report report = negotiated != null
+                    ? MOPWindowTransfer.send(link, channel, negotiated, time, EMPTY_LISTENER)
+                    : MOPCmdHelper.sendFile(link, channel, time, EMPTY_LISTENER);
+            lastReport = report;
+            if (report == null) {
+                return false;
+            }
+            Boolean transAck = report.getTransAck();
+            boolean success = transAck != null ? transAck : MOPCmdHelper.parseUploadAck(link);
+            if (success) {
+                downloadCount++;
+            }
+            return success;
+        }
+    }
+
+    /**
+     * 回复请求，支持窗口模式时在 ACK 中带上双方都能接受的参数
+     *
+     * @return 协商出的参数，使用原有流程时返回 null
+     */
+    private MOPWindowTransfer.Config replyReq(byte[] req) {
+        MOPWindowTransfer.Config negotiated = windowSupported ? config.negotiate(req) : null;
+        byte[] ack = new byte[MOPCmdHelper.PACK_HEADER_SIZE];
+        ack[0] = MOPCmdHelper.CMD_ACK;
+        ack[1] = MOPCmdHelper.CMD_0;
+        if (negotiated != null) {
+            negotiated.writeTo(ack);
+        }
+        link.writeData(ack);
+        return negotiated;
+    }
+
+    public int getUploadCount() {
+        return uploadCount;
+    }
+
+    public int getDownloadCount() {
+        return downloadCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return 最近一次传输的统计，上传时为接收方的统计，下载时为发送方的统计
+     */
+    public MOPWindowTransfer.Report getLastReport() {
+        return lastReport;
+    }
+}
@@ -0,0 +1,348 @@
+package dji.sampleV5.aircraft.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 基于 {@link LoopbackLink} 和 {@link MOPSimulatedPeer} 的 MOP 文件传输压测
+ * <p>
+ * 每个场景使用一对新的模拟通道，统计 MB/s、包/s 和调用线程每 MB 分配的字节数。
+ * 分配统计使用 JVM 的 ThreadMXBean，不可用时为 -1。故障场景按包序号注入故障，结果可以重复，
+ * 每个场景的结果通过 {@link MOPLog} 输出。
+ */
+public class MOPTransferBenchmark {
+    private static final String TAG = MOPTransferBenchmark.class.getSimpleName();
+    private static final long SCENARIO_TIMEOUT_MS = 120_000;
+    private static final double MB = 1024.0 * 1024.0;
+
+    public enum Scenario {
+        UPLOAD_LEGACY(true, false, false),
+        UPLOAD_WINDOW(true, true, false),
+        UPLOAD_RESUME(true, false, true),
+        DOWNLOAD_LEGACY(false, false, false),
+        DOWNLOAD_WINDOW(false, true, false),
+        DOWNLOAD_RESUME(false, false, true),
+        UPLOAD_WINDOW_LOSSY(true, true, true),
+        DOWNLOAD_WINDOW_LOSSY(false, true, true);
+
+        final boolean upload;
+        final boolean windowed;
+        final boolean faulty;
+
+        Scenario(boolean upload, boolean windowed, boolean faulty) {
+            this.upload = upload;
+            this.windowed = windowed;
+            this.faulty = faulty;
+        }
+    }
+
+    public static class Result {
+        private final Scenario scenario;
+        private final int fileSize;
+        private final boolean success;
+        private final long durationMs;
+        private final long allocatedBytes;
+        private final long injectedFaults;
+        private final MOPWindowTransfer.Report report;
+        private final MOPWindowTransfer.Report peerReport;
+
+        Result(Scenario scenario, int fileSize, boolean success, long durationMs, long allocatedBytes, long injectedFaults,
+               MOPWindowTransfer.Report report, MOPWindowTransfer.Report peerReport) {
+            this.scenario = scenario;
+            this.fileSize = fileSize;
+            this.success = success;
+            this.durationMs = durationMs;
+            this.allocatedBytes = allocatedBytes;
+            this.injectedFaults = injectedFaults;
+            this.report = report;
+            this.peerReport = peerReport;
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        public int getFileSize() {
+            return fileSize;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public double getMbPerSecond() {
+            return durationMs <= 0 ? 0 : fileSize / MB * 1000 / durationMs;
+        }
+
+        public double getPacketsPerSecond() {
+            return durationMs <= 0 || report == null ? 0 : report.getPackets() * 1000.0 / durationMs;
+        }
+
+        /**
+         * @return 调用线程每传输 1MB 分配的字节数，无法统计时为 -1
+         */
+        public double getAllocatedBytesPerMb() {
+            if (allocatedBytes < 0) {
+                return -1;
+            }
+            return allocatedBytes / Math.max(fileSize / MB, 1.0 / 1024);
+        }
+
+        /**
+         * @return 两端注入的写失败和丢包的总数
+         */
+        public long getInjectedFaults() {
+            return injectedFaults;
+        }
+
+        /**
+         * @return App 一侧的统计，失败时为 null
+         */
+        public MOPWindowTransfer.Report getReport() {
+            return report;
+        }
+
+        /**
+         * @return 模拟负载一侧的统计，没有开始传输时为 null
+         */
+        public MOPWindowTransfer.Report getPeerReport() {
+            return peerReport;
+        }
+
+        public MOPWindowTransfer.Report getSenderReport() {
+            return scenario.upload ? report : peerReport;
+        }
+
+        public MOPWindowTransfer.Report getReceiverReport() {
+            return scenario.upload ? peerReport : report;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-22s %9d B %s %7.2f MB/s %8.0f pkt/s %10.0f alloc B/MB faults=%d  %s | peer %s",
+                    scenario, fileSize, success ? "OK  " : "FAIL", getMbPerSecond(), getPacketsPerSecond(),
+                    getAllocatedBytesPerMb(), injectedFaults, report, peerReport);
+        }
+    }
+
+    private final File workDir;
+    private final long bandwidth;
+    private final long latencyMs;
+    private final int faultEvery;
+
+    /**
+     * @param workDir    存放测试文件的目录
+     * @param bandwidth  模拟单向带宽，字节/秒，0 表示不限
+     * @param latencyMs  模拟单向时延
+     * @param faultEvery 故障场景下发送方每 faultEvery 个数据包丢一个（窗口模式）或写失败一次（续传场景）
+     */
+    public MOPTransferBenchmark(@NonNull File workDir, long bandwidth, long latencyMs, int faultEvery) {
+        this.workDir = workDir;
+        this.bandwidth = bandwidth;
+        this.latencyMs = latencyMs;
+        this.faultEvery = faultEvery;
+    }
+
+    /**
+     * 依次运行所有场景和文件大小
+     */
+    @NonNull
+    public List<Result> runAll(@NonNull int[] fileSizes) throws IOException {
+        List<Result> results = new ArrayList<>();
+        for (int size : fileSizes) {
+            for (Scenario scenario : Scenario.values()) {
+                results.add(run(scenario, size));
+            }
+        }
+        return results;
+    }
+
+    @NonNull
+    public Result run(@NonNull Scenario scenario, int fileSize) throws IOException {
+        if (!workDir.isDirectory() && !workDir.mkdirs()) {
+            throw new IOException("can not create " + workDir);
+        }
+        File source = prepareSource(fileSize);
+        LoopbackLink.Config linkConfig = new LoopbackLink.Config()
+                .setBandwidth(bandwidth)
+                .setLatencyMs(latencyMs);
+        if (scenario.faulty) {
+            if (scenario.windowed) {
+                linkConfig.setLossEvery(faultEvery).setReorderRate(1.0 / faultEvery);
+            } else {
+                linkConfig.setWriteFailEvery(faultEvery);
+            }
+        }
+        LoopbackLink[] pair = LoopbackLink.createPair(linkConfig);
+        LoopbackLink app = pair[0];
+        MOPSimulatedPeer peer = new MOPSimulatedPeer(pair[1], workDir, scenario.windowed, MOPWindowTransfer.Config.DEFAULT);
+        Thread peerThread = new Thread(peer, "mop-sim-peer");
+        peerThread.start();
+        // 超时后关闭通道，两端的读写循环都会退出
+        Thread watchdog = new Thread(() -> {
+            try {
+                Thread.sleep(SCENARIO_TIMEOUT_MS);
+                app.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "mop-sim-watchdog");
+        watchdog.start();
+
+        long allocStart = AllocationMeter.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        MOPWindowTransfer.Report report = null;
+        long durationMs;
+        long allocEnd;
+        try {
+            if (scenario.upload) {
+                ResultListener listener = new ResultListener();
+                MOPCmdHelper.sendUploadFileReq(app, "up_" + source.getName(), source, System.currentTimeMillis(), listener);
+                report = listener.report;
+            } else {
+                report = download(app, source.getName(), new File(workDir, "down_" + source.getName()));
+            }
+        } finally {
+            durationMs = (System.nanoTime() - start) / 1_000_000;
+            allocEnd = AllocationMeter.currentThreadAllocatedBytes();
+            watchdog.interrupt();
+            // 等负载一侧也结束这次传输，拿到它的统计后再关闭通道
+            try {
+                peer.awaitHandled(1, SCENARIO_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            app.close();
+            peer.stop();
+            try {
+                peerThread.join(SCENARIO_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        LoopbackLink peerLink = pair[1];
+        long faults = app.getInjectedWriteFailures() + app.getDropped()
+                + peerLink.getInjectedWriteFailures() + peerLink.getDropped();
+        long allocated = allocStart < 0 || allocEnd < 0 ? -1 : allocEnd - allocStart;
+        Result result = new Result(scenario, fileSize, report != null, durationMs, allocated, faults, report,
+                peer.getLastReport());
+        MOPLog.i(TAG, result + " app " + app + " peer " + peerLink);
+        return result;
+    }
+
+    /**
+     * 下载并校验md5
+     *
+     * @return 校验通过时返回统计信息
+     */
+    private MOPWindowTransfer.Report download(MOPLink link, String filename, File target) throws IOException {
+        ResultListener listener = new ResultListener();
+        MOPCmdHelper.FileInfo fileInfo = MOPCmdHelper.sendDownloadFileReq(link, filename, listener);
+        if (fileInfo == null || !fileInfo.isExist()) {
+            return null;
+        }
+        MOPWindowTransfer.Report report;
+        try (RandomAccessFile stream = new RandomAccessFile(target, "rw")) {
+            stream.setLength(0);
+            report = MOPCmdHelper.receiveFile(link, stream, fileInfo, System.currentTimeMillis(), listener);
+        }
+        boolean verified = report != null && Arrays.equals(fileInfo.getMd5(), MOPCmdHelper.getMD5(target));
+        MOPCmdHelper.sendTransAck(link, verified);
+        return verified ? report : null;
+    }
+
+    private File prepareSource(int fileSize) throws IOException {
+        File file = new File(workDir, "src_" + fileSize + ".bin");
+        if (file.isFile() && file.length() == fileSize) {
+            return file;
+        }
+        Random random = new Random(fileSize);
+        byte[] buff = new byte[64 * 1024];
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            int remaining = fileSize;
+            while (remaining > 0) {
+                random.nextBytes(buff);
+                int len = Math.min(remaining, buff.length);
+                out.write(buff, 0, len);
+                remaining -= len;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * 把结果格式化成表格
+     */
+    @NonNull
+    public static String format(@NonNull List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        for (Result result : results) {
+            sb.append(result).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 记录上传完成事件中的统计
+     */
+    private static class ResultListener implements PipelineAdapter.OnEventListener {
+        MOPWindowTransfer.Report report;
+
+        @Override
+        public void onTipEvent(MOPCmdHelper.TipEvent event) {
+            if (event.getReport() != null) {
+                report = event.getReport();
+            }
+        }
+
+        @Override
+        public void onFileInfoEvent(MOPCmdHelper.FileInfo event) {
+            // 不需要
+        }
+    }
+
+    /**
+     * 当前线程的累计分配字节数
+     */
+    static class AllocationMeter {
+        private static Object threadBean;
+        private static Method allocatedBytesMethod;
+
+        static {
+            try {
+                Class<?> factory = Class.forName("java.lang.management.ManagementFactory");
+                threadBean = factory.getMethod("getThreadMXBean").invoke(null);
+                allocatedBytesMethod = Class.forName("com.sun.management.ThreadMXBean")
+                        .getMethod("getThreadAllocatedBytes", long.class);
+            } catch (Exception | LinkageError e) {
+                threadBean = null;
+                allocatedBytesMethod = null;
+            }
+        }
+
+        private AllocationMeter() {
+        }
+
+        static long currentThreadAllocatedBytes() {
+            if (allocatedBytesMethod == null) {
+                return -1;
+            }
+            try {
+                return (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dji.sampleV5.aircraft.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在 {@link LoopbackLink} 上跑 MOP 传输的各个场景，校验传输结果
+ * <p>
+ * 这里只校验正确性和故障恢复，吞吐和分配统计写在 {@link MOPLog} 中供对比，不做断言。
+ */
+public class MOPTransferBenchmarkTest {
+    private static final int PACKET_SIZE = MOPWindowTransfer.Config.DEFAULT_PACKET_SIZE;
+    private static final int FILE_SIZE = 200 * 1024;
+    private static final int SHORT_LAST_PACKET_SIZE = 3 * 1024 + 17;
+    private static final int FAULT_EVERY = 16;
+
+    /**
+     * 覆盖只有一个不满的包、最后一包很短、正好整包和多个窗口的文件
+     */
+    private static final int[] FILE_SIZES = {100, SHORT_LAST_PACKET_SIZE, 32 * PACKET_SIZE, FILE_SIZE, 1024 * 1024 + 1};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RecordingLogger logger;
+    private MOPTransferBenchmark benchmark;
+
+    @Before
+    public void setUp() throws IOException {
+        logger = new RecordingLogger();
+        MOPLog.setLogger(logger);
+        benchmark = new MOPTransferBenchmark(folder.newFolder("mop"), 0, 1, FAULT_EVERY);
+    }
+
+    @After
+    public void tearDown() {
+        MOPLog.setLogger(null);
+    }
+
+    @Test
+    public void everyScenarioDeliversEveryFileSize() throws IOException {
+        List<MOPTransferBenchmark.Result> results = benchmark.runAll(FILE_SIZES);
+        assertEquals(FILE_SIZES.length * MOPTransferBenchmark.Scenario.values().length, results.size());
+        for (MOPTransferBenchmark.Result result : results) {
+            assertTrue(message(result), result.isSuccess());
+            assertEquals(message(result), result.getFileSize(), result.getReceiverReport().getBytes());
+        }
+    }
+
+    @Test
+    public void uploadResumesAfterWriteFailures() throws IOException {
+        MOPTransferBenchmark.Result result = run(MOPTransferBenchmark.Scenario.UPLOAD_RESUME);
+        assertResumed(result);
+    }
+
+    @Test
+    public void downloadResumesAfterWriteFailures() throws IOException {
+        MOPTransferBenchmark.Result result = run(MOPTransferBenchmark.Scenario.DOWNLOAD_RESUME);
+        assertResumed(result);
+    }
+
+    @Test
+    public void uploadWindowRetransmitsLostPackets() throws IOException {
+        assertRetransmitted(run(MOPTransferBenchmark.Scenario.UPLOAD_WINDOW_LOSSY));
+    }
+
+    @Test
+    public void downloadWindowRetransmitsLostPackets() throws IOException {
+        assertRetransmitted(run(MOPTransferBenchmark.Scenario.DOWNLOAD_WINDOW_LOSSY));
+    }
+
+    private MOPTransferBenchmark.Result run(MOPTransferBenchmark.Scenario scenario) throws IOException {
+        MOPTransferBenchmark.Result result = benchmark.run(scenario, FILE_SIZE);
+        assertTrue(message(result), result.isSuccess());
+        return result;
+    }
+
+    /**
+     * 每次写失败后发送方都要和接收方确认位置后重发，两端的续传次数都等于注入的故障数
+     */
+    private void assertResumed(MOPTransferBenchmark.Result result) {
+        String message = message(result);
+        long expectedFaults = (FILE_SIZE / PACKET_SIZE) / (FAULT_EVERY - 1);
+        assertTrue(message, result.getInjectedFaults() >= expectedFaults);
+        assertNotNull(message, result.getSenderReport());
+        assertNotNull(message, result.getReceiverReport());
+        assertEquals(message, result.getInjectedFaults(), result.getSenderReport().getResumes());
+        assertEquals(message, result.getInjectedFaults(), result.getSenderReport().getRetransmissions());
+        assertEquals(message, result.getInjectedFaults(), result.getReceiverReport().getResumes());
+    }
+
+    private void assertRetransmitted(MOPTransferBenchmark.Result result) {
+        String message = message(result);
+        assertTrue(message, result.getInjectedFaults() >= FILE_SIZE / PACKET_SIZE / FAULT_EVERY);
+        assertNotNull(message, result.getSenderReport());
+        assertTrue(message, result.getSenderReport().getRetransmissions() >= result.getInjectedFaults());
+    }
+
+    private String message(MOPTransferBenchmark.Result result) {
+        return result + logger.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package dji.sampleV5.aircraft.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 单测中记录 MOP 日志，JVM 上没有 Android 的日志实现
+ * <p>
+ * 日志不输出到控制台，断言失败时把 {@link #toString()} 作为失败信息的一部分。
+ */
+class RecordingLogger implements MOPLog.Logger {
+    private static final int MAX_LINES = 200;
+
+    private final List<String> lines = new ArrayList<>();
+
+    @Override
+    public void i(String tag, String msg) {
+        add("I " + tag + ": " + msg);
+    }
+
+    @Override
+    public void e(String tag, String msg) {
+        add("E " + tag + ": " + msg);
+    }
+
+    private synchronized void add(String line) {
+        if (lines.size() == MAX_LINES) {
+            lines.remove(0);
+        }
+        lines.add(line);
+    }
+
+    /**
+     * @return 最近的日志，每行一条
+     */
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append('\n').append(line);
+        }
+        return sb.toString();
+    }
+}
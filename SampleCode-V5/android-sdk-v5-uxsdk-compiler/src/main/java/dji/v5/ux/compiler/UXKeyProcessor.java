@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a key table for every class that declares fields annotated with {@code UXKeys.UXParamKey}.
+ * <p>
+ * For a key class {@code FooKeys} the processor writes {@code FooKeys_UXKeyTable} into the same package.
+ * Its {@code register()} method passes each key, value type and update type to
+ * {@code UXKeys.registerKey}, so the keys can be registered without reflecting over the class.
+ * <p>
+ * Only {@code public static final String} fields are picked up, which matches what the reflective
+ * registration in {@code UXKeys} accepts; other annotated fields are reported as warnings.
+ */
+public class UXKeyProcessor extends AbstractProcessor {
+
+    static final String UX_KEYS = "dji.v5.ux.core.communication.UXKeys";
+    static final String PARAM_KEY_ANNOTATION = UX_KEYS + ".UXParamKey";
+    static final String TABLE_SUFFIX = "_UXKeyTable";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(PARAM_KEY_ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<String>> tables = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                String entry = toTableEntry(element);
+                if (entry != null) {
+                    TypeElement owner = (TypeElement) element.getEnclosingElement();
+                    tables.computeIfAbsent(owner, k -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+        for (Map.Entry<TypeElement, List<String>> table : tables.entrySet()) {
+            writeTable(table.getKey(), table.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * @return the register call for the field, or null if the field cannot be a key
+     */
+    private String toTableEntry(Element element) {
+        if (element.getKind() != ElementKind.FIELD) {
+            return null;
+        }
+        Set<Modifier> modifiers = element.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || !modifiers.contains(Modifier.STATIC)
+                || !modifiers.contains(Modifier.FINAL) || !"java.lang.String".equals(element.asType().toString())) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "UXParamKey is ignored on fields that are not public static final String", element);
+            return null;
+        }
+        String valueType = null;
+        String updateType = null;
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!PARAM_KEY_ANNOTATION.equals(mirror.getAnnotationType().toString())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues().entrySet()) {
+                String name = value.getKey().getSimpleName().toString();
+                if ("type".equals(name)) {
+                    valueType = processingEnv.getTypeUtils().erasure((TypeMirror) value.getValue().getValue()).toString();
+                } else if ("updateType".equals(name)) {
+                    updateType = ((VariableElement) value.getValue().getValue()).getSimpleName().toString();
+                }
+            }
+        }
+        if (valueType == null || updateType == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "UXParamKey needs a type and an updateType", element);
+            return null;
+        }
+        String owner = ((TypeElement) element.getEnclosingElement()).getQualifiedName().toString();
+        return UX_KEYS + ".registerKey(" + owner + "." + element.getSimpleName() + ", " + valueType + ".class, "
+                + UX_KEYS + ".UpdateType." + updateType + ");";
+    }
+
+    private void writeTable(TypeElement owner, List<String> entries) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+        String className = owner.getSimpleName() + TABLE_SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, owner);
+            try (Writer writer = file.openWriter()) {
+                if (!packageName.isEmpty()) {
+                    writer.write("package " + packageName + ";\n\n");
+                }
+                writer.write("/**\n * Key table of {@link " + owner.getQualifiedName() + "}, generated by "
+                        + UXKeyProcessor.class.getSimpleName() + ". Do not edit.\n */\n");
+                writer.write("public final class " + className + " {\n\n");
+                writer.write("    private " + className + "() {\n    }\n\n");
+                writer.write("    public static void register() {\n");
+                for (String entry : entries) {
+                    writer.write("        " + entry + "\n");
+                }
+                writer.write("    }\n}\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + qualifiedName + ": " + e.getMessage(), owner);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import dji.v5.ux.core.base.widget.ConstraintLayoutWidget
 import dji.v5.ux.core.communication.GlobalPreferencesManager
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore
 import dji.v5.ux.core.extension.*
+import dji.v5.ux.core.util.FixedPointFormatter
 import dji.v5.ux.core.util.UnitConversionUtil
 import java.util.*
 
@@ -44,6 +45,8 @@ import java.util.*
  * Copyright (c) 2022, DJI All Rights Reserved.
  */
 private const val TAG = "RTKSatelliteStatusWidget"
+private const val COORDINATE_DIGITS = 9
+private const val ALTITUDE_DIGITS = 3
 
 open class RTKSatelliteStatusWidget @JvmOverloads constructor(
     context: Context,
@@ -98,6 +101,13 @@ open class RTKSatelliteStatusWidget @JvmOverloads constructor(
     private val rtkOrientationPositioningSeparator: View = findViewById(R.id.rtk_orientation_positioning_separator)
     private val rtkLocationSeparator: View = findViewById(R.id.rtk_location_separator)
     private val rtkSatelliteCountSeparator: View = findViewById(R.id.rtk_satellite_count_separator)
+    private val aircraftLatitudeFormatter = FixedPointFormatter(1, COORDINATE_DIGITS, COORDINATE_DIGITS, false)
+    private val aircraftLongitudeFormatter = FixedPointFormatter(1, COORDINATE_DIGITS, COORDINATE_DIGITS, false)
+    private val aircraftAltitudeFormatter = FixedPointFormatter(1, ALTITUDE_DIGITS, ALTITUDE_DIGITS, false)
+    private val baseStationLatitudeFormatter = FixedPointFormatter(1, COORDINATE_DIGITS, COORDINATE_DIGITS, false)
+    private val baseStationLongitudeFormatter = FixedPointFormatter(1, COORDINATE_DIGITS, COORDINATE_DIGITS, false)
+    private val baseStationAltitudeFormatter = FixedPointFormatter(1, ALTITUDE_DIGITS, ALTITUDE_DIGITS, false)
+    private val courseAngleFormatter = FixedPointFormatter(1, 1, 1, false, Locale.US)
     private val connectionStateTextColorMap: MutableMap<RTKSatelliteStatusWidgetModel.RTKBaseStationState, Int> =
         mutableMapOf(
             RTKSatelliteStatusWidgetModel.RTKBaseStationState.CONNECTED_IN_USE to getColor(R.color.uxsdk_rtk_status_connected_in_use),
@@ -855,36 +865,18 @@ open class RTKSatelliteStatusWidget @JvmOverloads constructor(
         //更新飞行器位置信息
         val aircraftLocation = rtkLocationInfo?.rtkLocation?.mobileStationLocation
         aircraftLocation?.run {
-            aircraftLatitudeTextView.text = resources.getString(
-                R.string.uxsdk_rtk_panel_coordinate_value,
-                latitude
-            )
-            aircraftLongitudeTextView.text = resources.getString(
-                R.string.uxsdk_rtk_panel_coordinate_value,
-                longitude
-            )
-            aircraftAltitudeTextView.text = resources.getString(
-                R.string.uxsdk_rtk_panel_altitude_value,
-                altitude
-            )
+            aircraftLatitudeFormatter.setText(aircraftLatitudeTextView, latitude)
+            aircraftLongitudeFormatter.setText(aircraftLongitudeTextView, longitude)
+            aircraftAltitudeFormatter.setText(aircraftAltitudeTextView, altitude)
         }
 
 
         //更新基站位置信息
         val baseStationLocation = rtkLocationInfo?.rtkLocation?.baseStationLocation
         baseStationLocation?.run {
-            baseStationLatitudeTextView.text = resources.getString(
-                R.string.uxsdk_rtk_panel_coordinate_value,
-                latitude
-            )
-            baseStationLongitudeTextView.text = resources.getString(
-                R.string.uxsdk_rtk_panel_coordinate_value,
-                longitude
-            )
-            baseStationAltitudeTextView.text = resources.getString(
-                R.string.uxsdk_rtk_panel_altitude_value,
-                altitude
-            )
+            baseStationLatitudeFormatter.setText(baseStationLatitudeTextView, latitude)
+            baseStationLongitudeFormatter.setText(baseStationLongitudeTextView, longitude)
+            baseStationAltitudeFormatter.setText(baseStationAltitudeTextView, altitude)
         }
 
 
@@ -896,7 +888,7 @@ open class RTKSatelliteStatusWidget @JvmOverloads constructor(
             if (heading >= 360) {
                 heading -= 360.0
             }
-            courseAngleTextView.text = String.format(Locale.US, "%.1f", heading)
+            courseAngleFormatter.setText(courseAngleTextView, heading)
         }
 
         //更新定向信息
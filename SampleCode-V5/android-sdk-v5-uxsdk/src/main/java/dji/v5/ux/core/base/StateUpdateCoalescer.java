@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.base;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * Folds bursts of key emissions into a single state recompute.
+ * <p>
+ * Every emission marks the owner dirty; only the first emission of a batch schedules
+ * the recompute, either after a fixed window on the computation scheduler or on the
+ * next Choreographer frame. Counters record how many emissions each recompute absorbed.
+ * <p>
+ * Recomputes never overlap: window mode runs every flush on one {@link Scheduler.Worker}
+ * owned by the coalescer, which executes its tasks one at a time, and frame mode runs them
+ * on the main thread. An emission that arrives during a recompute schedules the next pass
+ * behind it on the same worker.
+ */
+public final class StateUpdateCoalescer {
+
+    /**
+     * Default batch window used by {@link WidgetModel.StateUpdateMode#COALESCED_WINDOW}
+     */
+    public static final long DEFAULT_WINDOW_MILLIS = 50;
+
+    private final Runnable recompute;
+    private final boolean frameAligned;
+    private final long windowMillis;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final AtomicInteger pendingEmissions = new AtomicInteger(0);
+    private final AtomicLong emissionCount = new AtomicLong(0);
+    private final AtomicLong recomputeCount = new AtomicLong(0);
+    private volatile int lastFoldedCount;
+    private volatile int maxFoldedCount;
+    private volatile boolean disposed;
+    @Nullable
+    private final Scheduler.Worker worker;
+    @Nullable
+    private final Handler mainHandler;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> flush();
+    private final Runnable postFrameCallback = () -> {
+        if (!disposed) {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    };
+
+    StateUpdateCoalescer(@NonNull Runnable recompute, boolean frameAligned, long windowMillis) {
+        this.recompute = recompute;
+        this.frameAligned = frameAligned;
+        this.windowMillis = windowMillis;
+        if (frameAligned) {
+            worker = null;
+            mainHandler = new Handler(Looper.getMainLooper());
+        } else {
+            worker = SchedulerProvider.computation().createWorker();
+            mainHandler = null;
+        }
+    }
+
+    /**
+     * Record one key emission and schedule a recompute if none is pending.
+     */
+    void onEmission() {
+        emissionCount.incrementAndGet();
+        pendingEmissions.incrementAndGet();
+        if (disposed || !dirty.compareAndSet(false, true)) {
+            return;
+        }
+        if (frameAligned) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                postFrameCallback.run();
+            } else {
+                mainHandler.post(postFrameCallback);
+            }
+        } else {
+            worker.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Cancel every pending recompute. Counters are kept so they can still be read after cleanup.
+     */
+    void dispose() {
+        disposed = true;
+        if (worker != null) {
+            worker.dispose();
+        }
+        if (mainHandler != null) {
+            mainHandler.removeCallbacks(postFrameCallback);
+            mainHandler.post(() -> Choreographer.getInstance().removeFrameCallback(frameCallback));
+        }
+        dirty.set(false);
+        pendingEmissions.set(0);
+    }
+
+    private void flush() {
+        if (disposed) {
+            return;
+        }
+        // Clear the flag before recomputing so emissions arriving during the recompute schedule another pass.
+        dirty.set(false);
+        int folded = pendingEmissions.getAndSet(0);
+        if (folded == 0) {
+            return;
+        }
+        lastFoldedCount = folded;
+        if (folded > maxFoldedCount) {
+            maxFoldedCount = folded;
+        }
+        recomputeCount.incrementAndGet();
+        recompute.run();
+    }
+
+    /**
+     * @return Total number of key emissions seen since creation
+     */
+    public long getEmissionCount() {
+        return emissionCount.get();
+    }
+
+    /**
+     * @return Total number of state recomputes actually run
+     */
+    public long getRecomputeCount() {
+        return recomputeCount.get();
+    }
+
+    /**
+     * @return Number of emissions folded into the most recent recompute
+     */
+    public int getLastFoldedCount() {
+        return lastFoldedCount;
+    }
+
+    /**
+     * @return Largest number of emissions folded into a single recompute
+     */
+    public int getMaxFoldedCount() {
+        return maxFoldedCount;
+    }
+
+    /**
+     * @return Average number of emissions per recompute, or 0 if nothing was recomputed yet
+     */
+    public float getAverageFoldedCount() {
+        long recomputes = recomputeCount.get();
+        return recomputes == 0 ? 0f : (float) emissionCount.get() / recomputes;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "StateUpdateCoalescer{" +
+                "emissions=" + emissionCount.get() +
+                ", recomputes=" + recomputeCount.get() +
+                ", lastFolded=" + lastFoldedCount +
+                ", maxFolded=" + maxFoldedCount +
+                '}';
+    }
+}
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import dji.sdk.keyvalue.key.DJIKey;
 import dji.sdk.keyvalue.key.KeyTools;
@@ -63,6 +64,9 @@ public abstract class WidgetModel {
     private CompositeDisposable compositeDisposable;
     private final List<BaseModule> moduleList = new ArrayList<>();
     private StatesChangeListener statesChangedListener;
+    private StateUpdateMode stateUpdateMode = StateUpdateMode.IMMEDIATE;
+    private long stateUpdateWindowMillis = StateUpdateCoalescer.DEFAULT_WINDOW_MILLIS;
+    private StateUpdateCoalescer stateUpdateCoalescer;
     //endregion
 
     //region Default Constructor
@@ -86,6 +90,48 @@ public abstract class WidgetModel {
         }
     }
 
+    /**
+     * Choose how {@link #updateStates()} is triggered by key emissions. The default is
+     * {@link StateUpdateMode#IMMEDIATE}. Models that bind many high rate keys can opt in to
+     * one of the coalesced modes so a burst of emissions results in a single recompute.
+     * Must be called during initialization.
+     *
+     * @param mode The state update mode
+     */
+    protected void setStateUpdateMode(@NonNull StateUpdateMode mode) {
+        setStateUpdateMode(mode, StateUpdateCoalescer.DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * Choose how {@link #updateStates()} is triggered by key emissions.
+     * Must be called during initialization.
+     *
+     * @param mode         The state update mode
+     * @param windowMillis Batch window used by {@link StateUpdateMode#COALESCED_WINDOW}
+     */
+    protected void setStateUpdateMode(@NonNull StateUpdateMode mode, long windowMillis) {
+        if (isStarted()) {
+            throw new IllegalStateException("WidgetModel is already setup. State update mode should" +
+                    " be set during initialization.");
+        }
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis must not be negative");
+        }
+        stateUpdateMode = mode;
+        stateUpdateWindowMillis = windowMillis;
+    }
+
+    /**
+     * Get the coalescing counters of this model.
+     *
+     * @return The coalescer of the current setup, or null if the model uses
+     * {@link StateUpdateMode#IMMEDIATE} or has never been set up
+     */
+    @Nullable
+    public StateUpdateCoalescer getStateUpdateCoalescer() {
+        return stateUpdateCoalescer;
+    }
+
     /**
      * Set up the widget model by initializing all the required resources
      */
@@ -95,6 +141,8 @@ public abstract class WidgetModel {
         }
         keyDisposables = new CompositeDisposable();
         compositeDisposable = new CompositeDisposable();
+        stateUpdateCoalescer = stateUpdateMode == StateUpdateMode.IMMEDIATE ? null
+                : new StateUpdateCoalescer(this::updateStates, stateUpdateMode == StateUpdateMode.COALESCED_FRAME, stateUpdateWindowMillis);
         initializeConnection();
         inSetup();
         for (BaseModule module : moduleList) {
@@ -116,6 +164,10 @@ public abstract class WidgetModel {
             compositeDisposable = null;
         }
 
+        if (stateUpdateCoalescer != null) {
+            stateUpdateCoalescer.dispose();
+        }
+
         djiSdkModel.removeListener(this);
 
         for (BaseModule module : moduleList) {
@@ -156,6 +208,15 @@ public abstract class WidgetModel {
         }
     }
 
+    private void onKeyEmission() {
+        StateUpdateCoalescer coalescer = stateUpdateCoalescer;
+        if (coalescer == null) {
+            updateStates();
+        } else {
+            coalescer.onEmission();
+        }
+    }
+
     private boolean isStarted() {
         return keyDisposables != null;
     }
@@ -251,7 +312,7 @@ public abstract class WidgetModel {
         keyDisposables.add(djiSdkModel.addListener(djiKey, this)
                 .doOnNext(sideEffectConsumer)
                 .doOnNext(bindConsumer)
-                .subscribe(o -> updateStates(), logError(djiKey)));
+                .subscribe(o -> onKeyEmission(), logError(djiKey)));
     }
 
     private <T> void registerKey(@NonNull UXKey uxKey,
@@ -266,7 +327,7 @@ public abstract class WidgetModel {
                         .map(broadcastValues -> broadcastValues.getCurrentValue().getData())
                         .doOnNext(o -> sideEffectConsumer.accept((T) o))
                         .doOnNext(o -> bindConsumer.accept((T) o))
-                        .subscribe(o -> updateStates(), logError(uxKey)));
+                        .subscribe(o -> onKeyEmission(), logError(uxKey)));
     }
 
     private <T> Consumer<Throwable> logError(@NonNull DJIKey<T> djiKey) {
@@ -289,4 +350,22 @@ public abstract class WidgetModel {
     public interface StatesChangeListener {
         void onStatesChanged();
     }
+
+    /**
+     * Defines when {@link #updateStates()} runs after a key emission
+     */
+    public enum StateUpdateMode {
+        /**
+         * Recompute states after every single key emission
+         */
+        IMMEDIATE,
+        /**
+         * Recompute states once per batch window on the computation scheduler
+         */
+        COALESCED_WINDOW,
+        /**
+         * Recompute states once per display frame on the main thread
+         */
+        COALESCED_FRAME
+    }
 }
@@ -30,6 +30,7 @@ import android.content.res.TypedArray
 import android.graphics.PorterDuff
 import android.graphics.drawable.Drawable
 import android.text.TextPaint
+import android.text.TextUtils
 import android.util.AttributeSet
 import android.view.View
 import android.widget.ImageView
@@ -41,6 +42,7 @@ import androidx.core.content.res.use
 import dji.v5.ux.R
 import dji.v5.ux.core.base.widget.BaseTelemetryWidget.WidgetType
 import dji.v5.ux.core.extension.*
+import dji.v5.ux.core.util.FixedPointFormatter
 import dji.v5.ux.core.util.UnitConversionUtil
 import dji.v5.ux.core.util.ViewIDGenerator
 import java.text.DecimalFormat
@@ -71,6 +73,10 @@ abstract class BaseTelemetryWidget<T> @JvmOverloads constructor(
     private val imageView: ImageView = ImageView(context)
     protected abstract val metricDecimalFormat: DecimalFormat
     protected abstract val imperialDecimalFormat: DecimalFormat
+    private val metricValueFormatter: FixedPointFormatter? by lazy { FixedPointFormatter.fromDecimalFormat(metricDecimalFormat) }
+    private val imperialValueFormatter: FixedPointFormatter? by lazy { FixedPointFormatter.fromDecimalFormat(imperialDecimalFormat) }
+    private var valueTextViewMinWidthText: String? = null
+    private var valueTextViewMinWidthTextSize = 0f
 
     //region color customizations
     /**
@@ -237,7 +243,9 @@ abstract class BaseTelemetryWidget<T> @JvmOverloads constructor(
     var valueString: String?
         @Nullable get() = valueTextView.text.toString()
         set(value) {
-            valueTextView.text = value
+            if (!TextUtils.equals(valueTextView.text, value)) {
+                valueTextView.text = value
+            }
         }
 
     /**
@@ -307,7 +315,9 @@ abstract class BaseTelemetryWidget<T> @JvmOverloads constructor(
     var unitString: String?
         @Nullable get() = unitTextView.text.toString()
         set(value) {
-            unitTextView.text = value
+            if (!TextUtils.equals(unitTextView.text, value)) {
+                unitTextView.text = value
+            }
         }
 
     /**
@@ -532,6 +542,11 @@ abstract class BaseTelemetryWidget<T> @JvmOverloads constructor(
     }
 
     protected fun setValueTextViewMinWidthByText(maxText: String) {
+        if (maxText == valueTextViewMinWidthText && valueTextView.textSize == valueTextViewMinWidthTextSize) {
+            return
+        }
+        valueTextViewMinWidthText = maxText
+        valueTextViewMinWidthTextSize = valueTextView.textSize
         val textPaint = TextPaint()
         textPaint.textSize = valueTextView.textSize
         valueTextView.minWidth = textPaint.measureText(maxText).toInt()
@@ -545,6 +560,26 @@ abstract class BaseTelemetryWidget<T> @JvmOverloads constructor(
         }
     }
 
+    /**
+     * Show a value formatted with the decimal format of the unit type. Simple formats are
+     * written into a reused buffer and the view is only updated when the text changes.
+     *
+     * @param value The value, already converted to the unit type
+     * @param unitType The unit type used to pick the decimal format
+     */
+    protected fun setValue(value: Double, unitType: UnitConversionUtil.UnitType) {
+        val formatter = if (unitType == UnitConversionUtil.UnitType.IMPERIAL) {
+            imperialValueFormatter
+        } else {
+            metricValueFormatter
+        }
+        if (formatter != null) {
+            formatter.setText(valueTextView, value)
+        } else {
+            valueString = getDecimalFormat(unitType).format(value)
+        }
+    }
+
     /**
      * Set the icon
      *
@@ -32,11 +32,13 @@ import dji.v5.ux.core.ui.CenterPointView
 import dji.v5.ux.core.ui.GridLineView.GridLineType
 import dji.v5.ux.core.util.SettingDefinitions
 import dji.v5.ux.core.util.UnitConversionUtil
+import dji.v5.ux.core.util.UxPreferenceStore
 
 
 /**
- * Default implementation of the GlobalPreferencesInterface using SharedPreferences.
- * These settings will persist across app restarts.
+ * Default implementation of the GlobalPreferencesInterface using a [UxPreferenceStore].
+ * These settings will persist across app restarts. Reads are served from memory and
+ * consecutive changes are written to disk together.
  */
 class DefaultGlobalPreferences(context: Context) : GlobalPreferencesInterface {
 
@@ -113,7 +115,8 @@ class DefaultGlobalPreferences(context: Context) : GlobalPreferencesInterface {
         private const val PREF_CONTROL_MODE: String = "controlMode"
         private const val PREF_UNIT_MODE_DIALOG_NEVER_SHOWN: String = "unitMode"
         private fun getSharedPreferences(context: Context): SharedPreferences =
-                context.getSharedPreferences(context.packageName, Context.MODE_PRIVATE)
+                UxPreferenceStore.get(context, context.packageName,
+                        context.getSharedPreferences(context.packageName, Context.MODE_PRIVATE))
 
     }
 }
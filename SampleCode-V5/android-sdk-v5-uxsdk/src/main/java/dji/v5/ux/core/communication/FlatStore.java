@@ -24,6 +24,7 @@
 package dji.v5.ux.core.communication;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -52,6 +53,21 @@ public class FlatStore {
         store.put(keyPath, value);
     }
 
+    /**
+     * Atomically replace the value for the given key if it is still the expected instance
+     *
+     * @param keyPath  UXKey path to be used for storing this value
+     * @param expected ModelValue that was read for the key, or null if the key had no value
+     * @param value    ModelValue to be stored for key
+     * @return true if the value was stored, false if another value was stored in between
+     */
+    public boolean compareAndSetModelValue(@NonNull String keyPath, @Nullable ModelValue expected, @NonNull ModelValue value) {
+        if (expected == null) {
+            return store.putIfAbsent(keyPath, value) == null;
+        }
+        return store.replace(keyPath, expected, value);
+    }
+
     /**
      * Get the current value for the given key
      *
@@ -24,8 +24,6 @@
 package dji.v5.ux.core.communication;
 
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -33,30 +31,31 @@ import dji.v5.ux.core.base.SchedulerProvider;
 import dji.v5.ux.core.base.UXSDKError;
 import dji.v5.ux.core.base.UXSDKErrorDescription;
 import io.reactivex.rxjava3.core.Completable;
-import io.reactivex.rxjava3.core.CompletableEmitter;
-import io.reactivex.rxjava3.core.CompletableOnSubscribe;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.processors.FlowableProcessor;
 import io.reactivex.rxjava3.processors.PublishProcessor;
 
 /**
  * `ObservableInMemoryKeyedStore` provides access to the keyed interface using `UXKeys` and
  * corresponding subclass objects. It implements the ObservableKeyedStore interface.
+ * <p>
+ * The store does not take any global lock. Values live in the {@link FlatStore} and are
+ * updated with compare-and-set, and every key owns its own serialized processor, so readers
+ * and writers of different keys never contend with each other.
  */
 public class ObservableInMemoryKeyedStore implements ObservableKeyedStore {
     private static final int INITIAL_CAPACITY = 100;
-    private final ConcurrentHashMap<String, PublishProcessor<BroadcastValues>> keyStringProcessorMap;
+    private final ConcurrentHashMap<String, FlowableProcessor<BroadcastValues>> keyStringProcessorMap;
     private final FlatStore store;
 
-    private final Lock lock = new ReentrantLock();
-
     private ObservableInMemoryKeyedStore() {
         keyStringProcessorMap = new ConcurrentHashMap<>(INITIAL_CAPACITY);
         store = FlatStore.getInstance();
-        //Initialize any internal default UXKey classes here
-        UXKeys.addNewKeyClass(GlobalPreferenceKeys.class);
-        UXKeys.addNewKeyClass(CameraKeys.class);
-        UXKeys.addNewKeyClass(MessagingKeys.class);
+        //Initialize any internal default UXKey classes here through their generated key tables
+        GlobalPreferenceKeys_UXKeyTable.register();
+        CameraKeys_UXKeyTable.register();
+        MessagingKeys_UXKeyTable.register();
     }
 
     public static ObservableInMemoryKeyedStore getInstance() {
@@ -73,17 +72,7 @@ public class ObservableInMemoryKeyedStore implements ObservableKeyedStore {
     @Override
     @NonNull
     public Flowable<BroadcastValues> addObserver(@NonNull UXKey key) {
-        lock.lock();
-        try {
-            PublishProcessor<BroadcastValues> processor = keyStringProcessorMap.get(key.getKeyPath());
-            if (processor == null) {
-                processor = PublishProcessor.create();
-            }
-            keyStringProcessorMap.put(key.getKeyPath(), processor);
-            return processor.observeOn(SchedulerProvider.computation()).onBackpressureLatest();
-        } finally {
-            lock.unlock();
-        }
+        return getOrCreateProcessor(key.getKeyPath()).observeOn(SchedulerProvider.computation()).onBackpressureLatest();
     }
 
     /**
@@ -107,14 +96,9 @@ public class ObservableInMemoryKeyedStore implements ObservableKeyedStore {
      */
     @Override
     public void removeAllObserversForKey(@NonNull UXKey key) {
-        lock.lock();
-        try {
-            PublishProcessor<BroadcastValues> removedProcessor = keyStringProcessorMap.remove(key.getKeyPath());
-            if (removedProcessor != null){
-                removedProcessor.onComplete();
-            }
-        } finally {
-            lock.unlock();
+        FlowableProcessor<BroadcastValues> removedProcessor = keyStringProcessorMap.remove(key.getKeyPath());
+        if (removedProcessor != null) {
+            removedProcessor.onComplete();
         }
     }
 
@@ -124,14 +108,11 @@ public class ObservableInMemoryKeyedStore implements ObservableKeyedStore {
      */
     @Override
     public void removeAllObservers() {
-        lock.lock();
-        try {
-            for (PublishProcessor<BroadcastValues> processorToRemove : keyStringProcessorMap.values()) {
+        for (String keyPath : keyStringProcessorMap.keySet()) {
+            FlowableProcessor<BroadcastValues> processorToRemove = keyStringProcessorMap.remove(keyPath);
+            if (processorToRemove != null) {
                 processorToRemove.onComplete();
             }
-            keyStringProcessorMap.clear();
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -145,18 +126,13 @@ public class ObservableInMemoryKeyedStore implements ObservableKeyedStore {
     @Override
     @Nullable
     public Object getValue(@NonNull UXKey key) {
-        lock.lock();
-        try {
-            //This function will return the value or return null if it doesn't
-            //have a reference to the key - it should not have any other errors.
-            ModelValue value = store.getModelValue(key.getKeyPath());
-            if (value != null) {
-                return value.getData();
-            } else {
-                return null;
-            }
-        } finally {
-            lock.unlock();
+        //This function will return the value or return null if it doesn't
+        //have a reference to the key - it should not have any other errors.
+        ModelValue value = store.getModelValue(key.getKeyPath());
+        if (value != null) {
+            return value.getData();
+        } else {
+            return null;
         }
     }
 
@@ -170,31 +146,48 @@ public class ObservableInMemoryKeyedStore implements ObservableKeyedStore {
     @Override
     @NonNull
     public Completable setValue(@NonNull UXKey key, @NonNull Object value) {
-        lock.lock();
-        try {
-            return Completable.create(emitter -> {
-                if (value.getClass().equals(key.getValueType())) {
-                    ModelValue previousValue = store.getModelValue(key.getKeyPath());
-                    if (key.getUpdateType() == UXKeys.UpdateType.ON_EVENT ||
-                            (key.getUpdateType() == UXKeys.UpdateType.ON_CHANGE &&
-                                    (previousValue == null || !previousValue.getData().equals(value)))) {
-                        ModelValue currentValue = new ModelValue(value);
-                        store.setModelValue(currentValue, key.getKeyPath());
-                        if (keyStringProcessorMap.containsKey(key.getKeyPath())) {
-                            PublishProcessor<BroadcastValues> processor = keyStringProcessorMap.get(key.getKeyPath());
-                            if (processor != null){
-                                processor.onNext(new BroadcastValues(previousValue, currentValue));
-                            }
-                        }
-                    }
-                    emitter.onComplete();
-                } else {
-                    emitter.onError(new UXSDKError(UXSDKErrorDescription.FACTORY.build(UXSDKErrorDescription.VALUE_TYPE_MISMATCH)));
-                }
-            }).subscribeOn(SchedulerProvider.computation());
-        } finally {
-            lock.unlock();
+        return Completable.create(emitter -> {
+            if (value.getClass().equals(key.getValueType())) {
+                updateValue(key, value);
+                emitter.onComplete();
+            } else {
+                emitter.onError(new UXSDKError(UXSDKErrorDescription.FACTORY.build(UXSDKErrorDescription.VALUE_TYPE_MISMATCH)));
+            }
+        }).subscribeOn(SchedulerProvider.computation());
+    }
+
+    private void updateValue(@NonNull UXKey key, @NonNull Object value) {
+        String keyPath = key.getKeyPath();
+        ModelValue currentValue = new ModelValue(value);
+        ModelValue previousValue;
+        do {
+            previousValue = store.getModelValue(keyPath);
+            if (key.getUpdateType() == UXKeys.UpdateType.ON_CHANGE
+                    && previousValue != null && previousValue.getData().equals(value)) {
+                return;
+            }
+            // Retry if another writer replaced the value since it was read, so the de-duplication
+            // above and the previous value broadcast below always refer to the value being replaced.
+        } while (!store.compareAndSetModelValue(keyPath, previousValue, currentValue));
+
+        FlowableProcessor<BroadcastValues> processor = keyStringProcessorMap.get(keyPath);
+        if (processor != null) {
+            processor.onNext(new BroadcastValues(previousValue, currentValue));
+        }
+    }
+
+    @NonNull
+    private FlowableProcessor<BroadcastValues> getOrCreateProcessor(@NonNull String keyPath) {
+        FlowableProcessor<BroadcastValues> processor = keyStringProcessorMap.get(keyPath);
+        if (processor == null) {
+            // Equivalent to computeIfAbsent, which is not available below API 24.
+            FlowableProcessor<BroadcastValues> newProcessor = PublishProcessor.<BroadcastValues>create().toSerialized();
+            processor = keyStringProcessorMap.putIfAbsent(keyPath, newProcessor);
+            if (processor == null) {
+                processor = newProcessor;
+            }
         }
+        return processor;
     }
 
     private static class SingletonHolder {
@@ -29,8 +29,10 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import androidx.annotation.CheckResult;
 import androidx.annotation.NonNull;
@@ -40,13 +42,23 @@ import dji.v5.utils.common.LogUtils;
 /**
  * This class is used to create valid UX keys from given String UXParamKeys and indices.
  * This class can be extended by any subclasses to define custom UX keys.
+ * <p>
+ * Key classes compiled with the uxsdk-compiler annotation processor get a generated
+ * {@code <KeyClass>_UXKeyTable} whose {@code register()} method registers their keys through
+ * {@link #registerKey} without reflection. Other classes are registered with
+ * {@link #addNewKeyClass}, which reflects over their {@link UXParamKey} fields.
+ * <p>
+ * Created keys are interned per param key and index, so {@link #create(String, int)} returns
+ * the same instance on every call and does not allocate once the key has been created.
  */
 public class UXKeys {
     private static final String TAG = "UXKeys";
     private final static int DEFAULT_INDEX = 0;
-    private static final Map<String, UXKey> keysPathMap = new ConcurrentHashMap<>();
-    private static final Map<String, Class<?>> keyValueMap = new ConcurrentHashMap<>();
-    private static final Map<String, UpdateType> keyUpdateTypeMap = new ConcurrentHashMap<>();
+    /**
+     * Indices below this value are cached in a fixed array, other ones in a sorted array.
+     */
+    private static final int DIRECT_INDEX_COUNT = 16;
+    private static final Map<String, KeyEntry> keyEntryMap = new ConcurrentHashMap<>();
 
     protected UXKeys() {
         //Do Nothing
@@ -62,8 +74,7 @@ public class UXKeys {
                     String paramKey = (String) field.get(null);
                     UXParamKey paramKeyAnnotation = field.getAnnotation(UXParamKey.class);
                     if (paramKey != null && paramKeyAnnotation != null) {
-                        addKeyValueTypeToMap(paramKey, paramKeyAnnotation.type());
-                        addKeyUpdateTypeToMap(paramKey, paramKeyAnnotation.updateType());
+                        registerKey(paramKey, paramKeyAnnotation.type(), paramKeyAnnotation.updateType());
                     }
                 } catch (Exception e) {
                     LogUtils.e(TAG, e.getMessage());
@@ -74,6 +85,9 @@ public class UXKeys {
 
     /**
      * Use this function to initialize any classes containing UXParamKeys
+     * <p>
+     * The class is scanned with reflection. Classes with a generated key table can call
+     * its {@code register()} method instead.
      *
      * @param componentClass Class which extends the `UXKeys` class and contains UXParamKeys
      */
@@ -81,6 +95,21 @@ public class UXKeys {
         initializeKeyValueTypes(componentClass);
     }
 
+    /**
+     * Registers a single key. Called by the generated key tables.
+     *
+     * @param key        String param key
+     * @param valueType  Non-primitive class value-type of the key (eg. Integer, Boolean etc)
+     * @param updateType The update type of the key
+     */
+    public static void registerKey(@NonNull String key, @NonNull Class<?> valueType, @NonNull UpdateType updateType) {
+        KeyEntry entry = keyEntryMap.get(key);
+        //Keep the existing entry, and the keys it already created, when nothing changed
+        if (entry == null || entry.valueType != valueType || entry.updateType != updateType) {
+            keyEntryMap.put(key, new KeyEntry(key, valueType, updateType));
+        }
+    }
+
     /**
      * This functions allows creation of a UXKey using a param key (String)
      *
@@ -100,53 +129,104 @@ public class UXKeys {
      */
     @CheckResult
     public static UXKey create(@NonNull String key, int index) {
-        String keyPath = producePathFromElements(key, index);
-        UXKey uxKey = getCache(keyPath);
-        if (uxKey == null) {
-            Class<?> valueType = keyValueMap.get(key);
-            UpdateType updateType = keyUpdateTypeMap.get(key);
-            if (valueType != null && updateType != null) {
-                uxKey = new UXKey(key, valueType, keyPath, updateType);
-                putCache(keyPath, uxKey);
-            }
+        KeyEntry entry = keyEntryMap.get(key);
+        if (entry == null) {
+            return null;
         }
-        return uxKey;
+        return entry.get(index);
     }
 
-    /**
-     * Use this function to initialize any custom keys created
-     *
-     * @param key       String key with UXParamKey annotation to be initialized
-     * @param valueType Non-primitive class value-type of the key to be initialized (eg. Integer, Boolean etc)
-     */
-    private static void addKeyValueTypeToMap(@NonNull String key, @NonNull Class<?> valueType) {
-        keyValueMap.put(key, valueType);
+    private static String producePathFromElements(@NonNull String param, int index) {
+        return param + "/" + index;
     }
 
-    private static void addKeyUpdateTypeToMap(@NonNull String key, @NonNull UpdateType updateType) {
-        keyUpdateTypeMap.put(key, updateType);
+    private static boolean isStatic(int modifiers) {
+        return ((modifiers & Modifier.STATIC) != 0);
     }
 
-    private static String producePathFromElements(@NonNull String param, int index) {
-        return param + "/" + index;
-    }
+    /**
+     * Registered metadata of one param key and the keys created for it.
+     */
+    private static final class KeyEntry {
+        private final String key;
+        private final Class<?> valueType;
+        private final UpdateType updateType;
+        private final AtomicReferenceArray<UXKey> directKeys = new AtomicReferenceArray<>(DIRECT_INDEX_COUNT);
+        /**
+         * Keys of the other indices. Replaced as a whole under the entry's lock, so lookups
+         * read a consistent snapshot without locking or boxing the index.
+         */
+        private volatile IndexedKeys indexedKeys = IndexedKeys.EMPTY;
 
-    private static UXKey getCache(String keyStr) {
-        if (keyStr != null) {
-            return keysPathMap.get(keyStr);
-        } else {
-            return null;
+        KeyEntry(String key, Class<?> valueType, UpdateType updateType) {
+            this.key = key;
+            this.valueType = valueType;
+            this.updateType = updateType;
+        }
+
+        UXKey get(int index) {
+            if (index >= 0 && index < DIRECT_INDEX_COUNT) {
+                UXKey uxKey = directKeys.get(index);
+                if (uxKey == null) {
+                    uxKey = newKey(index);
+                    if (!directKeys.compareAndSet(index, null, uxKey)) {
+                        uxKey = directKeys.get(index);
+                    }
+                }
+                return uxKey;
+            }
+            UXKey uxKey = indexedKeys.get(index);
+            if (uxKey == null) {
+                synchronized (this) {
+                    uxKey = indexedKeys.get(index);
+                    if (uxKey == null) {
+                        uxKey = newKey(index);
+                        indexedKeys = indexedKeys.with(index, uxKey);
+                    }
+                }
+            }
+            return uxKey;
         }
-    }
 
-    private static void putCache(String keyStr, UXKey key) {
-        if (keyStr != null && key != null) {
-            keysPathMap.put(keyStr, key);
+        private UXKey newKey(int index) {
+            return new UXKey(key, valueType, producePathFromElements(key, index), updateType);
         }
     }
 
-    private static boolean isStatic(int modifiers) {
-        return ((modifiers & Modifier.STATIC) != 0);
+    /**
+     * Immutable list of keys sorted by index.
+     */
+    private static final class IndexedKeys {
+        static final IndexedKeys EMPTY = new IndexedKeys(new int[0], new UXKey[0]);
+
+        private final int[] indices;
+        private final UXKey[] keys;
+
+        private IndexedKeys(int[] indices, UXKey[] keys) {
+            this.indices = indices;
+            this.keys = keys;
+        }
+
+        UXKey get(int index) {
+            int position = Arrays.binarySearch(indices, index);
+            return position >= 0 ? keys[position] : null;
+        }
+
+        /**
+         * @return a copy with the key inserted, the index must not be present yet
+         */
+        IndexedKeys with(int index, UXKey key) {
+            int position = -Arrays.binarySearch(indices, index) - 1;
+            int[] newIndices = new int[indices.length + 1];
+            UXKey[] newKeys = new UXKey[keys.length + 1];
+            System.arraycopy(indices, 0, newIndices, 0, position);
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            newIndices[position] = index;
+            newKeys[position] = key;
+            System.arraycopy(indices, position, newIndices, position + 1, indices.length - position);
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            return new IndexedKeys(newIndices, newKeys);
+        }
     }
 
     public enum UpdateType {
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.geodesy;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import dji.sdk.keyvalue.key.DJIKey;
+import dji.sdk.keyvalue.key.FlightControllerKey;
+import dji.sdk.keyvalue.key.KeyTools;
+import dji.sdk.keyvalue.key.RemoteControllerKey;
+import dji.sdk.keyvalue.value.common.LocationCoordinate2D;
+import dji.sdk.keyvalue.value.common.LocationCoordinate3D;
+import dji.sdk.keyvalue.value.remotecontroller.RcGPSInfo;
+import dji.v5.utils.common.LocationUtil;
+import dji.v5.utils.common.LogUtils;
+import dji.v5.ux.core.base.DJISDKModel;
+import dji.v5.ux.core.geodesy.GeodesySnapshot.RangeBearing;
+import dji.v5.ux.core.util.DataProcessor;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+
+/**
+ * Listens to the aircraft, home point and remote controller locations once for all widgets
+ * and publishes the ranges and bearings between them as a {@link GeodesySnapshot}.
+ * <p>
+ * Every location update is turned into exactly one snapshot, so widgets that show the
+ * distance to home, the distance to the remote controller or draw the home direction do not
+ * subscribe to the same keys and repeat the same trigonometry. The keys are only observed
+ * while {@link #getSnapshot()} has subscribers.
+ */
+public final class GeodesyService {
+
+    private static final String TAG = "GeodesyService";
+
+    private final DJISDKModel djiSdkModel;
+    private final DJIKey<LocationCoordinate3D> aircraftLocationKey = KeyTools.createKey(FlightControllerKey.KeyAircraftLocation3D);
+    private final DJIKey<LocationCoordinate2D> homeLocationKey = KeyTools.createKey(FlightControllerKey.KeyHomeLocation);
+    private final DJIKey<RcGPSInfo> rcGPSInfoKey = KeyTools.createKey(RemoteControllerKey.KeyRcGPSInfo);
+    private final DataProcessor<GeodesySnapshot> snapshotProcessor = DataProcessor.createMulticast(GeodesySnapshot.EMPTY);
+    private final double[] results = new double[2];
+
+    private CompositeDisposable keyDisposables;
+    private int subscriberCount;
+    private LocationCoordinate3D aircraftLocation;
+    private LocationCoordinate2D homeLocation;
+    private RcGPSInfo rcGPSInfo;
+
+    private GeodesyService(@NonNull DJISDKModel djiSdkModel) {
+        this.djiSdkModel = djiSdkModel;
+    }
+
+    public static GeodesyService getInstance() {
+        return SingletonHolder.instance;
+    }
+
+    /**
+     * Get the stream of snapshots, starting with the latest one. Snapshots are delivered on
+     * the computation scheduler, use {@code observeOn} to handle them on the UI thread.
+     *
+     * @return Flowable of the snapshot for every location update
+     */
+    @NonNull
+    public Flowable<GeodesySnapshot> getSnapshot() {
+        return snapshotProcessor.toFlowable()
+                .doOnSubscribe(subscription -> onSubscriberAdded())
+                .doFinally(this::onSubscriberRemoved);
+    }
+
+    /**
+     * Get the latest snapshot. If nothing subscribes to {@link #getSnapshot()}, the snapshot
+     * is computed from the cached key values.
+     *
+     * @return The latest snapshot
+     */
+    @NonNull
+    public synchronized GeodesySnapshot getCurrentSnapshot() {
+        if (subscriberCount > 0) {
+            return snapshotProcessor.getValue();
+        }
+        return createSnapshot(djiSdkModel.getCacheValue(aircraftLocationKey),
+                djiSdkModel.getCacheValue(homeLocationKey),
+                djiSdkModel.getCacheValue(rcGPSInfoKey));
+    }
+
+    private synchronized void onSubscriberAdded() {
+        subscriberCount++;
+        if (subscriberCount > 1) {
+            return;
+        }
+        aircraftLocation = djiSdkModel.getCacheValue(aircraftLocationKey);
+        homeLocation = djiSdkModel.getCacheValue(homeLocationKey);
+        rcGPSInfo = djiSdkModel.getCacheValue(rcGPSInfoKey);
+        publish();
+
+        keyDisposables = new CompositeDisposable();
+        keyDisposables.add(djiSdkModel.addListener(aircraftLocationKey, this)
+                .subscribe(this::onAircraftLocation, throwable -> logError(aircraftLocationKey, throwable)));
+        keyDisposables.add(djiSdkModel.addListener(homeLocationKey, this)
+                .subscribe(this::onHomeLocation, throwable -> logError(homeLocationKey, throwable)));
+        keyDisposables.add(djiSdkModel.addListener(rcGPSInfoKey, this)
+                .subscribe(this::onRcGPSInfo, throwable -> logError(rcGPSInfoKey, throwable)));
+    }
+
+    private synchronized void onSubscriberRemoved() {
+        subscriberCount--;
+        if (subscriberCount > 0) {
+            return;
+        }
+        if (keyDisposables != null) {
+            keyDisposables.dispose();
+            keyDisposables = null;
+        }
+        djiSdkModel.removeListener(this);
+        aircraftLocation = null;
+        homeLocation = null;
+        rcGPSInfo = null;
+        snapshotProcessor.onNext(GeodesySnapshot.EMPTY);
+    }
+
+    private synchronized void onAircraftLocation(LocationCoordinate3D location) {
+        aircraftLocation = location;
+        publish();
+    }
+
+    private synchronized void onHomeLocation(LocationCoordinate2D location) {
+        homeLocation = location;
+        publish();
+    }
+
+    private synchronized void onRcGPSInfo(RcGPSInfo info) {
+        rcGPSInfo = info;
+        publish();
+    }
+
+    private void publish() {
+        snapshotProcessor.onNext(createSnapshot(aircraftLocation, homeLocation, rcGPSInfo));
+    }
+
+    @NonNull
+    private GeodesySnapshot createSnapshot(@Nullable LocationCoordinate3D aircraft,
+                                           @Nullable LocationCoordinate2D home,
+                                           @Nullable RcGPSInfo rc) {
+        boolean aircraftValid = aircraft != null && isAvailable(aircraft.getLatitude(), aircraft.getLongitude());
+        boolean homeValid = home != null && isAvailable(home.getLatitude(), home.getLongitude());
+        LocationCoordinate2D rcLocation = rc != null && Boolean.TRUE.equals(rc.getIsValid()) ? rc.getLocation() : null;
+        boolean rcValid = rcLocation != null && isAvailable(rcLocation.getLatitude(), rcLocation.getLongitude());
+        if (!aircraftValid && !homeValid && !rcValid) {
+            return GeodesySnapshot.EMPTY;
+        }
+
+        double aircraftLatitude = aircraftValid ? aircraft.getLatitude() : Double.NaN;
+        double aircraftLongitude = aircraftValid ? aircraft.getLongitude() : Double.NaN;
+        double aircraftAltitude = aircraftValid && aircraft.getAltitude() != null ? aircraft.getAltitude() : Double.NaN;
+        double homeLatitude = homeValid ? home.getLatitude() : Double.NaN;
+        double homeLongitude = homeValid ? home.getLongitude() : Double.NaN;
+        double rcLatitude = rcValid ? rcLocation.getLatitude() : Double.NaN;
+        double rcLongitude = rcValid ? rcLocation.getLongitude() : Double.NaN;
+
+        RangeBearing aircraftToHome = aircraftValid && homeValid
+                ? rangeBearing(aircraftLatitude, aircraftLongitude, homeLatitude, homeLongitude) : RangeBearing.INVALID;
+        RangeBearing aircraftToRC = aircraftValid && rcValid
+                ? rangeBearing(aircraftLatitude, aircraftLongitude, rcLatitude, rcLongitude) : RangeBearing.INVALID;
+        RangeBearing rcToHome = rcValid && homeValid
+                ? rangeBearing(rcLatitude, rcLongitude, homeLatitude, homeLongitude) : RangeBearing.INVALID;
+
+        return new GeodesySnapshot(aircraftLatitude, aircraftLongitude, aircraftAltitude,
+                homeLatitude, homeLongitude, rcLatitude, rcLongitude,
+                aircraftToHome, aircraftToRC, rcToHome);
+    }
+
+    @NonNull
+    private RangeBearing rangeBearing(double latitude1, double longitude1, double latitude2, double longitude2) {
+        GeodesyUtil.computeRangeAndBearing(latitude1, longitude1, latitude2, longitude2, results);
+        return new RangeBearing(results[0], results[1]);
+    }
+
+    private static boolean isAvailable(double latitude, double longitude) {
+        return LocationUtil.checkLatitude(latitude) && LocationUtil.checkLongitude(longitude);
+    }
+
+    private void logError(@NonNull DJIKey<?> djiKey, @NonNull Throwable throwable) {
+        LogUtils.e(TAG, "Error registering " + djiKey.toString() + ": " + throwable.getMessage());
+    }
+
+    private static class SingletonHolder {
+        private static final GeodesyService instance = new GeodesyService(DJISDKModel.getInstance());
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.geodesy;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable ranges and bearings between the aircraft, the home point and the remote
+ * controller at one location update, published by {@link GeodesyService}.
+ * <p>
+ * Snapshots are shared by every subscriber and may be read on any thread.
+ */
+public final class GeodesySnapshot {
+
+    /**
+     * Snapshot without any valid location
+     */
+    public static final GeodesySnapshot EMPTY = new GeodesySnapshot(Double.NaN, Double.NaN, Double.NaN,
+            Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+            RangeBearing.INVALID, RangeBearing.INVALID, RangeBearing.INVALID);
+
+    private final double aircraftLatitude;
+    private final double aircraftLongitude;
+    private final double aircraftAltitude;
+    private final double homeLatitude;
+    private final double homeLongitude;
+    private final double rcLatitude;
+    private final double rcLongitude;
+    private final RangeBearing aircraftToHome;
+    private final RangeBearing aircraftToRC;
+    private final RangeBearing rcToHome;
+
+    GeodesySnapshot(double aircraftLatitude, double aircraftLongitude, double aircraftAltitude,
+                    double homeLatitude, double homeLongitude,
+                    double rcLatitude, double rcLongitude,
+                    @NonNull RangeBearing aircraftToHome,
+                    @NonNull RangeBearing aircraftToRC,
+                    @NonNull RangeBearing rcToHome) {
+        this.aircraftLatitude = aircraftLatitude;
+        this.aircraftLongitude = aircraftLongitude;
+        this.aircraftAltitude = aircraftAltitude;
+        this.homeLatitude = homeLatitude;
+        this.homeLongitude = homeLongitude;
+        this.rcLatitude = rcLatitude;
+        this.rcLongitude = rcLongitude;
+        this.aircraftToHome = aircraftToHome;
+        this.aircraftToRC = aircraftToRC;
+        this.rcToHome = rcToHome;
+    }
+
+    public double getAircraftLatitude() {
+        return aircraftLatitude;
+    }
+
+    public double getAircraftLongitude() {
+        return aircraftLongitude;
+    }
+
+    /**
+     * Get the altitude of the aircraft relative to the take-off point, which is the
+     * relative altitude of the aircraft and the home point unless the home point was moved.
+     *
+     * @return The altitude in meters, or NaN if the aircraft location is unknown
+     */
+    public double getAircraftAltitude() {
+        return aircraftAltitude;
+    }
+
+    public double getHomeLatitude() {
+        return homeLatitude;
+    }
+
+    public double getHomeLongitude() {
+        return homeLongitude;
+    }
+
+    public double getRCLatitude() {
+        return rcLatitude;
+    }
+
+    public double getRCLongitude() {
+        return rcLongitude;
+    }
+
+    /**
+     * Range and bearing from the aircraft to the home point
+     */
+    @NonNull
+    public RangeBearing getAircraftToHome() {
+        return aircraftToHome;
+    }
+
+    /**
+     * Range and bearing from the aircraft to the remote controller
+     */
+    @NonNull
+    public RangeBearing getAircraftToRC() {
+        return aircraftToRC;
+    }
+
+    /**
+     * Range and bearing from the remote controller to the home point
+     */
+    @NonNull
+    public RangeBearing getRCToHome() {
+        return rcToHome;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "GeodesySnapshot{aircraftToHome=" + aircraftToHome + ", aircraftToRC=" + aircraftToRC
+                + ", rcToHome=" + rcToHome + ", aircraftAltitude=" + aircraftAltitude + "}";
+    }
+
+    /**
+     * Distance and initial bearing from one location to another
+     */
+    public static final class RangeBearing {
+
+        /**
+         * Range between locations that are not both known
+         */
+        public static final RangeBearing INVALID = new RangeBearing(Double.NaN, Double.NaN);
+
+        private final double distance;
+        private final double bearing;
+
+        RangeBearing(double distance, double bearing) {
+            this.distance = distance;
+            this.bearing = bearing;
+        }
+
+        /**
+         * @return true if both locations are known
+         */
+        public boolean isValid() {
+            return !Double.isNaN(distance);
+        }
+
+        /**
+         * @return The distance in meters, or NaN if the range is not valid
+         */
+        public double getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return The initial bearing in degrees clockwise from north, in the range [-180, 180],
+         * or NaN if the range is not valid
+         */
+        public double getBearing() {
+            return bearing;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "RangeBearing{distance=" + distance + ", bearing=" + bearing + "}";
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.geodesy;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Range and bearing on a spherical earth model, without allocating.
+ * <p>
+ * Points closer than {@link #APPROXIMATION_RANGE} use an equirectangular projection, which
+ * needs one cosine and one square root and differs from the great circle by far less than
+ * GPS noise at that range. Farther points use the haversine formula. The spherical model
+ * is within 0.5% of the WGS84 ellipsoid that {@code Location.distanceBetween} uses.
+ */
+public final class GeodesyUtil {
+
+    /**
+     * Mean earth radius in meters
+     */
+    public static final double EARTH_RADIUS = 6371008.8;
+
+    /**
+     * Range in meters up to which the equirectangular approximation is used
+     */
+    public static final double APPROXIMATION_RANGE = 10000;
+
+    private static final double APPROXIMATION_ANGLE = APPROXIMATION_RANGE / EARTH_RADIUS;
+    private static final double APPROXIMATION_MAX_LATITUDE = 85;
+
+    private GeodesyUtil() {
+        // Util class
+    }
+
+    /**
+     * Compute the distance and the initial bearing from the first point to the second point.
+     *
+     * @param results results[0] is set to the distance in meters, results[1] to the bearing
+     *                in degrees clockwise from north, in the range [-180, 180]
+     */
+    public static void computeRangeAndBearing(double latitude1, double longitude1,
+                                              double latitude2, double longitude2,
+                                              @NonNull double[] results) {
+        double phi1 = Math.toRadians(latitude1);
+        double phi2 = Math.toRadians(latitude2);
+        double deltaPhi = phi2 - phi1;
+        double deltaLambda = Math.toRadians(normalizeLongitudeDelta(longitude2 - longitude1));
+
+        double east = deltaLambda * Math.cos((phi1 + phi2) / 2);
+        if (Math.abs(latitude1) < APPROXIMATION_MAX_LATITUDE
+                && Math.abs(deltaPhi) < APPROXIMATION_ANGLE
+                && Math.abs(east) < APPROXIMATION_ANGLE) {
+            results[0] = EARTH_RADIUS * Math.sqrt(east * east + deltaPhi * deltaPhi);
+            results[1] = Math.toDegrees(Math.atan2(east, deltaPhi));
+            return;
+        }
+
+        double cosPhi1 = Math.cos(phi1);
+        double cosPhi2 = Math.cos(phi2);
+        double sinHalfPhi = Math.sin(deltaPhi / 2);
+        double sinHalfLambda = Math.sin(deltaLambda / 2);
+        double a = sinHalfPhi * sinHalfPhi + cosPhi1 * cosPhi2 * sinHalfLambda * sinHalfLambda;
+        results[0] = 2 * EARTH_RADIUS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        results[1] = Math.toDegrees(Math.atan2(Math.sin(deltaLambda) * cosPhi2,
+                cosPhi1 * Math.sin(phi2) - Math.sin(phi1) * cosPhi2 * Math.cos(deltaLambda)));
+    }
+
+    /**
+     * Compute the distance between two points.
+     *
+     * @return The distance in meters
+     */
+    public static double distanceBetween(double latitude1, double longitude1,
+                                         double latitude2, double longitude2) {
+        double phi1 = Math.toRadians(latitude1);
+        double phi2 = Math.toRadians(latitude2);
+        double deltaPhi = phi2 - phi1;
+        double deltaLambda = Math.toRadians(normalizeLongitudeDelta(longitude2 - longitude1));
+
+        double east = deltaLambda * Math.cos((phi1 + phi2) / 2);
+        if (Math.abs(latitude1) < APPROXIMATION_MAX_LATITUDE
+                && Math.abs(deltaPhi) < APPROXIMATION_ANGLE
+                && Math.abs(east) < APPROXIMATION_ANGLE) {
+            return EARTH_RADIUS * Math.sqrt(east * east + deltaPhi * deltaPhi);
+        }
+
+        double sinHalfPhi = Math.sin(deltaPhi / 2);
+        double sinHalfLambda = Math.sin(deltaLambda / 2);
+        double a = sinHalfPhi * sinHalfPhi + Math.cos(phi1) * Math.cos(phi2) * sinHalfLambda * sinHalfLambda;
+        return 2 * EARTH_RADIUS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static double normalizeLongitudeDelta(double delta) {
+        if (delta > 180) {
+            return delta - 360;
+        } else if (delta < -180) {
+            return delta + 360;
+        }
+        return delta;
+    }
+}
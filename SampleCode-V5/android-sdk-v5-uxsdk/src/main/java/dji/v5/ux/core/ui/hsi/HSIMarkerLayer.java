@@ -30,6 +30,9 @@ import dji.sdk.keyvalue.value.common.LocationCoordinate3D;
 import dji.sdk.keyvalue.value.common.LocationCoordinate2D;
 import dji.v5.utils.common.LocationUtil;
 import dji.v5.ux.R;
+import dji.v5.ux.core.geodesy.GeodesyService;
+import dji.v5.ux.core.geodesy.GeodesySnapshot.RangeBearing;
+import dji.v5.ux.core.geodesy.GeodesyUtil;
 import dji.v5.ux.core.ui.hsi.dashboard.FpvStrokeConfig;
 import dji.v5.utils.common.AndUtil;
 import dji.v5.common.utils.UnitUtils;
@@ -57,7 +60,7 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
     private HSIContract.HSIContainer mHSIContainer;
 
     @NonNull
-    private final float[] mFloats = new float[2];
+    private final double[] mRangeBearing = new double[2];
 
 //    @NonNull
 //    private static final BearingDistance INVALID_BEARING_DISTANCE = new BearingDistance();
@@ -106,6 +109,12 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
 
     private final int mAdsbMarkerSize;
 
+    @NonNull
+    private final Size mAdsbSize;
+
+    @NonNull
+    private final PointF mAdsbOffset = new PointF(0, 0);
+
     private final int mMarkerMarginVertical;
 
     private final int mMarkerMarginHorizontal;
@@ -156,6 +165,11 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
 
     private Paint mStrokePaint = new Paint(Paint.DITHER_FLAG | Paint.ANTI_ALIAS_FLAG);
 
+    /**
+     * 绘制名称时复用，避免每帧创建
+     */
+    private final TextPaint mNameTextPaint = new TextPaint();
+
     @Nullable
     private CompositeDisposable mCompositeDisposable = new CompositeDisposable();
     private Location mLastLocation;
@@ -199,6 +213,7 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
                 R.drawable.uxsdk_fpv_hsi_rng_point));
 
         mAdsbMarkerSize = context.getResources().getDimensionPixelSize(R.dimen.uxsdk_10_dp);
+        mAdsbSize = new Size(mAdsbMarkerSize, mAdsbMarkerSize);
         mAdsbRedBitmap = DrawUtils.drawableRes2Bitmap(R.drawable.uxsdk_fpv_hsi_plane_danger);
         mAdsbYellowBitmap = DrawUtils.drawableRes2Bitmap(R.drawable.uxsdk_fpv_hsi_plane_caution);
 
@@ -309,6 +324,7 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
         // HSI 中元素信息
         startListenAircraftLocation();
         startListenHomeLocation();
+        startListenHomeDistance();
         //        startListenAirSenseSystem();
         //        startListenSelectPinPoints();
 //        startListenRngPoints();
@@ -321,9 +337,6 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
         addDisposable(widgetModel.getAircraftLocationDataProcessor().toFlowable().subscribe(location -> {
             if (location != null) {
                 mAircraftLocation = location;
-                if (mHomeLocation != null) {
-                    updateLocation(mHomeInfo.distance, mHomeLocation.getLatitude(), mHomeLocation.getLongitude());
-                }
                 mSubject.onNext(mAircraftLocation);
             }
         }));
@@ -343,9 +356,26 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
                     updateLocation(mRemoteControlInfo.distance, mLastLocation.getLatitude(), mLastLocation.getLongitude());
                 }
             }
-            mHomeInfo.distance.mLatitude = mHomeLocation.getLatitude();
-            mHomeInfo.distance.mLongitude = mHomeLocation.getLongitude();
-            updateLocation(mHomeInfo.distance, mHomeLocation.getLatitude(), mHomeLocation.getLongitude());
+        }));
+    }
+
+    /**
+     * Home 点的距离和方向由 GeodesyService 统一计算
+     */
+    private void startListenHomeDistance() {
+        addDisposable(GeodesyService.getInstance().getSnapshot().subscribe(snapshot -> {
+            BearingDistance target = mHomeInfo.distance;
+            RangeBearing aircraftToHome = snapshot.getAircraftToHome();
+            if (!aircraftToHome.isValid()
+                    || !isAvailable(snapshot.getAircraftLatitude(), snapshot.getAircraftLongitude())
+                    || !isAvailable(snapshot.getHomeLatitude(), snapshot.getHomeLongitude())) {
+                target.setInvalid();
+                return;
+            }
+            target.mLatitude = snapshot.getHomeLatitude();
+            target.mLongitude = snapshot.getHomeLongitude();
+            target.mDistance = (float) aircraftToHome.getDistance();
+            target.mInitialBearing = (float) aircraftToHome.getBearing();
         }));
     }
 
@@ -509,10 +539,8 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
 
     private boolean mergeRcAndHome() {
         if (mHomeInfo.distance.isValidate() && mRemoteControlInfo.distance.isValidate()) {
-            float[] results = new float[1];
-            Location.distanceBetween(mLastLocation.getLatitude(), mLastLocation.getLongitude(), mHomeInfo.distance.mLatitude,
-                    mHomeInfo.distance.mLongitude, results);
-            return results[0] < HSI_HOME_RC_MERGE_THRESHOLD;
+            return GeodesyUtil.distanceBetween(mLastLocation.getLatitude(), mLastLocation.getLongitude(), mHomeInfo.distance.mLatitude,
+                    mHomeInfo.distance.mLongitude) < HSI_HOME_RC_MERGE_THRESHOLD;
         }
 
         return false;
@@ -535,9 +563,9 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
         if (mAircraftLocation == null) {
             return;
         }
-        Location.distanceBetween(mAircraftLocation.getLatitude(), mAircraftLocation.getLongitude(), latitude, longitude, mFloats);
-        target.mDistance = mFloats[0];
-        target.mInitialBearing = mFloats[1];
+        GeodesyUtil.computeRangeAndBearing(mAircraftLocation.getLatitude(), mAircraftLocation.getLongitude(), latitude, longitude, mRangeBearing);
+        target.mDistance = (float) mRangeBearing[0];
+        target.mInitialBearing = (float) mRangeBearing[1];
 
     }
     //
@@ -764,7 +792,7 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
         for (BearingDistance adsbDistance : mAdsbYellowDistances) {
             canvas.save();
             drawMarkerOnHsi(canvas, compassSize, adsbDistance, true);
-            drawMarker(canvas, mAdsbYellowBitmap, new Size(mAdsbMarkerSize, mAdsbMarkerSize), new PointF(0, 0), paint, true);
+            drawMarker(canvas, mAdsbYellowBitmap, mAdsbSize, mAdsbOffset, paint, true);
             canvas.restore();
         }
 
@@ -914,7 +942,8 @@ public class HSIMarkerLayer implements HSIContract.HSILayer {
         String name = distance.mName;
         if (!TextUtils.isEmpty(name)) {
             paint.setTextAlign(Paint.Align.LEFT);
-            TextPaint textPaint = new TextPaint(paint);
+            TextPaint textPaint = mNameTextPaint;
+            textPaint.set(paint);
             int firstLineCount = textPaint.breakText(name, true, mMarkerIndicatorTextMaxWidth, null);
             String firstLine = name.substring(0, firstLineCount);
             String secondLine = null;
@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -27,6 +29,7 @@ import dji.v5.manager.aircraft.perception.data.ObstacleAvoidanceType;
 import dji.v5.manager.aircraft.perception.data.PerceptionInfo;
 import dji.v5.utils.common.LogUtils;
 import dji.v5.ux.R;
+import dji.v5.ux.core.base.SchedulerProvider;
 import dji.v5.ux.core.ui.hsi.config.IOmniAbility;
 import dji.v5.ux.core.ui.hsi.dashboard.FpvStrokeConfig;
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
@@ -35,7 +38,6 @@ import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.disposables.Disposable;
 import io.reactivex.rxjava3.functions.Consumer;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class HSIPerceptionLayer implements HSIContract.HSILayer {
 
@@ -76,7 +78,7 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
     private final int[] mRadarLevelColor = new int[3];
     private final FpvStrokeConfig mStrokeConfig;
 
-    private List<Integer> mRadarHorizontalDistances = new ArrayList<>();
+    private volatile List<Integer> mRadarHorizontalDistances = new ArrayList<>();
 
 
     @NonNull
@@ -92,13 +94,13 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
     private final int mRadarMaxPerceptionStrokeWidth;
 
 
-    private HSIContract.HSIContainer mHSIContainer;
+    private volatile HSIContract.HSIContainer mHSIContainer;
 
-    private float mHorizontalBarrierAvoidanceDistance;
+    private volatile float mHorizontalBarrierAvoidanceDistance;
 
-    private float mHorizontalPerceptionDistance;
+    private volatile float mHorizontalPerceptionDistance;
 
-    private int mCompassSize;
+    private volatile int mCompassSize;
 
     private boolean mShowVisualPerceptionInfo;
 
@@ -112,11 +114,31 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
 
     private boolean mIsMultiModeOpen = false;
 
-    @NonNull
-    private final List<Shape> mShapeList = new ArrayList<>();
+    /**
+     * 正在绘制的视觉/雷达障碍几何数据，只在主线程读写
+     */
+    @Nullable
+    private PerceptionGeometry mPerceptionGeometry;
 
-    @NonNull
-    private final List<Shape> mRadarShapeList = new ArrayList<>();
+    @Nullable
+    private PerceptionGeometry mRadarGeometry;
+
+    /**
+     * 后台算好、主线程还没取走的几何数据。几何数据不经过 Rx 的队列传递，
+     * timeout 后迟到的结果和 dispose 时还在队列中的结果都留在这里，由下一帧或 onStop 回收
+     */
+    private final AtomicReference<PerceptionGeometry> mPendingPerceptionGeometry = new AtomicReference<>();
+
+    private final AtomicReference<PerceptionGeometry> mPendingRadarGeometry = new AtomicReference<>();
+
+    /**
+     * 几何数据帧池，后台计算从池中取帧，主线程替换下来的旧帧放回池中
+     */
+    private final GeometryPool mGeometryPool;
+
+    private final AtomicLong mGeometryAllocationCount = new AtomicLong();
+
+    private final AtomicLong mGeometryUpdateCount = new AtomicLong();
 
     @Nullable
     private CompositeDisposable mDisposable;
@@ -139,8 +161,6 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
      * 机型不支持 TOF，如：M3E系列
      */
     private boolean mSupportTof = true;
-    private final static PathPool mPathPool = new PathPool(128);
-    private final static PathPool mRadarPathPool = new PathPool(128);
     private Shader mTofShader;
     private Shader mNaShader;
     private final int mWarnColor;
@@ -210,6 +230,7 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
 
         mOmniAbility = IOmniAbility.Companion.getCurrent();
 
+        mGeometryPool = new GeometryPool(4, mGeometryAllocationCount);
     }
 
     @Override
@@ -241,14 +262,20 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
         mDisposable.add(widgetModel.getRadarInformationDataProcessor().toFlowable().subscribe(information -> {
             mShowRadarPerceptionInfo = information.isHorizontalObstacleAvoidanceEnabled();
         }));
+        // 每帧几何数据只被一个线程持有，后台计算的 Path 不会和主线程正在绘制的 Path 冲突
         mDisposable.add(widgetModel.getPerceptionObstacleDataProcessor().toFlowable()
                 .throttleLast(200, TimeUnit.MILLISECONDS)
-                .subscribeOn(AndroidSchedulers.mainThread()) //shape 计算要在mainthread，不然有可能会导致native内存使用错误
+                .observeOn(SchedulerProvider.computation())
+                .map(data -> offerGeometry(mPendingPerceptionGeometry, updatePerceptionDrawShape(data.getHorizontalObstacleDistance())))
                 .observeOn(AndroidSchedulers.mainThread())
-                .map(data -> updatePerceptionDrawShape(getOptimizationDataIfNeed(data.getHorizontalObstacleDistance())))
-                .subscribe(list -> {
-                    mShapeList.clear();
-                    mShapeList.addAll(list);
+                .subscribe(offered -> {
+                    PerceptionGeometry geometry = mPendingPerceptionGeometry.getAndSet(null);
+                    if (geometry == null) {
+                        return;
+                    }
+                    PerceptionGeometry old = mPerceptionGeometry;
+                    mPerceptionGeometry = geometry;
+                    releaseGeometry(old);
                     if (mHSIContainer != null) {
                         mHSIContainer.updateWidget();
                     }
@@ -278,11 +305,9 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
      * 针对数据进行分组，每组使用其中最小值
      * 数据分组可避免显示非常细的障碍图
      */
-    @NonNull
-    private List<Integer> getOptimizationDataIfNeed(List<Integer> data) {
-        int size = data.size();
+    private void optimizeSectorsIfNeed(int[] data, int size) {
         if (size == 0) {
-            return data;
+            return;
         }
         int sectorLength = PERCEPTION_GROUP_SIZE;
         int sectorCount = size / sectorLength;
@@ -292,10 +317,13 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
             if (posInBlind(srcPos, sectorLength, singleDataAngle)) {
                 continue;
             }
-            int result = minInList(data, srcPos, sectorLength);
-            fillList(data, srcPos, sectorLength, result);
+            int last = Math.min(srcPos + sectorLength, size);
+            int result = data[srcPos];
+            for (int j = srcPos + 1; j < last; j++) {
+                result = Math.min(result, data[j]);
+            }
+            Arrays.fill(data, srcPos, last, result);
         }
-        return data;
     }
 
     /**
@@ -314,64 +342,67 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
         return Math.abs(angle % 90 - 45) < mOmniAbility.getPerceptionBlindAreaAngle() / 2f;
     }
 
-    /**
-     * @param data   数据集
-     * @param offset 数据开始的索引
-     * @param size   需要计算的数据量
-     * @return
-     * @throws IndexOutOfBoundsException offset 必须小于 date 大小
-     */
-    private int minInList(List<Integer> data, int offset, int size) {
-        if (offset >= data.size() || offset < 0) {
-            throw new IndexOutOfBoundsException();
-        }
-        int last = Math.min(offset + size, data.size());
-        int result = data.get(last - 1);
-        for (int i = last - 2; i >= offset; i--) {
-            result = Math.min(result, data.get(i));
+    @Override
+    public void onStop() {
+        if (mDisposable != null) {
+            mDisposable.dispose();
         }
-        return result;
+
+        mHSIContainer = null;
+        releaseGeometry(mPerceptionGeometry);
+        releaseGeometry(mRadarGeometry);
+        releaseGeometry(mPendingPerceptionGeometry.getAndSet(null));
+        releaseGeometry(mPendingRadarGeometry.getAndSet(null));
+        mPerceptionGeometry = null;
+        mRadarGeometry = null;
     }
 
     /**
-     * @param data   数据集
-     * @param offset 数据开始的索引
-     * @param size   需要填充的大小
-     * @return
-     * @throws IndexOutOfBoundsException offset 必须小于 date 大小
+     * 在计算线程把新算好的帧放入待取槽位，回收主线程还没取走的上一帧
+     *
+     * @return 总是 true，只用来通知主线程取帧
      */
-    private void fillList(List<Integer> data, int offset, int size, int value) {
-        if (offset >= data.size() || offset < 0) {
-            throw new IndexOutOfBoundsException();
-        }
-        int last = Math.min(offset + size, data.size());
-        for (int i = last - 1; i >= offset; i--) {
-            data.set(i, value);
-        }
+    private boolean offerGeometry(AtomicReference<PerceptionGeometry> pending, PerceptionGeometry geometry) {
+        releaseGeometry(pending.getAndSet(geometry));
+        return true;
     }
 
-    @Override
-    public void onStop() {
-        if (mDisposable != null) {
-            mDisposable.dispose();
+    private void releaseGeometry(@Nullable PerceptionGeometry geometry) {
+        if (geometry != null) {
+            mGeometryPool.recycle(geometry);
         }
+    }
 
-        mHSIContainer = null;
+    /**
+     * @return 已计算的障碍几何数据帧数
+     */
+    public long getGeometryUpdateCount() {
+        return mGeometryUpdateCount.get();
+    }
+
+    /**
+     * @return 障碍几何计算累计分配的对象数（帧、数组和 Path），稳定后不再增长
+     */
+    public long getGeometryAllocationCount() {
+        return mGeometryAllocationCount.get();
     }
 
     private Disposable getRadarDisposable() {
         return Observable.interval(HSIView.INVALIDATE_INTERVAL_TIME, TimeUnit.MILLISECONDS)
                 .map(aLong -> mRadarHorizontalDistances)
-                .observeOn(Schedulers.newThread())
-                .map(this::updateRadarDrawShape)
+                .observeOn(SchedulerProvider.computation())
+                .map(distances -> offerGeometry(mPendingRadarGeometry, updateRadarDrawShape(distances)))
                 .timeout(RADAR_PATH_OP_TIMEOUT, TimeUnit.MILLISECONDS)
                 .retry()
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(list -> {
-                    synchronized (mRadarShapeList) {
-                        mRadarShapeList.clear();
-                        mRadarShapeList.addAll(list);
+                .subscribe(offered -> {
+                    PerceptionGeometry geometry = mPendingRadarGeometry.getAndSet(null);
+                    if (geometry == null) {
+                        return;
                     }
+                    PerceptionGeometry old = mRadarGeometry;
+                    mRadarGeometry = geometry;
+                    releaseGeometry(old);
                     if (mHSIContainer != null) {
                         mHSIContainer.updateWidget();
                     }
@@ -530,11 +561,8 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
     }
 
     private void drawBarrier(Canvas canvas, Paint paint, int compassSize) {
-        if (mHSIContainer == null) {
-            return;
-        }
-
-        if (mShapeList.isEmpty()) {
+        PerceptionGeometry geometry = mPerceptionGeometry;
+        if (mHSIContainer == null || geometry == null || geometry.getShapeCount() == 0) {
             return;
         }
 
@@ -543,37 +571,40 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
         // 这里把盲区也考虑上，从盲区中间算起，算起来比较简单
         int perceptionAngleEach = 360 / DEFAULT_PERCEPTION_AREA_COUNT;
 
-        for (Shape shape : mShapeList) {
-            canvas.save();
+        for (int i = 0; i < geometry.getShapeCount(); i++) {
             // 判断该方向的感知系统是否正常工作
-            int fromAngle = shape.mFromAngle;
+            int fromAngle = geometry.getFromAngle(i);
             boolean skip = mPerceptionNotWorkMode;
             if (!skip) {
                 skip = calcSkip(perceptionAngleEach, fromAngle);
             }
             if (!skip) {
-                if (shape instanceof PathShape) {
-                    canvas.rotate(shape.mFromAngle);
-                    paint.setStyle(Paint.Style.FILL);
-                    paint.setColor(shape.mColor);
-                    canvas.drawPath(((PathShape) shape).mPath, paint);
-                    mPathPool.recycle(((PathShape) shape).mPath);
-                } else if (shape instanceof ArcShape) {
-                    canvas.rotate(shape.mFromAngle);
-                    paint.setColor(shape.mColor);
-                    paint.setStyle(Paint.Style.STROKE);
-                    float lastStrokeWidth = paint.getStrokeWidth();
-                    paint.setStrokeWidth(mMaxPerceptionStrokeWidth);
-                    float arcRadius = radius - (float) mMaxPerceptionStrokeWidth / 2;
-                    canvas.drawArc(-arcRadius, -arcRadius, arcRadius, arcRadius, 270f,
-                            ((ArcShape) shape).mToAngle * 1f - shape.mFromAngle * 1f, false, paint);
-                    paint.setStrokeWidth(lastStrokeWidth);
-                }
+                drawShape(canvas, paint, geometry, i, fromAngle, radius, mMaxPerceptionStrokeWidth);
             }
-            canvas.restore();
         }
     }
 
+    private void drawShape(Canvas canvas, Paint paint, PerceptionGeometry geometry, int index, float rotation, float radius,
+                           int strokeWidth) {
+        canvas.save();
+        canvas.rotate(rotation);
+        paint.setColor(geometry.getColor(index));
+        Path path = geometry.getPath(index);
+        if (path != null) {
+            paint.setStyle(Paint.Style.FILL);
+            canvas.drawPath(path, paint);
+        } else {
+            paint.setStyle(Paint.Style.STROKE);
+            float lastStrokeWidth = paint.getStrokeWidth();
+            paint.setStrokeWidth(strokeWidth);
+            float arcRadius = radius - (float) strokeWidth / 2;
+            canvas.drawArc(-arcRadius, -arcRadius, arcRadius, arcRadius, 270f,
+                    geometry.getToAngle(index) * 1f - geometry.getFromAngle(index) * 1f, false, paint);
+            paint.setStrokeWidth(lastStrokeWidth);
+        }
+        canvas.restore();
+    }
+
     private boolean calcSkip(int perceptionAngleEach, int fromAngle) {
         boolean skip = false;
         if (fromAngle > perceptionAngleEach * 7 / 2 || fromAngle < perceptionAngleEach / 2) {
@@ -589,300 +620,153 @@ public class HSIPerceptionLayer implements HSIContract.HSILayer {
     }
 
     private void drawRadarBarrier(Canvas canvas, Paint paint, int compassSize) {
-        if (mHSIContainer == null) {
-            return;
-        }
-
-        if (mRadarShapeList.isEmpty()) {
+        PerceptionGeometry geometry = mRadarGeometry;
+        if (mHSIContainer == null || geometry == null || geometry.getShapeCount() == 0) {
             return;
         }
 
         float calibrationAreaWidth = mHSIContainer.getCalibrationAreaWidth();
         float radius = (float) compassSize / 2 - calibrationAreaWidth - mHSIContainer.getCompassBitmapOffset();
 
-        synchronized (mRadarShapeList) {
-            for (Shape shape : mRadarShapeList) {
-                canvas.save();
-                if (shape instanceof PathShape) {
-                    canvas.rotate(shape.mFromAngle + DEFAULT_RADAR_START_ANGLE_OFFSET * 1f);
-                    paint.setStyle(Paint.Style.FILL);
-                    paint.setColor(shape.mColor);
-                    canvas.drawPath(((PathShape) shape).mPath, paint);
-                    mRadarPathPool.recycle(((PathShape) shape).mPath);
-                } else if (shape instanceof ArcShape) {
-                    canvas.rotate(shape.mFromAngle + DEFAULT_RADAR_START_ANGLE_OFFSET * 1f);
-                    paint.setColor(shape.mColor);
-                    paint.setStyle(Paint.Style.STROKE);
-                    float lastStrokeWidth = paint.getStrokeWidth();
-                    paint.setStrokeWidth(mRadarMaxPerceptionStrokeWidth);
-                    float arcRadius = radius - (float) mRadarMaxPerceptionStrokeWidth / 2;
-                    canvas.drawArc(-arcRadius, -arcRadius, arcRadius, arcRadius, 270f,
-                            ((ArcShape) shape).mToAngle - shape.mFromAngle * 1f, false, paint);
-                    paint.setStrokeWidth(lastStrokeWidth);
-                }
-                canvas.restore();
-            }
+        for (int i = 0; i < geometry.getShapeCount(); i++) {
+            drawShape(canvas, paint, geometry, i, geometry.getFromAngle(i) + DEFAULT_RADAR_START_ANGLE_OFFSET * 1f, radius,
+                    mRadarMaxPerceptionStrokeWidth);
         }
     }
 
-    private List<Shape> updatePerceptionDrawShape(List<Integer> horizontalBarrierDistance) {
-        if (horizontalBarrierDistance.size() == 0) {
-            return new ArrayList<>();
+    /**
+     * 在后台线程调用，返回的帧交给主线程绘制
+     */
+    private PerceptionGeometry updatePerceptionDrawShape(List<Integer> horizontalBarrierDistance) {
+        PerceptionGeometry geometry = mGeometryPool.acquire();
+        geometry.setSectors(horizontalBarrierDistance);
+        int size = geometry.getSectorCount();
+        optimizeSectorsIfNeed(geometry.getSectors(), size);
+        if (size == 0) {
+            geometry.clearShapes();
+            return geometry;
         }
         int perceptionAngleTotal = 360 - DEFAULT_PERCEPTION_BLIND_AREA_COUNT * mOmniAbility.getPerceptionBlindAreaAngle();
         int perceptionAngleEach = perceptionAngleTotal / DEFAULT_PERCEPTION_AREA_COUNT;
-        int rotationOffset = 360 / horizontalBarrierDistance.size();
+        int rotationOffset = 360 / size;
         int startOffset = -perceptionAngleEach / rotationOffset / 2;
 
-        return updateDrawShape(horizontalBarrierDistance, startOffset, mPerceptionLevelColor);
+        updateDrawShape(geometry, startOffset, mPerceptionLevelColor);
+        return geometry;
     }
 
-    private List<Shape> updateRadarDrawShape(List<Integer> horizontalBarrierDistance) {
-        if (horizontalBarrierDistance == null || horizontalBarrierDistance.size() == 0) {
-            return new ArrayList<>();
+    private PerceptionGeometry updateRadarDrawShape(List<Integer> horizontalBarrierDistance) {
+        PerceptionGeometry geometry = mGeometryPool.acquire();
+        if (horizontalBarrierDistance == null || horizontalBarrierDistance.isEmpty()) {
+            geometry.clearShapes();
+            return geometry;
         }
-        Thread currentThread = Thread.currentThread();
-        LogUtils.d(TAG,
-                "updateRadarDrawShape " + horizontalBarrierDistance.get(0) + ". Current thread is " + currentThread.getName() + " " + currentThread.getId());
+        geometry.setSectors(horizontalBarrierDistance);
         long preTime = System.currentTimeMillis();
-        List<Shape> result = updateDrawShape2(horizontalBarrierDistance, 0, mRadarLevelColor);
+        updateDrawShape(geometry, 0, mRadarLevelColor);
         LogUtils.d(TAG, "updateRadarDrawShape take " + (System.currentTimeMillis() - preTime));
-        return result;
+        return geometry;
     }
 
-    private List<Shape> updateDrawShape2(List<Integer> horizontalBarrierDistance, int startOffset, int[] levelColor) {
-
-        List<Shape> shapeList = new ArrayList<>();
-        if (mHSIContainer == null) {
-            return shapeList;
-        }
-
-
-        int rotationOffset = 360 / horizontalBarrierDistance.size();
-        int offset = mHSIContainer.getAircraftSize() / 2;
-        int visibleDistanceInHsi = mHSIContainer.getVisibleDistanceInHsiInMeters();
-        float calibrationAreaWidth = mHSIContainer.getCalibrationAreaWidth();
-        float radius = (float) mCompassSize / 2 - calibrationAreaWidth - mHSIContainer.getCompassBitmapOffset();
-
-        float minDistanceInMeter = Integer.MAX_VALUE;
-
-        PathShape lastShape = null;
-        float barrierRotation = 0;
-        Path path1 = mRadarPathPool.acquire(), path2;
-        path1.reset();
-
-        for (int i = 0; i < horizontalBarrierDistance.size(); i++) {
-            int angle = i + startOffset;
-            angle = angle < 0 ? angle + horizontalBarrierDistance.size() : angle;
-            float distanceInMeter = (float) horizontalBarrierDistance.get(angle) / 1000;
-            if (distanceInMeter >= visibleDistanceInHsi) {
-                if (distanceInMeter <= mOmniAbility.getHorizontalDetectionCapability()) {
-                    int color;
-                    if (distanceInMeter > mHorizontalPerceptionDistance) {
-                        color = levelColor[0];
-                    } else {
-                        color = levelColor[1];
-                    }
-                    ArcShape shape = new ArcShape(angle * rotationOffset);
-                    shape.mColor = color;
-                    shape.mToAngle += rotationOffset;
-                    shapeList.add(shape);
-                }
-            } else {
-                float c = offset + distanceInMeter / visibleDistanceInHsi * (radius - offset);
-                if (barrierRotation == 0) {
-                    lastShape = new PathShape(angle * rotationOffset);
-                    path1.reset();
-                    path1.lineTo(0, -c);
-                }
-                barrierRotation += rotationOffset;
-                double sin = Math.sin(Math.PI * barrierRotation / 180);
-                double cos = Math.cos(Math.PI * barrierRotation / 180);
-                float offsetX = (float) (sin * c);
-                float offsetY = (float) (cos * c);
-                path1.lineTo(offsetX, -offsetY);
-                if (distanceInMeter < minDistanceInMeter) {
-                    minDistanceInMeter = distanceInMeter;
-                }
-            }
-            if ((distanceInMeter >= visibleDistanceInHsi || i == horizontalBarrierDistance.size() - 1)
-                    && !path1.isEmpty() && lastShape != null) {
-                path1.close();
-                path2 = mRadarPathPool.acquire();
-                path2.reset();
-                path2.addArc(-radius, -radius, radius, radius, 270, barrierRotation);
-                path2.lineTo(0, 0);
-                path2.close();
-                LogUtils.d(TAG, "updateRadar2 op 1 size=" + shapeList.size() + " " + minDistanceInMeter);
-                //todo：必须重构path的布尔操作算法，怀疑是雷达传递数据有问题，导致方法卡死
-                path2.op(path1, Path.Op.DIFFERENCE);
-                LogUtils.d(TAG, "updateRadar2 op 2");
-
-                int areaColor;
-                if (minDistanceInMeter > mHorizontalPerceptionDistance) {
-                    areaColor = levelColor[0];//
-                } else if (minDistanceInMeter > mHorizontalBarrierAvoidanceDistance + 2) {
-                    // feature HYAPP-10551 避障变红由【刹停距离】改为【刹停距离+2m】
-                    areaColor = levelColor[1];
-                } else {
-                    areaColor = levelColor[2];
-                }
-                PathShape pathShape = lastShape;
-                pathShape.mColor = areaColor;
-                pathShape.mPath = path2;
-                barrierRotation = 0;
-                shapeList.add(pathShape);
-                path1.reset();
-                lastShape = null;
-                minDistanceInMeter = Integer.MAX_VALUE;
-            }
-        }
-        mRadarPathPool.recycle(path1);
-        return shapeList;
-    }
-
-    private List<Shape> updateDrawShape(List<Integer> horizontalBarrierDistance, int startOffset, int[] levelColor) {
-        List<Shape> shapeList = new ArrayList<>();
-
-        if (mHSIContainer == null) {
-            return shapeList;
+    /**
+     * 根据帧中的扇区距离生成障碍形状，结果写回该帧
+     */
+    private void updateDrawShape(PerceptionGeometry geometry, int startOffset, int[] levelColor) {
+        geometry.clearShapes();
+        mGeometryUpdateCount.incrementAndGet();
+        HSIContract.HSIContainer container = mHSIContainer;
+        int size = geometry.getSectorCount();
+        if (container == null || size == 0) {
+            return;
         }
 
-
-        int rotationOffset = 360 / horizontalBarrierDistance.size();
-        int offset = mHSIContainer.getAircraftSize() / 2;
-        int visibleDistanceInHsi = mHSIContainer.getVisibleDistanceInHsiInMeters();
-        float calibrationAreaWidth = mHSIContainer.getCalibrationAreaWidth();
-        float radius = (float) mCompassSize / 2 - calibrationAreaWidth - mHSIContainer.getCompassBitmapOffset();
+        int[] distances = geometry.getSectors();
+        int rotationOffset = 360 / size;
+        int offset = container.getAircraftSize() / 2;
+        int visibleDistanceInHsi = container.getVisibleDistanceInHsiInMeters();
+        float calibrationAreaWidth = container.getCalibrationAreaWidth();
+        float radius = (float) mCompassSize / 2 - calibrationAreaWidth - container.getCompassBitmapOffset();
+        float horizontalPerceptionDistance = mHorizontalPerceptionDistance;
+        float horizontalBarrierAvoidanceDistance = mHorizontalBarrierAvoidanceDistance;
 
         float minDistanceInMeter = Integer.MAX_VALUE;
 
-        Shape lastShape = null;
+        // 当前障碍区域的起始角度，-1 表示还没有开始
+        int barrierFromAngle = -1;
         float barrierRotation = 0;
-        Path path1 = mPathPool.acquire(), path2;
-        path1.reset();
+        Path outline = geometry.getOutline();
+        outline.reset();
 
-        for (int i = 0; i < horizontalBarrierDistance.size(); i++) {
+        for (int i = 0; i < size; i++) {
             int angle = i + startOffset;
-            angle = angle < 0 ? angle + horizontalBarrierDistance.size() : angle;
-            float distanceInMeter = (float) horizontalBarrierDistance.get(angle) / 1000;
+            angle = angle < 0 ? angle + size : angle;
+            float distanceInMeter = (float) distances[angle] / 1000;
             if (distanceInMeter >= visibleDistanceInHsi) {
                 if (distanceInMeter <= mOmniAbility.getHorizontalDetectionCapability()) {
                     int color;
-                    if (distanceInMeter > mHorizontalPerceptionDistance) {
+                    if (distanceInMeter > horizontalPerceptionDistance) {
                         color = levelColor[0];
                     } else {
                         color = levelColor[1];
                     }
-                    ArcShape shape = new ArcShape(angle * rotationOffset);
-                    shape.mColor = color;
-                    shape.mToAngle += rotationOffset;
-                    shapeList.add(shape);
+                    geometry.addArc(angle * rotationOffset, angle * rotationOffset + rotationOffset, color);
                 }
             } else {
                 float c = offset + distanceInMeter / visibleDistanceInHsi * (radius - offset);
                 if (barrierRotation == 0) {
-                    lastShape = new PathShape(angle * rotationOffset);
-                    path1.reset();
-                    path1.lineTo(0, -c);
+                    barrierFromAngle = angle * rotationOffset;
+                    outline.reset();
+                    outline.lineTo(0, -c);
                 }
                 barrierRotation += rotationOffset;
                 double sin = Math.sin(Math.PI * barrierRotation / 180);
                 double cos = Math.cos(Math.PI * barrierRotation / 180);
                 float offsetX = (float) (sin * c);
                 float offsetY = (float) (cos * c);
-                path1.lineTo(offsetX, -offsetY);
+                outline.lineTo(offsetX, -offsetY);
                 if (distanceInMeter < minDistanceInMeter) {
                     minDistanceInMeter = distanceInMeter;
                 }
             }
-            if ((distanceInMeter >= visibleDistanceInHsi || i == horizontalBarrierDistance.size() - 1)
-                    && !path1.isEmpty() && lastShape instanceof PathShape) {
-                path1.close();
-                path2 = mPathPool.acquire();
-                path2.reset();
-                path2.addArc(-radius, -radius, radius, radius, 270, barrierRotation);
-                path2.lineTo(0, 0);
-                path2.close();
-                //                LogUtils.d(TAG, "updateRadar op 1 size=" + shapeList.size() + " " + minDistanceInMeter);
-                //                sendRadarMsg();
-                path2.op(path1, Path.Op.DIFFERENCE);
-                //                LogUtils.d(TAG, "updateRadar op 2");
-                //                removeRadarMsg();
+            if ((distanceInMeter >= visibleDistanceInHsi || i == size - 1)
+                    && !outline.isEmpty() && barrierFromAngle >= 0) {
+                outline.close();
                 int areaColor;
-                if (minDistanceInMeter > mHorizontalPerceptionDistance) {
+                if (minDistanceInMeter > horizontalPerceptionDistance) {
                     areaColor = levelColor[0];//
-                } else if (minDistanceInMeter > mHorizontalBarrierAvoidanceDistance + 2) {
+                } else if (minDistanceInMeter > horizontalBarrierAvoidanceDistance + 2) {
                     // feature HYAPP-10551 避障变红由【刹停距离】改为【刹停距离+2m】
                     areaColor = levelColor[1];
                 } else {
                     areaColor = levelColor[2];
                 }
-                PathShape pathShape = (PathShape) lastShape;
-                pathShape.mColor = areaColor;
-                pathShape.mPath = path2;
+                Path area = geometry.addPath(barrierFromAngle, areaColor);
+                area.addArc(-radius, -radius, radius, radius, 270, barrierRotation);
+                area.lineTo(0, 0);
+                area.close();
+                //todo：必须重构path的布尔操作算法，怀疑是雷达传递数据有问题，导致方法卡死
+                area.op(outline, Path.Op.DIFFERENCE);
                 barrierRotation = 0;
-                shapeList.add(pathShape);
-                path1.reset();
-                lastShape = null;
+                outline.reset();
+                barrierFromAngle = -1;
                 minDistanceInMeter = Integer.MAX_VALUE;
             }
         }
-        mPathPool.recycle(path1);
-        return shapeList;
     }
 
-    private static class Shape {
-        int mFromAngle;
-        int mColor;
-
-        public Shape(int fromAngle) {
-            mFromAngle = fromAngle;
-        }
-    }
-
-    private static class PathShape extends Shape {
-        Path mPath;
-
-        public PathShape(int fromAngle) {
-            super(fromAngle);
-        }
-
-        @Override
-        public String toString() {
-            return "PathShape{" +
-                    "mFromAngle=" + mFromAngle +
-                    '}';
-        }
-    }
-
-    private static class ArcShape extends Shape {
-        int mToAngle;
-
-        public ArcShape(int fromAngle) {
-            super(fromAngle);
-            mToAngle = fromAngle;
-        }
-
-        @Override
-        public String toString() {
-            return "ArcShape{" +
-                    "mFromAngle=" + mFromAngle +
-                    ", mToAngle=" + mToAngle +
-                    '}';
-        }
-    }
+    private static class GeometryPool extends RecyclerPool<PerceptionGeometry> {
 
-    private static class PathPool extends RecyclerPool<Path> {
+        private final AtomicLong mAllocationCount;
 
-        public PathPool(int maxPoolSize) {
+        public GeometryPool(int maxPoolSize, AtomicLong allocationCount) {
             super(maxPoolSize);
+            mAllocationCount = allocationCount;
         }
 
         @NonNull
         @Override
-        protected Path create() {
-            return new Path();
+        protected PerceptionGeometry create() {
+            return new PerceptionGeometry(mAllocationCount);
         }
     }
 }
@@ -42,8 +42,8 @@ public class HSIWidgetModel extends WidgetModel implements LocationListener {
             Double.NaN));
     private final DataProcessor<FCFlightMode> flightModeProcessor = DataProcessor.create(FCFlightMode.UNKNOWN);
     private final DataProcessor<Boolean> multipleFlightModeEnabledProcessor = DataProcessor.create(false);
-    private final DataProcessor<Velocity3D> velocityProcessor = DataProcessor.create(new Velocity3D());
-    private final DataProcessor<Attitude> aircraftAttitudeProcessor = DataProcessor.create(new Attitude());
+    private final DataProcessor<Velocity3D> velocityProcessor = DataProcessor.createMulticast(new Velocity3D());
+    private final DataProcessor<Attitude> aircraftAttitudeProcessor = DataProcessor.createMulticast(new Attitude());
     private final DataProcessor<ProductType> productTypeDataProcessor = DataProcessor.create(ProductType.UNKNOWN);
     private final List<DataProcessor<Boolean>> gimbalConnectionProcessorList = new ArrayList<>();
     private final DataProcessor<Boolean> gimbalConnection0Processor = DataProcessor.create(false);
@@ -0,0 +1,158 @@
+package dji.v5.ux.core.ui.hsi;
+
+import android.graphics.Path;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 一帧 HSI 障碍物几何数据
+ * <p>
+ * 扇区距离保存在 int[] 中，形状以平行数组保存，Path 按槽位复用。一帧只会被一个线程写入：
+ * 后台线程写完后交给主线程绘制，绘制结束前不会再被写入，所以可以在计算线程和绘制线程之间传递。
+ * 所有数组和 Path 只在容量不足时分配，并计入 allocationCounter。
+ */
+final class PerceptionGeometry {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final AtomicLong allocationCounter;
+
+    /**
+     * 各扇区障碍物距离，单位 mm
+     */
+    private int[] sectors = new int[0];
+    private int sectorCount;
+
+    private int shapeCount;
+    private int[] fromAngles = new int[INITIAL_CAPACITY];
+    private int[] toAngles = new int[INITIAL_CAPACITY];
+    private int[] colors = new int[INITIAL_CAPACITY];
+    /**
+     * 形状对应的 Path 下标，-1 表示圆弧
+     */
+    private int[] pathIndexes = new int[INITIAL_CAPACITY];
+
+    private int pathCount;
+    private Path[] paths = new Path[INITIAL_CAPACITY];
+
+    @NonNull
+    private final Path outline = new Path();
+
+    PerceptionGeometry(@NonNull AtomicLong allocationCounter) {
+        this.allocationCounter = allocationCounter;
+        // 对象本身、6 个数组和 outline
+        allocationCounter.addAndGet(8);
+    }
+
+    /**
+     * 拷贝扇区数据，只在这里拆箱一次
+     */
+    void setSectors(@NonNull List<Integer> distances) {
+        int size = distances.size();
+        if (sectors.length < size) {
+            sectors = new int[size];
+            allocationCounter.incrementAndGet();
+        }
+        for (int i = 0; i < size; i++) {
+            sectors[i] = distances.get(i);
+        }
+        sectorCount = size;
+    }
+
+    @NonNull
+    int[] getSectors() {
+        return sectors;
+    }
+
+    int getSectorCount() {
+        return sectorCount;
+    }
+
+    /**
+     * 清空形状，保留已分配的数组和 Path
+     */
+    void clearShapes() {
+        shapeCount = 0;
+        pathCount = 0;
+    }
+
+    void addArc(int fromAngle, int toAngle, int color) {
+        int index = nextShape();
+        fromAngles[index] = fromAngle;
+        toAngles[index] = toAngle;
+        colors[index] = color;
+        pathIndexes[index] = -1;
+    }
+
+    /**
+     * @return 已重置的 Path，由调用方填充
+     */
+    @NonNull
+    Path addPath(int fromAngle, int color) {
+        int index = nextShape();
+        fromAngles[index] = fromAngle;
+        toAngles[index] = fromAngle;
+        colors[index] = color;
+        if (pathCount == paths.length) {
+            paths = Arrays.copyOf(paths, pathCount * 2);
+            allocationCounter.incrementAndGet();
+        }
+        Path path = paths[pathCount];
+        if (path == null) {
+            path = new Path();
+            paths[pathCount] = path;
+            allocationCounter.incrementAndGet();
+        }
+        path.reset();
+        pathIndexes[index] = pathCount++;
+        return path;
+    }
+
+    /**
+     * 计算障碍轮廓用的临时 Path
+     */
+    @NonNull
+    Path getOutline() {
+        return outline;
+    }
+
+    int getShapeCount() {
+        return shapeCount;
+    }
+
+    int getFromAngle(int index) {
+        return fromAngles[index];
+    }
+
+    int getToAngle(int index) {
+        return toAngles[index];
+    }
+
+    int getColor(int index) {
+        return colors[index];
+    }
+
+    /**
+     * @return 形状对应的 Path，圆弧返回 null
+     */
+    Path getPath(int index) {
+        int pathIndex = pathIndexes[index];
+        return pathIndex < 0 ? null : paths[pathIndex];
+    }
+
+    private int nextShape() {
+        if (shapeCount == fromAngles.length) {
+            int capacity = shapeCount * 2;
+            fromAngles = Arrays.copyOf(fromAngles, capacity);
+            toAngles = Arrays.copyOf(toAngles, capacity);
+            colors = Arrays.copyOf(colors, capacity);
+            pathIndexes = Arrays.copyOf(pathIndexes, capacity);
+            allocationCounter.addAndGet(4);
+        }
+        return shapeCount++;
+    }
+}
@@ -1,37 +1,8 @@
 package dji.v5.ux.core.ui.hsi
-import java.util.*
 
-abstract class RecyclerPool<T>(poolSize: Int) {
-    private val mPoolSize: Int
-    private val mList: MutableList<T>
+import dji.v5.ux.core.util.ObjectPool
 
-    init {
-        mList = LinkedList()
-        mPoolSize = poolSize
-    }
-
-    @Synchronized
-    fun acquire(): T {
-        val n = mList.size
-        return if (n == 0) {
-            create()
-        } else {
-            mList.removeAt(0)
-        }
-    }
-
-    protected abstract fun create(): T
-    @Synchronized
-    fun recycle(t: T): Boolean {
-        if (mList.size < mPoolSize) {
-            mList.add(t)
-            return true
-        }
-        return false
-    }
-
-    @Synchronized
-    fun clear() {
-        mList.clear()
-    }
-}
\ No newline at end of file
+/**
+ * HSI 图层使用的对象池，基于无锁的 [ObjectPool]
+ */
+abstract class RecyclerPool<T>(poolSize: Int) : ObjectPool<T>(poolSize)
@@ -24,6 +24,7 @@
 package dji.v5.ux.core.util;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import dji.v5.ux.core.base.SchedulerProvider;
 import io.reactivex.rxjava3.core.Flowable;
@@ -41,6 +42,12 @@ public final class DataProcessor<T> {
 
     private final T defaultValue;
 
+    @Nullable
+    private final SchedulerHop<T> computationHop;
+
+    @Nullable
+    private final SchedulerHop<T> uiHop;
+
     /**
      * Creates a DataProcessor with the given default value
      *
@@ -53,9 +60,36 @@ public final class DataProcessor<T> {
         return new DataProcessor<>(defaultValue);
     }
 
+    /**
+     * Creates a multicast DataProcessor with the given default value. All subscribers of
+     * {@link #toFlowable()} share one hop to the computation scheduler and all subscribers of
+     * {@link #toFlowableOnUI()} share one hop to the UI scheduler; items are then delivered to
+     * each subscriber synchronously on that thread, keeping only the latest pending item.
+     * Use this for hot processors with several subscribers.
+     *
+     * @param defaultValue The first item that will be emitted
+     * @param <T>          The type of item the processor will emit
+     * @return The constructed DataProcessor
+     */
+    @NonNull
+    public static <T> DataProcessor<T> createMulticast(@NonNull T defaultValue) {
+        return new DataProcessor<>(defaultValue, true);
+    }
+
     private DataProcessor(@NonNull T defaultValue) {
+        this(defaultValue, false);
+    }
+
+    private DataProcessor(@NonNull T defaultValue, boolean multicast) {
         processor = BehaviorProcessor.createDefault(defaultValue);
         this.defaultValue = defaultValue;
+        if (multicast) {
+            computationHop = new SchedulerHop<>(processor, SchedulerProvider::computation);
+            uiHop = new SchedulerHop<>(processor, SchedulerProvider::ui);
+        } else {
+            computationHop = null;
+            uiHop = null;
+        }
     }
 
     /**
@@ -104,15 +138,41 @@ public final class DataProcessor<T> {
      */
     @NonNull
     public Flowable<T> toFlowable() {
+        if (computationHop != null) {
+            return computationHop.toFlowable();
+        }
         return processor.observeOn(SchedulerProvider.computation()).onBackpressureLatest();
     }
 
     @NonNull
     public Flowable<T> toFlowableOnUI() {
+        if (uiHop != null) {
+            return uiHop.toFlowable();
+        }
         return processor.observeOn(SchedulerProvider.ui()).onBackpressureLatest();
     }
 
     public Observable<T> toObservableOnUI() {
         return toFlowableOnUI().toObservable();
     }
+
+    /**
+     * Get the number of tasks posted to the computation and UI schedulers by a multicast
+     * processor. Together with {@link #getDeliveryCount()} this shows how many subscribers
+     * each hop served.
+     *
+     * @return The number of scheduler posts, or 0 if the processor is not multicast
+     */
+    public long getPostCount() {
+        return computationHop == null || uiHop == null ? 0 : computationHop.getPostCount() + uiHop.getPostCount();
+    }
+
+    /**
+     * Get the number of items delivered to subscribers by a multicast processor.
+     *
+     * @return The number of deliveries, or 0 if the processor is not multicast
+     */
+    public long getDeliveryCount() {
+        return computationHop == null || uiHop == null ? 0 : computationHop.getDeliveryCount() + uiHop.getDeliveryCount();
+    }
 }
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.util;
+
+import android.widget.TextView;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Formats numbers with a fixed number of fraction digits into a reusable char buffer and
+ * shows them in a {@link TextView} through {@link TextView#setText(char[], int, int)}.
+ * <p>
+ * Telemetry values arrive several times a second. Formatting them with {@link DecimalFormat}
+ * or {@link String#format(String, Object...)} creates a string, a formatter state and boxed
+ * arguments on every update. This class writes the digits directly into a char array and
+ * does not touch the view when it already shows the rendered text. A constant prefix and suffix,
+ * such as a unit, are copied into the same buffer.
+ * <p>
+ * Values are shown as given, unless they are passed as metric values together with a
+ * {@link UnitConversionUtil.UnitType} and a {@link Quantity}, in which case they are converted
+ * with {@link UnitConversionUtil} first.
+ * <p>
+ * Decimal separator, minus sign and digits follow the default locale, unless a locale is
+ * given. The symbols are looked up once per locale.
+ * <p>
+ * A text view keeps a reference to the buffer it was given, so use one instance per text view.
+ * Instances must be used on the UI thread.
+ */
+public final class FixedPointFormatter {
+
+    private static final int MAX_FRACTION_DIGITS = 9;
+    private static final int BUFFER_SIZE = 32;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L
+    };
+    private static final ConcurrentHashMap<Locale, Symbols> SYMBOLS = new ConcurrentHashMap<>();
+
+    /**
+     * The kind of a metric value, which decides how it is converted to imperial units
+     */
+    public enum Quantity {
+        /**
+         * Meters, shown as feet in imperial units
+         */
+        LENGTH,
+        /**
+         * Meters per second, shown as miles per hour in imperial units
+         */
+        SPEED
+    }
+
+    private final int minIntegerDigits;
+    private final int minFractionDigits;
+    private final int maxFractionDigits;
+    private final boolean showPlusSign;
+    @Nullable
+    private final Locale fixedLocale;
+
+    private Locale cachedLocale;
+    private Symbols cachedSymbols;
+
+    /**
+     * Digits are written right aligned in front of the suffix, see {@link #setText(TextView, String, double, String)}
+     */
+    private char[] scratch = new char[BUFFER_SIZE];
+    /**
+     * The array last given to a text view, which keeps a reference to it
+     */
+    private char[] shown = new char[BUFFER_SIZE];
+
+    /**
+     * @param minIntegerDigits  Integer digits that are always shown, padded with zeros
+     * @param minFractionDigits Fraction digits that are always shown
+     * @param maxFractionDigits Fraction digits the value is rounded to, at most 9.
+     *                          Trailing zeros beyond minFractionDigits are dropped.
+     * @param showPlusSign      Whether positive values start with a plus sign
+     */
+    public FixedPointFormatter(int minIntegerDigits, int minFractionDigits, int maxFractionDigits, boolean showPlusSign) {
+        this(minIntegerDigits, minFractionDigits, maxFractionDigits, showPlusSign, null);
+    }
+
+    /**
+     * @param locale Locale of the decimal symbols, or null to follow the default locale
+     */
+    public FixedPointFormatter(int minIntegerDigits, int minFractionDigits, int maxFractionDigits, boolean showPlusSign,
+                               @Nullable Locale locale) {
+        if (minIntegerDigits < 0 || minFractionDigits < 0 || maxFractionDigits < minFractionDigits
+                || maxFractionDigits > MAX_FRACTION_DIGITS || minIntegerDigits > BUFFER_SIZE - MAX_FRACTION_DIGITS - 2) {
+            throw new IllegalArgumentException("Invalid digit counts");
+        }
+        this.minIntegerDigits = minIntegerDigits;
+        this.minFractionDigits = minFractionDigits;
+        this.maxFractionDigits = maxFractionDigits;
+        this.showPlusSign = showPlusSign;
+        this.fixedLocale = locale;
+    }
+
+    /**
+     * Create a formatter that renders like a simple {@link DecimalFormat} pattern such as
+     * "###0.0" or "+#00.000000;-#00.000000".
+     *
+     * @return The formatter, or null if the format uses grouping, exponents, multipliers or
+     * affixes other than a plus sign, which have to be formatted by the {@link DecimalFormat}
+     */
+    @Nullable
+    public static FixedPointFormatter fromDecimalFormat(@NonNull DecimalFormat decimalFormat) {
+        String positivePrefix = decimalFormat.getPositivePrefix();
+        boolean showPlusSign = "+".equals(positivePrefix);
+        boolean supported = decimalFormat.getMultiplier() == 1
+                && !decimalFormat.isGroupingUsed()
+                && !decimalFormat.toPattern().contains("E")
+                && (positivePrefix.isEmpty() || showPlusSign)
+                && decimalFormat.getPositiveSuffix().isEmpty()
+                && decimalFormat.getNegativeSuffix().isEmpty()
+                && isMinusPrefix(decimalFormat.getNegativePrefix(), decimalFormat.getDecimalFormatSymbols())
+                && decimalFormat.getMaximumFractionDigits() <= MAX_FRACTION_DIGITS
+                && decimalFormat.getMinimumIntegerDigits() <= BUFFER_SIZE - MAX_FRACTION_DIGITS - 2;
+        if (!supported) {
+            return null;
+        }
+        return new FixedPointFormatter(decimalFormat.getMinimumIntegerDigits(),
+                decimalFormat.getMinimumFractionDigits(),
+                decimalFormat.getMaximumFractionDigits(),
+                showPlusSign);
+    }
+
+    /**
+     * Show a value in the text view. Nothing happens if the view already shows the same text.
+     *
+     * @return true if the text of the view was updated
+     */
+    public boolean setText(@NonNull TextView textView, double value) {
+        return setText(textView, null, value, null);
+    }
+
+    /**
+     * Show a value followed by a suffix, such as a unit, in the text view.
+     *
+     * @return true if the text of the view was updated
+     */
+    public boolean setText(@NonNull TextView textView, double value, @Nullable String suffix) {
+        return setText(textView, null, value, suffix);
+    }
+
+    /**
+     * Convert a metric value to the given unit type and show it in the text view.
+     *
+     * @param metricValue The value in meters or meters per second
+     * @param unitType    The unit type to show the value in
+     * @param quantity    The kind of the value
+     * @return true if the text of the view was updated
+     */
+    public boolean setText(@NonNull TextView textView, double metricValue,
+                           @NonNull UnitConversionUtil.UnitType unitType, @NonNull Quantity quantity) {
+        return setText(textView, null, convert(metricValue, unitType, quantity), null);
+    }
+
+    /**
+     * Show a value between a prefix and a suffix in the text view. Nothing happens if the view
+     * already shows the same text.
+     *
+     * @return true if the text of the view was updated
+     */
+    public boolean setText(@NonNull TextView textView, @Nullable String prefix, double value, @Nullable String suffix) {
+        if (!isFormattable(value)) {
+            textView.setText(concat(prefix, String.valueOf(value), suffix));
+            return true;
+        }
+        int prefixLength = prefix == null ? 0 : prefix.length();
+        int suffixLength = suffix == null ? 0 : suffix.length();
+        if (scratch.length < BUFFER_SIZE + prefixLength + suffixLength) {
+            scratch = new char[BUFFER_SIZE + prefixLength + suffixLength];
+        }
+        int start = render(prefix, value, suffix, scratch);
+        int length = scratch.length - start;
+        if (contentEquals(textView.getText(), scratch, start, length)) {
+            return false;
+        }
+        // The view keeps a reference to the array, so the next value is written into the other one.
+        textView.setText(scratch, start, length);
+        char[] previous = shown;
+        shown = scratch;
+        scratch = previous;
+        return true;
+    }
+
+    /**
+     * Format a value into a new string. For code paths that need a {@link String}.
+     */
+    @NonNull
+    public String format(double value) {
+        return format(value, null);
+    }
+
+    /**
+     * Format a value followed by a suffix into a new string. For code paths that need a {@link String}.
+     */
+    @NonNull
+    public String format(double value, @Nullable String suffix) {
+        if (!isFormattable(value)) {
+            return concat(null, String.valueOf(value), suffix);
+        }
+        char[] buffer = new char[BUFFER_SIZE + (suffix == null ? 0 : suffix.length())];
+        int start = render(null, value, suffix, buffer);
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * Convert a metric value to the given unit type with {@link UnitConversionUtil}.
+     */
+    public static double convert(double metricValue, @NonNull UnitConversionUtil.UnitType unitType, @NonNull Quantity quantity) {
+        if (unitType != UnitConversionUtil.UnitType.IMPERIAL) {
+            return metricValue;
+        }
+        return quantity == Quantity.SPEED
+                ? UnitConversionUtil.convertMetersPerSecToMilesPerHr(metricValue)
+                : UnitConversionUtil.convertMetersToFeet(metricValue);
+    }
+
+    private boolean isFormattable(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value)
+                && Math.abs(value) * POWERS_OF_TEN[maxFractionDigits] < Long.MAX_VALUE;
+    }
+
+    /**
+     * Write prefix, value and suffix so that the text ends at the end of the buffer. The buffer
+     * has room for {@link #BUFFER_SIZE} chars plus the prefix and suffix.
+     *
+     * @return The index of the first char
+     */
+    private int render(@Nullable String prefix, double value, @Nullable String suffix, char[] buffer) {
+        int end = buffer.length;
+        if (suffix != null) {
+            end -= suffix.length();
+            suffix.getChars(0, suffix.length(), buffer, end);
+        }
+        int start = format(value, buffer, end);
+        if (prefix != null) {
+            start -= prefix.length();
+            prefix.getChars(0, prefix.length(), buffer, start);
+        }
+        return start;
+    }
+
+    @NonNull
+    private static String concat(@Nullable String prefix, @NonNull String value, @Nullable String suffix) {
+        if (prefix == null && suffix == null) {
+            return value;
+        }
+        return (prefix == null ? "" : prefix) + value + (suffix == null ? "" : suffix);
+    }
+
+    /**
+     * Write the value right aligned into the buffer, ending before index end
+     *
+     * @return The index of the first char
+     */
+    private int format(double value, char[] buffer, int end) {
+        Symbols symbols = getSymbols();
+        long scaled = Math.round(Math.abs(value) * POWERS_OF_TEN[maxFractionDigits]);
+        boolean negative = value < 0 && scaled != 0;
+
+        int fractionDigits = maxFractionDigits;
+        while (fractionDigits > minFractionDigits && scaled % 10 == 0) {
+            scaled /= 10;
+            fractionDigits--;
+        }
+
+        int index = end;
+        for (int i = 0; i < fractionDigits; i++) {
+            buffer[--index] = (char) (symbols.zeroDigit + scaled % 10);
+            scaled /= 10;
+        }
+        if (fractionDigits > 0) {
+            buffer[--index] = symbols.decimalSeparator;
+        }
+        int integerDigits = 0;
+        while (scaled != 0 || integerDigits < minIntegerDigits) {
+            buffer[--index] = (char) (symbols.zeroDigit + scaled % 10);
+            scaled /= 10;
+            integerDigits++;
+        }
+        if (index == end) {
+            // "#" pattern with a value that rounds to zero
+            buffer[--index] = symbols.zeroDigit;
+        }
+        if (negative) {
+            buffer[--index] = symbols.minusSign;
+        } else if (showPlusSign) {
+            buffer[--index] = '+';
+        }
+        return index;
+    }
+
+    private static boolean contentEquals(@Nullable CharSequence text, char[] chars, int start, int length) {
+        if (text == null || text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Symbols getSymbols() {
+        Locale locale = fixedLocale != null ? fixedLocale : Locale.getDefault();
+        if (locale != cachedLocale) {
+            Symbols symbols = SYMBOLS.get(locale);
+            if (symbols == null) {
+                symbols = new Symbols(DecimalFormatSymbols.getInstance(locale));
+                SYMBOLS.put(locale, symbols);
+            }
+            cachedLocale = locale;
+            cachedSymbols = symbols;
+        }
+        return cachedSymbols;
+    }
+
+    private static boolean isMinusPrefix(String negativePrefix, DecimalFormatSymbols symbols) {
+        return negativePrefix.length() == 1
+                && (negativePrefix.charAt(0) == '-' || negativePrefix.charAt(0) == symbols.getMinusSign());
+    }
+
+    private static final class Symbols {
+        final char zeroDigit;
+        final char decimalSeparator;
+        final char minusSign;
+
+        Symbols(DecimalFormatSymbols symbols) {
+            zeroDigit = symbols.getZeroDigit();
+            decimalSeparator = symbols.getDecimalSeparator();
+            minusSign = symbols.getMinusSign();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Fixed capacity object pool that is safe to use from several threads without locking.
+ * <p>
+ * Pooled objects live in a fixed array of slots that are claimed and filled with
+ * compare-and-set, so neither {@link #acquire()} nor {@link #recycle(Object)} allocates.
+ * A shared hint points at the slot most likely to be filled, which keeps single-threaded
+ * use close to a plain array stack; under contention threads simply move on to the next slot.
+ * <p>
+ * The pool does not track which objects it handed out. Recycling an object that is still
+ * in use, or recycling it twice, is a caller error.
+ *
+ * @param <T> the type of pooled object
+ */
+public abstract class ObjectPool<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int capacity;
+    private final AtomicInteger hint = new AtomicInteger(0);
+
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private final AtomicLong overflowCount = new AtomicLong(0);
+
+    /**
+     * @param capacity Maximum number of idle objects kept by the pool
+     */
+    protected ObjectPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Pool capacity must be positive");
+        }
+        this.capacity = capacity;
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Create a new object when the pool is empty
+     */
+    @NonNull
+    protected abstract T create();
+
+    /**
+     * Take an idle object from the pool, or create one if there is none.
+     */
+    @NonNull
+    public T acquire() {
+        int start = Math.min(hint.get(), capacity) - 1;
+        // Scan down from the hint first, where recycled objects are most likely to be.
+        for (int i = start; i >= 0; i--) {
+            T t = take(i);
+            if (t != null) {
+                return t;
+            }
+        }
+        for (int i = capacity - 1; i > start; i--) {
+            T t = take(i);
+            if (t != null) {
+                return t;
+            }
+        }
+        missCount.incrementAndGet();
+        return create();
+    }
+
+    /**
+     * Return an object to the pool.
+     *
+     * @return false if the pool is full and the object was dropped
+     */
+    public boolean recycle(@NonNull T t) {
+        int start = Math.max(hint.get(), 0);
+        for (int i = start; i < capacity; i++) {
+            if (put(i, t)) {
+                return true;
+            }
+        }
+        for (int i = Math.min(start, capacity) - 1; i >= 0; i--) {
+            if (put(i, t)) {
+                return true;
+            }
+        }
+        overflowCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Drop all idle objects
+     */
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, null);
+        }
+        hint.set(0);
+    }
+
+    /**
+     * @return Maximum number of idle objects kept by the pool
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of idle objects currently in the pool. Only a snapshot under concurrent use.
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of {@link #acquire()} calls served from the pool
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return Number of {@link #acquire()} calls that had to create a new object
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return Number of {@link #recycle(Object)} calls dropped because the pool was full
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    private T take(int index) {
+        T t = slots.get(index);
+        if (t != null && slots.compareAndSet(index, t, null)) {
+            hint.set(index);
+            hitCount.incrementAndGet();
+            return t;
+        }
+        return null;
+    }
+
+    private boolean put(int index, T t) {
+        if (slots.get(index) == null && slots.compareAndSet(index, null, t)) {
+            hint.set(index + 1);
+            return true;
+        }
+        return false;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "capacity=" + capacity +
+                ", hits=" + hitCount.get() +
+                ", misses=" + missCount.get() +
+                ", overflows=" + overflowCount.get() +
+                '}';
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.util;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import androidx.annotation.NonNull;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.FlowableEmitter;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.functions.Supplier;
+import io.reactivex.rxjava3.processors.BehaviorProcessor;
+
+/**
+ * Moves the items of a {@link BehaviorProcessor} onto a scheduler once and then fans them out
+ * synchronously to every subscriber on that scheduler's thread.
+ * <p>
+ * Items are conflated: while a hop is pending only the most recent item is kept, so a burst of
+ * updates results in a single task post no matter how many subscribers are attached.
+ *
+ * @param <T> the type of item emitted
+ */
+final class SchedulerHop<T> {
+
+    private final BehaviorProcessor<T> source;
+    private final Supplier<Scheduler> schedulerSupplier;
+    private final CopyOnWriteArrayList<FlowableEmitter<T>> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final AtomicLong postCount = new AtomicLong(0);
+    private final AtomicLong deliveryCount = new AtomicLong(0);
+    private final Flowable<T> flowable;
+    private final Runnable drainTask = this::drain;
+
+    private volatile Scheduler.Worker worker;
+    private Disposable upstream;
+
+    SchedulerHop(@NonNull BehaviorProcessor<T> source, @NonNull Supplier<Scheduler> schedulerSupplier) {
+        this.source = source;
+        this.schedulerSupplier = schedulerSupplier;
+        flowable = Flowable.create(this::add, BackpressureStrategy.LATEST);
+    }
+
+    @NonNull
+    Flowable<T> toFlowable() {
+        return flowable;
+    }
+
+    long getPostCount() {
+        return postCount.get();
+    }
+
+    long getDeliveryCount() {
+        return deliveryCount.get();
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private synchronized void add(FlowableEmitter<T> emitter) throws Throwable {
+        emitter.setCancellable(() -> remove(emitter));
+        subscribers.add(emitter);
+        if (worker == null) {
+            worker = schedulerSupplier.get().createWorker();
+            // The processor replays its current value here, which schedules the first drain.
+            upstream = source.subscribe(this::onUpstreamNext, this::onUpstreamError, this::onUpstreamComplete);
+        } else {
+            // Late subscribers only need the current value; the shared drain keeps them up to date afterwards.
+            postCount.incrementAndGet();
+            worker.schedule(() -> {
+                T value = latest.get();
+                if (value != null && !emitter.isCancelled()) {
+                    deliveryCount.incrementAndGet();
+                    emitter.onNext(value);
+                }
+            });
+        }
+    }
+
+    private synchronized void remove(FlowableEmitter<T> emitter) {
+        if (!subscribers.remove(emitter) || !subscribers.isEmpty()) {
+            return;
+        }
+        if (upstream != null) {
+            upstream.dispose();
+            upstream = null;
+        }
+        if (worker != null) {
+            worker.dispose();
+            worker = null;
+        }
+        drainScheduled.set(false);
+        latest.set(null);
+    }
+
+    private void onUpstreamNext(T value) {
+        latest.set(value);
+        Scheduler.Worker w = worker;
+        if (w != null && drainScheduled.compareAndSet(false, true)) {
+            postCount.incrementAndGet();
+            w.schedule(drainTask);
+        }
+    }
+
+    private void onUpstreamError(Throwable error) {
+        Scheduler.Worker w = worker;
+        if (w != null) {
+            w.schedule(() -> {
+                for (FlowableEmitter<T> emitter : subscribers) {
+                    emitter.onError(error);
+                }
+            });
+        }
+    }
+
+    private void onUpstreamComplete() {
+        Scheduler.Worker w = worker;
+        if (w != null) {
+            w.schedule(() -> {
+                for (FlowableEmitter<T> emitter : subscribers) {
+                    emitter.onComplete();
+                }
+            });
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        T value = latest.get();
+        if (value == null) {
+            return;
+        }
+        for (FlowableEmitter<T> emitter : subscribers) {
+            deliveryCount.incrementAndGet();
+            emitter.onNext(value);
+        }
+    }
+}
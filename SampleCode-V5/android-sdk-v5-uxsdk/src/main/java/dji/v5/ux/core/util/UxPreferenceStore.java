@@ -0,0 +1,657 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+import dji.v5.utils.common.LogUtils;
+import dji.v5.ux.BuildConfig;
+
+/**
+ * {@link SharedPreferences} implementation backed by an in-memory snapshot and a compact binary file.
+ * <p>
+ * Reads never touch the disk once the store is loaded. Edits update the snapshot immediately and only
+ * mark the store dirty; the first edit after a flush schedules one write {@link #FLUSH_DELAY_MS} later,
+ * and every edit made before that write runs is persisted by it. A burst of settings changes therefore
+ * costs a single file rewrite instead of one XML rewrite per value. Edits that do not change the stored
+ * value are dropped before they mark the store dirty. {@link Editor#commit()} writes synchronously, and
+ * every store is flushed when the app goes to the background.
+ * <p>
+ * When the binary file does not exist yet, the content of the legacy {@link SharedPreferences} file is
+ * imported once and written out in the new format. The legacy file is left untouched. A binary file that
+ * exists but cannot be read starts the store empty rather than importing the legacy values again.
+ */
+public final class UxPreferenceStore implements SharedPreferences {
+
+    private static final String TAG = "UxPreferenceStore";
+    private static final String DIR_NAME = "ux_prefs";
+    private static final int MAGIC = 0x55585046;
+    private static final int VERSION = 1;
+    static final long FLUSH_DELAY_MS = 300;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_STRING_SET = 6;
+
+    private static final Map<String, UxPreferenceStore> STORES = new HashMap<>();
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ux-prefs-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * The pending delayed write may never run if the process is killed in the background.
+     */
+    private static final DefaultLifecycleObserver FLUSH_ON_STOP = new DefaultLifecycleObserver() {
+        @Override
+        public void onStop(@NonNull LifecycleOwner owner) {
+            WRITER.execute(UxPreferenceStore::flushAll);
+        }
+    };
+    private static boolean flushOnStopRegistered;
+    private static volatile boolean readMetricsEnabled = BuildConfig.DEBUG;
+
+    private final String name;
+    private final AtomicFile file;
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<OnSharedPreferenceChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object writeLock = new Object();
+    private final Runnable flushTask = this::flush;
+
+    /**
+     * Incremented on every effective change; compared with {@link #flushedGeneration} to know
+     * whether the file is behind the snapshot.
+     */
+    private long generation;
+    private long flushedGeneration;
+    private boolean flushScheduled;
+
+    private final AtomicLong edits = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong readNanos = new AtomicLong();
+    private final AtomicLong maxReadNanos = new AtomicLong();
+
+    /**
+     * Returns the store with the given name, loading it on first use.
+     *
+     * @param name   name of the store, also used as the file name
+     * @param legacy SharedPreferences to import from when the store has never been written
+     */
+    @NonNull
+    public static UxPreferenceStore get(@NonNull Context context, @NonNull String name, @Nullable SharedPreferences legacy) {
+        synchronized (STORES) {
+            UxPreferenceStore store = STORES.get(name);
+            if (store == null) {
+                store = new UxPreferenceStore(context.getApplicationContext(), name, legacy);
+                STORES.put(name, store);
+            }
+            if (!flushOnStopRegistered) {
+                flushOnStopRegistered = true;
+                // Lifecycle observers must be added on the main thread
+                new Handler(Looper.getMainLooper()).post(() ->
+                        ProcessLifecycleOwner.get().getLifecycle().addObserver(FLUSH_ON_STOP));
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Writes every loaded store that is behind its snapshot. Blocks while writing.
+     */
+    public static void flushAll() {
+        List<UxPreferenceStore> stores;
+        synchronized (STORES) {
+            stores = new ArrayList<>(STORES.values());
+        }
+        for (UxPreferenceStore store : stores) {
+            store.flush();
+        }
+    }
+
+    /**
+     * Read latency is only measured when enabled, by default in debug builds.
+     */
+    public static void setReadMetricsEnabled(boolean enabled) {
+        readMetricsEnabled = enabled;
+    }
+
+    private UxPreferenceStore(Context context, String name, @Nullable SharedPreferences legacy) {
+        this.name = name;
+        File dir = new File(context.getFilesDir(), DIR_NAME);
+        if (!dir.exists() && !dir.mkdirs()) {
+            LogUtils.e(TAG, "Unable to create " + dir);
+        }
+        file = new AtomicFile(new File(dir, name + ".bin"));
+        if (!load() && legacy != null) {
+            migrate(legacy);
+        }
+    }
+
+    //region Read
+
+    @Override
+    public Map<String, ?> getAll() {
+        return new HashMap<>(values);
+    }
+
+    @Nullable
+    @Override
+    public String getString(String key, @Nullable String defValue) {
+        return (String) read(key, defValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+        return (Set<String>) read(key, defValues);
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        return (Integer) read(key, defValue);
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        return (Long) read(key, defValue);
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        return (Float) read(key, defValue);
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        return (Boolean) read(key, defValue);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    private Object read(String key, Object defValue) {
+        if (!readMetricsEnabled) {
+            Object value = values.get(key);
+            return value != null ? value : defValue;
+        }
+        long start = System.nanoTime();
+        Object value = values.get(key);
+        long cost = System.nanoTime() - start;
+        reads.incrementAndGet();
+        readNanos.addAndGet(cost);
+        long max = maxReadNanos.get();
+        while (cost > max && !maxReadNanos.compareAndSet(max, cost)) {
+            max = maxReadNanos.get();
+        }
+        return value != null ? value : defValue;
+    }
+    //endregion
+
+    //region Write
+
+    @Override
+    public Editor edit() {
+        return new StoreEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Applies the edits to the snapshot and schedules a flush when something changed.
+     *
+     * @param updates new values, {@code null} values remove the key
+     */
+    private void applyEdits(boolean clear, Map<String, Object> updates) {
+        Set<String> changedKeys = new HashSet<>();
+        synchronized (writeLock) {
+            edits.addAndGet(updates.size() + (clear ? 1 : 0));
+            int clearedCount = 0;
+            if (clear) {
+                clearedCount = values.size();
+                values.clear();
+            }
+            for (Map.Entry<String, Object> entry : updates.entrySet()) {
+                Object value = entry.getValue();
+                Object old = value == null ? values.remove(entry.getKey()) : values.put(entry.getKey(), value);
+                if (!Objects.equals(old, value)) {
+                    changedKeys.add(entry.getKey());
+                }
+            }
+            if (clearedCount + changedKeys.size() > 0) {
+                changes.addAndGet(clearedCount + changedKeys.size());
+                generation++;
+                if (!flushScheduled) {
+                    flushScheduled = true;
+                    WRITER.schedule(flushTask, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (clear || !changedKeys.isEmpty()) {
+            notifyListeners(clear, changedKeys);
+        }
+    }
+
+    /**
+     * Like the platform implementation, a clear is reported once with a {@code null} key, followed by
+     * the keys the same editor put or removed.
+     */
+    private void notifyListeners(boolean cleared, Set<String> keys) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        mainHandler.post(() -> {
+            if (cleared) {
+                for (OnSharedPreferenceChangeListener listener : listeners) {
+                    listener.onSharedPreferenceChanged(this, null);
+                }
+            }
+            for (String key : keys) {
+                for (OnSharedPreferenceChangeListener listener : listeners) {
+                    listener.onSharedPreferenceChanged(this, key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the snapshot if the file is behind it. Safe to call from any thread; blocks while writing.
+     *
+     * @return false if the write failed
+     */
+    public boolean flush() {
+        Map<String, Object> snapshot;
+        long snapshotGeneration;
+        synchronized (writeLock) {
+            flushScheduled = false;
+            if (flushedGeneration == generation) {
+                return true;
+            }
+            snapshot = new HashMap<>(values);
+            snapshotGeneration = generation;
+        }
+        // Writes are serialized on the file so a synchronous commit and the scheduled flush never interleave
+        synchronized (file) {
+            if (snapshotGeneration <= getFlushedGeneration()) {
+                return true;
+            }
+            FileOutputStream out = null;
+            try {
+                byte[] data = encode(snapshot);
+                out = file.startWrite();
+                out.write(data);
+                file.finishWrite(out);
+                flushes.incrementAndGet();
+                bytesWritten.addAndGet(data.length);
+                synchronized (writeLock) {
+                    flushedGeneration = Math.max(flushedGeneration, snapshotGeneration);
+                }
+                return true;
+            } catch (IOException e) {
+                LogUtils.e(TAG, "Failed to write " + name + ": " + e.getMessage());
+                if (out != null) {
+                    file.failWrite(out);
+                }
+                return false;
+            }
+        }
+    }
+
+    private long getFlushedGeneration() {
+        synchronized (writeLock) {
+            return flushedGeneration;
+        }
+    }
+    //endregion
+
+    //region Persistence
+
+    /**
+     * @return false only if the store has never been written; a file that cannot be read still counts
+     * as written, so stale legacy values are not imported over the newer data it held
+     */
+    private boolean load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                LogUtils.e(TAG, name + " has an unknown format, ignored");
+                return true;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                values.put(key, readValue(in));
+            }
+            return true;
+        } catch (FileNotFoundException e) {
+            return false;
+        } catch (IOException e) {
+            LogUtils.e(TAG, "Failed to read " + name + ": " + e.getMessage());
+            values.clear();
+            return true;
+        }
+    }
+
+    private void migrate(SharedPreferences legacy) {
+        Map<String, ?> all = legacy.getAll();
+        Map<String, Object> imported = new HashMap<>();
+        for (Map.Entry<String, ?> entry : all.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Set) {
+                @SuppressWarnings("unchecked")
+                Set<String> set = (Set<String>) value;
+                value = Collections.unmodifiableSet(new HashSet<>(set));
+            }
+            if (value != null) {
+                imported.put(entry.getKey(), value);
+            }
+        }
+        LogUtils.i(TAG, "Migrating " + imported.size() + " values into " + name);
+        applyEdits(false, imported);
+    }
+
+    private static byte[] encode(Map<String, Object> snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + snapshot.size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Set) {
+            Set<String> set = (Set<String>) value;
+            out.writeByte(TYPE_STRING_SET);
+            out.writeInt(set.size());
+            for (String item : set) {
+                writeString(out, item);
+            }
+        } else {
+            throw new IOException("Unsupported value type " + value.getClass());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_STRING_SET:
+                int size = in.readInt();
+                Set<String> set = new HashSet<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    set.add(readString(in));
+                }
+                return Collections.unmodifiableSet(set);
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    /**
+     * Length prefixed UTF-8; unlike {@link DataOutputStream#writeUTF(String)} it has no 64KB limit.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    //endregion
+
+    //region Stats
+
+    @NonNull
+    public Stats getStats() {
+        return new Stats(edits.get(), changes.get(), flushes.get(), bytesWritten.get(), reads.get(), readNanos.get(),
+                maxReadNanos.get());
+    }
+
+    /**
+     * Snapshot of the write and read counters of a store.
+     */
+    public static final class Stats {
+        private final long edits;
+        private final long changes;
+        private final long flushes;
+        private final long bytesWritten;
+        private final long reads;
+        private final long readNanos;
+        private final long maxReadNanos;
+
+        Stats(long edits, long changes, long flushes, long bytesWritten, long reads, long readNanos, long maxReadNanos) {
+            this.edits = edits;
+            this.changes = changes;
+            this.flushes = flushes;
+            this.bytesWritten = bytesWritten;
+            this.reads = reads;
+            this.readNanos = readNanos;
+            this.maxReadNanos = maxReadNanos;
+        }
+
+        /**
+         * @return number of values put or removed through editors
+         */
+        public long getEdits() {
+            return edits;
+        }
+
+        /**
+         * @return number of edits that actually changed a value
+         */
+        public long getChanges() {
+            return changes;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        /**
+         * @return file rewrites per edit; a store that rewrites on every apply has a value of 1
+         */
+        public double getWriteAmplification() {
+            return edits == 0 ? 0 : (double) flushes / edits;
+        }
+
+        /**
+         * @return number of reads measured; zero unless {@link #setReadMetricsEnabled(boolean)} is on
+         */
+        public long getReads() {
+            return reads;
+        }
+
+        public double getAverageReadMicros() {
+            return reads == 0 ? 0 : readNanos / 1000.0 / reads;
+        }
+
+        public double getMaxReadMicros() {
+            return maxReadNanos / 1000.0;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "edits=%d, changes=%d, flushes=%d (%.2f per edit), bytesWritten=%d, reads=%d, avgRead=%.2fus, maxRead=%.2fus",
+                    edits, changes, flushes, getWriteAmplification(), bytesWritten, reads, getAverageReadMicros(), getMaxReadMicros());
+        }
+    }
+    //endregion
+
+    /**
+     * Collects edits and hands them to the store in one batch.
+     */
+    private final class StoreEditor implements Editor {
+        private final Map<String, Object> updates = new HashMap<>();
+        private boolean clear;
+
+        @Override
+        public Editor putString(String key, @Nullable String value) {
+            updates.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, @Nullable Set<String> values) {
+            updates.put(key, values == null ? null : Collections.unmodifiableSet(new HashSet<>(values)));
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            updates.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            updates.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            updates.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            updates.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            updates.put(key, null);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            applyEdits(clear, updates);
+            return flush();
+        }
+
+        @Override
+        public void apply() {
+            applyEdits(clear, updates);
+        }
+    }
+}
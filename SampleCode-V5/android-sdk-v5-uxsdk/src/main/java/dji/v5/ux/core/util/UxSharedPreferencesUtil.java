@@ -7,6 +7,8 @@ import android.preference.PreferenceManager;
 
 import java.util.Set;
 
+import androidx.annotation.NonNull;
+
 /**
  * @author dnld
  * @date 31/07/16
@@ -18,7 +20,7 @@ public class UxSharedPreferencesUtil {
 
     private static volatile boolean INITIALIZED = false;
     private static String sUserId;
-    private static SharedPreferences SP;
+    private static UxPreferenceStore SP;
 
     private UxSharedPreferencesUtil() {
     }
@@ -31,7 +33,9 @@ public class UxSharedPreferencesUtil {
             return;
         }
         sUserId = "ux_" + context.getPackageName();
-        SP = PreferenceManager.getDefaultSharedPreferences(context);
+        // 首次使用时从原来的默认SharedPreferences文件导入
+        SP = UxPreferenceStore.get(context, context.getPackageName() + "_preferences",
+                PreferenceManager.getDefaultSharedPreferences(context));
         INITIALIZED = true;
     }
 
@@ -51,10 +55,30 @@ public class UxSharedPreferencesUtil {
         sUserId = userId;
     }
 
+    /**
+     * 多个值一起修改时使用同一个Editor，只会触发一次写盘
+     */
     public static SharedPreferences.Editor getEditor() {
         return SP.edit();
     }
 
+    /**
+     * 立即把内存中的修改写到磁盘，不应该在主线程调用
+     *
+     * @return 写盘失败时返回false
+     */
+    public static boolean flush() {
+        return SP.flush();
+    }
+
+    /**
+     * @return 写盘次数和读取耗时的统计
+     */
+    @NonNull
+    public static UxPreferenceStore.Stats getStats() {
+        return SP.getStats();
+    }
+
     /**
      * @param key
      * @return Returns if that key exists
@@ -91,7 +115,7 @@ public class UxSharedPreferencesUtil {
 
     /**
      * {@link #putString(String, String, boolean)} 是现将数据存储到内存中然后异步更新到磁盘，
-     * 因此可以在主线程调用，但是缺点是如果调用的时候突然crash导致APP退出的话有可能没有
+     * 一段时间内的多次修改合并为一次写盘，因此可以在主线程调用，但是缺点是如果调用的时候突然crash导致APP退出的话有可能没有
      * 将数据持久化到磁盘，而 {@link #commitString(String, String, boolean)} 则是同步的方法
      * 直接将数据存储到磁盘，但是不应该在主线程调用。
      *
@@ -176,7 +200,7 @@ public class UxSharedPreferencesUtil {
      * @return Returns the stored value of 'what'
      */
     public static double getDouble(String key, double defValue, boolean user) {
-        if (!contains(key)) {
+        if (!contains(user ? key + sUserId : key)) {
             return defValue;
         }
         return Double.longBitsToDouble(getLong(key, 0, user));
@@ -221,9 +245,11 @@ public class UxSharedPreferencesUtil {
 
     public static void remove(boolean user, String... keys) {
         if (keys != null && keys.length > 0) {
+            SharedPreferences.Editor editor = getEditor();
             for (String key : keys) {
-                remove(key, user);
+                editor.remove(user ? key + sUserId : key);
             }
+            editor.apply();
         }
     }
 
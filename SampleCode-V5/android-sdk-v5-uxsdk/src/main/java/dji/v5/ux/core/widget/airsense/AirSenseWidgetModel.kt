@@ -54,6 +54,10 @@ class AirSenseWidgetModel @JvmOverloads constructor(
     private val sendWarningMessageKey: UXKey = UXKeys.create(MessagingKeys.SEND_WARNING_MESSAGE)
     private val airSenseStateProcessor: DataProcessor<AirSenseState> = DataProcessor.create(AirSenseState.DISCONNECTED)
 
+    init {
+        setStateUpdateMode(StateUpdateMode.COALESCED_WINDOW)
+    }
+
     //region Data
     /**
      * Get the AirSense warning level.
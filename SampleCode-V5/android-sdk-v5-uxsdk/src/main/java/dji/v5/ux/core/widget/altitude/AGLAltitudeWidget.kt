@@ -105,8 +105,7 @@ open class AGLAltitudeWidget @JvmOverloads constructor(
                 setValueTextViewMinWidthByText("888.8")
             }
             unitString = getDistanceString(altitudeState.unitType)
-            valueString = getDecimalFormat(altitudeState.unitType)
-                    .format(altitudeState.altitudeAGL).toString()
+            setValue(altitudeState.altitudeAGL, altitudeState.unitType)
         } else {
             unitString = null
             valueString = getString(R.string.uxsdk_string_default_value)
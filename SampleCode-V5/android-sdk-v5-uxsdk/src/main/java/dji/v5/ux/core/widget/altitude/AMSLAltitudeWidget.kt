@@ -104,8 +104,7 @@ open class AMSLAltitudeWidget @JvmOverloads constructor(
                 setValueTextViewMinWidthByText("888.8")
             }
             unitString = getDistanceString(altitudeState.unitType)
-            valueString = getDecimalFormat(altitudeState.unitType)
-                    .format(altitudeState.altitudeAMSL).toString()
+            setValue(altitudeState.altitudeAMSL, altitudeState.unitType)
         } else {
             unitString = null
             valueString = getString(R.string.uxsdk_string_default_value)
@@ -7,9 +7,8 @@ import android.widget.RelativeLayout;
 import android.widget.TextView;
 
 
-import java.util.Locale;
-
 import dji.v5.ux.R;
+import dji.v5.ux.core.util.FixedPointFormatter;
 
 
 public class BatteryCellView extends RelativeLayout {
@@ -22,6 +21,7 @@ public class BatteryCellView extends RelativeLayout {
     TextView batteryVoltageTv;
 
     private float mCurrentVoltage;
+    private final FixedPointFormatter mVoltageFormatter = new FixedPointFormatter(1, 2, 2, false);
 
     public BatteryCellView(Context context) {
         this(context, null);
@@ -46,7 +46,7 @@ public class BatteryCellView extends RelativeLayout {
         if (batteryPartPgb.getProgress() != progress) {
             batteryPartPgb.setProgress(progress);
         }
-        batteryVoltageTv.setText(String.format(Locale.getDefault(), "%.2fV", voltage));
+        mVoltageFormatter.setText(batteryVoltageTv, voltage, "V");
         mCurrentVoltage = voltage;
     }
 
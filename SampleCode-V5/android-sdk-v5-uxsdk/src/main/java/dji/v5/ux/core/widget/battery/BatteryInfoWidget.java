@@ -17,7 +17,6 @@ import androidx.core.content.ContextCompat;
 
 
 import java.util.List;
-import java.util.Locale;
 
 import dji.sdk.keyvalue.utils.ProductUtil;
 import dji.sdk.keyvalue.value.battery.BatteryConnectionState;
@@ -31,6 +30,7 @@ import dji.v5.ux.core.base.DJISDKModel;
 import dji.v5.ux.core.base.widget.ConstraintLayoutWidget;
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore;
 import dji.v5.ux.core.popover.Popover;
+import dji.v5.ux.core.util.FixedPointFormatter;
 
 public class BatteryInfoWidget extends ConstraintLayoutWidget<Object> {
 
@@ -69,6 +69,9 @@ public class BatteryInfoWidget extends ConstraintLayoutWidget<Object> {
     protected BatteryConnectionState batteryConnectionState;
     protected BatteryException warningRecord;
 
+    private final FixedPointFormatter voltageFormatter = new FixedPointFormatter(1, 2, 2, false);
+    private final FixedPointFormatter temperatureFormatter = new FixedPointFormatter(1, 1, 1, false);
+
     public BatteryInfoWidget(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
     }
@@ -187,7 +190,7 @@ public class BatteryInfoWidget extends ConstraintLayoutWidget<Object> {
 
         addReaction(widgetModel
                 .getBatteryVoltage()
-                .subscribe(voltage -> batteryVoltage.setText(String.format(Locale.getDefault(), "%.2fV", voltage / 1000.0f))));
+                .subscribe(voltage -> voltageFormatter.setText(batteryVoltage, voltage / 1000.0f, "V")));
 
         addReaction(widgetModel
                 .getBatteryChargeRemaining()
@@ -361,7 +364,7 @@ public class BatteryInfoWidget extends ConstraintLayoutWidget<Object> {
                 typeName = "";
                 break;
         }
-        battery.setText(String.format(Locale.getDefault(), "%s%s", title, typeName));
+        battery.setText(title + typeName);
     }
 
     private void updateTemperature() {
@@ -377,7 +380,7 @@ public class BatteryInfoWidget extends ConstraintLayoutWidget<Object> {
             value = temperatureValue;
             unit = getResources().getString(R.string.uxsdk_celsius);
         }
-        batteryTemperature.setText(String.format(Locale.getDefault(), "%.1f%s", value, unit));
+        temperatureFormatter.setText(batteryTemperature, value, unit);
     }
 
     private void updateBatteryCells(List<Integer> cellVoltages) {
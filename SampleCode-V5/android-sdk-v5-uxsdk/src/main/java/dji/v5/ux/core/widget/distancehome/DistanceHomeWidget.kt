@@ -108,8 +108,7 @@ open class DistanceHomeWidget @JvmOverloads constructor(
             } else {
                 setValueTextViewMinWidthByText("888.8")
             }
-            valueString = getDecimalFormat(distanceHomeState.unitType)
-                    .format(distanceHomeState.distance).toString()
+            setValue(distanceHomeState.distance.toDouble(), distanceHomeState.unitType)
             unitString = getDistanceString(distanceHomeState.unitType)
         } else {
             valueString = getString(R.string.uxsdk_string_default_value)
@@ -23,9 +23,6 @@
 
 package dji.v5.ux.core.widget.distancehome
 
-import dji.sdk.keyvalue.key.FlightControllerKey
-import dji.sdk.keyvalue.value.common.LocationCoordinate2D
-import dji.sdk.keyvalue.key.KeyTools
 import io.reactivex.rxjava3.core.Flowable
 import dji.v5.ux.core.base.DJISDKModel
 import dji.v5.ux.core.base.WidgetModel
@@ -33,8 +30,10 @@ import dji.v5.ux.core.communication.GlobalPreferenceKeys
 import dji.v5.ux.core.communication.GlobalPreferencesInterface
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore
 import dji.v5.ux.core.extension.toDistance
+import dji.v5.ux.core.geodesy.GeodesyService
+import dji.v5.ux.core.geodesy.GeodesySnapshot
 import dji.v5.ux.core.util.DataProcessor
-import dji.v5.utils.common.LocationUtil.*
+import dji.v5.ux.core.util.RxUtil
 import dji.v5.ux.core.util.UnitConversionUtil
 import dji.v5.ux.core.widget.distancehome.DistanceHomeWidgetModel.DistanceHomeState.CurrentDistanceToHome
 
@@ -48,8 +47,7 @@ class DistanceHomeWidgetModel(
     private val preferencesManager: GlobalPreferencesInterface?
 ) : WidgetModel(djiSdkModel, keyedStore) {
 
-    private val homeLocationProcessor = DataProcessor.create(LocationCoordinate2D(Double.NaN, Double.NaN))
-    private val aircraftLocationProcessor = DataProcessor.create(LocationCoordinate2D(Double.NaN, Double.NaN))
+    private val geodesySnapshotProcessor = DataProcessor.create(GeodesySnapshot.EMPTY)
     private val unitTypeDataProcessor: DataProcessor<UnitConversionUtil.UnitType> = DataProcessor.create(UnitConversionUtil.UnitType.METRIC)
     private val distanceHomeStateProcessor: DataProcessor<DistanceHomeState> = DataProcessor.create(DistanceHomeState.ProductDisconnected)
 
@@ -60,13 +58,10 @@ class DistanceHomeWidgetModel(
         get() = distanceHomeStateProcessor.toFlowable()
 
     override fun inSetup() {
-
-        bindDataProcessor(
-            KeyTools.createKey(
-                FlightControllerKey.KeyHomeLocation), homeLocationProcessor)
-        bindDataProcessor(
-            KeyTools.createKey(
-                FlightControllerKey.KeyAircraftLocation), aircraftLocationProcessor)
+        addDisposable(GeodesyService.getInstance().snapshot.subscribe({
+            geodesySnapshotProcessor.onNext(it)
+            updateStates()
+        }, RxUtil.logErrorConsumer(tag, "geodesy snapshot: ")))
 
         val unitTypeKey = GlobalPreferenceKeys.create(GlobalPreferenceKeys.UNIT_TYPE)
         bindDataProcessor(unitTypeKey, unitTypeDataProcessor)
@@ -76,16 +71,11 @@ class DistanceHomeWidgetModel(
 
     override fun updateStates() {
         if (productConnectionProcessor.value) {
-            if (checkLatitude(aircraftLocationProcessor.value.latitude)
-                && checkLongitude(aircraftLocationProcessor.value.longitude)
-                && checkLatitude(homeLocationProcessor.value.latitude)
-                && checkLongitude(homeLocationProcessor.value.longitude)) {
+            val aircraftToHome = geodesySnapshotProcessor.value.aircraftToHome
+            if (aircraftToHome.isValid) {
                 distanceHomeStateProcessor.onNext(
                     CurrentDistanceToHome(
-                        distanceBetween(
-                            homeLocationProcessor.value.latitude, homeLocationProcessor.value.longitude,
-                            aircraftLocationProcessor.value.latitude, aircraftLocationProcessor.value.longitude
-                        ).toDistance(unitTypeDataProcessor.value),
+                        aircraftToHome.distance.toFloat().toDistance(unitTypeDataProcessor.value),
                         unitTypeDataProcessor.value
                     )
                 )
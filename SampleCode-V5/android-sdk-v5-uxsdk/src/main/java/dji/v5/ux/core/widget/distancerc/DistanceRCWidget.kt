@@ -106,8 +106,7 @@ open class DistanceRCWidget @JvmOverloads constructor(
             } else {
                 setValueTextViewMinWidthByText("888.8")
             }
-            valueString = getDecimalFormat(distanceRCState.unitType)
-                    .format(distanceRCState.distance).toString()
+            setValue(distanceRCState.distance.toDouble(), distanceRCState.unitType)
             unitString = getDistanceString(distanceRCState.unitType)
         } else {
             valueString = getString(R.string.uxsdk_string_default_value)
@@ -23,11 +23,6 @@
 
 package dji.v5.ux.core.widget.distancerc
 
-import dji.sdk.keyvalue.key.FlightControllerKey
-import dji.sdk.keyvalue.key.RemoteControllerKey
-import dji.sdk.keyvalue.value.common.LocationCoordinate2D
-import dji.sdk.keyvalue.value.remotecontroller.RcGPSInfo
-import dji.sdk.keyvalue.key.KeyTools
 import io.reactivex.rxjava3.core.Flowable
 import dji.v5.ux.core.base.DJISDKModel
 import dji.v5.ux.core.base.WidgetModel
@@ -35,9 +30,10 @@ import dji.v5.ux.core.communication.GlobalPreferenceKeys
 import dji.v5.ux.core.communication.GlobalPreferencesInterface
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore
 import dji.v5.ux.core.extension.toDistance
+import dji.v5.ux.core.geodesy.GeodesyService
+import dji.v5.ux.core.geodesy.GeodesySnapshot
 import dji.v5.ux.core.util.DataProcessor
-import dji.v5.utils.common.LocationUtil
-import dji.v5.utils.common.LocationUtil.distanceBetween
+import dji.v5.ux.core.util.RxUtil
 import dji.v5.ux.core.util.UnitConversionUtil
 import dji.v5.ux.core.widget.distancerc.DistanceRCWidgetModel.DistanceRCState.*
 
@@ -51,9 +47,8 @@ class DistanceRCWidgetModel(
     private val preferencesManager: GlobalPreferencesInterface?
 ) : WidgetModel(djiSdkModel, keyedStore) {
 
-    private val rcGPSDataProcessor: DataProcessor<RcGPSInfo> = DataProcessor.create(RcGPSInfo())
     private val unitTypeDataProcessor: DataProcessor<UnitConversionUtil.UnitType> = DataProcessor.create(UnitConversionUtil.UnitType.METRIC)
-    private val aircraftLocationProcessor = DataProcessor.create(LocationCoordinate2D(Double.NaN, Double.NaN))
+    private val geodesySnapshotProcessor = DataProcessor.create(GeodesySnapshot.EMPTY)
     private val distanceRCStateProcessor: DataProcessor<DistanceRCState> = DataProcessor.create(ProductDisconnected)
 
     /**
@@ -63,12 +58,10 @@ class DistanceRCWidgetModel(
         get() = distanceRCStateProcessor.toFlowable()
 
     override fun inSetup() {
-        bindDataProcessor(
-            KeyTools.createKey(
-                FlightControllerKey.KeyAircraftLocation), aircraftLocationProcessor)
-        bindDataProcessor(
-            KeyTools.createKey(
-                RemoteControllerKey.KeyRcGPSInfo), rcGPSDataProcessor)
+        addDisposable(GeodesyService.getInstance().snapshot.subscribe({
+            geodesySnapshotProcessor.onNext(it)
+            updateStates()
+        }, RxUtil.logErrorConsumer(tag, "geodesy snapshot: ")))
         bindDataProcessor(GlobalPreferenceKeys.create(GlobalPreferenceKeys.UNIT_TYPE), unitTypeDataProcessor)
         preferencesManager?.setUpListener()
         preferencesManager?.let { unitTypeDataProcessor.onNext(it.unitType) }
@@ -76,18 +69,11 @@ class DistanceRCWidgetModel(
 
     override fun updateStates() {
         if (productConnectionProcessor.value) {
-            if (LocationUtil.checkLatitude(aircraftLocationProcessor.value.latitude)
-                && LocationUtil.checkLongitude(aircraftLocationProcessor.value.longitude)
-                && rcGPSDataProcessor.value.isValid) {
+            val aircraftToRC = geodesySnapshotProcessor.value.aircraftToRC
+            if (aircraftToRC.isValid) {
                 distanceRCStateProcessor.onNext(
                     CurrentDistanceToRC(
-                        distanceBetween(
-                            aircraftLocationProcessor.value.latitude,
-                            aircraftLocationProcessor.value.longitude,
-                            rcGPSDataProcessor.value.location.latitude,
-                            rcGPSDataProcessor.value.location.longitude
-                        )
-                            .toDistance(unitTypeDataProcessor.value),
+                        aircraftToRC.distance.toFloat().toDistance(unitTypeDataProcessor.value),
                         unitTypeDataProcessor.value
                     )
                 )
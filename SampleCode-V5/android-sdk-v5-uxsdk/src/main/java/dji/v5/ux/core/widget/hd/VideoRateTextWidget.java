@@ -12,13 +12,16 @@ import dji.v5.ux.core.base.DJISDKModel;
 import dji.v5.ux.core.base.TextCell;
 import dji.v5.ux.core.base.widget.ConstraintLayoutWidget;
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore;
+import dji.v5.ux.core.util.FixedPointFormatter;
 
 /**
  * 图传码率显示控件
  */
 public class VideoRateTextWidget extends ConstraintLayoutWidget<Object> {
 
-    private String formatStr = "%.2fMbps";
+    private static final String RATE_UNIT = "Mbps";
+
+    private final FixedPointFormatter codeRateFormatter = new FixedPointFormatter(1, 2, 2, false, Locale.US);
 
     private TextCell videoRateTextCell;
 
@@ -62,7 +65,7 @@ public class VideoRateTextWidget extends ConstraintLayoutWidget<Object> {
     protected void reactToModelChanges() {
         addReaction(widgetModel.getDynamicDataRate().subscribe(value -> {
             float codeRate = value.floatValue();
-            videoRateTextCell.setContent(String.format(Locale.US, formatStr, codeRate));
+            videoRateTextCell.setContent(codeRateFormatter.format(codeRate, RATE_UNIT));
         }));
     }
 }
@@ -31,9 +31,11 @@ import dji.v5.ux.R;
 import dji.v5.ux.core.base.DJISDKModel;
 import dji.v5.ux.core.base.widget.ConstraintLayoutWidget;
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore;
+import dji.v5.ux.core.util.FixedPointFormatter;
 
 public class FreqRangeRectView extends ConstraintLayoutWidget<Object> implements OnTouchListener {
     private final static String TAG = FreqRangeRectView.class.getSimpleName();
+    private final static String RSSI_UNIT = "dBm";
 
     public interface OnRangeChangedListener {
         void onRangeChanged(float leftVal, float rightVal, float leftPos, float rightPos, boolean isRectDragging);
@@ -43,6 +45,7 @@ public class FreqRangeRectView extends ConstraintLayoutWidget<Object> implements
     private ImageView mCenterDown;
     private ImageView mCenterUp;
     private ProgressBar mAveragePgb;
+    private final FixedPointFormatter mAverageFormatter = new FixedPointFormatter(1, 1, 1, false, Locale.US);
 
     /** 当前白色选框是否处于拽托状态 */
     private boolean mIsDragging = false;
@@ -365,7 +368,7 @@ public class FreqRangeRectView extends ConstraintLayoutWidget<Object> implements
         // 由于最大值是50, Progress最大值为100, 所以转化成Progress直接乘以2
         mAveragePgb.setProgress((int) ((averageVal - FreqView.NF_BASE_VALUE) * 2));
         if(mListener != null) {
-            mListener.onAverageValChanged(String.format(Locale.US, "%.1f", averageVal) + "dBm");
+            mListener.onAverageValChanged(mAverageFormatter.format(averageVal, RSSI_UNIT));
         }
     }
 
@@ -8,6 +8,7 @@ import java.util.Locale;
 
 import dji.v5.ux.R;
 import dji.v5.ux.core.base.BaseView;
+import dji.v5.ux.core.util.FixedPointFormatter;
 public class FreqRangeTextView extends BaseView {
 
     private float mMinValue = 0;
@@ -22,6 +23,11 @@ public class FreqRangeTextView extends BaseView {
     // 数字的个数, 如'1'为1个, '1257'为4个
     private int mTxtNum = 6;
 
+    // 只在数值变化时格式化，onDraw 中直接使用
+    private final FixedPointFormatter mValueFormatter = new FixedPointFormatter(1, 1, 1, false, Locale.US);
+    private String mMinText = mValueFormatter.format(mMinValue);
+    private String mMaxText = mValueFormatter.format(mMaxValue);
+
     public FreqRangeTextView(Context context, AttributeSet attrs) {
         super(context, attrs);
         mTxtSize = getResources().getDimension(R.dimen.uxsdk_text_size_small);
@@ -34,6 +40,12 @@ public class FreqRangeTextView extends BaseView {
     }
 
     public void setMinMaxValue(float _min, float _max, float posMin, float posMax) {
+        if (mMinValue != _min) {
+            mMinText = mValueFormatter.format(_min);
+        }
+        if (mMaxValue != _max) {
+            mMaxText = mValueFormatter.format(_max);
+        }
         mMinValue = _min;
         mMaxValue = _max;
         mPosMinX = posMin;
@@ -48,8 +60,8 @@ public class FreqRangeTextView extends BaseView {
         // offset处理居中
         float offset = mTxtSize / 4.0f * mTxtNum;
         // 初始化offset之后再+-mTxtSize / 2, 是让文字往两边靠, 让两个文字的间隙变大(10M带宽下可能挨在一起)
-        canvas.drawText(String.format(Locale.US, "%.1f", mMinValue), mMarginLeft + mPosMinX - offset - mTxtSize / 2, mTxtSize * 1.5f, mPaint);
-        canvas.drawText(String.format(Locale.US, "%.1f", mMaxValue), mMarginLeft + mPosMaxX - offset + mTxtSize / 2, mTxtSize * 1.5f, mPaint);
+        canvas.drawText(mMinText, mMarginLeft + mPosMinX - offset - mTxtSize / 2, mTxtSize * 1.5f, mPaint);
+        canvas.drawText(mMaxText, mMarginLeft + mPosMaxX - offset + mTxtSize / 2, mTxtSize * 1.5f, mPaint);
 
     }
 }
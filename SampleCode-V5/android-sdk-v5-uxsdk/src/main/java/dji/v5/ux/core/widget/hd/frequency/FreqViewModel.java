@@ -33,6 +33,7 @@ public class FreqViewModel extends WidgetModel {
 
     protected FreqViewModel(@NonNull DJISDKModel djiSdkModel, @NonNull ObservableInMemoryKeyedStore uxKeyManager) {
         super(djiSdkModel, uxKeyManager);
+        setStateUpdateMode(StateUpdateMode.COALESCED_WINDOW);
     }
 
     @Override
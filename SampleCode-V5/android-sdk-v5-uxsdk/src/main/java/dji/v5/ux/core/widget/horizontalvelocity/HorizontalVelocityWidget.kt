@@ -109,8 +109,7 @@ open class HorizontalVelocityWidget @JvmOverloads constructor(
     private fun updateUI(horizontalVelocityState: HorizontalVelocityState) {
         widgetStateDataProcessor.onNext(HorizontalVelocityStateUpdated(horizontalVelocityState))
         if (horizontalVelocityState is HorizontalVelocityState.CurrentVelocity) {
-            valueString = getDecimalFormat(horizontalVelocityState.unitType)
-                    .format(horizontalVelocityState.velocity).toString()
+            setValue(horizontalVelocityState.velocity.toDouble(), horizontalVelocityState.unitType)
             unitString = getVelocityString(horizontalVelocityState.unitType)
         } else {
             valueString = getString(R.string.uxsdk_string_default_value)
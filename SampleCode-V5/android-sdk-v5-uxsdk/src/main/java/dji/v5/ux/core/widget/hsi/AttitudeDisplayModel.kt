@@ -30,7 +30,7 @@ open class AttitudeDisplayModel constructor(
     keyedStore: ObservableInMemoryKeyedStore,
 ) : WidgetModel(djiSdkModel, keyedStore) {
     private val perceptionManager = PerceptionManager.getInstance()
-    val velocityProcessor = DataProcessor.create(Velocity3D())
+    val velocityProcessor = DataProcessor.createMulticast(Velocity3D())
     val altitudeProcessor = DataProcessor.create(0.0)
     val goHomeHeightProcessor: DataProcessor<Int> = DataProcessor.create(0)
     val limitMaxFlightHeightInMeterProcessor = DataProcessor.create(0)
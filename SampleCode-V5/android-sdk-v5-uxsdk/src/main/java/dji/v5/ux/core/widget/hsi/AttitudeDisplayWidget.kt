@@ -19,6 +19,8 @@ import io.reactivex.rxjava3.schedulers.Schedulers
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers
 import dji.v5.ux.R
 import dji.v5.ux.core.base.SchedulerProvider
+import dji.v5.ux.core.util.FixedPointFormatter
+import dji.v5.ux.core.util.UnitConversionUtil
 import io.reactivex.rxjava3.core.Observable
 import java.util.*
 
@@ -51,6 +53,8 @@ open class AttitudeDisplayWidget @JvmOverloads constructor(context: Context?, at
      */
     private var mDroneLocation: LocationCoordinate2D? = null
     private val mCompositeDisposable = CompositeDisposable()
+    private val mAslFormatter = FixedPointFormatter(4, 1, 1, false, Locale.US)
+    private val mVsFormatter = FixedPointFormatter(1, 1, 1, false, Locale.US)
     private val widgetModel = AttitudeDisplayModel(DJISDKModel.getInstance(), ObservableInMemoryKeyedStore.getInstance())
     override fun onAttachedToWindow() {
         super.onAttachedToWindow()
@@ -68,19 +72,14 @@ open class AttitudeDisplayWidget @JvmOverloads constructor(context: Context?, at
     }
 
     private fun updateAltitude() {
-        mCompositeDisposable.add(Observable.create { emitter: ObservableEmitter<Any?> ->
+        mCompositeDisposable.add(Observable.create { emitter: ObservableEmitter<Double> ->
             val lat = if (mDroneLocation != null) mDroneLocation!!.latitude else Double.NaN
             val lon = if (mDroneLocation != null) mDroneLocation!!.longitude else Double.NaN
-            val aslValue = GpsUtils.egm96Altitude(mHomePointAltitude + mAltitude, lat, lon)
-            val value = UnitUtils.getValueFromMetricByLength(aslValue.toFloat(),
-                if (UnitUtils.isMetricUnits()) UnitUtils.UnitType.METRIC else UnitUtils.UnitType.IMPERIAL)
-            emitter.onNext(value)
+            emitter.onNext(GpsUtils.egm96Altitude(mHomePointAltitude + mAltitude, lat, lon).toDouble())
             emitter.onComplete()
-        }.subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe { aValue: Any? ->
-            val value = String.format(Locale.US, "%06.1f", aValue)
-            if (mTvAslValue?.text != value) {
-                mTvAslValue?.text = value
-            }
+        }.subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread()).subscribe { aslValue: Double ->
+            val unitType = if (UnitUtils.isMetricUnits()) UnitConversionUtil.UnitType.METRIC else UnitConversionUtil.UnitType.IMPERIAL
+            mTvAslValue?.let { mAslFormatter.setText(it, aslValue, unitType, FixedPointFormatter.Quantity.LENGTH) }
         })
     }
 
@@ -90,7 +89,7 @@ open class AttitudeDisplayWidget @JvmOverloads constructor(context: Context?, at
             showSpeedZ = -mSpeedZ
         }
         val value = UnitUtils.transFormSpeedIntoDifferentUnit(showSpeedZ)
-        mTvVsValue?.text = String.format(Locale.US, "%03.1f", value)
+        mTvVsValue?.let { mVsFormatter.setText(it, value.toDouble()) }
     }
 
     override fun initView(context: Context, attrs: AttributeSet?, defStyleAttr: Int) {
@@ -23,8 +23,8 @@ open class PrimaryFlightDisplayModel constructor(
     keyedStore: ObservableInMemoryKeyedStore
 ) : WidgetModel(djiSdkModel, keyedStore) {
     private val tag = LogUtils.getTag("PrimaryFlightDisplayModel")
-    val velocityProcessor = DataProcessor.create(Velocity3D())
-    val aircraftAttitudeProcessor: DataProcessor<Attitude> = DataProcessor.create(Attitude())
+    val velocityProcessor = DataProcessor.createMulticast(Velocity3D())
+    val aircraftAttitudeProcessor: DataProcessor<Attitude> = DataProcessor.createMulticast(Attitude())
 
     override fun inSetup() {
         bindDataProcessor(
@@ -26,8 +26,8 @@ open class SpeedDisplayModel constructor(
     keyedStore: ObservableInMemoryKeyedStore
 ) : WidgetModel(djiSdkModel, keyedStore) {
     private val tag = LogUtils.getTag("SpeedDisplayModel")
-    val velocityProcessor = DataProcessor.create(Velocity3D())
-    val aircraftAttitudeProcessor: DataProcessor<Attitude> = DataProcessor.create(Attitude())
+    val velocityProcessor = DataProcessor.createMulticast(Velocity3D())
+    val aircraftAttitudeProcessor: DataProcessor<Attitude> = DataProcessor.createMulticast(Attitude())
     val windSpeedProcessor = DataProcessor.create(0)
     val windDirectionProcessor = DataProcessor.create(WindDirection.WINDLESS)
     val windWarningProcessor = DataProcessor.create(WindWarning.UNKNOWN)
@@ -15,6 +15,7 @@ import dji.v5.ux.core.base.DJISDKModel
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore
 import dji.v5.ux.R
 import dji.v5.ux.core.ui.hsi.FlashTimer
+import dji.v5.ux.core.util.FixedPointFormatter
 import io.reactivex.rxjava3.core.Flowable
 import dji.v5.common.utils.UnitUtils
 import android.graphics.Color
@@ -33,6 +34,7 @@ open class SpeedDisplayWidget @JvmOverloads constructor(context: Context, attrs:
     private var mIsAnimating = false
     var mSpeedDashBoard: SpeedDashBoard? = null
     private val mCompositeDisposable = CompositeDisposable()
+    private val mWsFormatter = FixedPointFormatter(2, 1, 1, false, Locale.ENGLISH)
     private var mListener: FlashTimer.Listener? = null
     private val widgetModel = SpeedDisplayModel(DJISDKModel.getInstance(), ObservableInMemoryKeyedStore.getInstance())
     override fun initView(context: Context, attrs: AttributeSet?, defStyleAttr: Int) {
@@ -102,10 +104,7 @@ open class SpeedDisplayWidget @JvmOverloads constructor(context: Context, attrs:
 
     private fun updateWindStatus(windSpeed: Float, fcWindDirectionStatus: WindDirection, fcWindWarning: WindWarning, aircraftDegree: Float) {
         val value = UnitUtils.transFormSpeedIntoDifferentUnit(windSpeed)
-        val textStr = String.format(Locale.ENGLISH, "WS %04.1f %s", value, getWindDirectionText(fcWindDirectionStatus, aircraftDegree))
-        if (textStr != mTvWsValue?.text.toString()) {
-            mTvWsValue!!.text = textStr
-        }
+        mWsFormatter.setText(mTvWsValue!!, WIND_SPEED_PREFIX, value.toDouble(), " " + getWindDirectionText(fcWindDirectionStatus, aircraftDegree))
         if (fcWindWarning == WindWarning.LEVEL_2) {
             mTvWsValue!!.setTextColor(resources.getColor(R.color.uxsdk_pfd_barrier_color))
         } else if (fcWindWarning == WindWarning.LEVEL_1) {
@@ -181,6 +180,7 @@ open class SpeedDisplayWidget @JvmOverloads constructor(context: Context, attrs:
 
     companion object {
         private val TAG = SpeedDisplayWidget::class.java.simpleName
+        private const val WIND_SPEED_PREFIX = "WS "
     }
 
     init {
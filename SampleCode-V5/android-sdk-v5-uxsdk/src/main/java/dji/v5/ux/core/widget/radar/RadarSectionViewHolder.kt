@@ -30,7 +30,7 @@ import android.widget.TextView
 import androidx.annotation.ColorInt
 import androidx.annotation.DrawableRes
 import androidx.annotation.StyleRes
-import java.util.*
+import dji.v5.ux.core.util.FixedPointFormatter
 
 /**
  * Represents a section of the obstacle detection radar : forward, backward, left, or right.
@@ -47,6 +47,10 @@ abstract class RadarSectionViewHolder {
      */
     abstract val arrow: ImageView
 
+    private val distanceFormatter = FixedPointFormatter(1, 1, 1, false)
+    private var distanceUnit: String? = null
+    private var distanceSuffix: String? = null
+
     /**
      * The text color of the distance text view
      */
@@ -110,8 +114,11 @@ abstract class RadarSectionViewHolder {
      * @param unitStr  A string representing the units for the distance measurement.
      */
     open fun setDistance(distance: Double, unitStr: String?) {
-        val distanceValue = distance.toFloat()
-        this.distance.text = String.format(Locale.getDefault(), "%.1f %s", distanceValue, unitStr)
+        if (distanceSuffix == null || unitStr != distanceUnit) {
+            distanceUnit = unitStr
+            distanceSuffix = " $unitStr"
+        }
+        distanceFormatter.setText(this.distance, distance, distanceSuffix)
     }
 
     /**
@@ -51,6 +51,7 @@ import dji.v5.ux.core.base.widget.ConstraintLayoutWidget
 import dji.v5.ux.core.communication.GlobalPreferencesManager
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore
 import dji.v5.ux.core.extension.*
+import dji.v5.ux.core.util.FixedPointFormatter
 import dji.v5.ux.core.util.RxUtil
 import dji.v5.ux.core.util.UnitConversionUtil
 import dji.v5.ux.core.widget.systemstatus.SystemStatusWidget.ModelState
@@ -79,6 +80,7 @@ open class SystemStatusWidget @JvmOverloads constructor(
     private val systemStatusTextView: TextView = findViewById(R.id.textview_system_status)
     private val systemStatusBackgroundImageView: ImageView = findViewById(R.id.imageview_system_status_background)
     private val blinkAnimation: Animation = AnimationUtils.loadAnimation(context, R.anim.uxsdk_anim_blink)
+    private val maxHeightFormatter = FixedPointFormatter(1, 0, 0, false, Locale.US)
     protected val uiUpdateStateProcessor: PublishProcessor<UIState> = PublishProcessor.create()
 
     private val widgetModel by lazy {
@@ -205,9 +207,9 @@ open class SystemStatusWidget @JvmOverloads constructor(
     private fun formatMaxHeight(maxHeight: Float, unitType: UnitConversionUtil.UnitType): String? {
         val maxHeightStr: String =
             if (unitType == UnitConversionUtil.UnitType.IMPERIAL) {
-                resources.getString(R.string.uxsdk_value_feet, String.format(Locale.US, "%.0f", maxHeight))
+                resources.getString(R.string.uxsdk_value_feet, maxHeightFormatter.format(maxHeight.toDouble()))
             } else {
-                resources.getString(R.string.uxsdk_value_meters, String.format(Locale.US, "%.0f", maxHeight))
+                resources.getString(R.string.uxsdk_value_meters, maxHeightFormatter.format(maxHeight.toDouble()))
             }
         return getString(R.string.uxsdk_max_flight_height_limit, maxHeightStr)
     }
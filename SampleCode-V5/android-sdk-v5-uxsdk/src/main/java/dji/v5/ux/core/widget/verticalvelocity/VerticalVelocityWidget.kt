@@ -188,7 +188,7 @@ open class VerticalVelocityWidget @JvmOverloads constructor(
 
     private fun updateVelocityState(velocity: Double, unitType: UnitType, icon: Drawable?) {
         widgetIcon = icon
-        valueString = getDecimalFormat(unitType).format(velocity).toString()
+        setValue(velocity, unitType)
         unitString = getVelocityString(unitType)
     }
 
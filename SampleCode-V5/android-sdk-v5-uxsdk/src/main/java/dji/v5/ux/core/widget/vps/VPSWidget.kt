@@ -133,7 +133,7 @@ open class VPSWidget @JvmOverloads constructor(
     private fun updateVPSState(vpsState: VPSState.Enabled) {
         widgetIcon = vpsEnabledIcon
         unitString = getDistanceString(vpsState.unitType)
-        valueString = getDecimalFormat(vpsState.unitType).format(vpsState.height)
+        setValue(vpsState.height.toDouble(), vpsState.unitType)
         valueTextColor = if (vpsState.height > MIN_VPS_HEIGHT.toDistance(vpsState.unitType)) {
             normalValueColor
         } else {
@@ -26,7 +26,6 @@ package dji.v5.ux.flight.returnhome
 import dji.sdk.keyvalue.key.FlightControllerKey
 import dji.sdk.keyvalue.key.DJIKey
 import dji.sdk.keyvalue.key.RemoteControllerKey
-import dji.sdk.keyvalue.value.common.LocationCoordinate2D
 import dji.sdk.keyvalue.value.flightcontroller.FCAutoRTHReason
 import dji.sdk.keyvalue.value.flightcontroller.FCFlightMode
 import dji.sdk.keyvalue.value.remotecontroller.RCMode
@@ -37,8 +36,8 @@ import dji.v5.ux.core.communication.GlobalPreferenceKeys
 import dji.v5.ux.core.communication.GlobalPreferencesInterface
 import dji.v5.ux.core.communication.ObservableInMemoryKeyedStore
 import dji.v5.ux.core.communication.UXKeys
+import dji.v5.ux.core.geodesy.GeodesyService
 import dji.v5.ux.core.util.DataProcessor
-import dji.v5.utils.common.LocationUtil
 import dji.v5.ux.core.util.UnitConversionUtil
 import io.reactivex.rxjava3.core.Completable
 import io.reactivex.rxjava3.core.Flowable
@@ -81,18 +80,10 @@ class ReturnHomeWidgetModel(
         get() {
             val goHomeHeightKey: DJIKey<Int> = KeyTools.createKey(
                 FlightControllerKey.KeyGoHomeHeight)
-            val homeLocationKey: DJIKey<LocationCoordinate2D> = KeyTools.createKey(
-                FlightControllerKey.KeyHomeLocation)
             val currentHeightKey: DJIKey<Double> = KeyTools.createKey(
                 FlightControllerKey.KeyAltitude)
-            val aircraftLocationKey: DJIKey<LocationCoordinate2D> = KeyTools.createKey(
-                FlightControllerKey.KeyAircraftLocation)
             var currentHeight = 0f
             var goHomeHeight = 0f
-            var homeLatitude = Double.NaN
-            var homeLongitude = Double.NaN
-            var aircraftLocationLat = 0.0
-            var aircraftLocationLong = 0.0
             val unitType = unitTypeProcessor.value
 
             djiSdkModel.getCacheValue(currentHeightKey)?.let {
@@ -105,17 +96,10 @@ class ReturnHomeWidgetModel(
                     goHomeHeight = UnitConversionUtil.convertMetersToFeet(goHomeHeight.toFloat())
                 }
             }
-            djiSdkModel.getCacheValue(homeLocationKey)?.let {
-                homeLatitude = it.latitude
-                homeLongitude = it.longitude
-            }
-            djiSdkModel.getCacheValue(aircraftLocationKey)?.let {
-                aircraftLocationLat = it.latitude
-                aircraftLocationLong = it.longitude
-            }
             var distanceToHome = 0f
-            if (!homeLatitude.isNaN() && !homeLongitude.isNaN()) {
-                distanceToHome = distanceBetween(homeLatitude, homeLongitude, aircraftLocationLat, aircraftLocationLong)
+            val aircraftToHome = GeodesyService.getInstance().currentSnapshot.aircraftToHome
+            if (aircraftToHome.isValid) {
+                distanceToHome = aircraftToHome.distance.toFloat()
             }
             return ReturnHomeDistance(distanceToHome, currentHeight, goHomeHeight, unitType)
         }
@@ -230,17 +214,6 @@ class ReturnHomeWidgetModel(
     }
     //endregion
 
-    //region Helpers for unit testing
-    private fun distanceBetween(
-        latitude1: Double,
-        longitude1: Double,
-        latitude2: Double,
-        longitude2: Double
-    ): Float {
-        return LocationUtil.distanceBetween(latitude1, longitude1, latitude2, longitude2)
-    }
-    //endregion
-
     //region Classes
     /**
      * The state of the aircraft
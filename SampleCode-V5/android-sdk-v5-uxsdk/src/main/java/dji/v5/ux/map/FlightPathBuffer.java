@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.map;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import dji.v5.utils.common.LogUtils;
+import dji.v5.ux.core.base.SchedulerProvider;
+import dji.v5.ux.mapkit.core.models.DJILatLng;
+import dji.v5.ux.mapkit.core.utils.douglas.DouglasUtils;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Bounded storage for the aircraft flight path shown by {@link MapWidget}.
+ * <p>
+ * Recent points are kept at full resolution in a tail of bounded size. Once the tail is full,
+ * its older half is simplified with {@link DouglasUtils} on the computation scheduler and
+ * appended to the history. If the history grows beyond its cap, it is simplified again with a
+ * doubled threshold. The tail is drawn on every update while the history only has to be pushed
+ * to the map when a compaction finishes, so the per-update cost does not depend on flight length.
+ * <p>
+ * All methods except the background simplification must be called on the UI thread.
+ */
+class FlightPathBuffer {
+
+    private static final String TAG = "FlightPathBuffer";
+    private static final double MIN_POINT_DELTA = 0.000005;
+
+    /**
+     * Callback for changes of the simplified history
+     */
+    interface OnHistoryChangedListener {
+        void onHistoryChanged(@NonNull List<DJILatLng> history);
+    }
+
+    private final OnHistoryChangedListener listener;
+    private final List<DJILatLng> tail = new ArrayList<>();
+    private List<DJILatLng> history = Collections.emptyList();
+    private int tailCapacity;
+    private int maxHistoryPoints;
+    private double simplifyThreshold;
+    private int generation;
+    private int tailOffset;
+    private Disposable compactionDisposable;
+
+    FlightPathBuffer(int tailCapacity, int maxHistoryPoints, double simplifyThreshold,
+                     @NonNull OnHistoryChangedListener listener) {
+        this.listener = listener;
+        setLimits(tailCapacity, maxHistoryPoints, simplifyThreshold);
+    }
+
+    /**
+     * Update the memory limits. Takes effect at the next compaction.
+     *
+     * @param tailCapacity      Number of full resolution points kept at the end of the path
+     * @param maxHistoryPoints  Maximum number of simplified points kept before the tail
+     * @param simplifyThreshold Initial Douglas-Peucker threshold in meters
+     */
+    void setLimits(int tailCapacity, int maxHistoryPoints, double simplifyThreshold) {
+        if (tailCapacity < 4 || maxHistoryPoints < 2 || simplifyThreshold <= 0) {
+            throw new IllegalArgumentException("Invalid flight path limits");
+        }
+        this.tailCapacity = tailCapacity;
+        this.maxHistoryPoints = maxHistoryPoints;
+        this.simplifyThreshold = simplifyThreshold;
+    }
+
+    /**
+     * Add an aircraft position to the path. Positions that barely moved are ignored.
+     *
+     * @param position The aircraft position
+     * @return true if the tail changed and needs to be redrawn
+     */
+    boolean add(@NonNull DJILatLng position) {
+        if (tail.isEmpty() && history.isEmpty()) {
+            //new polylines require 2+ points
+            tail.add(position);
+            tail.add(position);
+            return true;
+        }
+        DJILatLng lastPosition = tail.get(tail.size() - 1);
+        if (Math.abs(lastPosition.getLatitude() - position.getLatitude()) <= MIN_POINT_DELTA
+                && Math.abs(lastPosition.getLongitude() - position.getLongitude()) <= MIN_POINT_DELTA) {
+            return false;
+        }
+        tail.add(position);
+        if (tail.size() >= tailCapacity && compactionDisposable == null) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * @return The full resolution tail. Its first point is the last point of the history.
+     */
+    @NonNull
+    List<DJILatLng> getTail() {
+        return tail;
+    }
+
+    /**
+     * @return Number of points dropped from the front of the tail by compactions since the
+     * last {@link #clear()}. Lets the drawn tail be trimmed instead of being set again.
+     */
+    int getTailOffset() {
+        return tailOffset;
+    }
+
+    /**
+     * @return The simplified history, never modified after it is returned
+     */
+    @NonNull
+    List<DJILatLng> getHistory() {
+        return history;
+    }
+
+    /**
+     * @return Total number of points held by the buffer
+     */
+    int size() {
+        return history.size() + tail.size();
+    }
+
+    /**
+     * Drop all points and any pending compaction
+     */
+    void clear() {
+        generation++;
+        cancelCompaction();
+        tail.clear();
+        tailOffset = 0;
+        history = Collections.emptyList();
+    }
+
+    /**
+     * Cancel a running compaction. The points stay in the tail and are compacted with the next
+     * position that is added.
+     */
+    void cancelCompaction() {
+        if (compactionDisposable != null) {
+            compactionDisposable.dispose();
+            compactionDisposable = null;
+        }
+    }
+
+    private void compact() {
+        // Keep the joint point in both halves so history and tail stay connected.
+        int chunkSize = tail.size() / 2 + 1;
+        final List<DJILatLng> chunk = new ArrayList<>(tail.subList(0, chunkSize));
+        final List<DJILatLng> previousHistory = history;
+        final int maxPoints = maxHistoryPoints;
+        final double threshold = simplifyThreshold;
+        final int currentGeneration = generation;
+        compactionDisposable = Single.fromCallable(() -> simplify(previousHistory, chunk, maxPoints, threshold))
+                .subscribeOn(SchedulerProvider.computation())
+                .observeOn(SchedulerProvider.ui())
+                .subscribe(newHistory -> {
+                    compactionDisposable = null;
+                    if (currentGeneration != generation) {
+                        return;
+                    }
+                    tail.subList(0, chunkSize - 1).clear();
+                    tailOffset += chunkSize - 1;
+                    history = newHistory;
+                    listener.onHistoryChanged(newHistory);
+                    if (tail.size() >= tailCapacity) {
+                        compact();
+                    }
+                }, throwable -> {
+                    compactionDisposable = null;
+                    LogUtils.e(TAG, "Flight path compaction failed: " + throwable.getMessage());
+                });
+    }
+
+    @NonNull
+    private static List<DJILatLng> simplify(@NonNull List<DJILatLng> previousHistory, @NonNull List<DJILatLng> chunk,
+                                            int maxPoints, double threshold) {
+        List<DJILatLng> simplifiedChunk = DouglasUtils.compress(chunk, threshold);
+        List<DJILatLng> result = new ArrayList<>(previousHistory.size() + simplifiedChunk.size());
+        result.addAll(previousHistory);
+        // The first chunk point is the joint with the previous history.
+        result.addAll(previousHistory.isEmpty() ? simplifiedChunk : simplifiedChunk.subList(1, simplifiedChunk.size()));
+        double currentThreshold = threshold;
+        while (result.size() > maxPoints && result.size() > 2) {
+            currentThreshold *= 2;
+            result = DouglasUtils.compress(result, currentThreshold);
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
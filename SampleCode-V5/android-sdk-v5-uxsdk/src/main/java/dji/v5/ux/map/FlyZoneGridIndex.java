@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.map;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Uniform grid over latitude/longitude used to find the fly zone shapes that intersect
+ * a region of the map. Each shape is registered in every cell its bounding box touches.
+ * <p>
+ * Not thread safe, it is only accessed from the UI thread.
+ */
+class FlyZoneGridIndex {
+
+    private static final double DEFAULT_CELL_SIZE = 0.05;
+    /**
+     * Bounding boxes wider than this are kept out of the grid and tested on every query.
+     */
+    private static final int MAX_CELLS_PER_SHAPE = 400;
+
+    private final double cellSize;
+    private final Map<Long, List<String>> cells = new HashMap<>();
+    private final Map<String, double[]> boundsMap = new HashMap<>();
+    private final Set<String> oversizedIds = new HashSet<>();
+
+    FlyZoneGridIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    FlyZoneGridIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add or replace a shape.
+     *
+     * @param id     Shape ID
+     * @param bounds {minLat, minLng, maxLat, maxLng}
+     */
+    void put(@NonNull String id, @NonNull double[] bounds) {
+        remove(id);
+        boundsMap.put(id, bounds);
+        int minRow = row(bounds[0]);
+        int maxRow = row(bounds[2]);
+        int minCol = col(bounds[1]);
+        int maxCol = col(bounds[3]);
+        if ((long) (maxRow - minRow + 1) * (maxCol - minCol + 1) > MAX_CELLS_PER_SHAPE) {
+            oversizedIds.add(id);
+            return;
+        }
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                List<String> ids = cells.get(key(r, c));
+                if (ids == null) {
+                    ids = new ArrayList<>(4);
+                    cells.put(key(r, c), ids);
+                }
+                ids.add(id);
+            }
+        }
+    }
+
+    /**
+     * Remove a shape, does nothing if it is unknown.
+     */
+    void remove(@NonNull String id) {
+        double[] bounds = boundsMap.remove(id);
+        if (bounds == null || oversizedIds.remove(id)) {
+            return;
+        }
+        for (int r = row(bounds[0]); r <= row(bounds[2]); r++) {
+            for (int c = col(bounds[1]); c <= col(bounds[3]); c++) {
+                List<String> ids = cells.get(key(r, c));
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        cells.remove(key(r, c));
+                    }
+                }
+            }
+        }
+    }
+
+    void clear() {
+        cells.clear();
+        boundsMap.clear();
+        oversizedIds.clear();
+    }
+
+    int size() {
+        return boundsMap.size();
+    }
+
+    /**
+     * Collect the IDs of all shapes whose bounding box intersects the given region.
+     *
+     * @param region {minLat, minLng, maxLat, maxLng}
+     * @param out    Receives the matching IDs
+     */
+    void query(@NonNull double[] region, @NonNull Set<String> out) {
+        int minRow = row(region[0]);
+        int maxRow = row(region[2]);
+        int minCol = col(region[1]);
+        int maxCol = col(region[3]);
+        if ((long) (maxRow - minRow + 1) * (maxCol - minCol + 1) > cells.size()) {
+            // Zoomed far out: scanning the shapes is cheaper than scanning the cells.
+            for (Map.Entry<String, double[]> entry : boundsMap.entrySet()) {
+                if (intersects(entry.getValue(), region)) {
+                    out.add(entry.getKey());
+                }
+            }
+            return;
+        }
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                List<String> ids = cells.get(key(r, c));
+                if (ids == null) {
+                    continue;
+                }
+                for (String id : ids) {
+                    if (!out.contains(id) && intersects(boundsMap.get(id), region)) {
+                        out.add(id);
+                    }
+                }
+            }
+        }
+        for (String id : oversizedIds) {
+            if (intersects(boundsMap.get(id), region)) {
+                out.add(id);
+            }
+        }
+    }
+
+    static boolean intersects(double[] a, double[] b) {
+        return a[0] <= b[2] && a[2] >= b[0] && a[1] <= b[3] && a[3] >= b[1];
+    }
+
+    /**
+     * @return true if region {@code inner} lies completely inside region {@code outer}
+     */
+    static boolean contains(double[] outer, double[] inner) {
+        return inner[0] >= outer[0] && inner[2] <= outer[2] && inner[1] >= outer[1] && inner[3] <= outer[3];
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor(lat / cellSize);
+    }
+
+    private int col(double lng) {
+        return (int) Math.floor(lng / cellSize);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
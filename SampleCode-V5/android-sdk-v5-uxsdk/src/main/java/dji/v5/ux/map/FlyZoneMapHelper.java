@@ -32,10 +32,12 @@ import android.graphics.drawable.ShapeDrawable;
 import android.widget.ImageView;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -57,6 +59,7 @@ import dji.v5.ux.mapkit.core.maps.DJIMap;
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor;
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptorFactory;
 import dji.v5.ux.mapkit.core.models.DJILatLng;
+import dji.v5.ux.mapkit.core.models.DJILatLngBounds;
 import dji.v5.ux.mapkit.core.models.annotations.DJICircle;
 import dji.v5.ux.mapkit.core.models.annotations.DJICircleOptions;
 import dji.v5.ux.mapkit.core.models.annotations.DJIMarker;
@@ -74,6 +77,8 @@ public class FlyZoneMapHelper {
     protected static final float DEFAULT_BORDER_WIDTH = 5;
     private static final int DEFAULT_ALPHA = 26;
     private static final float DEFAULT_ANCHOR = 0.5f;
+    private static final float DEFAULT_VIEWPORT_MARGIN = 0.5f;
+    private static final double METERS_PER_DEGREE = 111320.0;
     private final String tag = LogUtils.getTag(this);
     private Context context;
     private DJIMap map;
@@ -97,6 +102,13 @@ public class FlyZoneMapHelper {
     private Set<String> customUnlockFlyZoneShapeId = new HashSet<>();
     private Set<String> customUnlockFlyZoneOnAircraftShapeId = new HashSet<>();
     private Set<String> customUnlockFlyZoneEnabledShapeId = new HashSet<>();
+    private final FlyZoneGridIndex flyZoneIndex = new FlyZoneGridIndex();
+    private Map<String, FlyZoneShapeEntry> flyZoneShapeEntryMap = new HashMap<>();
+    private final Set<String> materializedShapeIds = new HashSet<>();
+    private final Map<FlyZoneCategory, Boolean> flyZoneVisibilityMap = new HashMap<>();
+    private double[] viewportRegion;
+    private double[] materializedRegion;
+    private float viewportMargin = DEFAULT_VIEWPORT_MARGIN;
     @ColorInt
     private int customUnlockColor;
     private int customUnlockColorAlpha;
@@ -162,10 +174,78 @@ public class FlyZoneMapHelper {
      */
     public void onFlyZoneListUpdate(@NonNull List<FlyZoneInformation> flyZoneList) {
         if (map == null) return;
-        removeFlyZonesOffMap();
+        removeFlyZoneMarkers();
+        flyZoneMarkerInformationMap.clear();
+        Map<String, FlyZoneShapeEntry> newEntryMap = new HashMap<>();
         for (FlyZoneInformation flyZoneInformation : flyZoneList) {
-            drawFlyZone(flyZoneInformation);
+            collectFlyZoneShapes(flyZoneInformation, newEntryMap);
+            flyZoneMarkerInformationMap.put(String.valueOf(flyZoneInformation.getFlyZoneID()), flyZoneInformation);
         }
+        //diff by shape ID so that unchanged shapes stay on the map
+        for (FlyZoneShapeEntry oldEntry : flyZoneShapeEntryMap.values()) {
+            FlyZoneShapeEntry newEntry = newEntryMap.get(oldEntry.id);
+            if (newEntry == null || !newEntry.isSameShape(oldEntry)) {
+                removeFlyZoneShape(oldEntry);
+                flyZoneIndex.remove(oldEntry.id);
+            }
+        }
+        for (FlyZoneShapeEntry newEntry : newEntryMap.values()) {
+            FlyZoneShapeEntry oldEntry = flyZoneShapeEntryMap.get(newEntry.id);
+            if (oldEntry == null || !newEntry.isSameShape(oldEntry)) {
+                flyZoneIndex.put(newEntry.id, newEntry.bounds);
+            }
+        }
+        flyZoneShapeEntryMap = newEntryMap;
+        refreshMaterializedFlyZones();
+    }
+
+    /**
+     * Provide the region of the map that is currently visible. Only fly zones intersecting
+     * this region plus a margin are drawn; the others are removed from the map until the
+     * camera gets close to them. Until this is called all fly zones are drawn.
+     *
+     * @param visibleBounds The visible region of the map
+     */
+    public void onViewportChanged(@NonNull DJILatLngBounds visibleBounds) {
+        viewportRegion = new double[]{
+                visibleBounds.getSouthwest().getLatitude(), visibleBounds.getSouthwest().getLongitude(),
+                visibleBounds.getNortheast().getLatitude(), visibleBounds.getNortheast().getLongitude()};
+        if (map == null || (materializedRegion != null && FlyZoneGridIndex.contains(materializedRegion, viewportRegion))) {
+            //the shapes around the visible region are already on the map
+            return;
+        }
+        refreshMaterializedFlyZones();
+    }
+
+    /**
+     * Set the margin around the visible region in which fly zones are still drawn, as a
+     * fraction of the visible region size. A larger margin keeps more shapes on the map but
+     * redraws less often while panning.
+     *
+     * @param margin Fraction of the visible region size, 0.5 by default
+     */
+    public void setViewportMargin(float margin) {
+        viewportMargin = Math.max(0, margin);
+        materializedRegion = null;
+        refreshMaterializedFlyZones();
+    }
+
+    /**
+     * Get the number of fly zone shapes currently drawn on the map.
+     *
+     * @return Number of materialized shapes
+     */
+    public int getDrawnFlyZoneShapeCount() {
+        return materializedShapeIds.size();
+    }
+
+    /**
+     * Get the number of fly zone shapes known from the last fly zone list update.
+     *
+     * @return Number of indexed shapes
+     */
+    public int getFlyZoneShapeCount() {
+        return flyZoneIndex.size();
     }
 
     /**
@@ -306,17 +386,7 @@ public class FlyZoneMapHelper {
         customUnlockFlyZoneEnabledShapeId.clear();
     }
 
-    private void removeFlyZonesOffMap() {
-        removeFlyZoneCircleAndClearMap(restrictedDJICircleMap);
-        removeFlyZoneCircleAndClearMap(authorizationDJICircleMap);
-        removeFlyZoneCircleAndClearMap(enhancedWarningDJICircleMap);
-        removeFlyZoneCircleAndClearMap(warningDJICircleMap);
-
-        removeFlyZonePolygonAndClearMap(restrictedDJIPolygonMap);
-        removeFlyZonePolygonAndClearMap(authorizationDJIPolygonMap);
-        removeFlyZonePolygonAndClearMap(enhancedWarningDJIPolygonMap);
-        removeFlyZonePolygonAndClearMap(warningDJIPolygonMap);
-
+    private void removeFlyZoneMarkers() {
         for (DJIMarker marker : flyZoneLockedMarkerMap.values()) {
             marker.remove();
         }
@@ -327,24 +397,54 @@ public class FlyZoneMapHelper {
         }
         flyZoneUnlockedMarkerMap.clear();
         selfUnlockFlyZoneId.clear();
-        maximumHeightShapeFlyZoneId.clear();
     }
 
-    private void removeFlyZoneCircleAndClearMap(Map<String, DJICircle> map) {
-        for (DJICircle flyZone : map.values()) {
-            flyZone.remove();
+    private void refreshMaterializedFlyZones() {
+        if (map == null) return;
+        Set<String> visibleIds = new HashSet<>();
+        if (viewportRegion == null) {
+            visibleIds.addAll(flyZoneShapeEntryMap.keySet());
+            materializedRegion = null;
+        } else {
+            double latMargin = (viewportRegion[2] - viewportRegion[0]) * viewportMargin;
+            double lngMargin = (viewportRegion[3] - viewportRegion[1]) * viewportMargin;
+            materializedRegion = new double[]{
+                    viewportRegion[0] - latMargin, viewportRegion[1] - lngMargin,
+                    viewportRegion[2] + latMargin, viewportRegion[3] + lngMargin};
+            flyZoneIndex.query(materializedRegion, visibleIds);
+        }
+        for (String id : new ArrayList<>(materializedShapeIds)) {
+            FlyZoneShapeEntry entry = flyZoneShapeEntryMap.get(id);
+            if (entry != null && !visibleIds.contains(id)) {
+                removeFlyZoneShape(entry);
+            }
+        }
+        for (String id : visibleIds) {
+            if (!materializedShapeIds.contains(id)) {
+                drawFlyZoneShape(flyZoneShapeEntryMap.get(id));
+            }
         }
-        map.clear();
     }
 
-    private void removeFlyZonePolygonAndClearMap(Map<String, DJIPolygon> map) {
-        for (DJIPolygon flyZone : map.values()) {
-            flyZone.remove();
+    private void removeFlyZoneShape(@NonNull FlyZoneShapeEntry entry) {
+        if (!materializedShapeIds.remove(entry.id)) {
+            return;
+        }
+        Map<String, DJICircle> circleMap = getCircleMap(entry.zone.getCategory());
+        DJICircle circle = circleMap == null ? null : circleMap.remove(entry.id);
+        if (circle != null) {
+            circle.remove();
         }
-        map.clear();
+        Map<String, DJIPolygon> polygonMap = getPolygonMap(entry.zone.getCategory());
+        DJIPolygon polygon = polygonMap == null ? null : polygonMap.remove(entry.id);
+        if (polygon != null) {
+            polygon.remove();
+        }
+        maximumHeightShapeFlyZoneId.remove(entry.id);
     }
 
     public void hideShowFlyZoneOfMap(FlyZoneCategory flyZoneCategory, boolean isVisible) {
+        flyZoneVisibilityMap.put(flyZoneCategory, isVisible);
         switch (flyZoneCategory) {
             case RESTRICTED:
                 hideShowFlyZoneCircle(restrictedDJICircleMap, isVisible);
@@ -433,80 +533,75 @@ public class FlyZoneMapHelper {
         customUnlockSentToAircraftImg = DJIBitmapDescriptorFactory.fromBitmap(ViewUtil.getBitmapFromVectorDrawable(context.getResources().getDrawable(R.drawable.uxsdk_ic_flyzone_locked)));
     }
 
-    private void drawFlyZone(FlyZoneInformation zone) {
-
+    private void collectFlyZoneShapes(FlyZoneInformation zone, Map<String, FlyZoneShapeEntry> out) {
         String zoneID = String.valueOf(zone.getFlyZoneID());
-        LocationCoordinate2D zoneLocation = zone.getCircleCenter();
-        double zoneRadius = zone.getCircleRadius();
-        DJILatLng zoneCoordinates = new DJILatLng(zoneLocation.getLatitude(), zoneLocation.getLongitude());
-        //add the fly zone to the map
         if (zone.getShape() == FlyZoneShape.CIRCLE) {
-            DJICircleOptions zoneCircle = new DJICircleOptions()
-                    .radius(zoneRadius)
-                    .center(zoneCoordinates)
-                    .strokeColor(getFlyZoneColor(zone.getCategory()))
-                    .strokeWidth(flyZoneBorderWidth)
-                    .fillColor(ColorUtils.setAlphaComponent(getFlyZoneColor(zone.getCategory()), getFlyZoneAlpha(zone.getCategory())));
-            DJICircle circle = map.addSingleCircle(zoneCircle);
-            addCircleToMap(zone, circle, zoneID);
-        } else if (zone.getShape() == FlyZoneShape.MULTI_POLYGON) {
-            drawSubFlyZones(zone);
-        }
-
-        flyZoneMarkerInformationMap.put(String.valueOf(zone.getFlyZoneID()), zone);
-    }
-
-    private void drawSubFlyZones(FlyZoneInformation zone) {
-        if (zone.getMultiPolygonFlyZoneInformation() != null) {
+            out.put(zoneID, FlyZoneShapeEntry.circle(zoneID, zone));
+        } else if (zone.getShape() == FlyZoneShape.MULTI_POLYGON && zone.getMultiPolygonFlyZoneInformation() != null) {
             for (MultiPolygonFlyZoneInformation subZone : zone.getMultiPolygonFlyZoneInformation()) {
-                //draw sub-flyZone based on shape
                 String zoneSubZoneId = zone.getFlyZoneID() + "_" + subZone.getFlyZoneID();
                 if (subZone.getShape() == MultiPolygonFlyZoneShape.CYLINDER) {
                     //同步pilot的逻辑，圆形时，只用FlyZoneInformation那一层的数据
-                    LocationCoordinate2D subZoneLocation = zone.getCircleCenter();
-                    double subZoneRadius = zone.getCircleRadius();
-
-                    DJILatLng subZoneCoordinates = new DJILatLng(subZoneLocation.getLatitude(), subZoneLocation.getLongitude());
-                    DJICircleOptions mapCircleOptions = new DJICircleOptions()
-                            .radius(subZoneRadius)
-                            .center(subZoneCoordinates)
-                            .strokeWidth(flyZoneBorderWidth)
-                            .strokeColor(getFlyZoneColor(zone.getCategory()))
-                            .fillColor(ColorUtils.setAlphaComponent(getFlyZoneColor(zone.getCategory()), getFlyZoneAlpha(zone.getCategory())));
-                    DJICircle circle = map.addSingleCircle(mapCircleOptions);
-                    if (circle != null) {
-                        addCircleToMap(zone, circle, zoneSubZoneId);
-                    } else {
-                        LogUtils.e(tag, "Invalid flyzone not added to map: " + zone.getFlyZoneID() + "_" + subZone.getFlyZoneID());
-                    }
-                } else if (subZone.getShape() == MultiPolygonFlyZoneShape.POLYGON) {
-                    List<LocationCoordinate2D> verticesLocations = subZone.getPolygonPoints();
-                    DJIPolygonOptions geoPolygonOptions = new DJIPolygonOptions();
-                    for (LocationCoordinate2D vertex : verticesLocations) {
-                        DJILatLng verticesCoordinate = new DJILatLng(vertex.getLatitude(), vertex.getLongitude());
-                        geoPolygonOptions.add(verticesCoordinate);
-                    }
-
-                    geoPolygonOptions.strokeWidth(flyZoneBorderWidth)
-                            .strokeColor(getFlyZoneColor(zone.getCategory()))
-                            .fillColor(ColorUtils.setAlphaComponent(getFlyZoneColor(zone.getCategory()), getFlyZoneAlpha(zone.getCategory())));
-                    if (subZone.getLimitedHeight() != 0) {
-                        geoPolygonOptions.fillColor(ColorUtils.setAlphaComponent(maximumHeightColor,
-                                        maximumHeightAlpha))
-                                .strokeColor(maximumHeightColor);
-                        maximumHeightShapeFlyZoneId.add(zoneSubZoneId);
-                    }
-                    DJIPolygon geoPolygon = map.addPolygon(geoPolygonOptions);
-                    if (geoPolygon != null) {
-                        addPolygonToMap(zone, geoPolygon, zoneSubZoneId);
-                    } else {
-                        LogUtils.e(tag, "Invalid flyzone not added to map: " + zone.getFlyZoneID() + "_" + subZone.getFlyZoneID());
-                    }
+                    out.put(zoneSubZoneId, FlyZoneShapeEntry.circle(zoneSubZoneId, zone));
+                } else if (subZone.getShape() == MultiPolygonFlyZoneShape.POLYGON && subZone.getPolygonPoints() != null
+                        && !subZone.getPolygonPoints().isEmpty()) {
+                    out.put(zoneSubZoneId, FlyZoneShapeEntry.polygon(zoneSubZoneId, zone, subZone));
                 }
             }
         }
     }
 
+    private void drawFlyZoneShape(FlyZoneShapeEntry entry) {
+        FlyZoneInformation zone = entry.zone;
+        if (getCircleMap(zone.getCategory()) == null) {
+            //shapes of unknown category could never be removed from the map again
+            return;
+        }
+        int color = getFlyZoneColor(zone.getCategory());
+        int fillColor = ColorUtils.setAlphaComponent(color, getFlyZoneAlpha(zone.getCategory()));
+        boolean isVisible = !Boolean.FALSE.equals(flyZoneVisibilityMap.get(zone.getCategory()));
+        if (entry.subZone == null) {
+            LocationCoordinate2D zoneLocation = zone.getCircleCenter();
+            DJICircleOptions zoneCircle = new DJICircleOptions()
+                    .radius(zone.getCircleRadius())
+                    .center(new DJILatLng(zoneLocation.getLatitude(), zoneLocation.getLongitude()))
+                    .strokeWidth(flyZoneBorderWidth)
+                    .strokeColor(color)
+                    .fillColor(fillColor);
+            DJICircle circle = map.addSingleCircle(zoneCircle);
+            if (circle != null) {
+                circle.setVisible(isVisible);
+                addCircleToMap(zone, circle, entry.id);
+                materializedShapeIds.add(entry.id);
+            } else {
+                LogUtils.e(tag, "Invalid flyzone not added to map: " + entry.id);
+            }
+        } else {
+            DJIPolygonOptions geoPolygonOptions = new DJIPolygonOptions();
+            for (LocationCoordinate2D vertex : entry.subZone.getPolygonPoints()) {
+                geoPolygonOptions.add(new DJILatLng(vertex.getLatitude(), vertex.getLongitude()));
+            }
+            geoPolygonOptions.strokeWidth(flyZoneBorderWidth)
+                    .strokeColor(color)
+                    .fillColor(fillColor);
+            if (entry.subZone.getLimitedHeight() != 0) {
+                geoPolygonOptions.fillColor(ColorUtils.setAlphaComponent(maximumHeightColor,
+                                maximumHeightAlpha))
+                        .strokeColor(maximumHeightColor);
+                maximumHeightShapeFlyZoneId.add(entry.id);
+            }
+            DJIPolygon geoPolygon = map.addPolygon(geoPolygonOptions);
+            if (geoPolygon != null) {
+                geoPolygon.setVisible(isVisible);
+                addPolygonToMap(zone, geoPolygon, entry.id);
+                materializedShapeIds.add(entry.id);
+            } else {
+                maximumHeightShapeFlyZoneId.remove(entry.id);
+                LogUtils.e(tag, "Invalid flyzone not added to map: " + entry.id);
+            }
+        }
+    }
+
     public void showSingleButtonDialog(String title, String message) {
         AlertDialog.Builder alertDialogBuilder = new AlertDialog.Builder(context, alertDialogTheme);
         alertDialogBuilder.setTitle(title);
@@ -578,29 +673,41 @@ public class FlyZoneMapHelper {
         alertDialog.show();
     }
 
-    private void updateFlyZoneViews(FlyZoneCategory category) {
-        Map<String, DJICircle> circleMap = null;
-        Map<String, DJIPolygon> polygonMap = null;
+    private Map<String, DJICircle> getCircleMap(FlyZoneCategory category) {
         switch (category) {
             case RESTRICTED:
-                circleMap = restrictedDJICircleMap;
-                polygonMap = restrictedDJIPolygonMap;
-                break;
+                return restrictedDJICircleMap;
             case AUTHORIZATION:
-                circleMap = authorizationDJICircleMap;
-                polygonMap = authorizationDJIPolygonMap;
-                break;
+                return authorizationDJICircleMap;
             case ENHANCED_WARNING:
-                circleMap = enhancedWarningDJICircleMap;
-                polygonMap = enhancedWarningDJIPolygonMap;
-                break;
+                return enhancedWarningDJICircleMap;
             case WARNING:
-                circleMap = warningDJICircleMap;
-                polygonMap = warningDJIPolygonMap;
-                break;
+                return warningDJICircleMap;
             case UNKNOWN:
             default:
+                return null;
         }
+    }
+
+    private Map<String, DJIPolygon> getPolygonMap(FlyZoneCategory category) {
+        switch (category) {
+            case RESTRICTED:
+                return restrictedDJIPolygonMap;
+            case AUTHORIZATION:
+                return authorizationDJIPolygonMap;
+            case ENHANCED_WARNING:
+                return enhancedWarningDJIPolygonMap;
+            case WARNING:
+                return warningDJIPolygonMap;
+            case UNKNOWN:
+            default:
+                return null;
+        }
+    }
+
+    private void updateFlyZoneViews(FlyZoneCategory category) {
+        Map<String, DJICircle> circleMap = getCircleMap(category);
+        Map<String, DJIPolygon> polygonMap = getPolygonMap(category);
         int flyZoneCategoryColor = ColorUtils.setAlphaComponent(
                 flyZoneColorMap.get(category), flyZoneAlphaMap.get(category));
         int maxHeightColor = ColorUtils.setAlphaComponent(
@@ -1142,4 +1249,61 @@ public class FlyZoneMapHelper {
     }
 
     //endregion
+
+    /**
+     * A single circle or polygon of a fly zone, with the bounding box used by the spatial index
+     */
+    private static final class FlyZoneShapeEntry {
+        final String id;
+        final FlyZoneInformation zone;
+        final MultiPolygonFlyZoneInformation subZone;
+        final double[] bounds;
+        final int shapeHash;
+
+        private FlyZoneShapeEntry(String id, FlyZoneInformation zone, MultiPolygonFlyZoneInformation subZone,
+                                  double[] bounds, int shapeHash) {
+            this.id = id;
+            this.zone = zone;
+            this.subZone = subZone;
+            this.bounds = bounds;
+            this.shapeHash = shapeHash;
+        }
+
+        static FlyZoneShapeEntry circle(String id, FlyZoneInformation zone) {
+            LocationCoordinate2D center = zone.getCircleCenter();
+            double radius = zone.getCircleRadius();
+            double latRadius = radius / METERS_PER_DEGREE;
+            double lngRadius = radius / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(center.getLatitude())), 0.01));
+            double[] bounds = new double[]{center.getLatitude() - latRadius, center.getLongitude() - lngRadius,
+                    center.getLatitude() + latRadius, center.getLongitude() + lngRadius};
+            return new FlyZoneShapeEntry(id, zone, null, bounds, Arrays.hashCode(bounds));
+        }
+
+        static FlyZoneShapeEntry polygon(String id, FlyZoneInformation zone, MultiPolygonFlyZoneInformation subZone) {
+            double[] bounds = new double[]{90, 180, -90, -180};
+            int hash = 17;
+            for (LocationCoordinate2D vertex : subZone.getPolygonPoints()) {
+                bounds[0] = Math.min(bounds[0], vertex.getLatitude());
+                bounds[1] = Math.min(bounds[1], vertex.getLongitude());
+                bounds[2] = Math.max(bounds[2], vertex.getLatitude());
+                bounds[3] = Math.max(bounds[3], vertex.getLongitude());
+                hash = 31 * hash + hashDouble(vertex.getLatitude());
+                hash = 31 * hash + hashDouble(vertex.getLongitude());
+            }
+            hash = 31 * hash + Objects.hashCode(subZone.getLimitedHeight());
+            return new FlyZoneShapeEntry(id, zone, subZone, bounds, hash);
+        }
+
+        private static int hashDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            return (int) (bits ^ (bits >>> 32));
+        }
+
+        boolean isSameShape(FlyZoneShapeEntry other) {
+            return zone.getCategory() == other.zone.getCategory()
+                    && (subZone == null) == (other.subZone == null)
+                    && shapeHash == other.shapeHash
+                    && Arrays.equals(bounds, other.bounds);
+        }
+    }
 }
@@ -27,6 +27,7 @@ import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Color;
+import android.graphics.Point;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.util.AttributeSet;
@@ -37,6 +38,7 @@ import android.view.ViewGroup;
 import android.view.animation.LinearInterpolator;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import androidx.annotation.ColorInt;
@@ -65,6 +67,7 @@ import dji.v5.ux.mapkit.core.camera.DJICameraUpdate;
 import dji.v5.ux.mapkit.core.camera.DJICameraUpdateFactory;
 import dji.v5.ux.mapkit.core.maps.DJIMap;
 import dji.v5.ux.mapkit.core.maps.DJIMapViewInternal;
+import dji.v5.ux.mapkit.core.maps.DJIProjection;
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptorFactory;
 import dji.v5.ux.mapkit.core.models.DJICameraPosition;
 import dji.v5.ux.mapkit.core.models.DJILatLng;
@@ -95,6 +98,9 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
     private static final int HOME_MARKER_ELEVATION = 5;
     private static final int DEFAULT_ZOOM = 16;
     private static final int DO_NOT_UPDATE_ZOOM = -1;
+    private static final int DEFAULT_FLIGHT_PATH_TAIL_POINTS = 500;
+    private static final int DEFAULT_FLIGHT_PATH_HISTORY_POINTS = 5000;
+    private static final double DEFAULT_FLIGHT_PATH_SIMPLIFY_THRESHOLD = 1.0;
     private static final String TAG = "MapWidget";
     private static final String HOME_MARKER = "homemarker";
     private static final String AIRCRAFT_MARKER = "aircraftmarker";
@@ -152,7 +158,14 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
 
     //region flight path fields
     private DJIPolyline flightPathLine;
-    private List<DJILatLng> flightPathPoints = new ArrayList<>();
+    private DJIPolyline flightPathHistoryLine;
+    // Range of tail points drawn by flightPathLine, counted from the start of the tail
+    private int flightPathLineStart;
+    private int flightPathLineEnd;
+    // False when flightPathLine holds points that are not in the tail, so the next refresh sets all points
+    private boolean flightPathLineInSync;
+    private final FlightPathBuffer flightPathBuffer = new FlightPathBuffer(DEFAULT_FLIGHT_PATH_TAIL_POINTS,
+            DEFAULT_FLIGHT_PATH_HISTORY_POINTS, DEFAULT_FLIGHT_PATH_SIMPLIFY_THRESHOLD, history -> refreshFlightPathHistory());
     @ColorInt
     private int flightPathColor = Color.WHITE;
     private float flightPathWidth = 5;
@@ -191,6 +204,8 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
 
     @Override
     protected void reactToModelChanges() {
+        // A compaction still running when the widget is detached is cancelled with the other disposables.
+        addDisposable(Disposable.fromAction(flightPathBuffer::cancelCompaction));
         addReaction(widgetModel.getProductConnection().observeOn(SchedulerProvider.ui()).subscribe(connected -> {
             if (connected) {
                 addReaction(reactToHeadingChanges());
@@ -667,10 +682,9 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
         DJILatLng homeCoordinate = homeMarker.getPosition();
         if (homeDirectionEnabled) {
             if (homeLine != null) {
-                List<DJILatLng> points = new ArrayList<>();
-                points.add(aircraftMarker.getPosition());
-                points.add(homeCoordinate);
-                homeLine.setPoints(points);
+                DJILatLng aircraftCoordinate = aircraftMarker.getPosition();
+                homeLine.setPoints(new double[]{aircraftCoordinate.getLatitude(), aircraftCoordinate.getLongitude(),
+                        homeCoordinate.getLatitude(), homeCoordinate.getLongitude()});
             } else {
                 //create new line
                 DJIPolylineOptions homeLineOptions = new DJIPolylineOptions().add(aircraftMarker.getPosition())
@@ -914,6 +928,7 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
                         }
                     }, RxUtil.logErrorConsumer(TAG, "updateAircraftAndHomeLocation")));
         });
+        map.setOnCameraChangeListener(cameraPosition -> updateFlyZoneViewport());
         map.setOnMarkerClickListener(marker -> {
             String title = marker.getTitle();
             if (title != null && title.length() > 0
@@ -937,6 +952,24 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
                 .subscribe(this::updateHomeLocation, RxUtil.logErrorConsumer(TAG, "updateHomeLocation")));
     }
 
+    /**
+     * Passes the visible region of the map to the fly zone helper so only nearby fly zones are drawn
+     */
+    private void updateFlyZoneViewport() {
+        if (map == null || flyZoneHelper == null || getWidth() == 0 || getHeight() == 0) return;
+        DJIProjection projection = map.getProjection();
+        if (projection == null) return;
+        List<DJILatLng> corners = new ArrayList<>(4);
+        corners.add(projection.fromScreenLocation(new Point(0, 0)));
+        corners.add(projection.fromScreenLocation(new Point(getWidth(), 0)));
+        corners.add(projection.fromScreenLocation(new Point(0, getHeight())));
+        corners.add(projection.fromScreenLocation(new Point(getWidth(), getHeight())));
+        for (DJILatLng corner : corners) {
+            if (corner == null) return;
+        }
+        flyZoneHelper.onViewportChanged(DJILatLngBounds.fromLatLngs(corners));
+    }
+
     private void emitMarkerClickEvent(DJIMarker marker) {
         if (onMarkerClickListener != null) {
             onMarkerClickListener.onMarkerClick(marker);
@@ -948,25 +981,13 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
      */
     private void updateFlightPath() {
         if (aircraftMarker == null) return;
-        DJILatLng aircraftPosition = aircraftMarker.getPosition();
-
-        if (flightPathPoints.size() >= 2) {
-            DJILatLng lastPosition = flightPathPoints.get(flightPathPoints.size() - 1);
-            if (Math.abs(lastPosition.getLatitude() - aircraftPosition.getLatitude()) > 0.000005
-                    || Math.abs(lastPosition.getLongitude() - aircraftPosition.getLongitude()) > 0.000005) {
-                flightPathPoints.add(aircraftPosition);
-            }
-        } else {
-            //new polylines require 2+ points
-            flightPathPoints.add(aircraftPosition);
-            flightPathPoints.add(aircraftPosition);
+        if (flightPathBuffer.add(aircraftMarker.getPosition())) {
+            refreshFlightPath();
         }
-
-        refreshFlightPath();
     }
 
     /**
-     * Removes previous flight path and replaces it with the new one
+     * Pushes the full resolution tail of the flight path to the map
      */
     private void refreshFlightPath() {
         if (aircraftMarker == null || map == null) return;
@@ -974,18 +995,72 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
         if (flightPathEnabled) {
             if (flightPathLine == null) {
                 DJIPolylineOptions polylineOptions = new DJIPolylineOptions()
-                        .addAll(flightPathPoints)
+                        .addAll(flightPathBuffer.getTail())
                         .color(flightPathColor)
                         .width(flightPathWidth);
                 flightPathLine = map.addPolyline(polylineOptions);
+                // Some maps pad a single point line with a copy of the point
+                flightPathLineInSync = flightPathLine.getPoints().size() == flightPathBuffer.getTail().size();
+                refreshFlightPathHistory();
             } else {
-                flightPathLine.setPoints(flightPathPoints);
+                updateFlightPathLine();
             }
+            flightPathLineStart = flightPathBuffer.getTailOffset();
+            flightPathLineEnd = flightPathLineStart + flightPathBuffer.getTail().size();
         } else {
-            if (flightPathLine != null) {
-                flightPathLine.remove();
-                flightPathLine = null;
-            }
+            removeFlightPathLines();
+        }
+    }
+
+    /**
+     * Sends only the tail points that changed since the last refresh: points dropped by a
+     * compaction are trimmed from the front and new points are appended at the end.
+     */
+    private void updateFlightPathLine() {
+        List<DJILatLng> tail = flightPathBuffer.getTail();
+        int tailStart = flightPathBuffer.getTailOffset();
+        int tailEnd = tailStart + tail.size();
+        if (!flightPathLineInSync
+                || tailStart < flightPathLineStart || tailStart > flightPathLineEnd || tailEnd < flightPathLineEnd) {
+            flightPathLine.setPoints(tail);
+            flightPathLineInSync = true;
+            return;
+        }
+        if (tailStart > flightPathLineStart) {
+            flightPathLine.replaceRange(0, tailStart - flightPathLineStart, Collections.<DJILatLng>emptyList());
+        }
+        if (tailEnd > flightPathLineEnd) {
+            flightPathLine.appendPoints(tail.subList(flightPathLineEnd - tailStart, tail.size()));
+        }
+    }
+
+    /**
+     * Pushes the simplified history of the flight path to the map. Only called when the
+     * history changes, which happens once per compaction of the tail.
+     */
+    private void refreshFlightPathHistory() {
+        if (map == null || !flightPathEnabled || flightPathLine == null) return;
+        List<DJILatLng> history = flightPathBuffer.getHistory();
+        if (history.size() < 2) return;
+        if (flightPathHistoryLine == null) {
+            DJIPolylineOptions polylineOptions = new DJIPolylineOptions()
+                    .addAll(history)
+                    .color(flightPathColor)
+                    .width(flightPathWidth);
+            flightPathHistoryLine = map.addPolyline(polylineOptions);
+        } else {
+            flightPathHistoryLine.setPoints(history);
+        }
+    }
+
+    private void removeFlightPathLines() {
+        if (flightPathLine != null) {
+            flightPathLine.remove();
+            flightPathLine = null;
+        }
+        if (flightPathHistoryLine != null) {
+            flightPathHistoryLine.remove();
+            flightPathHistoryLine = null;
         }
     }
 
@@ -1000,12 +1075,24 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
      */
     public void clearFlightPath() {
         if (flightPathLine == null) return;
-        flightPathPoints.clear();
-        flightPathLine.remove();
-        flightPathLine = null;
+        flightPathBuffer.clear();
+        removeFlightPathLines();
         updateFlightPath();
     }
 
+    /**
+     * Sets the memory limits of the flight path. The most recent points are kept at full
+     * resolution and older points are simplified in the background so that at most
+     * `tailPoints + maxHistoryPoints` points are kept.
+     *
+     * @param tailPoints        Number of recent points kept at full resolution, at least 4.
+     * @param maxHistoryPoints  Maximum number of simplified points kept for the older path, at least 2.
+     * @param simplifyThreshold Initial simplification threshold in meters.
+     */
+    public void setFlightPathLimits(int tailPoints, int maxHistoryPoints, double simplifyThreshold) {
+        flightPathBuffer.setLimits(tailPoints, maxHistoryPoints, simplifyThreshold);
+    }
+
     /**
      * `true` if the flight path is visible. The default value is `false`
      *
@@ -1045,6 +1132,9 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
         if (flightPathEnabled && flightPathLine != null) {
             flightPathLine.setColor(flightPathColor);
         }
+        if (flightPathEnabled && flightPathHistoryLine != null) {
+            flightPathHistoryLine.setColor(flightPathColor);
+        }
     }
 
     /**
@@ -1066,6 +1156,9 @@ public class MapWidget extends ConstraintLayoutWidget<Object> implements View.On
         if (flightPathEnabled && flightPathLine != null) {
             flightPathLine.setWidth(flightPathWidth);
         }
+        if (flightPathEnabled && flightPathHistoryLine != null) {
+            flightPathHistoryLine.setWidth(flightPathWidth);
+        }
     }
 
     /**
@@ -7,8 +7,9 @@ import com.amap.api.maps.model.LatLng;
 import com.amap.api.maps.model.Polyline;
 import dji.v5.ux.mapkit.amap.utils.AMapUtils;
 import dji.v5.ux.mapkit.core.models.DJILatLng;
-import dji.v5.ux.mapkit.core.models.annotations.DJIPolyline;
+import dji.v5.ux.mapkit.core.models.annotations.DJIBasePolyline;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolylineOptions;
+import dji.v5.ux.mapkit.core.utils.DJIGpsUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,18 +17,29 @@ import java.util.List;
 /**
  * Created by joeyang on 6/11/17.
  */
-public class APolyline implements DJIPolyline {
+public class APolyline extends DJIBasePolyline {
+
+    private static final PointConverter<LatLng> TO_LAT_LNG =
+            (latitude, longitude) -> AMapUtils.fromDJILatLng(new DJILatLng(latitude, longitude));
 
     private Polyline mPolyline;
     private DJIPolylineOptions mDJIPolylineOptions;
+    /**
+     * 已转换成高德坐标的点，和 DJIBasePolyline 中的点一一对应，修改时只转换变化的点
+     */
+    private final List<LatLng> aPoints;
 
     public APolyline(@NonNull Polyline polyline) {
+        super(fromLatLngs(polyline.getPoints()));
         this.mPolyline = polyline;
+        aPoints = new ArrayList<>(polyline.getPoints());
     }
 
     public APolyline(Polyline polyline, DJIPolylineOptions options) {
+        super(options.getPoints());
         mPolyline = polyline;
         mDJIPolylineOptions = options;
+        aPoints = new ArrayList<>(polyline.getPoints());
     }
 
     @Override
@@ -46,23 +58,11 @@ public class APolyline implements DJIPolyline {
     }
 
     @Override
-    public void setPoints(List<DJILatLng> points) {
-        List<LatLng> aPoints = new ArrayList<>(points.size());
-        for (DJILatLng latLng : points) {
-            aPoints.add(AMapUtils.fromDJILatLng(latLng));
-        }
+    protected void onPointsChanged(int start, int removedCount, int insertedCount) {
+        applyChange(aPoints, start, removedCount, insertedCount, TO_LAT_LNG);
         mPolyline.setPoints(aPoints);
     }
 
-    @Override
-    public List<DJILatLng> getPoints() {
-        List<DJILatLng> djiPoints = new ArrayList<>(mPolyline.getPoints().size());
-        for (LatLng latLng : mPolyline.getPoints()) {
-            djiPoints.add(AMapUtils.fromLatLng(latLng));
-        }
-        return djiPoints;
-    }
-
     @Override
     public void setZIndex(float zIndex) {
         mPolyline.setZIndex(zIndex);
@@ -91,6 +91,9 @@ public class APolyline implements DJIPolyline {
     public void setOptions(DJIPolylineOptions options) {
         mDJIPolylineOptions = options;
         mPolyline.setOptions(AMapUtils.fromDJIPolylineOptions(options));
+        getPointBuffer().replace(0, getPointCount(), options.getPoints());
+        aPoints.clear();
+        aPoints.addAll(mPolyline.getPoints());
     }
 
     @Override
@@ -108,4 +111,15 @@ public class APolyline implements DJIPolyline {
     public int hashCode() {
         return mPolyline.hashCode();
     }
+
+    /**
+     * 地图上的点是 GCJ 坐标，转回 WGS 时要精确求逆，否则再转换一次后和地图上的点对不上
+     */
+    private static List<DJILatLng> fromLatLngs(List<LatLng> latLngs) {
+        List<DJILatLng> djiPoints = new ArrayList<>(latLngs.size());
+        for (LatLng latLng : latLngs) {
+            djiPoints.add(DJIGpsUtils.gcj2wgsExactInChina(new DJILatLng(latLng.latitude, latLng.longitude)));
+        }
+        return djiPoints;
+    }
 }
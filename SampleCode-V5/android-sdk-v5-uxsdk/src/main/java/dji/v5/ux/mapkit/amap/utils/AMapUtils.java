@@ -12,12 +12,14 @@ import com.amap.api.maps.model.PolylineOptions;
 import dji.v5.ux.mapkit.core.camera.DJICameraUpdate;
 import dji.v5.ux.mapkit.core.camera.DJICameraUpdateFactory;
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor;
+import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptorFactory;
 import dji.v5.ux.mapkit.core.models.DJICameraPosition;
 import dji.v5.ux.mapkit.core.models.DJILatLng;
 import dji.v5.ux.mapkit.core.models.DJILatLngBounds;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolygonOptions;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolylineOptions;
 import dji.v5.ux.mapkit.core.utils.DJIGpsUtils;
+import dji.v5.utils.common.ContextUtil;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -96,7 +98,12 @@ public class AMapUtils {
     }
 
     public static final BitmapDescriptor fromDJIBitmapDescriptor(DJIBitmapDescriptor descriptor) {
-        BitmapDescriptor bitmapDescriptor;
+        // 内容相同的图标共用一个 BitmapDescriptor，view 等不能缓存的图标走下面的逻辑
+        BitmapDescriptor bitmapDescriptor = DJIBitmapDescriptorFactory.getIconCache().getConverted(ContextUtil.getContext(),
+                descriptor, BitmapDescriptor.class, BitmapDescriptorFactory::fromBitmap);
+        if (bitmapDescriptor != null) {
+            return bitmapDescriptor;
+        }
         String path = descriptor.getPath();
         switch (descriptor.getType()) {
             case BITMAP:
@@ -4,6 +4,7 @@ import dji.v5.ux.mapkit.core.callback.OnCameraChangeListener;
 import dji.v5.ux.mapkit.core.models.DJICameraPosition;
 import dji.v5.ux.mapkit.core.models.DJILatLng;
 import dji.v5.ux.mapkit.core.models.annotations.DJIMarker;
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerCollection;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -203,4 +204,12 @@ public abstract class DJIBaseMap implements DJIMap {
         onMapClickListeners.clear();
     }
 
+    /**
+     * 默认每个 item 对应一个 marker，支持批量 source 更新的地图需要覆写
+     */
+    @Override
+    public DJIMarkerCollection addMarkerCollection(int zIndex) {
+        return new MarkerBackedCollection(this, zIndex);
+    }
+
 }
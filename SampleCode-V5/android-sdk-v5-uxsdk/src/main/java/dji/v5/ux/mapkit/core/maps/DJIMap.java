@@ -19,6 +19,7 @@ import dji.v5.ux.mapkit.core.models.annotations.DJICircleOptions;
 import dji.v5.ux.mapkit.core.models.annotations.DJIGroupCircle;
 import dji.v5.ux.mapkit.core.models.annotations.DJIGroupCircleOptions;
 import dji.v5.ux.mapkit.core.models.annotations.DJIMarker;
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerCollection;
 import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerOptions;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolygon;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolygonOptions;
@@ -98,6 +99,16 @@ public interface DJIMap {
      */
     DJIMarker addMarker(DJIMarkerOptions markerOptions);
 
+    //Doc key: DJIMap_addMarkerCollection
+    /**
+     *  Adds an empty marker collection to this map. Use it instead of `addMarker` when
+     *  many markers are added, updated or removed together, e.g. the waypoints of a mission.
+     *
+     *  @param zIndex The z-index shared by all markers of the collection.
+     *  @return The collection that was added to the map.
+     */
+    DJIMarkerCollection addMarkerCollection(int zIndex);
+
     //Doc key: DJIMap_getMap
     /**
      *  Gets the base Map Object. This will enable all the features available by default
@@ -0,0 +1,65 @@
+package dji.v5.ux.mapkit.core.maps;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarker;
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerCollection;
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerOptions;
+
+/**
+ * 用单个 {@link DJIMarker} 实现的 {@link DJIMarkerCollection}，给没有批量接口的地图使用。
+ * 每个 item 仍然对应一个 marker，只是把修改合并到 commit 时一起下发。
+ */
+class MarkerBackedCollection extends DJIMarkerCollection {
+
+    private final DJIMap map;
+    private final Map<Item, DJIMarker> markers = new HashMap<>();
+
+    MarkerBackedCollection(DJIMap map, int zIndex) {
+        super(zIndex);
+        this.map = map;
+    }
+
+    @Override
+    protected void onCommit(@NonNull List<Item> added, @NonNull List<Item> removed, @NonNull List<Item> changed) {
+        for (Item item : removed) {
+            DJIMarker marker = markers.remove(item);
+            if (marker != null) {
+                marker.remove();
+            }
+        }
+        for (Item item : added) {
+            DJIMarkerOptions options = new DJIMarkerOptions()
+                    .position(item.getPosition())
+                    .icon(item.getDisplayedIcon())
+                    .rotation(item.getRotation())
+                    .visible(item.isVisible())
+                    .title(item.getTitle())
+                    .zIndex(getZIndex());
+            DJIMarker marker = map.addMarker(options);
+            if (marker != null) {
+                markers.put(item, marker);
+            }
+        }
+        for (Item item : changed) {
+            DJIMarker marker = markers.get(item);
+            if (marker != null) {
+                marker.setPosition(item.getPosition());
+                marker.setIcon(item.getDisplayedIcon());
+                marker.setRotation(item.getRotation());
+                marker.setVisible(item.isVisible());
+            }
+        }
+    }
+
+    @Override
+    protected void onRemove() {
+        for (DJIMarker marker : markers.values()) {
+            marker.remove();
+        }
+        markers.clear();
+    }
+}
@@ -17,6 +17,19 @@ public class DJIBitmapDescriptorFactory {
         return DEFAULT_MARKER;
     }
 
+    private static final DJIIconCache ICON_CACHE = new DJIIconCache(DJIIconCache.DEFAULT_MAX_BYTES);
+
+    //Doc key: DJIMap_DJIBitmapDescriptorFactory_getIconCache
+    /**
+     * Gets the icon cache shared by all maps. Descriptors created by this factory that
+     * describe the same icon share one bitmap in the cache.
+     *
+     * @return The shared DJIIconCache.
+     */
+    public static DJIIconCache getIconCache() {
+        return ICON_CACHE;
+    }
+
     //Doc key: DJIMap_DJIBitmapDescriptorFactory_fromAsset
     /**
      * Creates a DJIBitmapDescriptor using the name of a bitmap file in the assets directory.
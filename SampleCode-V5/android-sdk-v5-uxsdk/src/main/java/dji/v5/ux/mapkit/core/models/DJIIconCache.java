@@ -0,0 +1,386 @@
+package dji.v5.ux.mapkit.core.models;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import dji.v5.ux.core.util.DrawUtils;
+import dji.v5.ux.mapkit.core.utils.DJIMapkitLog;
+
+//Doc key: DJIMap_DJIIconCache
+/**
+ *  Bitmaps of marker icons, shared by all map backends. To get the shared instance,
+ *  see `DJIBitmapDescriptorFactory.getIconCache`.
+ *
+ *  Icons are keyed by their content: resource id, asset or file path, or a checksum of the
+ *  pixels for bitmap icons. Descriptors that describe the same icon resolve to one bitmap,
+ *  which is decoded once. Icons that are not referenced by a map are dropped, least recently
+ *  used first, when the cache grows over its byte limit.
+ *
+ *  The checksum of a bitmap icon is computed the first time the bitmap is seen, and a mutable
+ *  bitmap is cached as an immutable copy. Changing the pixels of a bitmap after passing it to
+ *  the cache therefore has no effect; use a new bitmap for a new icon.
+ */
+public final class DJIIconCache {
+
+    private static final String TAG = "DJIIconCache";
+    public static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+    //Doc key: DJIMap_DJIIconCache_Converter
+    /**
+     *  Converts a cached bitmap into the icon type of a map backend. The result is cached
+     *  together with the bitmap.
+     */
+    public interface Converter<T> {
+        @Nullable
+        T convert(@NonNull Bitmap bitmap);
+    }
+
+    private static final class Entry {
+        final Bitmap bitmap;
+        final int bytes;
+        final Map<Class<?>, Object> converted = new HashMap<>(2);
+        int references;
+
+        Entry(Bitmap bitmap, int references) {
+            this.bitmap = bitmap;
+            this.bytes = bitmap.getAllocationByteCount();
+            this.references = references;
+        }
+    }
+
+    private final int maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * 每个 bitmap 对象只在第一次出现时计算校验和
+     */
+    private final Map<Bitmap, String> bitmapKeys = new WeakHashMap<>();
+    private int cachedBytes;
+    private long hits;
+    private long misses;
+    private long duplicateBitmaps;
+    private long bytesSaved;
+    private long uploadsSaved;
+
+    public DJIIconCache(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    //Doc key: DJIMap_DJIIconCache_getKey
+    /**
+     *  Gets the content key of an icon.
+     *
+     *  @param descriptor The icon.
+     *  @return The key, or null if the icon cannot be cached, e.g. a view icon.
+     */
+    @Nullable
+    public synchronized String getKey(@Nullable DJIBitmapDescriptor descriptor) {
+        if (descriptor == null) {
+            return null;
+        }
+        switch (descriptor.getType()) {
+            case RESOURCE_ID:
+                return "res:" + descriptor.getResourceId();
+            case PATH_ASSET:
+                return "asset:" + descriptor.getPath();
+            case PATH_FILEINPUT:
+                return "file:" + descriptor.getPath();
+            case PATH_ABSOLUTE:
+                return "path:" + descriptor.getPath();
+            case BITMAP:
+                return getBitmapKey(descriptor.getBitmap());
+            default:
+                return null;
+        }
+    }
+
+    //Doc key: DJIMap_DJIIconCache_getBitmap
+    /**
+     *  Gets the bitmap of an icon, decoding it only if no icon with the same content is cached.
+     *
+     *  @param context Used to decode resource, asset and file icons.
+     *  @param descriptor The icon.
+     *  @return The shared bitmap, or null if the icon cannot be cached or decoded.
+     */
+    @Nullable
+    public synchronized Bitmap getBitmap(@NonNull Context context, @Nullable DJIBitmapDescriptor descriptor) {
+        Entry entry = getEntry(context, descriptor, getKey(descriptor));
+        return entry == null ? null : entry.bitmap;
+    }
+
+    //Doc key: DJIMap_DJIIconCache_getConverted
+    /**
+     *  Gets an icon converted into the icon type of a map backend. The conversion runs once
+     *  for every distinct icon and type.
+     *
+     *  @param context Used to decode resource, asset and file icons.
+     *  @param descriptor The icon.
+     *  @param type The icon type of the map backend.
+     *  @param converter Converts the bitmap when the result is not cached yet.
+     *  @return The converted icon, or null if the icon cannot be cached or decoded.
+     */
+    @Nullable
+    public synchronized <T> T getConverted(@NonNull Context context, @Nullable DJIBitmapDescriptor descriptor,
+                                           @NonNull Class<T> type, @NonNull Converter<T> converter) {
+        Entry entry = getEntry(context, descriptor, getKey(descriptor));
+        if (entry == null) {
+            return null;
+        }
+        Object value = entry.converted.get(type);
+        if (value == null) {
+            value = converter.convert(entry.bitmap);
+            if (value != null) {
+                entry.converted.put(type, value);
+            }
+        }
+        return type.cast(value);
+    }
+
+    /**
+     * {@hide}
+     * Gets the bitmap of an icon and keeps it in the cache while a map shows it.
+     *
+     * @param key the key returned by {@link #getKey(DJIBitmapDescriptor)} for the descriptor
+     * @return the shared bitmap, or null if the icon cannot be decoded
+     */
+    @Nullable
+    synchronized Bitmap retain(@NonNull Context context, @NonNull DJIBitmapDescriptor descriptor, @NonNull String key) {
+        Entry entry = getEntry(context, descriptor, key);
+        if (entry == null) {
+            return null;
+        }
+        entry.references++;
+        return entry.bitmap;
+    }
+
+    /**
+     * {@hide}
+     * Releases an icon retained by {@link #retain(Context, DJIBitmapDescriptor, String)}.
+     */
+    synchronized void release(@NonNull String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.references > 0) {
+            entry.references--;
+            trim();
+        }
+    }
+
+    /**
+     * {@hide}
+     * Records that a map reused an icon it had already uploaded.
+     */
+    synchronized void recordUploadSaved() {
+        uploadsSaved++;
+    }
+
+    //Doc key: DJIMap_DJIIconCache_clear
+    /**
+     *  Drops every icon that is not shown by a map.
+     */
+    public synchronized void clear() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.references == 0) {
+                cachedBytes -= entry.bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    @NonNull
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), cachedBytes, hits, misses, duplicateBitmaps, uploadsSaved, bytesSaved);
+    }
+
+    private Entry getEntry(Context context, DJIBitmapDescriptor descriptor, String key) {
+        if (key == null) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        int references = 0;
+        if (entry != null) {
+            if (!entry.bitmap.isRecycled()) {
+                hits++;
+                if (descriptor.getType() != DJIBitmapDescriptor.Type.BITMAP) {
+                    bytesSaved += entry.bytes;
+                }
+                return entry;
+            }
+            // 缓存的 bitmap 被外部回收了，按未命中处理，保留已有的引用计数
+            entries.remove(key);
+            cachedBytes -= entry.bytes;
+            references = entry.references;
+        }
+        misses++;
+        Bitmap bitmap = descriptor.getType() == DJIBitmapDescriptor.Type.BITMAP
+                ? copyIfMutable(descriptor.getBitmap()) : decode(context, descriptor);
+        if (bitmap == null || bitmap.isRecycled()) {
+            return null;
+        }
+        entry = new Entry(bitmap, references);
+        entries.put(key, entry);
+        cachedBytes += entry.bytes;
+        trim();
+        return entry;
+    }
+
+    /**
+     * 调用方之后还可能修改或回收可变的 bitmap，缓存中保存一份不可变的拷贝
+     */
+    private static Bitmap copyIfMutable(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return bitmap;
+        }
+        Bitmap.Config config = bitmap.getConfig() != null ? bitmap.getConfig() : Bitmap.Config.ARGB_8888;
+        return bitmap.copy(config, false);
+    }
+
+    private String getBitmapKey(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return null;
+        }
+        String key = bitmapKeys.get(bitmap);
+        if (key != null) {
+            return key;
+        }
+        ByteBuffer pixels = ByteBuffer.allocate(bitmap.getRowBytes() * bitmap.getHeight());
+        bitmap.copyPixelsToBuffer(pixels);
+        CRC32 crc = new CRC32();
+        crc.update(pixels.array(), 0, pixels.position());
+        key = "bitmap:" + bitmap.getWidth() + "x" + bitmap.getHeight() + ":" + bitmap.getConfig()
+                + ":" + Long.toHexString(crc.getValue());
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.bitmap.isRecycled()) {
+            if (entry.bitmap.sameAs(bitmap)) {
+                // 内容相同的另一个 bitmap，地图只使用缓存中的这一份
+                duplicateBitmaps++;
+            } else {
+                // 校验和冲突，按对象区分
+                key = key + "@" + Integer.toHexString(System.identityHashCode(bitmap));
+            }
+        }
+        bitmapKeys.put(bitmap, key);
+        return key;
+    }
+
+    private Bitmap decode(Context context, DJIBitmapDescriptor descriptor) {
+        try {
+            switch (descriptor.getType()) {
+                case RESOURCE_ID:
+                    return DrawUtils.drawable2Bitmap(context.getResources().getDrawable(descriptor.getResourceId()));
+                case PATH_ASSET:
+                    try (InputStream inputStream = context.getAssets().open(descriptor.getPath())) {
+                        return BitmapFactory.decodeStream(inputStream);
+                    }
+                case PATH_FILEINPUT:
+                    try (InputStream inputStream = context.openFileInput(descriptor.getPath())) {
+                        return BitmapFactory.decodeStream(inputStream);
+                    }
+                case PATH_ABSOLUTE:
+                    return BitmapFactory.decodeFile(descriptor.getPath());
+                default:
+                    return null;
+            }
+        } catch (IOException | RuntimeException e) {
+            DJIMapkitLog.e(TAG, "decode icon " + descriptor.getType() + " fail: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void trim() {
+        if (cachedBytes <= maxBytes) {
+            return;
+        }
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.references == 0) {
+                cachedBytes -= entry.bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    //Doc key: DJIMap_DJIIconCache_Stats
+    /**
+     *  A snapshot of the cache counters.
+     */
+    public static final class Stats {
+        private final int entryCount;
+        private final long cachedBytes;
+        private final long hits;
+        private final long misses;
+        private final long duplicateBitmaps;
+        private final long uploadsSaved;
+        private final long bytesSaved;
+
+        Stats(int entryCount, long cachedBytes, long hits, long misses, long duplicateBitmaps, long uploadsSaved, long bytesSaved) {
+            this.entryCount = entryCount;
+            this.cachedBytes = cachedBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.duplicateBitmaps = duplicateBitmaps;
+            this.uploadsSaved = uploadsSaved;
+            this.bytesSaved = bytesSaved;
+        }
+
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        public long getCachedBytes() {
+            return cachedBytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return number of distinct bitmap objects that had the same pixels as a cached icon
+         */
+        public long getDuplicateBitmaps() {
+            return duplicateBitmaps;
+        }
+
+        /**
+         * @return number of icons a map reused instead of adding them to its style again
+         */
+        public long getUploadsSaved() {
+            return uploadsSaved;
+        }
+
+        /**
+         * @return bitmap memory that was not decoded again because a resource, asset or file icon
+         * was already cached
+         */
+        public long getBytesSaved() {
+            return bytesSaved;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{entries=" + entryCount + ", cachedBytes=" + cachedBytes + ", hits=" + hits
+                    + ", misses=" + misses + ", duplicateBitmaps=" + duplicateBitmaps
+                    + ", uploadsSaved=" + uploadsSaved + ", bytesSaved=" + bytesSaved + "}";
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package dji.v5.ux.mapkit.core.models;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * {@hide}
+ * 一个地图中图标的引用计数。内容相同的图标只往地图中添加一次，最后一个引用释放后才移除。
+ * 图片来自共享的 {@link DJIIconCache}，被引用期间不会被缓存淘汰。
+ */
+public final class DJIIconReferences {
+
+    private static final String IMAGE_ID_PREFIX = "DJI_ICON_";
+
+    /**
+     * 把图片加到地图或从地图移除，例如 MapLibre 的 Style.addImage / removeImage
+     */
+    public interface ImageSink {
+        void addImage(@NonNull String imageId, @NonNull Bitmap bitmap);
+
+        void removeImage(@NonNull String imageId);
+    }
+
+    private static final class Reference {
+        final String key;
+        final Bitmap bitmap;
+        int count;
+
+        Reference(String key, Bitmap bitmap) {
+            this.key = key;
+            this.bitmap = bitmap;
+        }
+    }
+
+    private final Context context;
+    private final ImageSink sink;
+    private final DJIIconCache cache;
+    private final Map<String, Reference> references = new HashMap<>();
+    private final Map<String, String> imageIds = new HashMap<>();
+    private int nextImageId;
+
+    public DJIIconReferences(@NonNull Context context, @NonNull ImageSink sink) {
+        this(context, sink, DJIBitmapDescriptorFactory.getIconCache());
+    }
+
+    public DJIIconReferences(@NonNull Context context, @NonNull ImageSink sink, @NonNull DJIIconCache cache) {
+        this.context = context;
+        this.sink = sink;
+        this.cache = cache;
+    }
+
+    /**
+     * 引用一个图标，第一次引用时把图片加到地图中
+     *
+     * @return 图片在地图中的 id，图标不能缓存或解码失败时为 null
+     */
+    @Nullable
+    public synchronized String acquire(@Nullable DJIBitmapDescriptor descriptor) {
+        String key = cache.getKey(descriptor);
+        if (key == null) {
+            return null;
+        }
+        String imageId = imageIds.get(key);
+        if (imageId != null) {
+            Reference reference = references.get(imageId);
+            reference.count++;
+            cache.recordUploadSaved();
+            return imageId;
+        }
+        Bitmap bitmap = cache.retain(context, descriptor, key);
+        if (bitmap == null) {
+            return null;
+        }
+        imageId = IMAGE_ID_PREFIX + nextImageId++;
+        Reference reference = new Reference(key, bitmap);
+        reference.count = 1;
+        references.put(imageId, reference);
+        imageIds.put(key, imageId);
+        sink.addImage(imageId, bitmap);
+        return imageId;
+    }
+
+    /**
+     * 释放 {@link #acquire(DJIBitmapDescriptor)} 得到的图片，最后一个引用释放后从地图中移除
+     */
+    public synchronized void release(@Nullable String imageId) {
+        Reference reference = imageId == null ? null : references.get(imageId);
+        if (reference == null) {
+            return;
+        }
+        if (--reference.count == 0) {
+            references.remove(imageId);
+            imageIds.remove(reference.key);
+            sink.removeImage(imageId);
+            cache.release(reference.key);
+        }
+    }
+
+    @Nullable
+    public synchronized Bitmap getBitmap(@Nullable String imageId) {
+        Reference reference = imageId == null ? null : references.get(imageId);
+        return reference == null ? null : reference.bitmap;
+    }
+
+    /**
+     * 地图 style 切换后，把所有被引用的图片重新加回去
+     */
+    public synchronized void restore() {
+        for (Map.Entry<String, Reference> entry : references.entrySet()) {
+            sink.addImage(entry.getKey(), entry.getValue().bitmap);
+        }
+    }
+
+    /**
+     * 移除所有图片并释放所有引用
+     */
+    public synchronized void clear() {
+        for (Map.Entry<String, Reference> entry : references.entrySet()) {
+            sink.removeImage(entry.getKey());
+            cache.release(entry.getValue().key);
+        }
+        references.clear();
+        imageIds.clear();
+    }
+
+    public synchronized int size() {
+        return references.size();
+    }
+}
@@ -0,0 +1,130 @@
+package dji.v5.ux.mapkit.core.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@hide}
+ * 按 latitude, longitude 交替存放坐标的可增长 double 数组，不为每个点创建 DJILatLng 对象。
+ * 非线程安全。
+ */
+public final class DJILatLngBuffer {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private double[] coordinates;
+    private int size;
+
+    public DJILatLngBuffer() {
+        this(MIN_CAPACITY);
+    }
+
+    public DJILatLngBuffer(int capacity) {
+        coordinates = new double[Math.max(capacity, MIN_CAPACITY) * 2];
+    }
+
+    /**
+     * @return 点的个数
+     */
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int index) {
+        checkIndex(index);
+        return coordinates[index * 2];
+    }
+
+    public double getLongitude(int index) {
+        checkIndex(index);
+        return coordinates[index * 2 + 1];
+    }
+
+    @NonNull
+    public DJILatLng get(int index) {
+        checkIndex(index);
+        return new DJILatLng(coordinates[index * 2], coordinates[index * 2 + 1]);
+    }
+
+    public void add(double latitude, double longitude) {
+        ensureCapacity(size + 1);
+        coordinates[size * 2] = latitude;
+        coordinates[size * 2 + 1] = longitude;
+        size++;
+    }
+
+    /**
+     * 把 [start, end) 的点替换成 points
+     */
+    public void replace(int start, int end, @NonNull List<DJILatLng> points) {
+        int count = points.size();
+        openRange(start, end, count);
+        for (int i = 0; i < count; i++) {
+            DJILatLng point = points.get(i);
+            coordinates[(start + i) * 2] = point.getLatitude();
+            coordinates[(start + i) * 2 + 1] = point.getLongitude();
+        }
+    }
+
+    /**
+     * 把 [start, end) 的点替换成 latLngPairs 中从 offset 开始的 count 个点
+     *
+     * @param latLngPairs 按 latitude, longitude 交替存放的坐标
+     */
+    public void replace(int start, int end, @NonNull double[] latLngPairs, int offset, int count) {
+        if (offset < 0 || count < 0 || (offset + count) * 2 > latLngPairs.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", count " + count + ", length " + latLngPairs.length);
+        }
+        openRange(start, end, count);
+        System.arraycopy(latLngPairs, offset * 2, coordinates, start * 2, count * 2);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    @NonNull
+    public List<DJILatLng> toList() {
+        List<DJILatLng> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new DJILatLng(coordinates[i * 2], coordinates[i * 2 + 1]));
+        }
+        return list;
+    }
+
+    @NonNull
+    public double[] toArray() {
+        return Arrays.copyOf(coordinates, size * 2);
+    }
+
+    /**
+     * 移除 [start, end) 的点，并在 start 处空出 count 个点的位置
+     */
+    private void openRange(int start, int end, int count) {
+        if (start < 0 || end > size || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", size " + size);
+        }
+        int newSize = size - (end - start) + count;
+        ensureCapacity(newSize);
+        if (end < size && start + count != end) {
+            System.arraycopy(coordinates, end * 2, coordinates, (start + count) * 2, (size - end) * 2);
+        }
+        size = newSize;
+    }
+
+    private void ensureCapacity(int pointCount) {
+        if (pointCount * 2 > coordinates.length) {
+            int newCapacity = Math.max(pointCount, coordinates.length / 2 + (coordinates.length >> 2));
+            coordinates = Arrays.copyOf(coordinates, newCapacity * 2);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package dji.v5.ux.mapkit.core.models.annotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import dji.v5.ux.mapkit.core.models.DJILatLng;
+import dji.v5.ux.mapkit.core.models.DJILatLngBuffer;
+
+/**
+ * {@hide}
+ * DJIPolyline 的基类，点保存在 {@link DJILatLngBuffer} 中。
+ * 每次修改只通过 {@link #onPointsChanged(int, int, int)} 通知变化的区间，
+ * 各地图用 {@link #applyChange} 只转换新插入的点，再把自己的点列表整体提交一次。
+ */
+public abstract class DJIBasePolyline implements DJIPolyline {
+
+    /**
+     * 把坐标转换成地图自己的点类型
+     */
+    protected interface PointConverter<T> {
+        T convert(double latitude, double longitude);
+    }
+
+    private final DJILatLngBuffer points = new DJILatLngBuffer();
+
+    protected DJIBasePolyline(@Nullable List<DJILatLng> initialPoints) {
+        if (initialPoints != null) {
+            points.replace(0, 0, initialPoints);
+        }
+    }
+
+    @Override
+    public void setPoints(List<DJILatLng> newPoints) {
+        replaceRange(0, points.size(), newPoints);
+    }
+
+    @Override
+    public void setPoints(double[] latLngPairs) {
+        if (latLngPairs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngPairs must have an even length");
+        }
+        int removedCount = points.size();
+        int insertedCount = latLngPairs.length / 2;
+        points.replace(0, removedCount, latLngPairs, 0, insertedCount);
+        onPointsChanged(0, removedCount, insertedCount);
+    }
+
+    @Override
+    public void appendPoints(List<DJILatLng> newPoints) {
+        replaceRange(points.size(), points.size(), newPoints);
+    }
+
+    @Override
+    public void replaceRange(int start, int end, List<DJILatLng> newPoints) {
+        points.replace(start, end, newPoints);
+        onPointsChanged(start, end - start, newPoints.size());
+    }
+
+    @Override
+    public List<DJILatLng> getPoints() {
+        return points.toList();
+    }
+
+    public int getPointCount() {
+        return points.size();
+    }
+
+    @NonNull
+    protected final DJILatLngBuffer getPointBuffer() {
+        return points;
+    }
+
+    /**
+     * 点发生了变化，[start, start + removedCount) 的旧点被 [start, start + insertedCount) 的新点替换
+     */
+    protected abstract void onPointsChanged(int start, int removedCount, int insertedCount);
+
+    /**
+     * 把一次变化同步到地图自己的点列表，只转换新插入的点
+     */
+    protected final <T> void applyChange(@NonNull List<T> target, int start, int removedCount, int insertedCount,
+                                         @NonNull PointConverter<T> converter) {
+        if (removedCount > 0) {
+            target.subList(start, start + removedCount).clear();
+        }
+        if (insertedCount > 0) {
+            List<T> inserted = new ArrayList<>(insertedCount);
+            for (int i = start; i < start + insertedCount; i++) {
+                inserted.add(converter.convert(points.getLatitude(i), points.getLongitude(i)));
+            }
+            target.addAll(start, inserted);
+        }
+    }
+}
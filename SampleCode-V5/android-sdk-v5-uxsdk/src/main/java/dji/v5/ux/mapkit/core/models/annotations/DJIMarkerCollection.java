@@ -0,0 +1,422 @@
+package dji.v5.ux.mapkit.core.models.annotations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor;
+import dji.v5.ux.mapkit.core.models.DJILatLng;
+
+//Doc key: DJIMap_DJIMarkerCollection
+/**
+ *  A group of markers that share one z-index and are drawn and updated together.
+ *  To add a collection to a map, see `DJIMap.addMarkerCollection`.
+ *
+ *  Changes are collected and handed to the map in one update: every call to
+ *  `addAll`, `removeAll` or `clear` commits once, and any changes made between
+ *  `beginBatch` and `endBatch` are committed together when the outermost batch ends.
+ *  Outside of a batch, changing a single item commits right away.
+ */
+public abstract class DJIMarkerCollection {
+
+    //Doc key: DJIMap_DJIMarkerCollection_OnItemClickListener
+    /**
+     *  Listener on the click event of an item in the collection.
+     */
+    public interface OnItemClickListener {
+        void onItemClick(@NonNull DJIMarkerCollection collection, @NonNull Item item);
+    }
+
+    //Doc key: DJIMap_DJIMarkerCollection_Item
+    /**
+     *  One marker in a collection. Setters only record the change; it is drawn when
+     *  the collection commits.
+     */
+    public static final class Item {
+        private final DJIMarkerCollection owner;
+        private final int id;
+        private DJILatLng position;
+        private DJIBitmapDescriptor icon;
+        private DJIBitmapDescriptor selectedIcon;
+        private float rotation;
+        private boolean visible;
+        private boolean selected;
+        private String title;
+        private boolean infoWindowEnable;
+        private boolean infoWindowShown;
+        private Object tag;
+
+        Item(DJIMarkerCollection owner, int id, DJIMarkerOptions options) {
+            this.owner = owner;
+            this.id = id;
+            position = options.getPosition();
+            icon = options.getIcon();
+            rotation = options.getRotation();
+            visible = options.getVisible();
+            title = options.getTitle();
+            infoWindowEnable = options.isInfoWindowEnable();
+        }
+
+        /**
+         * @return id of the item, unique inside its collection
+         */
+        public int getId() {
+            return id;
+        }
+
+        public DJILatLng getPosition() {
+            return position;
+        }
+
+        public void setPosition(@NonNull DJILatLng position) {
+            this.position = position;
+            owner.onItemChanged(this);
+        }
+
+        @Nullable
+        public DJIBitmapDescriptor getIcon() {
+            return icon;
+        }
+
+        public void setIcon(@Nullable DJIBitmapDescriptor icon) {
+            this.icon = icon;
+            owner.onItemChanged(this);
+        }
+
+        @Nullable
+        public DJIBitmapDescriptor getSelectedIcon() {
+            return selectedIcon;
+        }
+
+        /**
+         * @param selectedIcon icon shown while the item is selected, null to keep the normal icon
+         */
+        public void setSelectedIcon(@Nullable DJIBitmapDescriptor selectedIcon) {
+            this.selectedIcon = selectedIcon;
+            owner.onItemChanged(this);
+        }
+
+        /**
+         * @return the icon that should be drawn for the current selection state
+         */
+        @Nullable
+        public DJIBitmapDescriptor getDisplayedIcon() {
+            return selected && selectedIcon != null ? selectedIcon : icon;
+        }
+
+        public float getRotation() {
+            return rotation;
+        }
+
+        public void setRotation(float rotation) {
+            this.rotation = rotation;
+            owner.onItemChanged(this);
+        }
+
+        public boolean isVisible() {
+            return visible;
+        }
+
+        public void setVisible(boolean visible) {
+            this.visible = visible;
+            owner.onItemChanged(this);
+        }
+
+        public boolean isSelected() {
+            return selected;
+        }
+
+        /**
+         * Selected items are drawn with their selected icon, above the other items.
+         */
+        public void setSelected(boolean selected) {
+            this.selected = selected;
+            owner.onItemChanged(this);
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+            if (infoWindowShown) {
+                owner.onItemChanged(this);
+            }
+        }
+
+        public boolean isInfoWindowEnable() {
+            return infoWindowEnable;
+        }
+
+        /**
+         * @param infoWindowEnable whether clicking the item toggles its info window
+         */
+        public void setInfoWindowEnable(boolean infoWindowEnable) {
+            this.infoWindowEnable = infoWindowEnable;
+            if (!infoWindowEnable) {
+                hideInfoWindow();
+            }
+        }
+
+        /**
+         * Shows the title of the item above its icon.
+         */
+        public void showInfoWindow() {
+            if (!infoWindowShown) {
+                infoWindowShown = true;
+                owner.onItemChanged(this);
+            }
+        }
+
+        public void hideInfoWindow() {
+            if (infoWindowShown) {
+                infoWindowShown = false;
+                owner.onItemChanged(this);
+            }
+        }
+
+        public boolean isInfoWindowShown() {
+            return infoWindowShown;
+        }
+
+        public Object getTag() {
+            return tag;
+        }
+
+        public void setTag(Object tag) {
+            this.tag = tag;
+        }
+
+        public void remove() {
+            owner.remove(this);
+        }
+    }
+
+    private final int zIndex;
+    private final Map<Integer, Item> items = new LinkedHashMap<>();
+    private final Set<Item> pendingAdded = new LinkedHashSet<>();
+    private final Set<Item> pendingRemoved = new LinkedHashSet<>();
+    private final Set<Item> pendingChanged = new LinkedHashSet<>();
+    private int nextItemId;
+    private int batchDepth;
+    private boolean removed;
+    private OnItemClickListener onItemClickListener;
+
+    protected DJIMarkerCollection(int zIndex) {
+        this.zIndex = zIndex;
+    }
+
+    public int getZIndex() {
+        return zIndex;
+    }
+
+    //Doc key: DJIMap_DJIMarkerCollection_add
+    /**
+     *  Adds one marker. The position, icon, rotation, visibility, title and info window
+     *  flag of the options are used; the other fields are ignored.
+     *
+     *  @param options Describes the marker.
+     *  @return The item that was added.
+     */
+    @NonNull
+    public Item add(@NonNull DJIMarkerOptions options) {
+        beginBatch();
+        Item item = addInternal(options);
+        endBatch();
+        return item;
+    }
+
+    //Doc key: DJIMap_DJIMarkerCollection_addAll
+    /**
+     *  Adds several markers with a single update of the map.
+     *
+     *  @param optionsList Describes the markers.
+     *  @return The items that were added, in the same order.
+     */
+    @NonNull
+    public List<Item> addAll(@NonNull List<DJIMarkerOptions> optionsList) {
+        List<Item> added = new ArrayList<>(optionsList.size());
+        beginBatch();
+        for (DJIMarkerOptions options : optionsList) {
+            added.add(addInternal(options));
+        }
+        endBatch();
+        return added;
+    }
+
+    private Item addInternal(DJIMarkerOptions options) {
+        if (options.getPosition() == null) {
+            throw new IllegalArgumentException("DJIMarkerOptions parameter must have position set");
+        }
+        Item item = new Item(this, nextItemId++, options);
+        items.put(item.id, item);
+        pendingAdded.add(item);
+        return item;
+    }
+
+    public void remove(@NonNull Item item) {
+        removeAll(Collections.singletonList(item));
+    }
+
+    //Doc key: DJIMap_DJIMarkerCollection_removeAll
+    /**
+     *  Removes several markers with a single update of the map.
+     *
+     *  @param toRemove The items to remove.
+     */
+    public void removeAll(@NonNull Collection<Item> toRemove) {
+        beginBatch();
+        for (Item item : toRemove) {
+            if (item.owner == this && items.remove(item.id) != null) {
+                pendingChanged.remove(item);
+                // An item added and removed inside the same batch never reaches the map
+                if (!pendingAdded.remove(item)) {
+                    pendingRemoved.add(item);
+                }
+            }
+        }
+        endBatch();
+    }
+
+    /**
+     * Removes every marker of the collection; the collection itself stays on the map.
+     */
+    public void clear() {
+        removeAll(new ArrayList<>(items.values()));
+    }
+
+    /**
+     * @return the items in the order they were added
+     */
+    @NonNull
+    public List<Item> getItems() {
+        return new ArrayList<>(items.values());
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    @Nullable
+    public Item findItem(int id) {
+        return items.get(id);
+    }
+
+    //Doc key: DJIMap_DJIMarkerCollection_beginBatch
+    /**
+     *  Starts collecting changes. Batches can be nested; the changes are committed
+     *  when the outermost batch ends.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    //Doc key: DJIMap_DJIMarkerCollection_endBatch
+    /**
+     *  Ends a batch started with `beginBatch`.
+     */
+    public void endBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("endBatch without beginBatch");
+        }
+        batchDepth--;
+        if (batchDepth == 0) {
+            commit();
+        }
+    }
+
+    public void setOnItemClickListener(@Nullable OnItemClickListener listener) {
+        onItemClickListener = listener;
+    }
+
+    /**
+     * {@hide}
+     * Called by the map when an item of this collection is clicked. Like a single marker,
+     * an item with its info window enabled toggles the info window on every click.
+     *
+     * @return true if the click toggled an info window or a listener handled it
+     */
+    public boolean performItemClick(@NonNull Item item) {
+        boolean handled = false;
+        if (item.infoWindowEnable) {
+            if (item.infoWindowShown) {
+                item.hideInfoWindow();
+            } else {
+                item.showInfoWindow();
+            }
+            handled = true;
+        }
+        if (onItemClickListener != null) {
+            onItemClickListener.onItemClick(this, item);
+            handled = true;
+        }
+        return handled;
+    }
+
+    //Doc key: DJIMap_DJIMarkerCollection_remove
+    /**
+     *  Removes the collection and all of its markers from the map.
+     */
+    public void remove() {
+        if (removed) {
+            return;
+        }
+        removed = true;
+        items.clear();
+        pendingAdded.clear();
+        pendingRemoved.clear();
+        pendingChanged.clear();
+        onRemove();
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    private void onItemChanged(Item item) {
+        if (removed || items.get(item.id) != item) {
+            return;
+        }
+        if (!pendingAdded.contains(item)) {
+            pendingChanged.add(item);
+        }
+        if (batchDepth == 0) {
+            commit();
+        }
+    }
+
+    private void commit() {
+        if (removed || pendingAdded.isEmpty() && pendingRemoved.isEmpty() && pendingChanged.isEmpty()) {
+            return;
+        }
+        List<Item> added = new ArrayList<>(pendingAdded);
+        List<Item> removedItems = new ArrayList<>(pendingRemoved);
+        List<Item> changed = new ArrayList<>(pendingChanged);
+        pendingAdded.clear();
+        pendingRemoved.clear();
+        pendingChanged.clear();
+        onCommit(added, removedItems, changed);
+    }
+
+    /**
+     * Applies one batch of changes to the map.
+     *
+     * @param added   items added since the last commit
+     * @param removed items removed since the last commit, never part of added
+     * @param changed items whose properties changed, never part of added or removed
+     */
+    protected abstract void onCommit(@NonNull List<Item> added, @NonNull List<Item> removed, @NonNull List<Item> changed);
+
+    /**
+     * Removes everything the collection put on the map.
+     */
+    protected abstract void onRemove();
+}
@@ -5,6 +5,7 @@ import androidx.annotation.ColorInt;
 
 import dji.v5.ux.mapkit.core.models.DJILatLng;
 
+import java.util.ArrayList;
 import java.util.List;
 
 //Doc key: DJIMap_DJIPolyline
@@ -44,6 +45,52 @@ public interface DJIPolyline {
      */
     void setPoints(List<DJILatLng> points);
 
+    //Doc key: DJIMap_DJIPolyline_setPointsArray
+    /**
+     * Sets the points of the polyline from an array of coordinates.
+     *
+     * @param latLngPairs The latitude and longitude of each point, one after the other.
+     */
+    default void setPoints(double[] latLngPairs) {
+        if (latLngPairs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngPairs must have an even length");
+        }
+        List<DJILatLng> points = new ArrayList<>(latLngPairs.length / 2);
+        for (int i = 0; i < latLngPairs.length; i += 2) {
+            points.add(new DJILatLng(latLngPairs[i], latLngPairs[i + 1]));
+        }
+        setPoints(points);
+    }
+
+    //Doc key: DJIMap_DJIPolyline_appendPoints
+    /**
+     * Adds points to the end of the polyline. Polylines created by the map only convert
+     * and send the new points, so a growing line does not have to be set again on every update.
+     *
+     * @param points The points to add.
+     */
+    default void appendPoints(List<DJILatLng> points) {
+        List<DJILatLng> newPoints = new ArrayList<>(getPoints());
+        newPoints.addAll(points);
+        setPoints(newPoints);
+    }
+
+    //Doc key: DJIMap_DJIPolyline_replaceRange
+    /**
+     * Replaces a range of points of the polyline. The number of new points may differ
+     * from the size of the range.
+     *
+     * @param start Index of the first point to replace.
+     * @param end Index after the last point to replace.
+     * @param points The points that replace the range.
+     */
+    default void replaceRange(int start, int end, List<DJILatLng> points) {
+        List<DJILatLng> newPoints = new ArrayList<>(getPoints());
+        newPoints.subList(start, end).clear();
+        newPoints.addAll(start, points);
+        setPoints(newPoints);
+    }
+
     //Doc key: DJIMap_DJIPolyline_getPoints
     /**
      * Gets the points of the polyline.
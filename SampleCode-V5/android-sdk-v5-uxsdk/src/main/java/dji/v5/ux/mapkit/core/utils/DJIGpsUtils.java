@@ -14,6 +14,9 @@ public class DJIGpsUtils {
     // public static boolean OPEN = true;
     private static final double M_PI = Math.PI;
 
+    private static final int GCJ_TO_WGS_MAX_ITERATIONS = 10;
+    private static final double GCJ_TO_WGS_THRESHOLD = 1e-10;
+
     private static final DeltaLatLngCache sDeltaLatLngCache = new DeltaLatLngCache();
 
     private DJIGpsUtils(){}
@@ -132,6 +135,51 @@ public class DJIGpsUtils {
         return new DJILatLng(latitude, longitude, source.getAltitude(), source.getAccuracy(), source.getTime());
     }
 
+    /**
+     * 和 gcj2wgsInChina 相同，但迭代求出 WGS 坐标，使它再转成 GCJ 后和传进来的坐标一致
+     * @param source
+     * @return
+     */
+    public static DJILatLng gcj2wgsExactInChina(DJILatLng source) {
+        if (!Mapkit.isInMainlandChina()
+                && !Mapkit.isInHongKong()
+                && !Mapkit.isInMacau()) {
+            return source;
+        }
+        return gcj2wgsExact(source);
+    }
+
+    /**
+     * 和 gcj2wgsJustInMainlandChina 相同，但迭代求出 WGS 坐标，使它再转成 GCJ 后和传进来的坐标一致
+     * @param source
+     * @return
+     */
+    public static DJILatLng gcj2wgsExactJustInMainlandChina(DJILatLng source) {
+        if (!Mapkit.isInMainlandChina()) {
+            return source;
+        }
+        return gcj2wgsExact(source);
+    }
+
+    private static DJILatLng gcj2wgsExact(DJILatLng source) {
+        // 偏移量要用 WGS 坐标计算，这里从 GCJ 坐标开始，用上一次的结果修正偏移量
+        double latitude = source.getLatitude();
+        double longitude = source.getLongitude();
+        for (int i = 0; i < GCJ_TO_WGS_MAX_ITERATIONS; i++) {
+            DeltaLatLngCache cache = delta(latitude, longitude);
+            double nextLatitude = source.getLatitude() - cache.latitude;
+            double nextLongitude = source.getLongitude() - cache.longitude;
+            boolean converged = Math.abs(nextLatitude - latitude) < GCJ_TO_WGS_THRESHOLD
+                    && Math.abs(nextLongitude - longitude) < GCJ_TO_WGS_THRESHOLD;
+            latitude = nextLatitude;
+            longitude = nextLongitude;
+            if (converged) {
+                break;
+            }
+        }
+        return new DJILatLng(latitude, longitude, source.getAltitude(), source.getAccuracy(), source.getTime());
+    }
+
 //    public static DJILatLng wgs2gcjMust(DJILatLng source) {
 //        if (!IsInsideChinaMust(source)) {
 //            return source;
@@ -0,0 +1,281 @@
+package dji.v5.ux.mapkit.core.utils.douglas;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Douglas-Peucker simplification on primitive latitude/longitude arrays.
+ * <p>
+ * Points are projected once onto a local equirectangular plane around the track, so every
+ * distance test is a few multiplications instead of three great-circle distances. The
+ * recursion of {@link DouglasUtils} is replaced by an explicit index stack, so the depth is
+ * bounded by the heap rather than the thread stack.
+ */
+public final class DouglasSimplifier {
+
+    private static final double EARTH_RADIUS = 6378137.0;
+    private static final double DEG_TO_RAD = Math.PI / 180.0;
+
+    private DouglasSimplifier() {
+    }
+
+    /**
+     * Simplify the first {@code count} points of the given arrays.
+     *
+     * @param lats      Latitudes in degrees
+     * @param lngs      Longitudes in degrees
+     * @param count     Number of points to read from the arrays
+     * @param threshold Maximum distance in meters a dropped point may have from the simplified line
+     * @return Sorted indices of the points to keep. The first and last point are always kept.
+     */
+    @NonNull
+    public static int[] simplify(@NonNull double[] lats, @NonNull double[] lngs, int count, double threshold) {
+        if (count < 0 || count > lats.length || count > lngs.length) {
+            throw new IllegalArgumentException("Invalid point count " + count);
+        }
+        if (count <= 2) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        project(lats, lngs, 0, count, xs, ys);
+        boolean[] keep = new boolean[count];
+        int kept = markKept(xs, ys, 0, count - 1, threshold, keep, new IndexStack());
+        int[] result = new int[kept];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                result[n++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Project points onto a local plane in meters, centered on the middle of the range.
+     */
+    static void project(double[] lats, double[] lngs, int from, int count, double[] xs, double[] ys) {
+        double lat0 = lats[from + count / 2];
+        double lng0 = lngs[from + count / 2];
+        double scaleX = Math.cos(lat0 * DEG_TO_RAD) * DEG_TO_RAD * EARTH_RADIUS;
+        double scaleY = DEG_TO_RAD * EARTH_RADIUS;
+        for (int i = 0; i < count; i++) {
+            double dLng = lngs[from + i] - lng0;
+            // Keep tracks crossing the antimeridian continuous.
+            if (dLng > 180) {
+                dLng -= 360;
+            } else if (dLng < -180) {
+                dLng += 360;
+            }
+            xs[i] = dLng * scaleX;
+            ys[i] = (lats[from + i] - lat0) * scaleY;
+        }
+    }
+
+    /**
+     * Mark the points in [start, end] that must be kept, iteratively.
+     *
+     * @return The number of kept points
+     */
+    static int markKept(double[] xs, double[] ys, int start, int end, double threshold, boolean[] keep, IndexStack stack) {
+        keep[start] = true;
+        keep[end] = true;
+        int kept = start == end ? 1 : 2;
+        stack.clear();
+        stack.push(start, end);
+        while (!stack.isEmpty()) {
+            int last = stack.pop();
+            int first = stack.pop();
+            if (last - first < 2) {
+                continue;
+            }
+            double ax = xs[first];
+            double ay = ys[first];
+            double dx = xs[last] - ax;
+            double dy = ys[last] - ay;
+            double lengthSq = dx * dx + dy * dy;
+            double maxDistSq = -1;
+            int maxIndex = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = xs[i] - ax;
+                double py = ys[i] - ay;
+                double distSq;
+                if (lengthSq == 0) {
+                    distSq = px * px + py * py;
+                } else {
+                    // Squared distance from the point to the line through first and last.
+                    double cross = px * dy - py * dx;
+                    distSq = cross * cross / lengthSq;
+                }
+                if (distSq > maxDistSq) {
+                    maxDistSq = distSq;
+                    maxIndex = i;
+                }
+            }
+            if (maxIndex >= 0 && maxDistSq >= threshold * threshold) {
+                keep[maxIndex] = true;
+                kept++;
+                stack.push(first, maxIndex);
+                stack.push(maxIndex, last);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Growable stack of point indices. It is kept by its owner, so a stack that had to grow for
+     * one track is reused at that size for the next one.
+     */
+    static final class IndexStack {
+        private int[] items = new int[64];
+        private int size;
+
+        void push(int first, int last) {
+            if (size + 2 > items.length) {
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+            items[size++] = first;
+            items[size++] = last;
+        }
+
+        int pop() {
+            return items[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int capacity() {
+            return items.length;
+        }
+    }
+
+    /**
+     * Simplifies a track while its points arrive.
+     * <p>
+     * Points are collected into a window. When the window is full it is simplified and every kept
+     * point except the last one is final; simplification then continues from the last kept point.
+     * Memory use is bounded by the window size no matter how long the track gets.
+     */
+    public static final class Streaming {
+
+        /**
+         * Receives the points that will not change any more
+         */
+        public interface OnPointListener {
+            void onPoint(double lat, double lng);
+        }
+
+        private final double threshold;
+        private final OnPointListener listener;
+        private final double[] lats;
+        private final double[] lngs;
+        private final double[] xs;
+        private final double[] ys;
+        private final boolean[] keep;
+        private final IndexStack stack = new IndexStack();
+        private int count;
+        private long inputCount;
+        private long outputCount;
+
+        /**
+         * @param windowSize Number of points buffered before simplification, at least 3
+         * @param threshold  Maximum distance in meters a dropped point may have from the simplified line
+         * @param listener   Receives the final points in order
+         */
+        public Streaming(int windowSize, double threshold, @NonNull OnPointListener listener) {
+            if (windowSize < 3) {
+                throw new IllegalArgumentException("windowSize must be at least 3");
+            }
+            this.threshold = threshold;
+            this.listener = listener;
+            lats = new double[windowSize];
+            lngs = new double[windowSize];
+            xs = new double[windowSize];
+            ys = new double[windowSize];
+            keep = new boolean[windowSize];
+        }
+
+        /**
+         * Add the next point of the track
+         */
+        public void add(double lat, double lng) {
+            inputCount++;
+            lats[count] = lat;
+            lngs[count] = lng;
+            count++;
+            if (count == lats.length) {
+                drain(false);
+            }
+        }
+
+        /**
+         * Simplify and emit every buffered point, including the last one
+         */
+        public void flush() {
+            if (count > 0) {
+                drain(true);
+            }
+        }
+
+        /**
+         * @return Number of points added so far
+         */
+        public long getInputCount() {
+            return inputCount;
+        }
+
+        /**
+         * @return Number of points emitted so far
+         */
+        public long getOutputCount() {
+            return outputCount;
+        }
+
+        private void drain(boolean emitLast) {
+            Arrays.fill(keep, 0, count, false);
+            project(lats, lngs, 0, count, xs, ys);
+            markKept(xs, ys, 0, count - 1, threshold, keep, stack);
+            int lastKept = count - 1;
+            if (!emitLast) {
+                // The window end is arbitrary, so the last interior kept point is not final yet.
+                lastKept = 0;
+                for (int i = count - 2; i > 0; i--) {
+                    if (keep[i]) {
+                        lastKept = i;
+                        break;
+                    }
+                }
+                if (lastKept == 0) {
+                    // Nothing interior survived: the window is a straight run, keep only its end.
+                    lastKept = count - 1;
+                }
+            }
+            int end = emitLast ? count : lastKept;
+            for (int i = 0; i < end; i++) {
+                if (keep[i]) {
+                    outputCount++;
+                    listener.onPoint(lats[i], lngs[i]);
+                }
+            }
+            if (emitLast) {
+                count = 0;
+                return;
+            }
+            int remaining = count - lastKept;
+            System.arraycopy(lats, lastKept, lats, 0, remaining);
+            System.arraycopy(lngs, lastKept, lngs, 0, remaining);
+            count = remaining;
+        }
+    }
+}
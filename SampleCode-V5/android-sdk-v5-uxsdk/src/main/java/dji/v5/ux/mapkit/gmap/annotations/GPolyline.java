@@ -3,8 +3,9 @@ package dji.v5.ux.mapkit.gmap.annotations;
 import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import dji.v5.ux.mapkit.core.models.DJILatLng;
-import dji.v5.ux.mapkit.core.models.annotations.DJIPolyline;
+import dji.v5.ux.mapkit.core.models.annotations.DJIBasePolyline;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolylineOptions;
+import dji.v5.ux.mapkit.core.utils.DJIGpsUtils;
 import dji.v5.ux.mapkit.gmap.utils.GoogleUtils;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Polyline;
@@ -14,11 +15,26 @@ import java.util.List;
 /**
  * Created by joeyang on 6/11/17.
  */
-public class GPolyline implements DJIPolyline {
+public class GPolyline extends DJIBasePolyline {
+    private static final PointConverter<LatLng> TO_LAT_LNG =
+            (latitude, longitude) -> GoogleUtils.fromDJILatLng(new DJILatLng(latitude, longitude));
+
     private Polyline mPolyline;
+    /**
+     * 已转换成 Google 坐标的点，和 DJIBasePolyline 中的点一一对应，修改时只转换变化的点
+     */
+    private final List<LatLng> gPoints;
 
     public GPolyline(@NonNull Polyline polyline) {
+        super(fromLatLngs(polyline.getPoints()));
+        this.mPolyline = polyline;
+        gPoints = new ArrayList<>(polyline.getPoints());
+    }
+
+    public GPolyline(@NonNull Polyline polyline, @NonNull DJIPolylineOptions options) {
+        super(options.getPoints());
         this.mPolyline = polyline;
+        gPoints = new ArrayList<>(polyline.getPoints());
     }
 
     @Override
@@ -37,23 +53,11 @@ public class GPolyline implements DJIPolyline {
     }
 
     @Override
-    public void setPoints(List<DJILatLng> points) {
-        ArrayList<LatLng> gPoints = new ArrayList<>(points.size());
-        for (DJILatLng latLng : points) {
-            gPoints.add(GoogleUtils.fromDJILatLng(latLng));
-        }
+    protected void onPointsChanged(int start, int removedCount, int insertedCount) {
+        applyChange(gPoints, start, removedCount, insertedCount, TO_LAT_LNG);
         mPolyline.setPoints(gPoints);
     }
 
-    @Override
-    public List<DJILatLng> getPoints() {
-        List<DJILatLng> djiPoints = new ArrayList<>(mPolyline.getPoints().size());
-        for (LatLng latLng : mPolyline.getPoints()) {
-            djiPoints.add(GoogleUtils.fromLatLng(latLng));
-        }
-        return djiPoints;
-    }
-
     @Override
     public void setColor(@ColorInt int color) {
         mPolyline.setColor(color);
@@ -84,12 +88,7 @@ public class GPolyline implements DJIPolyline {
     //  11/6/17 这里setOptions只改变了points，事实上，可能其他的也改变了这里没有实现
     public void setOptions(DJIPolylineOptions options) {
         // Google Map 没有 setOptions 方法
-        List<DJILatLng> latLngs = options.getPoints();
-        List<LatLng> points = new ArrayList<>(latLngs.size());
-        for (DJILatLng latLng : latLngs) {
-            points.add(GoogleUtils.fromDJILatLng(latLng));
-        }
-        mPolyline.setPoints(points);
+        setPoints(options.getPoints());
     }
 
     @Override
@@ -107,4 +106,15 @@ public class GPolyline implements DJIPolyline {
     public int hashCode() {
         return mPolyline.hashCode();
     }
+
+    /**
+     * 地图上的点是 GCJ 坐标，转回 WGS 时要精确求逆，否则再转换一次后和地图上的点对不上
+     */
+    private static List<DJILatLng> fromLatLngs(List<LatLng> latLngs) {
+        List<DJILatLng> djiPoints = new ArrayList<>(latLngs.size());
+        for (LatLng latLng : latLngs) {
+            djiPoints.add(DJIGpsUtils.gcj2wgsExactJustInMainlandChina(new DJILatLng(latLng.latitude, latLng.longitude)));
+        }
+        return djiPoints;
+    }
 }
@@ -168,7 +168,7 @@ public class GMapDelegate extends DJIBaseMap implements DJIMap, GoogleMap.OnMark
     @Override
     public DJIPolyline addPolyline(DJIPolylineOptions options) {
         Polyline polyline = mMap.addPolyline(GoogleUtils.fromDJIPolylineOptions(options));
-        return new GPolyline(polyline);
+        return new GPolyline(polyline, options);
     }
 
     @NonNull
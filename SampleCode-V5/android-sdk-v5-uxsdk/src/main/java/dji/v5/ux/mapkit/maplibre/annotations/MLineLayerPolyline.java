@@ -2,8 +2,7 @@ package dji.v5.ux.mapkit.maplibre.annotations;
 
 import androidx.annotation.ColorInt;
 
-import dji.v5.ux.mapkit.core.models.DJILatLng;
-import dji.v5.ux.mapkit.core.models.annotations.DJIPolyline;
+import dji.v5.ux.mapkit.core.models.annotations.DJIBasePolyline;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolylineOptions;
 import dji.v5.ux.mapkit.maplibre.map.MaplibreMapDelegate;
 import com.mapbox.geojson.Feature;
@@ -23,7 +22,9 @@ import java.util.List;
 /**
  * Created by joeyang on 12/9/17.
  */
-public class MLineLayerPolyline implements DJIPolyline {
+public class MLineLayerPolyline extends DJIBasePolyline {
+
+    private static final PointConverter<Point> TO_POINT = (latitude, longitude) -> Point.fromLngLat(longitude, latitude);
 
     private MapboxMap mapboxMap;
     private LineLayer lineLayer;
@@ -33,17 +34,17 @@ public class MLineLayerPolyline implements DJIPolyline {
 
     private String sourceId;
     private String layerId;
-    private final List<DJILatLng> pointsCache = new ArrayList<>();
-
-    private MLineLayerPolyline() {
-
-    }
+    /**
+     * 和 DJIBasePolyline 中的点一一对应，修改时只转换变化的点
+     */
+    private final List<Point> linePoints = new ArrayList<>();
 
     public MLineLayerPolyline(MaplibreMapDelegate maplibreMapDelegate,
                               MapboxMap mapboxMap,
                               LineLayer lineLayer,
                               GeoJsonSource source,
                               DJIPolylineOptions options) {
+        super(null);
         this.maplibreMapDelegate = maplibreMapDelegate;
         this.mapboxMap = mapboxMap;
         this.lineLayer = lineLayer;
@@ -58,8 +59,7 @@ public class MLineLayerPolyline implements DJIPolyline {
 
     public void updateSourceLayer() {
         source = new GeoJsonSource(sourceId);
-        options.setPoints(this.pointsCache);
-        setPoints(options.getPoints());
+        updateSource();
 
         mapboxMap.getStyle().addSource(source);
         lineLayer = new LineLayer(layerId, sourceId);
@@ -94,32 +94,24 @@ public class MLineLayerPolyline implements DJIPolyline {
     }
 
     @Override
-    public void setPoints(List<DJILatLng> points) {
-        // 在Stopping world时，外部调用此方法时，所传进来的points并没有被保存
-        pointsCache.clear();
-        pointsCache.addAll(points);
+    protected void onPointsChanged(int start, int removedCount, int insertedCount) {
+        // 在Stopping world时也要保存点，style 加载完成后在 updateSourceLayer 中整体提交
+        applyChange(linePoints, start, removedCount, insertedCount, TO_POINT);
         if (maplibreMapDelegate.isStoppingWorld()) {
             return;
         }
-        options.setPoints(points);
-        List<Point> positionList = new ArrayList<>(points.size());
-        for (DJILatLng latLng : points) {
-            Point position = Point.fromLngLat(latLng.getLongitude(), latLng.getLatitude());
-            positionList.add(position);
-        }
+        updateSource();
+    }
 
-        LineString lineString = LineString.fromLngLats(positionList);
+    private void updateSource() {
+        // source 会持有传入的点，这里传一份拷贝
+        LineString lineString = LineString.fromLngLats(new ArrayList<>(linePoints));
         FeatureCollection featureCollection =
                 FeatureCollection.fromFeatures(new Feature[]{Feature.fromGeometry(lineString)});
 
         source.setGeoJson(featureCollection);
     }
 
-    @Override
-    public List<DJILatLng> getPoints() {
-        return options.getPoints();
-    }
-
     @Override
     public void setColor(@ColorInt int color) {
         if (maplibreMapDelegate.isStoppingWorld()) {
@@ -158,14 +150,7 @@ public class MLineLayerPolyline implements DJIPolyline {
             return;
         }
         this.options = options;
-        List<Point> positionList = new ArrayList<>(options.getPoints().size());
-        for (DJILatLng latLng : options.getPoints()) {
-            Point position = Point.fromLngLat(latLng.getLongitude(), latLng.getLatitude());
-            positionList.add(position);
-        }
-
-        LineString lineString = LineString.fromLngLats(positionList);
-        source.setGeoJson(lineString);
+        setPoints(options.getPoints());
         setColor(options.getColor());
         setWidth(options.getWidth());
     }
@@ -1,9 +1,7 @@
 package dji.v5.ux.mapkit.maplibre.annotations;
 
-import dji.v5.ux.mapkit.core.models.DJILatLng;
-import dji.v5.ux.mapkit.core.models.annotations.DJIPolyline;
+import dji.v5.ux.mapkit.core.models.annotations.DJIBasePolyline;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolylineOptions;
-import dji.v5.ux.mapkit.maplibre.utils.MaplibreUtils;
 import com.mapbox.mapboxsdk.annotations.Polyline;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
@@ -15,13 +13,21 @@ import java.util.List;
  * Created by joeyang on 11/2/17.
  * Mapbox的Polyline代理类
  */
-public class MPolyline implements DJIPolyline {
+public class MPolyline extends DJIBasePolyline {
+
+    private static final PointConverter<LatLng> TO_LAT_LNG = LatLng::new;
 
     Polyline polyline;
     DJIPolylineOptions mDJIPolylineOptions;
     MapboxMap mapboxMap;
+    /**
+     * 和 DJIBasePolyline 中的点一一对应，修改时只转换变化的点
+     */
+    private final List<LatLng> mPoints;
 
     public MPolyline(Polyline polyline, DJIPolylineOptions options, MapboxMap mapboxMap) {
+        super(options.getPoints());
+        mPoints = new ArrayList<>(polyline.getPoints());
         this.polyline = polyline;
         this.mDJIPolylineOptions = options;
         this.mapboxMap = mapboxMap;
@@ -43,21 +49,9 @@ public class MPolyline implements DJIPolyline {
     }
 
     @Override
-    public void setPoints(List<DJILatLng> points) {
-        List<LatLng> mPoints = new ArrayList<>(points.size());
-        for (DJILatLng latLng : points) {
-            mPoints.add(MaplibreUtils.fromDJILatLng(latLng));
-        }
-        polyline.setPoints(mPoints);
-    }
-
-    @Override
-    public List<DJILatLng> getPoints() {
-        List<DJILatLng> djiPoints = new ArrayList<>(polyline.getPoints().size());
-        for (LatLng latLng : polyline.getPoints()) {
-            djiPoints.add(MaplibreUtils.fromLatLng(latLng));
-        }
-        return djiPoints;
+    protected void onPointsChanged(int start, int removedCount, int insertedCount) {
+        applyChange(mPoints, start, removedCount, insertedCount, TO_LAT_LNG);
+        polyline.setPoints(new ArrayList<>(mPoints));
     }
 
     @Override
@@ -89,13 +83,8 @@ public class MPolyline implements DJIPolyline {
      * @param options
      */
     public void setOptions(DJIPolylineOptions options) {
-        List<DJILatLng> latLngs = options.getPoints();
-        List<LatLng> points = new ArrayList<>(latLngs.size());
-        for (DJILatLng latLng : latLngs) {
-            points.add(MaplibreUtils.fromDJILatLng(latLng));
-        }
         polyline.setColor(options.getColor());
         polyline.setWidth(options.getWidth() / 5f);
-        polyline.setPoints(points);
+        setPoints(options.getPoints());
     }
 }
@@ -9,6 +9,7 @@ import dji.v5.ux.mapkit.core.maps.DJIInfoWindow
 import dji.v5.ux.mapkit.core.maps.DJIMap
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptorFactory
+import dji.v5.ux.mapkit.core.models.DJIIconReferences
 import dji.v5.ux.mapkit.core.models.DJILatLng
 import dji.v5.ux.mapkit.core.models.annotations.DJIMarker
 import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerOptions
@@ -27,6 +28,7 @@ import dji.v5.ux.R
 class MaplibreMarker(private val context: Context,
                      private val mapboxMap: MapboxMap,
                      private val options: DJIMarkerOptions,
+                     private val iconReferences: DJIIconReferences,
                      private val onRemoveMarker: (zindex: Int, marker: MaplibreMarker) -> Boolean
 ) : DJIMarker() {
     private val source: GeoJsonSource by lazy {
@@ -37,7 +39,7 @@ class MaplibreMarker(private val context: Context,
     internal val markerLayer: SymbolLayer by lazy {
         SymbolLayer(markerLayerId, source.id)
                 .withProperties(
-                        PropertyFactory.iconImage(iconId),
+                        PropertyFactory.iconImage(imageId ?: iconId),
                         PropertyFactory.iconAllowOverlap(true),
                         PropertyFactory.iconIgnorePlacement(true),
                         PropertyFactory.iconRotate(options.rotation)
@@ -56,6 +58,11 @@ class MaplibreMarker(private val context: Context,
     private val iconId = markerIconIdAndIncrement
     internal val markerLayerId = markerLayerIdAndIncrement
     private var descriptor = options.icon
+
+    /**
+     * 图标在 style 中的图片 id，内容相同的图标由 [iconReferences] 共用一张图片
+     */
+    private var imageId: String? = null
     private var markerIconWidth = 0
     private var markerIconHeight = 0
     private val pixelRatio = context.resources.displayMetrics.density
@@ -77,7 +84,7 @@ class MaplibreMarker(private val context: Context,
         mapboxMap.style?.let {
             if (it.isFullyLoaded) {
                 setUpSource(it)
-                setUpMarkerIcon(it, descriptor)
+                setUpMarkerIcon(descriptor)
             }
         }
     }
@@ -93,7 +100,7 @@ class MaplibreMarker(private val context: Context,
 
     override fun setIcon(bitmap: DJIBitmapDescriptor?) {
         mapboxMap.style?.let {
-            if (it.isFullyLoaded) setUpMarkerIcon(it, bitmap)
+            if (it.isFullyLoaded) setUpMarkerIcon(bitmap)
         }
     }
 
@@ -155,10 +162,11 @@ class MaplibreMarker(private val context: Context,
             if (!onRemoveMarker(options.zIndex, this)) {
                 DJIMapkitLog.e(TAG, "remove marker $this fail")
             }
-            it.removeImage(iconId)
             it.removeLayerAndLog(markerLayer)
             it.removeSourceAndLog(source)
         }
+        iconReferences.release(imageId)
+        imageId = null
     }
 
     override fun setDraggable(b: Boolean) {
@@ -180,7 +188,10 @@ class MaplibreMarker(private val context: Context,
             createInfoWindowLayer()
         }
         mapboxMap.style?.let {
-            setUpMarkerIcon(it, descriptor)
+            // 图片已经由 iconReferences 加回 style，只有还没设置过图标时才需要设置
+            if (imageId == null) {
+                setUpMarkerIcon(descriptor)
+            }
             it.addSourceAndLog(source)
         }
     }
@@ -198,7 +209,6 @@ class MaplibreMarker(private val context: Context,
             DJIMapkitLog.i(TAG, "clear marker")
             it.removeLayerAndLog(markerLayer)
             it.removeSourceAndLog(source)
-            it.removeImage(iconId)
         }
     }
 
@@ -221,17 +231,20 @@ class MaplibreMarker(private val context: Context,
         }
     }
 
-    private fun setUpMarkerIcon(style: Style, icon: DJIBitmapDescriptor?) {
+    private fun setUpMarkerIcon(icon: DJIBitmapDescriptor?) {
         descriptor = icon
         if (descriptor == null) {
             descriptor = DJIBitmapDescriptorFactory.fromResource(R.drawable.uxsdk_ic_bird)
         }
-        fromDJIBitmapDescriptor(context, descriptor)?.let { bitmap ->
+        // 先引用新图标再释放旧图标，图标没变时图片不会被移除又重新添加
+        val newImageId = iconReferences.acquire(descriptor) ?: return
+        iconReferences.getBitmap(newImageId)?.let { bitmap ->
             markerIconWidth = bitmap.width
             markerIconHeight = bitmap.height
-            style.removeImage(iconId)
-            style.addImage(iconId, bitmap)
         }
+        iconReferences.release(imageId)
+        imageId = newImageId
+        markerLayer.withProperties(PropertyFactory.iconImage(newImageId))
     }
 
     private fun setUpSource(style: Style) {
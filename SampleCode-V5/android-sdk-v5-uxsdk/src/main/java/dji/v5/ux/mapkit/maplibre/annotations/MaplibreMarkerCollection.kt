@@ -0,0 +1,184 @@
+package dji.v5.ux.mapkit.maplibre.annotations
+
+import android.graphics.PointF
+import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor
+import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptorFactory
+import dji.v5.ux.mapkit.core.models.DJIIconReferences
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerCollection
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerCollection.Item
+import dji.v5.ux.mapkit.core.utils.DJIMapkitLog
+import dji.v5.ux.mapkit.maplibre.utils.*
+import com.mapbox.geojson.Feature
+import com.mapbox.geojson.FeatureCollection
+import com.mapbox.geojson.Point
+import com.mapbox.mapboxsdk.maps.MapboxMap
+import com.mapbox.mapboxsdk.style.expressions.Expression.get
+import com.mapbox.mapboxsdk.style.layers.Property
+import com.mapbox.mapboxsdk.style.layers.PropertyFactory
+import com.mapbox.mapboxsdk.style.layers.SymbolLayer
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource
+import dji.v5.ux.R
+
+/**
+ * 一个 collection 只对应一个 GeoJsonSource 和一个 SymbolLayer，所有 item 都是 source 中的 feature。
+ * 图标、旋转角度、选中状态和显示中的 info window 标题写在 feature 的属性里，由 layer 的表达式读取，
+ * 每次 commit 只调用一次 setGeoJson。
+ */
+class MaplibreMarkerCollection(private val mapboxMap: MapboxMap,
+                               zIndex: Int,
+                               private val iconReferences: DJIIconReferences,
+                               private val onRemoveCollection: (collection: MaplibreMarkerCollection) -> Boolean
+) : DJIMarkerCollection(zIndex) {
+    private val source: GeoJsonSource by lazy {
+        GeoJsonSource(markerSourceIdAndIncrement, FeatureCollection.fromFeatures(emptyList()))
+    }
+    val collectionLayer: SymbolLayer by lazy {
+        SymbolLayer(collectionLayerId, source.id)
+                .withProperties(
+                        PropertyFactory.iconImage(get(PROPERTY_ICON)),
+                        PropertyFactory.iconRotate(get(PROPERTY_ROTATION)),
+                        PropertyFactory.symbolSortKey(get(PROPERTY_SORT_KEY)),
+                        PropertyFactory.iconAllowOverlap(true),
+                        PropertyFactory.iconIgnorePlacement(true),
+                        PropertyFactory.textField(get(PROPERTY_TITLE)),
+                        PropertyFactory.textAnchor(Property.TEXT_ANCHOR_BOTTOM),
+                        PropertyFactory.textOffset(arrayOf(0f, -1.5f)),
+                        PropertyFactory.textAllowOverlap(true),
+                        PropertyFactory.textIgnorePlacement(true)
+                )
+    }
+    val collectionLayerId = markerLayerIdAndIncrement
+
+    /**
+     * 只保存可见 item 的 feature，item 没有变化时沿用上次生成的 feature
+     */
+    private val features = LinkedHashMap<Item, Feature>()
+
+    /**
+     * 每个 item 当前显示的图标和它在 style 中的图片 id，图片由 [iconReferences] 按内容共享和计数
+     */
+    private val itemIcons = HashMap<Item, Pair<DJIBitmapDescriptor, String?>>()
+
+    init {
+        DJIMapkitLog.i(TAG, "init")
+        mapboxMap.style?.let {
+            if (it.isFullyLoaded) {
+                it.addSourceAndLog(source)
+            }
+        }
+    }
+
+    override fun onCommit(added: List<Item>, removed: List<Item>, changed: List<Item>) {
+        DJIMapkitLog.i(TAG, "commit added ${added.size}, removed ${removed.size}, changed ${changed.size}")
+        removed.forEach {
+            features.remove(it)
+            releaseIcon(it)
+        }
+        added.forEach { updateFeature(it) }
+        changed.forEach { updateFeature(it) }
+        updateSource()
+    }
+
+    override fun onRemove() {
+        DJIMapkitLog.i(TAG, "remove this collection")
+        if (!onRemoveCollection(this)) {
+            DJIMapkitLog.e(TAG, "remove collection $this fail")
+        }
+        clearCollection()
+        features.clear()
+        itemIcons.values.forEach { iconReferences.release(it.second) }
+        itemIcons.clear()
+    }
+
+    /**
+     * @return 屏幕上该位置最上面的 item
+     */
+    fun queryItem(screenPoint: PointF): Item? {
+        for (feature in mapboxMap.queryRenderedFeatures(screenPoint, collectionLayerId)) {
+            val id = feature.getNumberProperty(PROPERTY_ID) ?: continue
+            findItem(id.toInt())?.let { return it }
+        }
+        return null
+    }
+
+    /**
+     * 地图 style 切换后，将资源加载回来
+     */
+    fun restore() {
+        DJIMapkitLog.i(TAG, "restore")
+        mapboxMap.style?.let { style ->
+            style.addSourceAndLog(source)
+            updateSource()
+        }
+    }
+
+    /**
+     * 地图 style 切换前，将资源 remove 掉
+     */
+    fun clearCollection() {
+        mapboxMap.style?.let { style ->
+            DJIMapkitLog.i(TAG, "clear collection")
+            style.removeLayerAndLog(collectionLayer)
+            style.removeSourceAndLog(source)
+        }
+    }
+
+    private fun updateFeature(item: Item) {
+        val iconId = retainIcon(item)
+        if (!item.isVisible || iconId == null) {
+            features.remove(item)
+            return
+        }
+        val position = item.position
+        features[item] = Feature.fromGeometry(Point.fromLngLat(position.longitude, position.latitude)).apply {
+            addNumberProperty(PROPERTY_ID, item.id)
+            addStringProperty(PROPERTY_ICON, iconId)
+            addNumberProperty(PROPERTY_ROTATION, item.rotation)
+            addNumberProperty(PROPERTY_SORT_KEY, if (item.isSelected) 1 else 0)
+            addStringProperty(PROPERTY_TITLE, if (item.isInfoWindowShown) item.title.orEmpty() else "")
+        }
+    }
+
+    private fun updateSource() {
+        mapboxMap.style?.let {
+            if (it.isFullyLoaded) {
+                source.setGeoJson(FeatureCollection.fromFeatures(features.values.toList()))
+            }
+        }
+    }
+
+    /**
+     * 引用 item 当前显示的图标，图标换了时释放原来的图标
+     *
+     * @return 图标在 style 中的 id
+     */
+    private fun retainIcon(item: Item): String? {
+        val descriptor = item.displayedIcon ?: DEFAULT_ICON
+        val old = itemIcons[item]
+        if (old != null && old.first === descriptor) {
+            return old.second
+        }
+        val imageId = iconReferences.acquire(descriptor)
+        itemIcons[item] = Pair(descriptor, imageId)
+        old?.let { iconReferences.release(it.second) }
+        return imageId
+    }
+
+    private fun releaseIcon(item: Item) {
+        itemIcons.remove(item)?.let { iconReferences.release(it.second) }
+    }
+
+    override fun toString(): String {
+        return "MaplibreMarkerCollection { layerId = $collectionLayerId, sourceId = ${source.id}, size = ${size()} }"
+    }
+
+    companion object {
+        private const val TAG = "MaplibreMarkerCollection"
+        private const val PROPERTY_ID = "id"
+        private const val PROPERTY_ICON = "icon"
+        private const val PROPERTY_ROTATION = "rotation"
+        private const val PROPERTY_SORT_KEY = "sortKey"
+        private const val PROPERTY_TITLE = "title"
+        private val DEFAULT_ICON = DJIBitmapDescriptorFactory.fromResource(R.drawable.uxsdk_ic_bird)
+    }
+}
@@ -1,8 +1,7 @@
 package dji.v5.ux.mapkit.maplibre.annotations
 
 import androidx.annotation.ColorInt
-import dji.v5.ux.mapkit.core.models.DJILatLng
-import dji.v5.ux.mapkit.core.models.annotations.DJIPolyline
+import dji.v5.ux.mapkit.core.models.annotations.DJIBasePolyline
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolylineOptions
 import dji.v5.ux.mapkit.core.utils.DJIMapkitLog
 import dji.v5.ux.mapkit.maplibre.utils.*
@@ -19,11 +18,16 @@ class MaplibrePolyline(private val mapboxMap: MapboxMap,
                        val options: DJIPolylineOptions,
                        private val onRemovePolyline: (zindex: Int, polyline: MaplibrePolyline) -> Boolean,
                        private val onAddPolyline: (zindex: Int, polyline: MaplibrePolyline) -> Unit
-) : DJIPolyline {
+) : DJIBasePolyline(options.points) {
+    private val toPoint = PointConverter { latitude, longitude -> Point.fromLngLat(longitude, latitude) }
+
+    /**
+     * 和 DJIBasePolyline 中的点一一对应，修改时只转换变化的点
+     */
+    private val linePoints = ArrayList<Point>().also { applyChange(it, 0, 0, pointCount, toPoint) }
+
     private val source by lazy {
-        options.points.map { fromDJILatLng(it) }
-                .map { Point.fromLngLat(it.longitude, it.latitude, it.altitude) }
-                .let { GeoJsonSource(polylineSourceIdAndIncrement, LineString.fromLngLats(it)) }
+        GeoJsonSource(polylineSourceIdAndIncrement, LineString.fromLngLats(ArrayList(linePoints)))
     }
 
     internal val polylineLayer by lazy {
@@ -63,15 +67,10 @@ class MaplibrePolyline(private val mapboxMap: MapboxMap,
         return polylineLayer.lineWidth.getValue() as Float * 5f
     }
 
-    override fun setPoints(points: List<DJILatLng>) {
-        options.points = points
-        points.map { fromDJILatLng(it) }
-                .map { Point.fromLngLat(it.longitude, it.latitude, it.altitude) }
-                .let { source.setGeoJson(LineString.fromLngLats(it)) }
-    }
-
-    override fun getPoints(): MutableList<DJILatLng> {
-        return options.points
+    override fun onPointsChanged(start: Int, removedCount: Int, insertedCount: Int) {
+        applyChange(linePoints, start, removedCount, insertedCount, toPoint)
+        // source 会持有传入的点，这里传一份拷贝
+        source.setGeoJson(LineString.fromLngLats(ArrayList(linePoints)))
     }
 
     override fun setColor(@ColorInt color: Int) {
@@ -2,7 +2,6 @@ package dji.v5.ux.mapkit.maplibre.map;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Color;
 import android.graphics.PointF;
 
 import androidx.annotation.NonNull;
@@ -22,12 +21,14 @@ import dji.v5.ux.mapkit.core.maps.DJIProjection;
 import dji.v5.ux.mapkit.core.maps.DJIUiSettings;
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor;
 import dji.v5.ux.mapkit.core.models.DJICameraPosition;
+import dji.v5.ux.mapkit.core.models.DJIIconReferences;
 import dji.v5.ux.mapkit.core.models.DJILatLng;
 import dji.v5.ux.mapkit.core.models.annotations.DJICircle;
 import dji.v5.ux.mapkit.core.models.annotations.DJICircleOptions;
 import dji.v5.ux.mapkit.core.models.annotations.DJIGroupCircle;
 import dji.v5.ux.mapkit.core.models.annotations.DJIGroupCircleOptions;
 import dji.v5.ux.mapkit.core.models.annotations.DJIMarker;
+import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerCollection;
 import dji.v5.ux.mapkit.core.models.annotations.DJIMarkerOptions;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolygon;
 import dji.v5.ux.mapkit.core.models.annotations.DJIPolygonOptions;
@@ -40,6 +41,7 @@ import dji.v5.ux.mapkit.maplibre.annotations.MLineLayerPolyline;
 import dji.v5.ux.mapkit.maplibre.annotations.MMarkerCircle;
 import dji.v5.ux.mapkit.maplibre.annotations.MPolygon;
 import dji.v5.ux.mapkit.maplibre.annotations.MSymbolLayerMarker;
+import dji.v5.ux.mapkit.maplibre.annotations.MaplibreMarkerCollection;
 import dji.v5.ux.mapkit.maplibre.utils.MaplibreUtils;
 import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.IconFactory;
@@ -180,6 +182,21 @@ public class MaplibreMapDelegate extends DJIBaseMap implements DJIMap,
      */
     private Set<DJIPolyline> polylines;
 
+    /**
+     * 地图所添加的marker collection集合，每个collection只有一个source和layer
+     */
+    private Set<MaplibreMarkerCollection> markerCollections;
+
+    /**
+     * 按大小缓存的 shadowMarker 透明图标
+     */
+    private final Map<String, Icon> shadowIcons = new HashMap<>();
+
+    /**
+     * marker collection 使用的图片，内容相同的只往 style 中添加一次
+     */
+    private DJIIconReferences iconReferences;
+
     /**
      * 地图添加的singleCircle集合
      */
@@ -306,6 +323,22 @@ public class MaplibreMapDelegate extends DJIBaseMap implements DJIMap,
 
         markers = new HashMap<>();
         polylines = new HashSet<>();
+        markerCollections = new HashSet<>();
+        iconReferences = new DJIIconReferences(context, new DJIIconReferences.ImageSink() {
+            @Override
+            public void addImage(@NonNull String imageId, @NonNull Bitmap bitmap) {
+                if (MaplibreMapDelegate.this.style.isFullyLoaded()) {
+                    MaplibreMapDelegate.this.style.addImage(imageId, bitmap);
+                }
+            }
+
+            @Override
+            public void removeImage(@NonNull String imageId) {
+                if (MaplibreMapDelegate.this.style.isFullyLoaded()) {
+                    MaplibreMapDelegate.this.style.removeImage(imageId);
+                }
+            }
+        });
         singleCircles = new HashSet<>();
         groupCircles = new HashSet<>();
         markerCircles = new HashSet<>();
@@ -354,6 +387,10 @@ public class MaplibreMapDelegate extends DJIBaseMap implements DJIMap,
                 symbol.setSource(null);
             }
 
+            for (MaplibreMarkerCollection collection : markerCollections) {
+                collection.clearCollection();
+            }
+
             for (DJIPolyline polyline : polylines) {
                 final MLineLayerPolyline line = (MLineLayerPolyline) polyline;
                 style.removeLayer(line.getLayerId());
@@ -410,10 +447,7 @@ public class MaplibreMapDelegate extends DJIBaseMap implements DJIMap,
         DJIBitmapDescriptor bitmapDescriptor = markerOptions.getIcon();
         if (bitmapDescriptor != null) {
             Icon i = MaplibreUtils.fromDJIBitmapDescriptor(context, bitmapDescriptor);
-            Bitmap bitmap = i.getBitmap();
-            Bitmap shadowBitmap = createTransparentBitmap(bitmap);
-            Icon icon = IconFactory.getInstance(context).fromBitmap(shadowBitmap);
-            options.icon(icon);
+            options.icon(getShadowIcon(i.getBitmap()));
         }
         Marker shadowMarker = mapboxMap.addMarker(options);
 
@@ -456,22 +490,35 @@ public class MaplibreMapDelegate extends DJIBaseMap implements DJIMap,
         return djiMarker;
     }
 
+    @Override
+    public DJIMarkerCollection addMarkerCollection(int zIndex) {
+        MaplibreMarkerCollection collection = new MaplibreMarkerCollection(mapboxMap, zIndex, iconReferences, removed -> {
+            removeZIndexById(removed.getCollectionLayerId());
+            return markerCollections.remove(removed);
+        });
+        addLayerByZIndex(zIndex, collection.getCollectionLayer());
+        markerCollections.add(collection);
+        return collection;
+    }
+
     @Override
     public Object getMap() {
         return mapboxMap;
     }
 
-    private Bitmap createTransparentBitmap(Bitmap src) {
-        int width = src.getWidth();
-        int height = src.getHeight();
-
-        Bitmap transparentBitmap = Bitmap.createBitmap(width, height, src.getConfig());
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                transparentBitmap.setPixel(x, y, Color.TRANSPARENT);
-            }
+    /**
+     * shadowMarker 只需要和真正的图标一样大的透明图片，同样大小的 shadowMarker 共用一个 Icon
+     */
+    private Icon getShadowIcon(Bitmap src) {
+        String key = src.getWidth() + "x" + src.getHeight();
+        Icon icon = shadowIcons.get(key);
+        if (icon == null) {
+            // 新建的 bitmap 像素默认就是透明的
+            Bitmap transparentBitmap = Bitmap.createBitmap(src.getWidth(), src.getHeight(), Bitmap.Config.ARGB_8888);
+            icon = IconFactory.getInstance(context).fromBitmap(transparentBitmap);
+            shadowIcons.put(key, icon);
         }
-        return transparentBitmap;
+        return icon;
     }
 
     /**
@@ -780,6 +827,12 @@ public class MaplibreMapDelegate extends DJIBaseMap implements DJIMap,
             layer.updateSourceLayer();
         }
 
+        iconReferences.restore();
+        for (MaplibreMarkerCollection collection : markerCollections) {
+            collection.restore();
+            addLayerByZIndex(collection.getZIndex(), collection.getCollectionLayer());
+        }
+
         for (DJIPolyline polyline : polylines) {
             final MLineLayerPolyline layer = (MLineLayerPolyline) polyline;
             layer.updateSourceLayer();
@@ -961,6 +1014,13 @@ public class MaplibreMapDelegate extends DJIBaseMap implements DJIMap,
     public boolean onMapClick(@NonNull LatLng point) {
 //        DJILatLng latLng = new DJILatLng(point);
 //        DJILatLng latLng = new DJILatLng(point.getLatitude(), point.getLongitude(), point.getAltitude());
+        PointF screenPoint = mapboxMap.getProjection().toScreenLocation(point);
+        for (MaplibreMarkerCollection collection : markerCollections) {
+            DJIMarkerCollection.Item item = collection.queryItem(screenPoint);
+            if (item != null && collection.performItemClick(item)) {
+                return true;
+            }
+        }
         DJILatLng latLng = MaplibreUtils.fromLatLng(point);
         onMapClick(latLng);
         return true;
@@ -1,6 +1,7 @@
 package dji.v5.ux.mapkit.maplibre.map
 
 import android.content.Context
+import android.graphics.Bitmap
 import android.graphics.PointF
 import android.view.MotionEvent
 import android.view.View
@@ -11,10 +12,12 @@ import dji.v5.ux.mapkit.core.maps.DJIBaseMap
 import dji.v5.ux.mapkit.core.maps.DJIMap
 import dji.v5.ux.mapkit.core.maps.DJIMap.MapType
 import dji.v5.ux.mapkit.core.models.DJICameraPosition
+import dji.v5.ux.mapkit.core.models.DJIIconReferences
 import dji.v5.ux.mapkit.core.models.annotations.*
 import dji.v5.ux.mapkit.core.utils.DJIMapkitLog
 import dji.v5.ux.mapkit.maplibre.annotations.MaplibreCircle
 import dji.v5.ux.mapkit.maplibre.annotations.MaplibreMarker
+import dji.v5.ux.mapkit.maplibre.annotations.MaplibreMarkerCollection
 import dji.v5.ux.mapkit.maplibre.annotations.MaplibrePolygon
 import dji.v5.ux.mapkit.maplibre.annotations.MaplibrePolyline
 import dji.v5.ux.mapkit.maplibre.utils.*
@@ -72,16 +75,30 @@ class MaplibreMapDelegateKt(private val mapboxMap: MapboxMap,
     private var currentSelectedMarker: MaplibreMarker? = null
 
     private val markerSet = HashSet<MaplibreMarker>()
+    private val markerCollectionSet = HashSet<MaplibreMarkerCollection>()
     private val circleSet = HashSet<MaplibreCircle>()
     private val polygonSet = HashSet<MaplibrePolygon>()
     private val polylineSet = HashSet<MaplibrePolyline>()
     private val sortedLayerWithZindex = TreeSet<LayerWithZindex>()
 
+    /**
+     * marker 和 marker collection 的图片，内容相同的图标只往 style 中添加一次
+     */
+    private val iconReferences = DJIIconReferences(context, object : DJIIconReferences.ImageSink {
+        override fun addImage(imageId: String, bitmap: Bitmap) {
+            mapboxMap.style?.addImage(imageId, bitmap)
+        }
+
+        override fun removeImage(imageId: String) {
+            mapboxMap.style?.removeImage(imageId)
+        }
+    })
+
     override fun addMarker(markerOptions: DJIMarkerOptions): DJIMarker? {
         if (mapboxMap.style == null) {
             return null
         }
-        return MaplibreMarker(context, mapboxMap, markerOptions) { zindex, marker ->
+        return MaplibreMarker(context, mapboxMap, markerOptions, iconReferences) { zindex, marker ->
             val removeMarker = markerSet.removeAndLog(marker)
             val removeLayer = removeLayer(marker.markerLayer, zindex)
             removeLayer && removeMarker
@@ -92,6 +109,20 @@ class MaplibreMapDelegateKt(private val mapboxMap: MapboxMap,
         }
     }
 
+    override fun addMarkerCollection(zIndex: Int): DJIMarkerCollection? {
+        if (mapboxMap.style == null) {
+            return null
+        }
+        return MaplibreMarkerCollection(mapboxMap, zIndex, iconReferences) { collection ->
+            val removeCollection = markerCollectionSet.removeAndLog(collection)
+            val removeLayer = removeLayer(collection.collectionLayer, collection.zIndex)
+            removeLayer && removeCollection
+        }.also {
+            addLayer(it.collectionLayer, zIndex)
+            markerCollectionSet.addAndLog(it)
+        }
+    }
+
     override fun addMarkerCircle(options: DJICircleOptions?): DJICircle? {
         TODO("Not yet implemented")
     }
@@ -125,6 +156,7 @@ class MaplibreMapDelegateKt(private val mapboxMap: MapboxMap,
 
     override fun setMapType(type: MapType, listener: OnMapTypeLoadedListener?) {
         markerSet.forEach { it.clearMarker() }
+        markerCollectionSet.forEach { it.clearCollection() }
         circleSet.forEach { it.clearCircle() }
         polygonSet.forEach { it.clear() }
         polylineSet.forEach { it.clear() }
@@ -132,7 +164,9 @@ class MaplibreMapDelegateKt(private val mapboxMap: MapboxMap,
     }
 
     private fun restoreResources(style: Style, listener: OnMapTypeLoadedListener?) {
+        iconReferences.restore()
         markerSet.forEach { it.restore() }
+        markerCollectionSet.forEach { it.restore() }
         circleSet.forEach { it.restore() }
         polygonSet.forEach { it.restore() }
         polylineSet.forEach { it.restore() }
@@ -218,6 +252,10 @@ class MaplibreMapDelegateKt(private val mapboxMap: MapboxMap,
             forEach { it.clearMarker() }
             clear()
         }
+        markerCollectionSet.apply {
+            forEach { it.clearCollection() }
+            clear()
+        }
         circleSet.apply {
             forEach { it.clearCircle() }
             clear()
@@ -230,6 +268,7 @@ class MaplibreMapDelegateKt(private val mapboxMap: MapboxMap,
             forEach { it.clear() }
             clear()
         }
+        iconReferences.clear()
     }
 
     private fun addLayer(layer: Layer, zindex: Int) {
@@ -263,6 +302,12 @@ class MaplibreMapDelegateKt(private val mapboxMap: MapboxMap,
                 return true
             }
         }
+        for (collection: MaplibreMarkerCollection in markerCollectionSet) {
+            val item = collection.queryItem(screenPoint) ?: continue
+            if (collection.performItemClick(item)) {
+                return true
+            }
+        }
         return false
     }
 
@@ -8,7 +8,7 @@ import dji.v5.ux.mapkit.core.camera.DJICameraUpdate
 import dji.v5.ux.mapkit.core.camera.DJICameraUpdateFactory
 import dji.v5.ux.mapkit.core.maps.DJIMap
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor
-import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor.Type
+import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptorFactory
 import dji.v5.ux.mapkit.core.models.DJICameraPosition
 import dji.v5.ux.mapkit.core.models.DJILatLng
 import com.mapbox.mapboxsdk.camera.CameraPosition
@@ -17,7 +17,6 @@ import com.mapbox.mapboxsdk.camera.CameraUpdateFactory
 import com.mapbox.mapboxsdk.geometry.LatLng
 import com.mapbox.mapboxsdk.geometry.LatLngBounds
 import com.mapbox.mapboxsdk.maps.Style
-import com.mapbox.mapboxsdk.utils.BitmapUtils
 
 private const val FEATURE_ID_PREFIX = "FEATURE_ID_PREFIX"
 private const val MARKER_ICON_ID_PREFIX = "MARKER_ICON_ID_PREFIX"
@@ -95,13 +94,11 @@ fun getInfoWindowIconId(markerIconId: String) = markerIconId + INFO_WINDOW_ID_PO
 
 fun getInfoWindowLayerId(markerLayerId: String) = markerLayerId + INFO_WINDOW_ID_POSTFIX
 
-fun fromDJIBitmapDescriptor(context: Context, descriptor: DJIBitmapDescriptor?): Bitmap? {
-    return when (descriptor?.type) {
-        Type.BITMAP -> descriptor.bitmap
-        Type.RESOURCE_ID -> BitmapUtils.getBitmapFromDrawable(context.resources.getDrawable(descriptor.resourceId))
-        else -> null
-    }
-}
+/**
+ * 内容相同的图标返回同一个 bitmap，只解码一次
+ */
+fun fromDJIBitmapDescriptor(context: Context, descriptor: DJIBitmapDescriptor?): Bitmap? =
+        DJIBitmapDescriptorFactory.getIconCache().getBitmap(context, descriptor)
 
 fun fromDJILatLng(latLng: DJILatLng): LatLng = LatLng(latLng.latitude, latLng.longitude, latLng.altitude)
 
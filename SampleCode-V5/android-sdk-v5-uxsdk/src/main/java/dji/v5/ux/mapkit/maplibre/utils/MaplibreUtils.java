@@ -9,6 +9,7 @@ import android.text.TextUtils;
 import dji.v5.ux.mapkit.core.camera.DJICameraUpdate;
 import dji.v5.ux.mapkit.core.camera.DJICameraUpdateFactory;
 import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptor;
+import dji.v5.ux.mapkit.core.models.DJIBitmapDescriptorFactory;
 import dji.v5.ux.mapkit.core.models.DJICameraPosition;
 import dji.v5.ux.mapkit.core.models.DJILatLng;
 import dji.v5.ux.mapkit.core.models.DJILatLngBounds;
@@ -99,7 +100,13 @@ public class MaplibreUtils {
     }
 
     public static final Icon fromDJIBitmapDescriptor(Context context,  DJIBitmapDescriptor descriptor) {
-        Icon icon;
+        // 内容相同的图标共用一个 Icon，只解码一次
+        Icon icon = DJIBitmapDescriptorFactory.getIconCache().getConverted(context, descriptor, Icon.class,
+                bitmap -> IconFactory.getInstance(context).fromBitmap(bitmap));
+        if (icon != null) {
+            descriptor.updateBitmap(icon.getBitmap());
+            return icon;
+        }
         String path = descriptor.getPath();
         switch (descriptor.getType()) {
             case BITMAP:
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package dji.v5.ux.core.base;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import androidx.annotation.NonNull;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the window mode of {@link StateUpdateCoalescer} folds bursts, stops on dispose
+ * and never runs two recomputes at the same time.
+ */
+public class StateUpdateCoalescerTest {
+
+    private static final long WINDOW_MILLIS = 50;
+    private static final int THREADS = 4;
+    private static final int EMISSIONS_PER_THREAD = 500;
+    private static final long EMISSION_INTERVAL_NANOS = 100_000;
+
+    @After
+    public void tearDown() {
+        SchedulerProvider.setScheduler(null);
+    }
+
+    @Test
+    public void burstIsFoldedIntoOneRecompute() {
+        TestScheduler testScheduler = useTestScheduler();
+        AtomicInteger recomputes = new AtomicInteger();
+        StateUpdateCoalescer coalescer = new StateUpdateCoalescer(recomputes::incrementAndGet, false, WINDOW_MILLIS);
+
+        for (int i = 0; i < 10; i++) {
+            coalescer.onEmission();
+        }
+        testScheduler.advanceTimeBy(WINDOW_MILLIS - 1, TimeUnit.MILLISECONDS);
+        assertEquals(0, recomputes.get());
+        testScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        assertEquals(1, recomputes.get());
+        assertEquals(10, coalescer.getLastFoldedCount());
+
+        coalescer.onEmission();
+        testScheduler.advanceTimeBy(WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(2, recomputes.get());
+        assertEquals(1, coalescer.getLastFoldedCount());
+        assertEquals(10, coalescer.getMaxFoldedCount());
+        assertEquals(11, coalescer.getEmissionCount());
+        assertEquals(2, coalescer.getRecomputeCount());
+    }
+
+    @Test
+    public void disposeCancelsPendingRecompute() {
+        TestScheduler testScheduler = useTestScheduler();
+        AtomicInteger recomputes = new AtomicInteger();
+        StateUpdateCoalescer coalescer = new StateUpdateCoalescer(recomputes::incrementAndGet, false, WINDOW_MILLIS);
+
+        coalescer.onEmission();
+        coalescer.dispose();
+        coalescer.onEmission();
+        testScheduler.advanceTimeBy(WINDOW_MILLIS * 10, TimeUnit.MILLISECONDS);
+        assertEquals(0, recomputes.get());
+        assertEquals(0, coalescer.getRecomputeCount());
+        assertEquals(2, coalescer.getEmissionCount());
+    }
+
+    @Test
+    public void emissionsDuringRecomputeNeverOverlap() throws InterruptedException {
+        // A multi-threaded computation scheduler, so overlapping flushes would be able to run in parallel.
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Scheduler computation = Schedulers.from(executor);
+        SchedulerProvider.setScheduler(new SchedulerProviderInterface() {
+            @NonNull
+            @Override
+            public Scheduler io() {
+                return computation;
+            }
+
+            @NonNull
+            @Override
+            public Scheduler computation() {
+                return computation;
+            }
+
+            @NonNull
+            @Override
+            public Scheduler ui() {
+                return computation;
+            }
+        });
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicLong emissionsSeen = new AtomicLong();
+        StateUpdateCoalescer[] holder = new StateUpdateCoalescer[1];
+        StateUpdateCoalescer coalescer = new StateUpdateCoalescer(() -> {
+            emissionsSeen.set(holder[0].getEmissionCount());
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        }, false, 0);
+        holder[0] = coalescer;
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < EMISSIONS_PER_THREAD; i++) {
+                    coalescer.onEmission();
+                    // Keep emitting while recomputes are running.
+                    LockSupport.parkNanos(EMISSION_INTERVAL_NANOS);
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (emissionsSeen.get() < coalescer.getEmissionCount() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        coalescer.dispose();
+        executor.shutdown();
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(THREADS * EMISSIONS_PER_THREAD, coalescer.getEmissionCount());
+        assertEquals(coalescer.getEmissionCount(), emissionsSeen.get());
+        assertTrue(coalescer.toString(), coalescer.getRecomputeCount() > 0);
+        assertTrue(coalescer.toString(), coalescer.getRecomputeCount() < coalescer.getEmissionCount());
+    }
+
+    private static TestScheduler useTestScheduler() {
+        TestSchedulerProvider provider = new TestSchedulerProvider();
+        SchedulerProvider.setScheduler(provider);
+        return provider.getTestScheduler();
+    }
+}
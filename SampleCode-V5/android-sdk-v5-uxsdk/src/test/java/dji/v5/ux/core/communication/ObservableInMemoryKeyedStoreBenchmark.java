@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.communication;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import dji.v5.ux.core.base.SchedulerProvider;
+import dji.v5.ux.core.base.SchedulerProviderInterface;
+import dji.v5.ux.core.util.Benchmark;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Measures {@link ObservableInMemoryKeyedStore} from several threads against a baseline store
+ * that guards every operation with one {@link ReentrantLock}. Threads either write to one key
+ * each, all write to the same key, or mix reads, writes and short lived observers over a small
+ * set of hot keys.
+ * <p>
+ * Schedulers are replaced with the trampoline scheduler so the store itself is measured and not
+ * the thread hops around it.
+ */
+public class ObservableInMemoryKeyedStoreBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int WRITES_PER_THREAD = 20_000;
+    private static final int HOT_KEYS = 8;
+
+    /**
+     * Out of every 10 operations of the mixed traffic, 7 are reads, 2 are writes and 1 adds and
+     * removes an observer.
+     */
+    private static final int MIX_PERIOD = 10;
+    private static final int MIX_READS = 7;
+    private static final int MIX_WRITES = 2;
+
+    private ObservableInMemoryKeyedStore store;
+
+    @Before
+    public void setUp() {
+        Scheduler trampoline = Schedulers.trampoline();
+        SchedulerProvider.setScheduler(new SchedulerProviderInterface() {
+            @Override
+            public Scheduler io() {
+                return trampoline;
+            }
+
+            @Override
+            public Scheduler computation() {
+                return trampoline;
+            }
+
+            @Override
+            public Scheduler ui() {
+                return trampoline;
+            }
+        });
+        store = ObservableInMemoryKeyedStore.getInstance();
+    }
+
+    @After
+    public void tearDown() {
+        store.removeAllObservers();
+        SchedulerProvider.setScheduler(null);
+    }
+
+    @Test
+    public void concurrentWritesToOneKeyAreAllBroadcast() throws Exception {
+        UXKey key = new UXKey("benchmarkSharedEvent", Integer.class, "benchmarkSharedEvent", UXKeys.UpdateType.ON_EVENT);
+        AtomicLong broadcasts = new AtomicLong();
+        Disposable disposable = store.addObserver(key).subscribe(values -> broadcasts.incrementAndGet());
+
+        writeConcurrently(store, index -> key);
+
+        assertEquals((long) THREADS * WRITES_PER_THREAD, broadcasts.get());
+        assertNotNull(store.getValue(key));
+        disposable.dispose();
+    }
+
+    @Test
+    public void onChangeKeySkipsEqualValues() {
+        UXKey key = new UXKey("benchmarkOnChange", Integer.class, "benchmarkOnChange", UXKeys.UpdateType.ON_CHANGE);
+        AtomicLong broadcasts = new AtomicLong();
+        Disposable disposable = store.addObserver(key).subscribe(values -> broadcasts.incrementAndGet());
+
+        store.setValue(key, 1).blockingAwait();
+        store.setValue(key, 1).blockingAwait();
+        store.setValue(key, 2).blockingAwait();
+
+        assertEquals(2, broadcasts.get());
+        assertEquals(2, store.getValue(key));
+        disposable.dispose();
+    }
+
+    @Test
+    public void mixedTrafficBroadcastsEveryWrite() throws Exception {
+        assertMixedTrafficBroadcastsEveryWrite(store, "benchmarkMixedCheck");
+        assertMixedTrafficBroadcastsEveryWrite(new ReentrantLockKeyedStore(), "benchmarkMixedCheckLocked");
+    }
+
+    @Test
+    public void benchmarkConcurrentSetValue() throws Exception {
+        UXKey[] ownKeys = createKeys("benchmarkOwn", THREADS);
+        UXKey sharedKey = new UXKey("benchmarkShared", Integer.class, "benchmarkShared", UXKeys.UpdateType.ON_EVENT);
+        UXKey[] hotKeys = createKeys("benchmarkHot", HOT_KEYS);
+        ReentrantLockKeyedStore lockedStore = new ReentrantLockKeyedStore();
+
+        int ops = THREADS * WRITES_PER_THREAD;
+        for (ObservableKeyedStore keyedStore : new ObservableKeyedStore[]{store, lockedStore}) {
+            String name = keyedStore.getClass().getSimpleName();
+            Disposable ownObserver = keyedStore.addObserver(ownKeys[0]).subscribe();
+            Disposable sharedObserver = keyedStore.addObserver(sharedKey).subscribe();
+            Disposable hotObserver = keyedStore.addObserver(hotKeys[0]).subscribe();
+
+            Benchmark.measure(name + " setValue, " + THREADS + " threads, one key each", ops,
+                    () -> writeConcurrently(keyedStore, index -> ownKeys[index]));
+            Benchmark.measure(name + " setValue, " + THREADS + " threads, shared key", ops,
+                    () -> writeConcurrently(keyedStore, index -> sharedKey));
+            Benchmark.measure(name + " mixed get/set/observe, " + THREADS + " threads, " + HOT_KEYS + " keys", ops,
+                    () -> mixConcurrently(keyedStore, hotKeys));
+
+            ownObserver.dispose();
+            sharedObserver.dispose();
+            hotObserver.dispose();
+        }
+        lockedStore.removeAllObservers();
+    }
+
+    /**
+     * Every write of the mixed traffic goes to an ON_EVENT key, so an observer that stays
+     * subscribed throughout must see exactly the number of writes made to its key.
+     */
+    private void assertMixedTrafficBroadcastsEveryWrite(ObservableKeyedStore keyedStore, String name) throws InterruptedException {
+        UXKey[] keys = createKeys(name, HOT_KEYS);
+        AtomicLong broadcasts = new AtomicLong();
+        Disposable disposable = keyedStore.addObserver(keys[0]).subscribe(values -> broadcasts.incrementAndGet());
+
+        mixConcurrently(keyedStore, keys);
+
+        assertEquals(name, (long) THREADS * writesPerKey(0), broadcasts.get());
+        for (UXKey key : keys) {
+            assertNotNull(name, keyedStore.getValue(key));
+        }
+        disposable.dispose();
+    }
+
+    /**
+     * @return The number of writes one thread of {@link #mixConcurrently} makes to the given key
+     */
+    private static long writesPerKey(int keyIndex) {
+        long writes = 0;
+        for (int i = 0; i < WRITES_PER_THREAD; i++) {
+            int slot = i % MIX_PERIOD;
+            if (slot >= MIX_READS && slot < MIX_READS + MIX_WRITES && i % HOT_KEYS == keyIndex) {
+                writes++;
+            }
+        }
+        return writes;
+    }
+
+    private static UXKey[] createKeys(String prefix, int count) {
+        UXKey[] keys = new UXKey[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = new UXKey(prefix + i, Integer.class, prefix + i, UXKeys.UpdateType.ON_EVENT);
+        }
+        return keys;
+    }
+
+    private interface KeyForThread {
+        UXKey get(int threadIndex);
+    }
+
+    private interface Operation {
+        void run(int iteration);
+    }
+
+    private void writeConcurrently(ObservableKeyedStore keyedStore, KeyForThread keys) throws InterruptedException {
+        runConcurrently(threadIndex -> {
+            UXKey key = keys.get(threadIndex);
+            return iteration -> keyedStore.setValue(key, iteration).blockingAwait();
+        });
+    }
+
+    private void mixConcurrently(ObservableKeyedStore keyedStore, UXKey[] keys) throws InterruptedException {
+        runConcurrently(threadIndex -> iteration -> {
+            UXKey key = keys[iteration % keys.length];
+            int slot = iteration % MIX_PERIOD;
+            if (slot < MIX_READS) {
+                keyedStore.getValue(key);
+            } else if (slot < MIX_READS + MIX_WRITES) {
+                keyedStore.setValue(key, iteration).blockingAwait();
+            } else {
+                keyedStore.removeObserver(keyedStore.addObserver(key).subscribe(), key);
+            }
+        });
+    }
+
+    private interface OperationForThread {
+        Operation get(int threadIndex);
+    }
+
+    private static void runConcurrently(OperationForThread operations) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            Operation operation = operations.get(t);
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    operation.run(i);
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Baseline store: the same semantics as {@link ObservableInMemoryKeyedStore}, with every
+     * operation, including the read-compare-write and broadcast of a set, under one lock.
+     */
+    private static final class ReentrantLockKeyedStore implements ObservableKeyedStore {
+        private final Lock lock = new ReentrantLock();
+        private final Map<String, ModelValue> values = new HashMap<>();
+        private final Map<String, PublishProcessor<BroadcastValues>> processors = new HashMap<>();
+
+        @NonNull
+        @Override
+        public Flowable<BroadcastValues> addObserver(@NonNull UXKey key) {
+            lock.lock();
+            try {
+                PublishProcessor<BroadcastValues> processor = processors.get(key.getKeyPath());
+                if (processor == null) {
+                    processor = PublishProcessor.create();
+                    processors.put(key.getKeyPath(), processor);
+                }
+                return processor.observeOn(SchedulerProvider.computation()).onBackpressureLatest();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void removeObserver(@NonNull Disposable disposable, @NonNull UXKey key) {
+            disposable.dispose();
+        }
+
+        @Override
+        public void removeAllObserversForKey(@NonNull UXKey key) {
+            lock.lock();
+            try {
+                PublishProcessor<BroadcastValues> processor = processors.remove(key.getKeyPath());
+                if (processor != null) {
+                    processor.onComplete();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void removeAllObservers() {
+            lock.lock();
+            try {
+                for (PublishProcessor<BroadcastValues> processor : processors.values()) {
+                    processor.onComplete();
+                }
+                processors.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        @Override
+        public Object getValue(@NonNull UXKey key) {
+            lock.lock();
+            try {
+                ModelValue value = values.get(key.getKeyPath());
+                return value == null ? null : value.getData();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @NonNull
+        @Override
+        public Completable setValue(@NonNull UXKey key, @NonNull Object value) {
+            return Completable.fromAction(() -> {
+                lock.lock();
+                try {
+                    ModelValue previousValue = values.get(key.getKeyPath());
+                    if (key.getUpdateType() == UXKeys.UpdateType.ON_CHANGE
+                            && previousValue != null && previousValue.getData().equals(value)) {
+                        return;
+                    }
+                    ModelValue currentValue = new ModelValue(value);
+                    values.put(key.getKeyPath(), currentValue);
+                    PublishProcessor<BroadcastValues> processor = processors.get(key.getKeyPath());
+                    if (processor != null) {
+                        processor.onNext(new BroadcastValues(previousValue, currentValue));
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }).subscribeOn(SchedulerProvider.computation());
+        }
+    }
+}
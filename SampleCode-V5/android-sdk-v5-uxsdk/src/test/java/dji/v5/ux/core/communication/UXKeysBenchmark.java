@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.communication;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import dji.v5.ux.core.util.Benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Measures {@link UXKeys#create(String, int)} for indices inside and outside the directly cached
+ * range, and checks that created keys are interned.
+ */
+public class UXKeysBenchmark {
+
+    private static final String BENCHMARK_KEY = "benchmarkUXKey";
+    private static final int THREADS = 4;
+    private static final int CREATES_PER_ROUND = 100_000;
+
+    /**
+     * Has no generated key table in the test source set, so it is registered by the field scan.
+     */
+    public static final class FallbackKeys extends UXKeys {
+        @UXParamKey(type = Integer.class, updateType = UpdateType.ON_CHANGE)
+        public static final String FALLBACK_KEY = "benchmarkFallbackKey";
+
+        private FallbackKeys() {
+            super();
+        }
+    }
+
+    @Test
+    public void createInternsKeysForEveryIndex() {
+        UXKeys.registerKey(BENCHMARK_KEY, Integer.class, UXKeys.UpdateType.ON_EVENT);
+        for (int index : new int[]{0, 15, 16, 127, 128, 1000, -1}) {
+            UXKey key = UXKeys.create(BENCHMARK_KEY, index);
+            assertNotNull(key);
+            assertEquals(BENCHMARK_KEY + "/" + index, key.getKeyPath());
+            assertSame(key, UXKeys.create(BENCHMARK_KEY, index));
+        }
+    }
+
+    @Test
+    public void concurrentCreateReturnsOneKeyPerIndex() throws InterruptedException {
+        String name = BENCHMARK_KEY + "Concurrent";
+        UXKeys.registerKey(name, Integer.class, UXKeys.UpdateType.ON_EVENT);
+        int indexCount = 300;
+        AtomicReferenceArray<UXKey> first = new AtomicReferenceArray<>(indexCount);
+        AtomicInteger mismatches = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * 37;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < indexCount; i++) {
+                    int index = (i + offset) % indexCount;
+                    UXKey key = UXKeys.create(name, index);
+                    if (!first.compareAndSet(index, null, key) && first.get(index) != key) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, mismatches.get());
+        for (int i = 0; i < indexCount; i++) {
+            assertSame(first.get(i), UXKeys.create(name, i));
+        }
+    }
+
+    @Test
+    public void storeRegistersBuiltInKeysThroughGeneratedTables() {
+        assertNotNull(ObservableInMemoryKeyedStore.getInstance());
+        assertNotNull(UXKeys.create(GlobalPreferenceKeys.UNIT_TYPE));
+        assertNotNull(UXKeys.create(CameraKeys.PEAK_THRESHOLD, 1));
+        assertNotNull(UXKeys.create(MessagingKeys.SEND_WARNING_MESSAGE));
+    }
+
+    @Test
+    public void keyClassWithoutTableIsScanned() {
+        UXKeys.addNewKeyClass(FallbackKeys.class);
+        UXKey key = UXKeys.create(FallbackKeys.FALLBACK_KEY);
+        assertNotNull(key);
+        assertEquals(Integer.class, key.getValueType());
+        assertEquals(UXKeys.UpdateType.ON_CHANGE, key.getUpdateType());
+    }
+
+    @Test
+    public void benchmarkCreate() throws Exception {
+        UXKeys.registerKey(BENCHMARK_KEY, Integer.class, UXKeys.UpdateType.ON_EVENT);
+        UXKey[] sink = new UXKey[1];
+        Benchmark.measure("create, index 0..3", CREATES_PER_ROUND, () -> {
+            for (int i = 0; i < CREATES_PER_ROUND; i++) {
+                sink[0] = UXKeys.create(BENCHMARK_KEY, i & 3);
+            }
+        });
+        Benchmark.measure("create, index 128..191", CREATES_PER_ROUND, () -> {
+            for (int i = 0; i < CREATES_PER_ROUND; i++) {
+                sink[0] = UXKeys.create(BENCHMARK_KEY, 128 + (i & 63));
+            }
+        });
+        Benchmark.measure("generated key tables, built-in classes", 3, () -> {
+            GlobalPreferenceKeys_UXKeyTable.register();
+            CameraKeys_UXKeyTable.register();
+            MessagingKeys_UXKeyTable.register();
+        });
+        Benchmark.measure("addNewKeyClass, field scan", 1, () -> UXKeys.addNewKeyClass(FallbackKeys.class));
+        assertNotNull(sink[0]);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal timing harness for JVM unit tests.
+ * <p>
+ * Each round is run a number of times to warm up the JIT, then timed a number of times. The
+ * median time per operation is printed and returned. Callers should assert on the results of
+ * the measured code, not on the timings, which depend on the machine running the tests.
+ */
+public final class Benchmark {
+
+    private static final int DEFAULT_WARMUP_ROUNDS = 5;
+    private static final int DEFAULT_MEASURED_ROUNDS = 10;
+
+    /**
+     * One timed round of a benchmark.
+     */
+    public interface Round {
+        void run() throws Exception;
+    }
+
+    private Benchmark() {
+    }
+
+    /**
+     * Measure a round with the default number of warmup and measured rounds.
+     *
+     * @param name        The name printed with the result
+     * @param opsPerRound The number of operations performed by one round
+     * @param round       The code to measure
+     * @return The median time per operation in nanoseconds
+     */
+    public static double measure(String name, int opsPerRound, Round round) throws Exception {
+        return measure(name, DEFAULT_WARMUP_ROUNDS, DEFAULT_MEASURED_ROUNDS, opsPerRound, round);
+    }
+
+    /**
+     * Measure a round.
+     *
+     * @param name          The name printed with the result
+     * @param warmupRounds  The number of rounds run before measuring
+     * @param measureRounds The number of rounds measured
+     * @param opsPerRound   The number of operations performed by one round
+     * @param round         The code to measure
+     * @return The median time per operation in nanoseconds
+     */
+    public static double measure(String name, int warmupRounds, int measureRounds, int opsPerRound, Round round) throws Exception {
+        for (int i = 0; i < warmupRounds; i++) {
+            round.run();
+        }
+        long[] times = new long[measureRounds];
+        for (int i = 0; i < measureRounds; i++) {
+            long start = System.nanoTime();
+            round.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        double nanosPerOp = (double) times[measureRounds / 2] / opsPerRound;
+        System.out.println(String.format(Locale.US, "%s: %.1f ns/op", name, nanosPerOp));
+        return nanosPerOp;
+    }
+}
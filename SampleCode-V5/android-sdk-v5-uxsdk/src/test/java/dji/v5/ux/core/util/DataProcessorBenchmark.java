@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dji.v5.ux.core.base.SchedulerProvider;
+import dji.v5.ux.core.base.SchedulerProviderInterface;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the per-subscriber scheduler hops of {@link DataProcessor#create(Object)} with the
+ * shared hop of {@link DataProcessor#createMulticast(Object)} for a hot processor with
+ * 1, 4, 16 and 64 subscribers. For each count it reports the time, the scheduler posts and the
+ * bytes allocated per emitted update.
+ */
+public class DataProcessorBenchmark {
+
+    private static final int[] SUBSCRIBER_COUNTS = {1, 4, 16, 64};
+    private static final int SUBSCRIBERS = 8;
+    private static final int UPDATES = 2_000;
+
+    private ExecutorService computation;
+    private ExecutorService ui;
+    private final AtomicLong posts = new AtomicLong();
+
+    @Before
+    public void setUp() {
+        computation = Executors.newSingleThreadExecutor();
+        ui = Executors.newSingleThreadExecutor();
+        Scheduler computationScheduler = Schedulers.from(counting(computation));
+        Scheduler uiScheduler = Schedulers.from(counting(ui));
+        SchedulerProvider.setScheduler(new SchedulerProviderInterface() {
+            @Override
+            public Scheduler io() {
+                return computationScheduler;
+            }
+
+            @Override
+            public Scheduler computation() {
+                return computationScheduler;
+            }
+
+            @Override
+            public Scheduler ui() {
+                return uiScheduler;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        SchedulerProvider.setScheduler(null);
+        computation.shutdownNow();
+        ui.shutdownNow();
+    }
+
+    @Test
+    public void multicastDeliversLatestValueToAllSubscribers() throws Exception {
+        DataProcessor<Integer> processor = DataProcessor.createMulticast(0);
+        burst(processor, SUBSCRIBERS);
+        assertTrue("each post should serve several subscribers", processor.getDeliveryCount() > processor.getPostCount());
+    }
+
+    @Test
+    public void multicastLateSubscriberGetsCurrentValue() throws Exception {
+        DataProcessor<Integer> processor = DataProcessor.createMulticast(0);
+        CountDownLatch first = new CountDownLatch(1);
+        Disposable early = processor.toFlowable().subscribe(value -> {
+            if (value == 1) {
+                first.countDown();
+            }
+        });
+        processor.onNext(1);
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch late = new CountDownLatch(1);
+        Disposable lateSubscriber = processor.toFlowable().subscribe(value -> {
+            if (value == 1) {
+                late.countDown();
+            }
+        });
+        assertTrue(late.await(5, TimeUnit.SECONDS));
+        early.dispose();
+        lateSubscriber.dispose();
+    }
+
+    @Test
+    public void benchmarkHotProcessorFanOut() throws Exception {
+        for (int subscribers : SUBSCRIBER_COUNTS) {
+            double create = Benchmark.measure("DataProcessor.create x" + subscribers, UPDATES,
+                    () -> burst(DataProcessor.create(0), subscribers));
+            double multicast = Benchmark.measure("DataProcessor.createMulticast x" + subscribers, UPDATES,
+                    () -> burst(DataProcessor.createMulticast(0), subscribers));
+            Cost createCost = cost(DataProcessor.create(0), subscribers);
+            Cost multicastCost = cost(DataProcessor.createMulticast(0), subscribers);
+            System.out.println(String.format(Locale.US, "x%d multicast / create: %.2f time, posts/update %.2f vs %.2f,"
+                            + " bytes/update %.0f vs %.0f", subscribers, multicast / create,
+                    multicastCost.postsPerUpdate, createCost.postsPerUpdate,
+                    multicastCost.bytesPerUpdate, createCost.bytesPerUpdate));
+            if (subscribers > 1) {
+                assertTrue("multicast should post less than create for " + subscribers + " subscribers",
+                        multicastCost.postsPerUpdate < createCost.postsPerUpdate);
+            }
+        }
+    }
+
+    /**
+     * Runs one {@link #burst} and divides the scheduler posts and the bytes allocated by all
+     * threads by the number of updates. The allocation figure is -1 if the JVM cannot report it.
+     */
+    private Cost cost(DataProcessor<Integer> processor, int subscribers) throws InterruptedException {
+        long allocatedBefore = allocatedBytes();
+        long postsBefore = posts.get();
+        burst(processor, subscribers);
+        long postsAfter = posts.get();
+        long allocatedAfter = allocatedBytes();
+        double bytesPerUpdate = allocatedBefore < 0 || allocatedAfter < 0 ? -1
+                : (double) (allocatedAfter - allocatedBefore) / UPDATES;
+        return new Cost((double) (postsAfter - postsBefore) / UPDATES, bytesPerUpdate);
+    }
+
+    private Executor counting(Executor executor) {
+        return command -> {
+            posts.incrementAndGet();
+            executor.execute(command);
+        };
+    }
+
+    /**
+     * @return Bytes allocated so far by all live threads, or -1 if not supported
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : hotspot.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Scheduler posts and allocated bytes per update of one burst.
+     */
+    private static final class Cost {
+        final double postsPerUpdate;
+        final double bytesPerUpdate;
+
+        Cost(double postsPerUpdate, double bytesPerUpdate) {
+            this.postsPerUpdate = postsPerUpdate;
+            this.bytesPerUpdate = bytesPerUpdate;
+        }
+    }
+
+    /**
+     * Subscribes the given number of consumers and emits {@link #UPDATES} values, waiting after
+     * each one until every consumer has received it. This is the fan-out cost of one update of a
+     * hot telemetry processor.
+     */
+    private static void burst(DataProcessor<Integer> processor, int subscribers) throws InterruptedException {
+        Semaphore received = new Semaphore(0);
+        List<Disposable> disposables = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            disposables.add(processor.toFlowable().subscribe(value -> received.release()));
+        }
+        assertTrue(received.tryAcquire(subscribers, 10, TimeUnit.SECONDS));
+        for (int i = 1; i <= UPDATES; i++) {
+            processor.onNext(i);
+            assertTrue("subscribers did not receive " + i, received.tryAcquire(subscribers, 10, TimeUnit.SECONDS));
+        }
+        assertEquals(UPDATES, (int) processor.getValue());
+        for (Disposable disposable : disposables) {
+            disposable.dispose();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018-2020 DJI
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package dji.v5.ux.core.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Correctness checks and timings for {@link ObjectPool}, single-threaded and with several
+ * threads sharing one pool.
+ */
+public class ObjectPoolBenchmark {
+
+    private static final int CAPACITY = 128;
+    private static final int THREADS = 4;
+    private static final int PAIRS_PER_THREAD = 200_000;
+
+    private static final class Item {
+        final AtomicBoolean inUse = new AtomicBoolean();
+    }
+
+    private static final class ItemPool extends ObjectPool<Item> {
+        ItemPool() {
+            super(CAPACITY);
+        }
+
+        @Override
+        protected Item create() {
+            return new Item();
+        }
+    }
+
+    @Test
+    public void recycledObjectIsReused() {
+        ItemPool pool = new ItemPool();
+        Item first = pool.acquire();
+        assertTrue(pool.recycle(first));
+        assertSame(first, pool.acquire());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(1, pool.getHitCount());
+    }
+
+    @Test
+    public void fullPoolRejectsRecycle() {
+        ItemPool pool = new ItemPool();
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(pool.recycle(new Item()));
+        }
+        assertEquals(CAPACITY, pool.getIdleCount());
+        assertFalse(pool.recycle(new Item()));
+        assertEquals(1, pool.getOverflowCount());
+    }
+
+    @Test
+    public void concurrentUseNeverHandsOutAnObjectTwice() throws Exception {
+        ItemPool pool = new ItemPool();
+        AtomicInteger doubleHandouts = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < PAIRS_PER_THREAD; i++) {
+                Item item = pool.acquire();
+                if (!item.inUse.compareAndSet(false, true)) {
+                    doubleHandouts.incrementAndGet();
+                }
+                item.inUse.set(false);
+                pool.recycle(item);
+            }
+        });
+        assertEquals(0, doubleHandouts.get());
+        assertTrue(pool.getIdleCount() <= THREADS);
+    }
+
+    @Test
+    public void benchmarkAcquireRecycle() throws Exception {
+        ItemPool pool = new ItemPool();
+        Benchmark.measure("ObjectPool acquire/recycle, 1 thread", PAIRS_PER_THREAD, () -> {
+            for (int i = 0; i < PAIRS_PER_THREAD; i++) {
+                pool.recycle(pool.acquire());
+            }
+        });
+        Benchmark.measure("ObjectPool acquire/recycle, " + THREADS + " threads", THREADS * PAIRS_PER_THREAD,
+                () -> runConcurrently(() -> {
+                    for (int i = 0; i < PAIRS_PER_THREAD; i++) {
+                        pool.recycle(pool.acquire());
+                    }
+                }));
+        assertTrue(pool.getHitCount() > pool.getMissCount());
+    }
+
+    private static void runConcurrently(Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
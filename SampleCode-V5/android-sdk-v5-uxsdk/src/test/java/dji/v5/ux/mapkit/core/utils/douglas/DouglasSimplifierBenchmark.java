@@ -0,0 +1,228 @@
+package dji.v5.ux.mapkit.core.utils.douglas;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import dji.v5.ux.core.util.Benchmark;
+import dji.v5.ux.mapkit.core.models.DJILatLng;
+import dji.v5.ux.mapkit.core.utils.DJIGpsUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Correctness checks and timings for {@link DouglasSimplifier} on synthetic tracks, compared
+ * with {@link RecursiveBaseline}, a copy of the recursive great-circle implementation that
+ * {@link DouglasUtils} used before.
+ */
+public class DouglasSimplifierBenchmark {
+
+    private static final int TRACK_POINTS = 100_000;
+    private static final int BASELINE_POINTS = 10_000;
+    private static final double THRESHOLD = 1.0;
+
+    @Test
+    public void straightLineKeepsOnlyEnds() {
+        double[] lats = new double[100];
+        double[] lngs = new double[100];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = 22.5 + i * 1e-5;
+            lngs[i] = 113.9 + i * 1e-5;
+        }
+        assertArrayEquals(new int[]{0, 99}, DouglasSimplifier.simplify(lats, lngs, lats.length, THRESHOLD));
+    }
+
+    @Test
+    public void zigzagAboveThresholdKeepsEveryPoint() {
+        double[] lats = new double[50];
+        double[] lngs = new double[50];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = 22.5 + (i % 2) * 1e-3;
+            lngs[i] = 113.9 + i * 1e-3;
+        }
+        assertEquals(lats.length, DouglasSimplifier.simplify(lats, lngs, lats.length, THRESHOLD).length);
+    }
+
+    @Test
+    public void grownStackIsKeptByItsOwner() {
+        // On an exponentially decaying curve the farthest point is always close to the start of
+        // the segment, so the pending left halves pile up on the stack.
+        int count = 2_000;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = i;
+            ys[i] = 1000 * Math.pow(0.5, i);
+        }
+        DouglasSimplifier.IndexStack stack = new DouglasSimplifier.IndexStack();
+        int initialCapacity = stack.capacity();
+        int kept = DouglasSimplifier.markKept(xs, ys, 0, count - 1, 0, new boolean[count], stack);
+        assertEquals(count, kept);
+        int grownCapacity = stack.capacity();
+        assertTrue("the test track should overflow the initial stack", grownCapacity > initialCapacity);
+
+        DouglasSimplifier.markKept(xs, ys, 0, count - 1, 0, new boolean[count], stack);
+        assertEquals(grownCapacity, stack.capacity());
+    }
+
+    @Test
+    public void streamingEmitsBothTrackEnds() {
+        double[][] track = randomWalk(TRACK_POINTS);
+        List<double[]> streamed = new ArrayList<>();
+        DouglasSimplifier.Streaming streaming = new DouglasSimplifier.Streaming(1024, THRESHOLD,
+                (lat, lng) -> streamed.add(new double[]{lat, lng}));
+        for (int i = 0; i < TRACK_POINTS; i++) {
+            streaming.add(track[0][i], track[1][i]);
+        }
+        streaming.flush();
+
+        assertEquals(TRACK_POINTS, streaming.getInputCount());
+        assertEquals(streamed.size(), streaming.getOutputCount());
+        assertTrue(streamed.size() < TRACK_POINTS);
+        assertArrayEquals(new double[]{track[0][0], track[1][0]}, streamed.get(0), 0);
+        assertArrayEquals(new double[]{track[0][TRACK_POINTS - 1], track[1][TRACK_POINTS - 1]},
+                streamed.get(streamed.size() - 1), 0);
+    }
+
+    @Test
+    public void keepsAboutAsManyPointsAsTheBaseline() {
+        double[][] track = randomWalk(BASELINE_POINTS);
+        int[] kept = DouglasSimplifier.simplify(track[0], track[1], BASELINE_POINTS, THRESHOLD);
+        List<DJILatLng> baseline = RecursiveBaseline.compress(toLatLngs(track, BASELINE_POINTS), THRESHOLD);
+
+        // The plane projection and the great-circle triangle height differ slightly, so points
+        // right at the threshold may go either way.
+        assertEquals(baseline.size(), kept.length, baseline.size() * 0.05);
+        assertEquals(0, kept[0]);
+        assertEquals(BASELINE_POINTS - 1, kept[kept.length - 1]);
+        assertEquals(track[0][0], baseline.get(0).getLatitude(), 0);
+        assertEquals(track[0][BASELINE_POINTS - 1], baseline.get(baseline.size() - 1).getLatitude(), 0);
+    }
+
+    @Test
+    public void benchmarkSimplify() throws Exception {
+        double[][] track = randomWalk(TRACK_POINTS);
+        List<DJILatLng> points = toLatLngs(track, TRACK_POINTS);
+        List<?>[] baselineResult = new List<?>[1];
+        // The baseline is slow, so it gets fewer rounds.
+        Benchmark.measure("RecursiveBaseline.compress " + TRACK_POINTS + " points", 1, 3, TRACK_POINTS,
+                () -> baselineResult[0] = RecursiveBaseline.compress(points, THRESHOLD));
+        assertTrue(baselineResult[0].size() >= 2);
+
+        int[][] result = new int[1][];
+        Benchmark.measure("DouglasSimplifier.simplify " + TRACK_POINTS + " points", TRACK_POINTS,
+                () -> result[0] = DouglasSimplifier.simplify(track[0], track[1], TRACK_POINTS, THRESHOLD));
+        assertEquals(0, result[0][0]);
+        assertEquals(TRACK_POINTS - 1, result[0][result[0].length - 1]);
+
+        long[] emitted = new long[1];
+        Benchmark.measure("DouglasSimplifier.Streaming " + TRACK_POINTS + " points", TRACK_POINTS, () -> {
+            DouglasSimplifier.Streaming streaming = new DouglasSimplifier.Streaming(1024, THRESHOLD, (lat, lng) -> emitted[0]++);
+            for (int i = 0; i < TRACK_POINTS; i++) {
+                streaming.add(track[0][i], track[1][i]);
+            }
+            streaming.flush();
+        });
+        assertTrue(emitted[0] > 0);
+    }
+
+    private static List<DJILatLng> toLatLngs(double[][] track, int count) {
+        List<DJILatLng> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new DJILatLng(track[0][i], track[1][i]));
+        }
+        return points;
+    }
+
+    /**
+     * A flight-like track: about 1 m steps with a slowly drifting heading.
+     */
+    private static double[][] randomWalk(int count) {
+        Random random = new Random(42);
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        double lat = 22.5;
+        double lng = 113.9;
+        double heading = 0;
+        for (int i = 0; i < count; i++) {
+            heading += random.nextGaussian() * 0.05;
+            lat += Math.cos(heading) * 1e-5;
+            lng += Math.sin(heading) * 1e-5;
+            lats[i] = lat;
+            lngs[i] = lng;
+        }
+        return new double[][]{lats, lngs};
+    }
+
+    /**
+     * The recursive implementation formerly in {@link DouglasUtils}: each distance test computes
+     * three great-circle distances, every point is wrapped in an object and the kept points are
+     * sorted at the end.
+     */
+    static final class RecursiveBaseline {
+
+        private RecursiveBaseline() {
+        }
+
+        static List<DJILatLng> compress(List<DJILatLng> points, double threshold) {
+            int size = points.size();
+            List<IndexedPoint> originPoints = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                originPoints.add(new IndexedPoint(i, points.get(i)));
+            }
+            List<IndexedPoint> kept = compressLine(originPoints.toArray(new IndexedPoint[size]), new ArrayList<>(), 0, size - 1, threshold);
+            kept.add(originPoints.get(0));
+            kept.add(originPoints.get(size - 1));
+            Collections.sort(kept, (o1, o2) -> Integer.compare(o1.id, o2.id));
+            List<DJILatLng> latLngs = new ArrayList<>();
+            for (IndexedPoint point : kept) {
+                latLngs.add(point.latLng);
+            }
+            return latLngs;
+        }
+
+        private static List<IndexedPoint> compressLine(IndexedPoint[] points, List<IndexedPoint> kept, int start, int end, double threshold) {
+            if (start < end) {
+                double maxDis = 0;
+                int currentIndex = 0;
+                for (int i = start + 1; i < end; i++) {
+                    double currentDist = distToSegment(points[start], points[end], points[i]);
+                    if (currentDist > maxDis) {
+                        maxDis = currentDist;
+                        currentIndex = i;
+                    }
+                }
+                if (maxDis >= threshold) {
+                    kept.add(points[currentIndex]);
+                    compressLine(points, kept, start, currentIndex, threshold);
+                    compressLine(points, kept, currentIndex, end, threshold);
+                }
+            }
+            return kept;
+        }
+
+        private static double distToSegment(IndexedPoint start, IndexedPoint end, IndexedPoint mid) {
+            double a = Math.abs(DJIGpsUtils.distance(start.latLng, end.latLng));
+            double b = Math.abs(DJIGpsUtils.distance(start.latLng, mid.latLng));
+            double c = Math.abs(DJIGpsUtils.distance(mid.latLng, end.latLng));
+            double p = (a + b + c) / 2.0D;
+            double s = Math.sqrt(Math.abs(p * (p - a) * (p - b) * (p - c)));
+            return s * 2.0 / a;
+        }
+
+        private static final class IndexedPoint {
+            final int id;
+            final DJILatLng latLng;
+
+            IndexedPoint(int id, DJILatLng latLng) {
+                this.id = id;
+                this.latLng = latLng;
+            }
+        }
+    }
+}